@@ -0,0 +1,97 @@
+package jpnco.simula.actors;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jpnco.simula.Actor;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.log.LogSink;
+
+/**
+ * Measures the cost of a Logger call when its level is enabled and when it is
+ * disabled. The records are written to a sink that drops them, so the cost
+ * measured when enabled is the one paid by the calling actor: the level check
+ * and the append to the ring.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LoggerBenchmark {
+
+	/**
+	 * A sink that drops the records.
+	 */
+	private static final class NullLogSink implements LogSink {
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void write(final Logger.Level level, final int time, final Actor source, final String format,
+				final Object[] args, final int from) {
+		}
+	}
+
+	@Param({ "true", "false" })
+	boolean enabled;
+
+	private EngineImpl engine;
+	private final Integer value = 42;
+
+	@Benchmark
+	public void debug() {
+		Logger.debug(engine, "value %d\n", value);
+	}
+
+	@Benchmark
+	public void debugGuarded() {
+		if (Logger.isDebugActivated(engine)) {
+			Logger.debug(engine, "value %d\n", value);
+		}
+	}
+
+	@Benchmark
+	public void debugVarargs() {
+		Logger.debug(engine, "values %d %d %d %d\n", value, value, value, value);
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Logger.forceLevel(Logger.Level.ERROR);
+		engine = new EngineImpl("LoggerBenchmark", 1);
+		engine.getLogger().setSink(new NullLogSink());
+		Logger.forceLevel(enabled ? Logger.Level.DEBUG : Logger.Level.ERROR);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		Logger.forceLevel(Logger.Level.ERROR);
+		engine.start();
+		engine.stop().join();
+	}
+
+}
@@ -0,0 +1,71 @@
+package jpnco.simula.actors;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jpnco.simula.Engine;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.engine.EventImpl;
+
+/**
+ * Measures a tick of TimeSource.setTime with 0, 100 and 10000 pending alarms.
+ * The alarms are set far in the future, so the cost measured is the scan of the
+ * alarms and the signal of the TIME event. The engine has a time factor of one
+ * hour, so its own clock does not tick during the benchmark.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TimeSourceBenchmark {
+
+	private static final int TIME_FACTOR = 3600;
+
+	@Param({ "0", "100", "10000" })
+	int alarms;
+
+	private EngineImpl engine;
+	private TimeSource timeSource;
+	private int time = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Logger.forceLevel(Logger.Level.ERROR);
+		engine = new EngineImpl("TimeSourceBenchmark", TIME_FACTOR);
+		timeSource = engine.getTimeSource();
+		for (int i = 0; i < alarms; i++) {
+			timeSource.process(EventImpl.createEvent(Engine.REQUEST_ALARM_EVENT, engine, "alarm" + i,
+					Integer.MAX_VALUE - i));
+		}
+	}
+
+	@Benchmark
+	public void setTime() {
+		timeSource.setTime(++time);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		engine.start();
+		engine.stop().join();
+	}
+
+}
@@ -0,0 +1,115 @@
+package jpnco.simula.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+
+/**
+ * Compares the binary codec with the Java serialization on two events: a TIME
+ * event and a load event (two longs and a payload). The Java serialization
+ * writes the same fields as the codec: topic, source name, time and parameters.
+ * <p>
+ * The codec benchmarks reuse their writer and reader, as a journal or a
+ * transport does, so the topic and the source name are only written once.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CodecBenchmark {
+
+	@Param({ "TIME", "LOAD" })
+	public String kind;
+
+	private EngineImpl engine;
+	private Event event;
+	private final Codec codec = new Codec();
+	private EventWriter writer;
+	private EventReader reader;
+	private ByteBuffer encoded;
+	private byte[] serialized;
+
+	@Benchmark
+	public EventRecord codecDecode() {
+		return codec.decode(reader.reset(encoded.rewind()));
+	}
+
+	@Benchmark
+	public int codecEncode() {
+		codec.encode(event, writer.clear());
+		return writer.size();
+	}
+
+	@Benchmark
+	public Object[] javaDeserialize() throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+			return (Object[]) in.readObject();
+		}
+	}
+
+	@Benchmark
+	public int javaSerialize() throws IOException {
+		return serialize().length;
+	}
+
+	private byte[] serialize() throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(new Object[] { event.getTopic(), event.getSource().getName(), event.getTime(),
+					event.getParameters() });
+		}
+		return bytes.toByteArray();
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		Logger.forceLevel(Logger.Level.ERROR);
+		engine = new EngineImpl("CodecBenchmark", 1);
+		event = "TIME".equals(kind) ? EventImpl.createEvent(Engine.TIME_EVENT, engine, 42)
+				: EventImpl.createEvent("LOAD", engine, System.nanoTime(), 1234L, new byte[64]);
+		writer = new EventWriter();
+		codec.encode(event, writer);
+		// the stream read in loop holds the event once its strings are defined
+		final EventReader warm = new EventReader();
+		codec.decode(warm.reset(ByteBuffer.wrap(writer.buffer().array(), 0, writer.size())));
+		reader = warm;
+		codec.encode(event, writer.clear());
+		encoded = ByteBuffer.wrap(Arrays.copyOf(writer.buffer().array(), writer.size()));
+		serialized = serialize();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		engine.start();
+		engine.stop().join();
+	}
+
+}
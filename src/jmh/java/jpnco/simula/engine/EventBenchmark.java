@@ -0,0 +1,75 @@
+package jpnco.simula.engine;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+
+/**
+ * Measures the creation of the three kinds of events and their duplication, as
+ * done for each child engine by signalToChildren.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EventBenchmark {
+
+	private EngineImpl engine;
+	private EngineImpl child;
+	private Event event;
+	private final Integer parameter = 42;
+
+	@Benchmark
+	public Event createDelayedEvent() {
+		return EventImpl.createDelayedEvent("benchmark", 10, engine, parameter);
+	}
+
+	@Benchmark
+	public Event createEvent() {
+		return EventImpl.createEvent("benchmark", engine, parameter);
+	}
+
+	@Benchmark
+	public Event createPriorityEvent() {
+		return EventImpl.createPriorityEvent("benchmark", 1, engine, parameter);
+	}
+
+	@Benchmark
+	public Event duplicate() {
+		return event.duplicate(child);
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Logger.forceLevel(Logger.Level.ERROR);
+		engine = new EngineImpl("EventBenchmark", 1);
+		child = new EngineImpl("EventBenchmarkChild", engine);
+		event = EventImpl.createEvent("benchmark", engine, parameter);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		engine.start();
+		engine.stop().join();
+	}
+
+}
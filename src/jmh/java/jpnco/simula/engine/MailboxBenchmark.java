@@ -0,0 +1,90 @@
+package jpnco.simula.engine;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+
+/**
+ * Measures the throughput of a mailbox for the three data queues of
+ * ActorDelegate: a batch of events is posted, then taken. The events of the
+ * priority queue have distinct priorities, so the heap is really ordered.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MailboxBenchmark {
+
+	private static final int BATCH = 64;
+
+	@Param({ "LINKED", "PRIORITY", "DELAY" })
+	String queue;
+
+	private EngineImpl engine;
+	private Mailbox mailbox;
+	private final Event[] events = new Event[BATCH];
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Logger.forceLevel(Logger.Level.ERROR);
+		engine = new EngineImpl("MailboxBenchmark", 1);
+		final BlockingQueue<Event> data = switch (queue) {
+		case "LINKED" -> new LinkedBlockingQueue<>();
+		case "PRIORITY" -> new PriorityBlockingQueue<>();
+		case "DELAY" -> new DelayQueue<>();
+		default -> throw new IllegalArgumentException(queue);
+		};
+		mailbox = new Mailbox(data, Mailbox.ACTOR_CONTROL_TOPICS);
+		for (int i = 0; i < BATCH; i++) {
+			events[i] = switch (queue) {
+			case "PRIORITY" -> EventImpl.createPriorityEvent("benchmark", BATCH - i, engine);
+			case "DELAY" -> EventImpl.createDelayedEvent("benchmark", 0, engine);
+			default -> EventImpl.createEvent("benchmark", engine);
+			};
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void postAndTake(final Blackhole blackhole) throws InterruptedException {
+		for (final Event event : events) {
+			mailbox.post(event);
+		}
+		for (int i = 0; i < BATCH; i++) {
+			blackhole.consume(mailbox.take());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		engine.start();
+		engine.stop().join();
+	}
+
+}
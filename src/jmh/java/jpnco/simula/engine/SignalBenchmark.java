@@ -0,0 +1,129 @@
+package jpnco.simula.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+
+/**
+ * Measures the fan-out of EngineImpl.signal to 1, 10 and 1000 subscribers. The
+ * subscribers only count the posted events, so the cost measured is the lookup
+ * of the subscribers and the dispatch loop.
+ * <p>
+ * The keyed benchmark signals an event with the key of one of as many keyed
+ * subscribers, each subscribing its own key: only this subscriber receives it.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SignalBenchmark {
+
+	/**
+	 * A subscriber that counts the events posted to it.
+	 */
+	private static final class CountingActor implements Actor {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Engine engine;
+		private long posted;
+
+		CountingActor(final Engine engine) {
+			this.engine = engine;
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return null;
+		}
+
+		@Override
+		public Engine getEngine() {
+			return engine;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		@Override
+		public void post(final Event event) {
+			posted++;
+		}
+
+		@Override
+		public void process(final Event event) {
+		}
+	}
+
+	private static final String TOPIC = "benchmark";
+	private static final String KEYED_TOPIC = "keyed";
+
+	@Param({ "1", "10", "1000" })
+	int subscribers;
+
+	private EngineImpl engine;
+	private Event event;
+	private Event keyedEvent;
+	private int nextKey = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Logger.forceLevel(Logger.Level.ERROR);
+		engine = new EngineImpl("SignalBenchmark", 1);
+		final List<Actor> actors = new ArrayList<>(subscribers);
+		for (int i = 0; i < subscribers; i++) {
+			actors.add(new CountingActor(engine));
+		}
+		engine.subscribeAll(actors, TOPIC);
+		event = EventImpl.createEvent(TOPIC, engine);
+		for (int i = 0; i < subscribers; i++) {
+			engine.subscribe(new CountingActor(engine), KEYED_TOPIC, i);
+		}
+		keyedEvent = EventImpl.createEvent(KEYED_TOPIC, engine);
+	}
+
+	@Benchmark
+	public void signal() {
+		engine.signal(event);
+	}
+
+	@Benchmark
+	public void signalKeyed() {
+		engine.signal(keyedEvent, nextKey);
+		if (++nextKey == subscribers) {
+			nextKey = 0;
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		engine.start();
+		engine.stop().join();
+	}
+
+}
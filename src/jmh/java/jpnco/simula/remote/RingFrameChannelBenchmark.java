@@ -0,0 +1,122 @@
+package jpnco.simula.remote;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jpnco.simula.Engine;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.engine.Codec;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.engine.EventImpl;
+import jpnco.simula.engine.EventReader;
+import jpnco.simula.engine.EventWriter;
+
+/**
+ * Measures the rate of the events sent through the shared memory rings, in
+ * events per microsecond: the benchmark thread writes frames of encoded TIME
+ * events and a reader thread decodes them. The rings are the ones of two
+ * processes, mapped twice in one process.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RingFrameChannelBenchmark {
+
+	private static final int EVENTS = 1 << 16;
+
+	@Param({ "1", "64", "1024" })
+	public int batch;
+
+	private Path file;
+	private RingFrameChannel creator;
+	private RingFrameChannel opener;
+	private ByteBuffer frame;
+	private Thread reader;
+	private final AtomicLong received = new AtomicLong();
+	private long sent = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		Logger.forceLevel(Logger.Level.ERROR);
+		file = EngineHost.sharedMemoryFile("RingFrameChannelBenchmark-" + ProcessHandle.current().pid());
+		creator = RingFrameChannel.create(file, RingFrameChannel.DEFAULT_CAPACITY);
+		opener = RingFrameChannel.open(file, 1000);
+		final EngineImpl engine = new EngineImpl("RingFrameChannelBenchmark", 1);
+		final Codec codec = new Codec();
+		final EventWriter writer = new EventWriter();
+		// the first frame defines the topic and the source name
+		codec.encode(EventImpl.createEvent(Engine.TIME_EVENT, engine, 0), writer);
+		opener.write(writer.buffer().flip());
+		writer.clear();
+		for (int i = 0; i < batch; i++) {
+			codec.encode(EventImpl.createEvent(Engine.TIME_EVENT, engine, i), writer);
+		}
+		frame = ByteBuffer.wrap(Arrays.copyOf(writer.buffer().array(), writer.size()));
+		// the event of the first frame is not counted
+		received.set(-1);
+		reader = new Thread(() -> {
+			final EventReader events = new EventReader();
+			try {
+				for (ByteBuffer read = creator.read(); read != null; read = creator.read()) {
+					events.reset(read);
+					long count = 0;
+					while (events.remaining() > 0) {
+						codec.decode(events);
+						count++;
+					}
+					received.addAndGet(count);
+				}
+			} catch (final IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}, "RingFrameChannelBenchmark:reader");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException, InterruptedException {
+		opener.close();
+		reader.join();
+		creator.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public long transfer() throws IOException {
+		for (int i = 0; i < EVENTS / batch; i++) {
+			opener.write(frame.rewind());
+		}
+		sent += EVENTS;
+		while (received.get() < sent) {
+			Thread.onSpinWait();
+		}
+		return sent;
+	}
+
+}
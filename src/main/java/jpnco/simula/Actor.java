@@ -61,6 +61,18 @@ public interface Actor extends Runnable, Comparable<Actor> {
 		return -getId().compareTo(o.getId());
 	}
 
+	/**
+	 * Returns the activation of the log levels of this actor. The activation is
+	 * held by the delegate, so it is shared by an actor and its delegate.
+	 *
+	 * @return the activation of the log levels of this actor, or null if this
+	 *         actor has no delegate.
+	 */
+	default Logger.LevelActivation getActivation() {
+		final Actor delegate = getDelegate();
+		return delegate != null ? delegate.getActivation() : null;
+	}
+
 	/**
 	 * Returns the delegate of this actor. May be null, if this actor has no
 	 * delegate.
@@ -86,12 +98,14 @@ public interface Actor extends Runnable, Comparable<Actor> {
 	Integer getId();
 
 	/**
-	 * Returns the name of this actor.
+	 * Returns the name of this actor. The name is computed at each call, so an
+	 * actor whose name is often used should override this method to return a
+	 * cached name.
 	 *
 	 * @return the name of this actor.
 	 */
 	default String getName() {
-		return String.format("%s:%s", getClass().getSimpleName(), getEngine().getName());
+		return getClass().getSimpleName() + ":" + getEngine().getName();
 	}
 
 	/**
@@ -156,4 +170,15 @@ public interface Actor extends Runnable, Comparable<Actor> {
 		getEngine().subscribe(this, topic);
 	}
 
+	/**
+	 * Subscribes to the events of a given topic signaled with a given key, or
+	 * without a key.
+	 *
+	 * @param topic the topic to subscribe
+	 * @param key   the key of the events to receive
+	 */
+	default void subscribe(final String topic, final Object key) {
+		getEngine().subscribe(this, topic, key);
+	}
+
 }
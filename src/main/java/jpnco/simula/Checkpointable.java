@@ -0,0 +1,31 @@
+package jpnco.simula;
+
+import jpnco.simula.engine.EventReader;
+import jpnco.simula.engine.EventWriter;
+
+/**
+ * An actor whose state is saved by a checkpoint of its engine tree and restored
+ * in a rebuilt tree. The state is written and read with the primitives of the
+ * binary encoding of the events. Both methods are called while the tree is
+ * paused, so the actor does not process any event in the meantime.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public interface Checkpointable extends Actor {
+
+	/**
+	 * Writes the state of this actor.
+	 *
+	 * @param out the writer of the checkpoint
+	 */
+	void checkpoint(EventWriter out);
+
+	/**
+	 * Reads the state of this actor, as written by {@link #checkpoint}.
+	 *
+	 * @param in the reader of the checkpoint
+	 */
+	void restore(EventReader in);
+
+}
@@ -1,7 +1,12 @@
 package jpnco.simula;
 
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
 import jpnco.simula.actors.Logger;
 import jpnco.simula.actors.TimeSource;
+import jpnco.simula.engine.TerminationDetector;
+import jpnco.simula.stats.Statistics;
 
 /**
  * An Engine instance pilots a set of actors and potentially a set of child
@@ -29,6 +34,16 @@ public interface Engine extends Runnable, Actor {
 	final String REQUEST_ALARM_EVENT = "REQUEST_ALARM";
 	final String CLEAR_ALARM_EVENT = "CLEAR_ALARM";
 
+	/**
+	 * Waits until there is no event in flight nor pending one-shot alarm in this
+	 * engine and its child engines. Returns immediately if the engine is not started yet.
+	 *
+	 * @throws InterruptedException if the current thread is interrupted
+	 */
+	default void awaitQuiescence() throws InterruptedException {
+		TerminationDetector.of(this).awaitQuiescence();
+	}
+
 	/**
 	 * Adds a child engine.
 	 *
@@ -51,6 +66,18 @@ public interface Engine extends Runnable, Actor {
 	 */
 	Engine getParent();
 
+	/**
+	 * Returns the statistics of this engine. When this engine stops, its
+	 * statistics are merged into the statistics of its parent, so the statistics
+	 * of the root engine aggregate the whole engine tree once it is stopped. By
+	 * default, an engine has no statistics.
+	 *
+	 * @return the statistics of this engine, may be null
+	 */
+	default Statistics getStatistics() {
+		return null;
+	}
+
 	/**
 	 * Returns current time
 	 *
@@ -66,6 +93,17 @@ public interface Engine extends Runnable, Actor {
 	 */
 	int getTimeFactor();
 
+	/**
+	 * Returns the termination detector of this engine. It counts the events in
+	 * flight and the pending alarms of this engine and its child engines. By
+	 * default, an engine has no detector.
+	 *
+	 * @return the termination detector of this engine, may be null
+	 */
+	default TerminationDetector getTerminationDetector() {
+		return null;
+	}
+
 	/**
 	 * Returns the time source of this engine
 	 *
@@ -81,6 +119,30 @@ public interface Engine extends Runnable, Actor {
 	 */
 	Actor registerAndStart(Actor actor);
 
+	/**
+	 * Registers and starts a set of actors. The actors are registered and
+	 * subscribed to the SIMULA lifecycle topics in one pass, then they are started
+	 * in parallel. This is the fastest way to populate a large model. By default,
+	 * each actor is registered and started in turn.
+	 *
+	 * @param actors the actors to register and start
+	 */
+	default void registerAndStartAll(final Collection<? extends Actor> actors) {
+		actors.forEach(this::registerAndStart);
+	}
+
+	/**
+	 * Routes an event to the subscribers of its topic in the whole engine tree:
+	 * the subscribers of this engine, of the child engines whose subtree subscribes
+	 * the topic, and of the ancestors and their other subtrees. By default, the
+	 * event is only signaled by this engine.
+	 *
+	 * @param event the event to route
+	 */
+	default void route(final Event event) {
+		signal(event);
+	}
+
 	/**
 	 * Signals an event. all registered actor will receive this event if they
 	 * subscribed it
@@ -89,6 +151,19 @@ public interface Engine extends Runnable, Actor {
 	 */
 	void signal(Event event);
 
+	/**
+	 * Signals an event with a key. The subscribers of the topic of the event
+	 * without a key and the subscribers of the key receive it, the subscribers of
+	 * other keys do not. By default, the event is signaled to all the subscribers
+	 * of its topic.
+	 *
+	 * @param event the event to signal
+	 * @param key   the key of the event, such as the id of an entity
+	 */
+	default void signal(final Event event, final Object key) {
+		signal(event);
+	}
+
 	/**
 	 * Signals an event to the child engines.
 	 *
@@ -102,11 +177,14 @@ public interface Engine extends Runnable, Actor {
 	void start();
 
 	/**
-	 * Stops this engine. Be careful, if there are a lot of actors and/or a lot of
-	 * child engines, stopping must be quite long and some actors can continue to
-	 * work during stopping.
+	 * Stops this engine. All actors and child engines are stopped, then the logger
+	 * is stopped in a final phase. Some actors can continue to work until they
+	 * receive the stop event.
+	 *
+	 * @return a future that completes once this engine and all its child engines
+	 *         are stopped.
 	 */
-	void stop();
+	CompletableFuture<Void> stop();
 
 	/**
 	 * Subscribes a topic for a given actor
@@ -116,6 +194,35 @@ public interface Engine extends Runnable, Actor {
 	 */
 	void subscribe(Actor actor, String topic);
 
+	/**
+	 * Subscribes a topic for a given actor, restricted to the events signaled with
+	 * a given key and the events signaled without a key. An actor may subscribe
+	 * several keys of a topic. By default, the actor subscribes all the events of
+	 * the topic.
+	 *
+	 * @param actor the actor that must subscribe the topic
+	 * @param topic the topic to subscribe
+	 * @param key   the key of the events to receive
+	 */
+	default void subscribe(final Actor actor, final String topic, final Object key) {
+		subscribe(actor, topic);
+	}
+
+	/**
+	 * Subscribes a set of topics for a set of actors in one pass. By default, each
+	 * actor subscribes each topic in turn.
+	 *
+	 * @param actors the actors that must subscribe the topics
+	 * @param topics the topics to subscribe
+	 */
+	default void subscribeAll(final Collection<? extends Actor> actors, final String... topics) {
+		for (final Actor actor : actors) {
+			for (final String topic : topics) {
+				subscribe(actor, topic);
+			}
+		}
+	}
+
 	/**
 	 * Unregister an actor. Returns true, it there no loner any registered actor
 	 *
@@ -133,4 +240,16 @@ public interface Engine extends Runnable, Actor {
 	 */
 	void unsubscribe(Actor actor, String topic);
 
+	/**
+	 * Unsubscribes a key of a topic for a given actor. By default, the actor
+	 * unsubscribes the topic.
+	 *
+	 * @param actor the actor that must unsubscribe the key
+	 * @param topic the topic
+	 * @param key   the key to unsubscribe
+	 */
+	default void unsubscribe(final Actor actor, final String topic, final Object key) {
+		unsubscribe(actor, topic);
+	}
+
 }
@@ -2,6 +2,8 @@ package jpnco.simula;
 
 import java.util.concurrent.Delayed;
 
+import jpnco.simula.trace.TraceContext;
+
 /**
  * An event captures a fact that occurs in the system at a given instant. It is
  * signaled on a given topic and holds a set of specific parameters that defines
@@ -67,6 +69,16 @@ public interface Event extends Cloneable, Delayed {
 	 */
 	String getTopic();
 
+	/**
+	 * Returns the trace context of this event, null if tracing was disabled when
+	 * this event was created. By default, an event is not traced.
+	 *
+	 * @return the trace context of this event
+	 */
+	default TraceContext getTrace() {
+		return null;
+	}
+
 	/**
 	 * Returns <code>true</code> is the event is delayed <code>false</code>
 	 * otherwise
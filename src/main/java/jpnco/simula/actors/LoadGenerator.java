@@ -0,0 +1,318 @@
+package jpnco.simula.actors;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.engine.ActorDelegate;
+import jpnco.simula.engine.EventImpl;
+import jpnco.simula.engine.IdBuilder;
+import jpnco.simula.stats.QuantileSketch;
+import jpnco.simula.stats.Statistics;
+
+/**
+ * This actor emits synthetic events at a target rate, in order to find the
+ * saturation point of an engine configuration. The events are signaled on a
+ * list of topics and acknowledged by {@link LoadSink} actors: the delivery
+ * latency of each acknowledged event is recorded.
+ * <p>
+ * The load is described by a {@link Profile}:
+ * <li>the arrival process: constant rate, Poisson arrivals or bursts ;
+ * <li>the average rate, in events per second ;
+ * <li>the payload size, in bytes ;
+ * <li>the fan-out: the number of topics each event is signaled to, taken in
+ * turn from the topics of the generator ;
+ * <li>the number of events to emit.
+ * <p>
+ * The generator paces itself with delayed events, so it runs on a DelayQueue.
+ * When it falls behind its schedule, it emits the late events in batches,
+ * processing the acknowledgements in between: the rate really achieved is
+ * given by {@link #getSent()}, the events still unacknowledged by comparing it
+ * to {@link #getAcked()}.
+ * <p>
+ * The latencies, in microseconds, are recorded in the statistics of the engine
+ * as "LoadGenerator#id.latency".
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class LoadGenerator implements Actor {
+
+	/**
+	 * The arrival process of the events.
+	 */
+	public enum Arrival {
+		/** Events evenly spaced */
+		CONSTANT,
+		/** Events with exponential inter-arrival times */
+		POISSON,
+		/** Bursts of events emitted at once, evenly spaced */
+		BURSTY
+	}
+
+	/**
+	 * The load emitted by a generator.
+	 *
+	 * @param arrival     the arrival process
+	 * @param rate        the average rate, in events per second
+	 * @param burstSize   the number of events of a burst, 1 if not bursty
+	 * @param payloadSize the size in bytes of the payload of the events
+	 * @param fanOut      the number of topics each event is signaled to
+	 * @param count       the number of events to emit, or {@link #UNLIMITED}
+	 * @param seed        the seed of the Poisson arrivals
+	 */
+	public record Profile(Arrival arrival, double rate, int burstSize, int payloadSize, int fanOut, long count,
+			long seed) {
+
+		/** No limit on the number of events */
+		public static final long UNLIMITED = Long.MAX_VALUE;
+
+		/**
+		 * Returns a profile of bursts of events, without payload, signaled to one
+		 * topic, without limit.
+		 *
+		 * @param rate      the average rate, in events per second
+		 * @param burstSize the number of events of a burst
+		 * @return a bursty profile
+		 */
+		public static Profile bursty(final double rate, final int burstSize) {
+			return new Profile(Arrival.BURSTY, rate, burstSize, 0, 1, UNLIMITED, 0);
+		}
+
+		/**
+		 * Returns a profile of evenly spaced events, without payload, signaled to one
+		 * topic, without limit.
+		 *
+		 * @param rate the rate, in events per second
+		 * @return a constant rate profile
+		 */
+		public static Profile constant(final double rate) {
+			return new Profile(Arrival.CONSTANT, rate, 1, 0, 1, UNLIMITED, 0);
+		}
+
+		/**
+		 * Returns a profile of Poisson arrivals, without payload, signaled to one
+		 * topic, without limit.
+		 *
+		 * @param rate the average rate, in events per second
+		 * @param seed the seed of the arrivals
+		 * @return a Poisson profile
+		 */
+		public static Profile poisson(final double rate, final long seed) {
+			return new Profile(Arrival.POISSON, rate, 1, 0, 1, UNLIMITED, seed);
+		}
+
+		public Profile {
+			Objects.requireNonNull(arrival);
+			if (!(rate > 0) || burstSize <= 0 || payloadSize < 0 || fanOut <= 0 || count < 0) {
+				throw new IllegalArgumentException("bad load profile");
+			}
+		}
+
+		/**
+		 * Returns a copy of this profile with another number of events.
+		 *
+		 * @param newCount the number of events to emit
+		 * @return a copy of this profile
+		 */
+		public Profile withCount(final long newCount) {
+			return new Profile(arrival, rate, burstSize, payloadSize, fanOut, newCount, seed);
+		}
+
+		/**
+		 * Returns a copy of this profile with another fan-out.
+		 *
+		 * @param newFanOut the number of topics each event is signaled to
+		 * @return a copy of this profile
+		 */
+		public Profile withFanOut(final int newFanOut) {
+			return new Profile(arrival, rate, burstSize, payloadSize, newFanOut, count, seed);
+		}
+
+		/**
+		 * Returns a copy of this profile with another payload size.
+		 *
+		 * @param newPayloadSize the size in bytes of the payload of the events
+		 * @return a copy of this profile
+		 */
+		public Profile withPayloadSize(final int newPayloadSize) {
+			return new Profile(arrival, rate, burstSize, newPayloadSize, fanOut, count, seed);
+		}
+	}
+
+	/** The topic of the acknowledgements sent by the sinks */
+	public static final String ACK_EVENT = "LOAD_ACK";
+
+	private static final String TICK_EVENT = "LOAD_TICK";
+	// the number of events emitted before processing the pending acknowledgements
+	private static final int MAX_BATCH = 1024;
+
+	private final Integer id = IdBuilder.nextId();
+	private final Actor delegate;
+	private final Engine engine;
+	private final String[] topics;
+	private final Profile profile;
+	private final SplittableRandom random;
+	private final QuantileSketch latency;
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong acked = new AtomicLong();
+	private long startNanos;
+	// the schedule of the next event, in nanoseconds since the start
+	private double next = 0;
+	private int burstPosition = 0;
+	private int cursor = 0;
+
+	/**
+	 * Builds a generator. It must be registered and started in its engine, and
+	 * starts emitting when the engine starts.
+	 *
+	 * @param engine  the engine of this generator
+	 * @param profile the load to emit
+	 * @param topics  the topics to signal the events to
+	 */
+	public LoadGenerator(final Engine engine, final Profile profile, final String... topics) {
+		this.engine = Objects.requireNonNull(engine);
+		this.profile = Objects.requireNonNull(profile);
+		if (topics.length == 0) {
+			throw new IllegalArgumentException("no topic");
+		}
+		this.topics = Arrays.copyOf(topics, topics.length);
+		random = new SplittableRandom(profile.seed());
+		final String name = getSimpleName() + "#" + id + ".latency";
+		final Statistics statistics = engine.getStatistics();
+		latency = statistics != null ? statistics.quantiles(name) : new QuantileSketch(name);
+		delegate = ActorDelegate.createDelayedDelegate(engine, this);
+	}
+
+	/**
+	 * Records the latency of an acknowledged event.
+	 *
+	 * @param event the acknowledgement
+	 */
+	private void acked(final Event event) {
+		final long stamp = (Long) event.getParameters()[0];
+		latency.add((System.nanoTime() - stamp) / 1000.0);
+		acked.incrementAndGet();
+	}
+
+	@Override
+	public void afterStart() {
+		startNanos = System.nanoTime();
+		post(EventImpl.createDelayedEvent(TICK_EVENT, 0, this));
+	}
+
+	/**
+	 * Emits one event on the next topics.
+	 */
+	private void emit() {
+		final long sequence = sent.get();
+		final byte[] payload = new byte[profile.payloadSize()];
+		final long stamp = System.nanoTime();
+		for (int i = 0; i < profile.fanOut(); i++) {
+			final String topic = topics[cursor];
+			cursor = (cursor + 1) % topics.length;
+			engine.signal(EventImpl.createEvent(topic, this, stamp, sequence, payload));
+		}
+		sent.set(sequence + 1);
+	}
+
+	/**
+	 * Emits the events whose schedule is reached, then waits for the next one.
+	 */
+	private void emitDue() {
+		final double now = System.nanoTime() - startNanos;
+		int batch = 0;
+		while (sent.get() < profile.count() && next <= now && batch < MAX_BATCH) {
+			emit();
+			next += interval();
+			batch++;
+		}
+		if (sent.get() < profile.count()) {
+			final long delay = next <= now ? 0 : (long) Math.ceil((next - now) / 1_000_000);
+			post(EventImpl.createDelayedEvent(TICK_EVENT, delay, this));
+		}
+	}
+
+	/**
+	 * Returns the number of acknowledgements received.
+	 *
+	 * @return the number of acknowledgements received
+	 */
+	public long getAcked() {
+		return acked.get();
+	}
+
+	@Override
+	public Actor getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public Engine getEngine() {
+		return engine;
+	}
+
+	@Override
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the latencies of the acknowledged events, in microseconds.
+	 *
+	 * @return the latencies of the acknowledged events
+	 */
+	public QuantileSketch getLatency() {
+		return latency;
+	}
+
+	public Profile getProfile() {
+		return profile;
+	}
+
+	/**
+	 * Returns the number of events emitted, each one signaled to fan-out topics.
+	 *
+	 * @return the number of events emitted
+	 */
+	public long getSent() {
+		return sent.get();
+	}
+
+	/**
+	 * Returns the time to wait before the next event, in nanoseconds.
+	 */
+	private double interval() {
+		final double mean = 1e9 / profile.rate();
+		return switch (profile.arrival()) {
+		case CONSTANT -> mean;
+		case POISSON -> -Math.log(1 - random.nextDouble()) * mean;
+		case BURSTY -> {
+			if (++burstPosition < profile.burstSize()) {
+				yield 0;
+			}
+			burstPosition = 0;
+			yield mean * profile.burstSize();
+		}
+		};
+	}
+
+	@Override
+	public void process(final Event event) {
+		switch (event.getTopic()) {
+		case ACK_EVENT:
+			acked(event);
+			break;
+		case TICK_EVENT:
+			emitDue();
+			break;
+		default:
+			Logger.error(this, "unexpected event %s\n", event.getTopic());
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+package jpnco.simula.actors;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.engine.ActorDelegate;
+import jpnco.simula.engine.EventImpl;
+import jpnco.simula.engine.IdBuilder;
+
+/**
+ * This actor receives the events of {@link LoadGenerator} actors and
+ * acknowledges each one to its generator, which records the delivery latency.
+ * The other events are only counted.
+ * <p>
+ * The acknowledgement is posted straight to the generator, as a delayed event
+ * without delay, so that it is ordered with the pacing events of the generator
+ * in its DelayQueue.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class LoadSink implements Actor {
+
+	private final Integer id = IdBuilder.nextId();
+	private final Actor delegate;
+	private final LongAdder received = new LongAdder();
+
+	/**
+	 * Builds a sink subscribing to topics. It must be registered and started in
+	 * its engine.
+	 *
+	 * @param engine the engine of this sink
+	 * @param topics the topics to subscribe to
+	 */
+	public LoadSink(final Engine engine, final String... topics) {
+		Objects.requireNonNull(engine);
+		delegate = ActorDelegate.createDelegate(engine, this);
+		for (final String topic : topics) {
+			engine.subscribe(this, topic);
+		}
+	}
+
+	@Override
+	public Actor getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the number of events received.
+	 *
+	 * @return the number of events received
+	 */
+	public long getReceived() {
+		return received.sum();
+	}
+
+	@Override
+	public void process(final Event event) {
+		received.increment();
+		if (event.getSource() instanceof LoadGenerator) {
+			event.getSource()
+					.post(EventImpl.createDelayedEvent(LoadGenerator.ACK_EVENT, 0, this, event.getParameters()[0]));
+		}
+	}
+
+}
@@ -0,0 +1,219 @@
+package jpnco.simula.actors;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import jpnco.simula.Actor;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.log.LogSink;
+
+/**
+ * A bounded multi-producer single-consumer ring of log records. Actors append
+ * records (level, time, source, format and arguments) into preallocated slots
+ * without any lock; a single writer thread hands the records in batches to a
+ * {@link LogSink}.
+ * <p>
+ * Each slot has a sequence number: a producer claims a position with a CAS on
+ * the tail, fills the slot and publishes it by setting its sequence. The writer
+ * reads the slots in order and releases them for the next lap.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+final class LogRing implements Runnable {
+
+	private static final int BATCH_SIZE = 256;
+	private static final long PARK_NANOS = 100_000_000L;
+
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final Level[] levels;
+	private final int[] times;
+	private final Actor[] sources;
+	private final Object[][] parameters;
+	private final AtomicLong tail = new AtomicLong();
+	private long head = 0;
+	private volatile LogSink sink;
+	private LogSink current;
+	private final Thread writer;
+	private volatile boolean sleeping = false;
+	private volatile boolean closed = false;
+
+	/**
+	 * Builds a ring and starts its writer thread.
+	 *
+	 * @param name     the name of the writer thread
+	 * @param capacity the capacity of the ring, rounded up to a power of 2
+	 * @param sink     the sink to write to
+	 */
+	LogRing(final String name, final int capacity, final LogSink sink) {
+		final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		mask = size - 1;
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		levels = new Level[size];
+		times = new int[size];
+		sources = new Actor[size];
+		parameters = new Object[size][];
+		this.sink = sink;
+		current = sink;
+		writer = new Thread(this, name);
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Appends a record. Waits if the ring is full. The record is dropped if the
+	 * ring is closed.
+	 *
+	 * @param level  the level of the record
+	 * @param time   the simulated time of the record
+	 * @param source the actor that logs
+	 * @param params the format followed by its arguments
+	 */
+	void append(final Level level, final int time, final Actor source, final Object[] params) {
+		long position;
+		int slot;
+		while (true) {
+			if (closed) {
+				return;
+			}
+			position = tail.get();
+			slot = (int) position & mask;
+			final long available = sequences.get(slot) - position;
+			if (available == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					break;
+				}
+			} else if (available < 0) {
+				// ring is full
+				wakeUp();
+				Thread.yield();
+			}
+		}
+		levels[slot] = level;
+		times[slot] = time;
+		sources[slot] = source;
+		parameters[slot] = params;
+		sequences.set(slot, position + 1);
+		if (sleeping) {
+			wakeUp();
+		}
+	}
+
+	/**
+	 * Closes this ring. The records appended before are written, then the writer
+	 * thread stops. Waits for the writer thread.
+	 */
+	void close() {
+		closed = true;
+		LockSupport.unpark(writer);
+		if (Thread.currentThread() != writer) {
+			try {
+				writer.join();
+			} catch (final InterruptedException e) {
+				e.printStackTrace();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Writes at most one batch of records. Returns the number of written records.
+	 *
+	 * @return the number of written records.
+	 */
+	private int drain() {
+		if (current != sink) {
+			flush(current);
+			current = sink;
+		}
+		int count = 0;
+		while (count < BATCH_SIZE) {
+			final int slot = (int) head & mask;
+			if (sequences.get(slot) != head + 1) {
+				break;
+			}
+			write(levels[slot], times[slot], sources[slot], parameters[slot]);
+			sources[slot] = null;
+			parameters[slot] = null;
+			sequences.set(slot, head + mask + 1);
+			head++;
+			count++;
+		}
+		if (count > 0) {
+			flush(current);
+		}
+		return count;
+	}
+
+	private static void flush(final LogSink sink) {
+		try {
+			sink.flush();
+		} catch (final UncheckedIOException exc) {
+			exc.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns the sink of this ring.
+	 *
+	 * @return the sink of this ring
+	 */
+	LogSink getSink() {
+		return sink;
+	}
+
+	@Override
+	public void run() {
+		while (true) {
+			if (drain() == 0) {
+				if (closed) {
+					// a last drain for the records appended just before close
+					while (drain() > 0) {
+					}
+					try {
+						current.close();
+					} catch (final UncheckedIOException exc) {
+						exc.printStackTrace();
+					}
+					return;
+				}
+				sleeping = true;
+				if (sequences.get((int) head & mask) != head + 1 && !closed) {
+					LockSupport.parkNanos(this, PARK_NANOS);
+				}
+				sleeping = false;
+			}
+		}
+	}
+
+	/**
+	 * Sets the sink of this ring. The writer thread switches to the new sink at
+	 * its next batch, after flushing the previous one.
+	 *
+	 * @param sink the new sink
+	 */
+	void setSink(final LogSink sink) {
+		this.sink = sink;
+	}
+
+	private void wakeUp() {
+		LockSupport.unpark(writer);
+	}
+
+	private void write(final Level level, final int time, final Actor source, final Object[] params) {
+		final String format = params[0] instanceof final String value ? value : String.valueOf(params[0]);
+		try {
+			current.write(level, time, source, format, params, 1);
+		} catch (final RuntimeException exc) {
+			// an actor cannot be allowed to kill the writer thread
+			exc.printStackTrace();
+		}
+	}
+
+}
@@ -1,19 +1,21 @@
 package jpnco.simula.actors;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import jpnco.simula.Actor;
 import jpnco.simula.Engine;
 import jpnco.simula.Event;
 import jpnco.simula.engine.ActorDelegate;
-import jpnco.simula.engine.EventImpl;
 import jpnco.simula.engine.IdBuilder;
+import jpnco.simula.engine.TerminationDetector;
+import jpnco.simula.log.LogSink;
+import jpnco.simula.log.ProbeRecorder;
+import jpnco.simula.log.TextLogSink;
 
 /**
  * Logger actor is responsible to log the activity of all actors for a given
@@ -21,6 +23,18 @@ import jpnco.simula.engine.IdBuilder;
  * <p>
  * Only static methods <b>debug</b>, <b>warning</b>, <b>info</b> and
  * <b>error</b> has to be used by actors.
+ * <p>
+ * Each method exists with up to three arguments and with a message supplier.
+ * When the level is not activated, these variants return after a field read,
+ * without allocating any array.
+ * <p>
+ * Log records do not go through the engine: they are appended into a lock-free
+ * ring owned by the logger of the engine, and a single writer thread hands
+ * them in batches to the {@link LogSink} of the logger. The default sink
+ * formats them as text on the standard output.
+ * <p>
+ * Probe samples can also be recorded as typed values, without formatting, into
+ * the {@link ProbeRecorder} of the logger of the engine.
  *
  * @author Jean-Pascal Cozic
  *
@@ -37,8 +51,12 @@ public final class Logger implements Actor {
 		}
 	}
 
-	private static class LevelActivation {
-		private int activated = Level.ERROR.level;
+	/**
+	 * The activation of the log levels of an actor. Each actor holds its own
+	 * activation in a final field, so checking a level costs two field reads.
+	 */
+	public static final class LevelActivation {
+		private volatile int activated = Level.ERROR.level;
 
 		boolean isActivated(final Level level) {
 			return level.level >= activated;
@@ -49,56 +67,209 @@ public final class Logger implements Actor {
 		}
 	}
 
-	private static Map<Actor, LevelActivation> levelActivations = new HashMap<>();
+	/**
+	 * The activation used for actors that provide none, as mocks.
+	 */
+	private static final LevelActivation DEFAULT_ACTIVATION = new LevelActivation();
 
-	private static Level forcedLevel = null;
+	/**
+	 * The activations of the actors that provide none, created when a level is
+	 * set for one of them.
+	 */
+	private static final Map<Actor, LevelActivation> ACTIVATIONS = new ConcurrentHashMap<>();
 
-	private static final String PREFIX_PROBE = "%d ";
+	private static volatile Level forcedLevel = null;
 
-	private static final String PREFIX = "%d %s %s ";
+	private static final int RING_CAPACITY = 8192;
 
-	private static final int TIMEOUT = 5;
+	private static void append(final Level level, final Actor source, final Object[] parameters) {
+		final Engine engine = source.getEngine();
+		// The logger may be null while the engine is being built
+		final Logger logger = engine != null ? engine.getLogger() : null;
+		if (logger != null) {
+			logger.ring.append(level, engine.getTime(), source, parameters);
+		}
+	}
 
 	public static void debug(final Actor source, final Object... parameters) {
 		log(Level.DEBUG, source, parameters);
 	}
 
+	public static void debug(final Actor source, final String format) {
+		if (isActivated(source, Level.DEBUG)) {
+			append(Level.DEBUG, source, new Object[] { format });
+		}
+	}
+
+	public static void debug(final Actor source, final String format, final Object arg) {
+		if (isActivated(source, Level.DEBUG)) {
+			append(Level.DEBUG, source, new Object[] { format, arg });
+		}
+	}
+
+	public static void debug(final Actor source, final String format, final Object arg1, final Object arg2) {
+		if (isActivated(source, Level.DEBUG)) {
+			append(Level.DEBUG, source, new Object[] { format, arg1, arg2 });
+		}
+	}
+
+	public static void debug(final Actor source, final String format, final Object arg1, final Object arg2,
+			final Object arg3) {
+		if (isActivated(source, Level.DEBUG)) {
+			append(Level.DEBUG, source, new Object[] { format, arg1, arg2, arg3 });
+		}
+	}
+
+	public static void debug(final Actor source, final Supplier<String> message) {
+		if (isActivated(source, Level.DEBUG)) {
+			append(Level.DEBUG, source, new Object[] { "%s", message.get() });
+		}
+	}
+
 	public static void error(final Actor source, final Object... parameters) {
 		log(Level.ERROR, source, parameters);
 	}
 
+	public static void error(final Actor source, final String format) {
+		if (isActivated(source, Level.ERROR)) {
+			append(Level.ERROR, source, new Object[] { format });
+		}
+	}
+
+	public static void error(final Actor source, final String format, final Object arg) {
+		if (isActivated(source, Level.ERROR)) {
+			append(Level.ERROR, source, new Object[] { format, arg });
+		}
+	}
+
+	public static void error(final Actor source, final String format, final Object arg1, final Object arg2) {
+		if (isActivated(source, Level.ERROR)) {
+			append(Level.ERROR, source, new Object[] { format, arg1, arg2 });
+		}
+	}
+
+	public static void error(final Actor source, final String format, final Object arg1, final Object arg2,
+			final Object arg3) {
+		if (isActivated(source, Level.ERROR)) {
+			append(Level.ERROR, source, new Object[] { format, arg1, arg2, arg3 });
+		}
+	}
+
+	public static void error(final Actor source, final Supplier<String> message) {
+		if (isActivated(source, Level.ERROR)) {
+			append(Level.ERROR, source, new Object[] { "%s", message.get() });
+		}
+	}
+
 	public static void forceLevel(final Level level) {
 		forcedLevel = level;
 	}
 
+	private static ProbeRecorder getProbeRecorder(final Actor source) {
+		if (!isActivated(source, Level.PROBE)) {
+			return null;
+		}
+		final Engine engine = source.getEngine();
+		final Logger logger = engine != null ? engine.getLogger() : null;
+		return logger != null ? logger.probeRecorder : null;
+	}
+
 	public static void info(final Actor source, final Object... parameters) {
 		log(Level.INFO, source, parameters);
 	}
 
-	public static boolean isActivated(final Actor source, final Level level) {
-		if (forcedLevel != null) {
-			return level.level >= forcedLevel.level;
+	public static void info(final Actor source, final String format) {
+		if (isActivated(source, Level.INFO)) {
+			append(Level.INFO, source, new Object[] { format });
+		}
+	}
+
+	public static void info(final Actor source, final String format, final Object arg) {
+		if (isActivated(source, Level.INFO)) {
+			append(Level.INFO, source, new Object[] { format, arg });
 		}
-		LevelActivation activation = levelActivations.get(source);
-		if (activation == null) {
-			activation = new LevelActivation();
-			levelActivations.put(source, activation);
+	}
+
+	public static void info(final Actor source, final String format, final Object arg1, final Object arg2) {
+		if (isActivated(source, Level.INFO)) {
+			append(Level.INFO, source, new Object[] { format, arg1, arg2 });
+		}
+	}
+
+	public static void info(final Actor source, final String format, final Object arg1, final Object arg2,
+			final Object arg3) {
+		if (isActivated(source, Level.INFO)) {
+			append(Level.INFO, source, new Object[] { format, arg1, arg2, arg3 });
+		}
+	}
+
+	public static void info(final Actor source, final Supplier<String> message) {
+		if (isActivated(source, Level.INFO)) {
+			append(Level.INFO, source, new Object[] { "%s", message.get() });
+		}
+	}
+
+	/**
+	 * Returns true if a level is activated for an actor. This check is cheap, so
+	 * it can guard a log statement whose arguments are expensive to compute.
+	 *
+	 * @param source the actor that logs
+	 * @param level  the level to check
+	 * @return true if this level is activated for this actor.
+	 */
+	public static boolean isActivated(final Actor source, final Level level) {
+		final Level forced = forcedLevel;
+		if (forced != null) {
+			return level.level >= forced.level;
 		}
-		return activation.isActivated(level);
+		final LevelActivation activation = source.getActivation();
+		return (activation != null ? activation : ACTIVATIONS.getOrDefault(source, DEFAULT_ACTIVATION))
+				.isActivated(level);
+	}
+
+	public static boolean isDebugActivated(final Actor source) {
+		return isActivated(source, Level.DEBUG);
+	}
+
+	public static boolean isTraceActivated(final Actor source) {
+		return isActivated(source, Level.TRACE);
 	}
 
 	private static void log(final Level level, final Actor source, final Object... parameters) {
 		if (isActivated(source, level)) {
-			if (!(source instanceof Logger)) {
-				final Object[] levelAsArray = { level };
-				final Object[] both = Stream.of(levelAsArray, parameters).flatMap(Stream::of).toArray(Object[]::new);
-				final Event log = EventImpl.createEvent(Engine.LOG_EVENT, source, both);
-				source.getEngine().signal(log);
-			} else {
-				final String format = (String) parameters[0];
-				System.out.printf(String.format(PREFIX, source.getEngine().getTime(), level, source.getName()) + format,
-						Arrays.copyOfRange(parameters, 1, parameters.length));
-			}
+			append(level, source, parameters);
+		}
+	}
+
+	/**
+	 * Records a double sample into the probe recorder of the engine of an actor,
+	 * at the current time of the engine. Does nothing if the engine has no probe
+	 * recorder.
+	 *
+	 * @param source the actor that records the sample
+	 * @param probe  the id of the probe in the recorder
+	 * @param value  the value of the sample
+	 */
+	public static void probe(final Actor source, final int probe, final double value) {
+		final ProbeRecorder recorder = getProbeRecorder(source);
+		if (recorder != null) {
+			recorder.record(probe, source.getEngine().getTime(), value);
+		}
+	}
+
+	/**
+	 * Records a long sample into the probe recorder of the engine of an actor, at
+	 * the current time of the engine. Does nothing if the engine has no probe
+	 * recorder.
+	 *
+	 * @param source the actor that records the sample
+	 * @param probe  the id of the probe in the recorder
+	 * @param value  the value of the sample
+	 */
+	public static void probe(final Actor source, final int probe, final long value) {
+		final ProbeRecorder recorder = getProbeRecorder(source);
+		if (recorder != null) {
+			recorder.record(probe, source.getEngine().getTime(), value);
 		}
 	}
 
@@ -106,27 +277,131 @@ public final class Logger implements Actor {
 		log(Level.PROBE, source, parameters);
 	}
 
-	public static void setActivated(final Actor source, final Level level, final boolean isActivated) {
-		LevelActivation activation = levelActivations.get(source);
-		if (activation == null) {
-			activation = new LevelActivation();
-			levelActivations.put(source, activation);
+	public static void probe(final Actor source, final String format) {
+		if (isActivated(source, Level.PROBE)) {
+			append(Level.PROBE, source, new Object[] { format });
+		}
+	}
+
+	public static void probe(final Actor source, final String format, final Object arg) {
+		if (isActivated(source, Level.PROBE)) {
+			append(Level.PROBE, source, new Object[] { format, arg });
+		}
+	}
+
+	public static void probe(final Actor source, final String format, final Object arg1, final Object arg2) {
+		if (isActivated(source, Level.PROBE)) {
+			append(Level.PROBE, source, new Object[] { format, arg1, arg2 });
 		}
-		activation.setActivated(level, isActivated);
+	}
+
+	public static void probe(final Actor source, final String format, final Object arg1, final Object arg2,
+			final Object arg3) {
+		if (isActivated(source, Level.PROBE)) {
+			append(Level.PROBE, source, new Object[] { format, arg1, arg2, arg3 });
+		}
+	}
+
+	public static void probe(final Actor source, final Supplier<String> message) {
+		if (isActivated(source, Level.PROBE)) {
+			append(Level.PROBE, source, new Object[] { "%s", message.get() });
+		}
+	}
+
+	/**
+	 * Sets the level activated for an actor. An actor that provides no activation
+	 * gets its own one.
+	 *
+	 * @param source      the actor
+	 * @param level       the level
+	 * @param isActivated true to activate this level
+	 */
+	public static void setActivated(final Actor source, final Level level, final boolean isActivated) {
+		final LevelActivation activation = source.getActivation();
+		(activation != null ? activation : ACTIVATIONS.computeIfAbsent(source, actor -> new LevelActivation()))
+				.setActivated(level, isActivated);
 	}
 
 	public static void trace(final Actor source, final Object... parameters) {
 		log(Level.TRACE, source, parameters);
 	}
 
+	public static void trace(final Actor source, final String format) {
+		if (isActivated(source, Level.TRACE)) {
+			append(Level.TRACE, source, new Object[] { format });
+		}
+	}
+
+	public static void trace(final Actor source, final String format, final Object arg) {
+		if (isActivated(source, Level.TRACE)) {
+			append(Level.TRACE, source, new Object[] { format, arg });
+		}
+	}
+
+	public static void trace(final Actor source, final String format, final Object arg1, final Object arg2) {
+		if (isActivated(source, Level.TRACE)) {
+			append(Level.TRACE, source, new Object[] { format, arg1, arg2 });
+		}
+	}
+
+	public static void trace(final Actor source, final String format, final Object arg1, final Object arg2,
+			final Object arg3) {
+		if (isActivated(source, Level.TRACE)) {
+			append(Level.TRACE, source, new Object[] { format, arg1, arg2, arg3 });
+		}
+	}
+
+	public static void trace(final Actor source, final Supplier<String> message) {
+		if (isActivated(source, Level.TRACE)) {
+			append(Level.TRACE, source, new Object[] { "%s", message.get() });
+		}
+	}
+
 	public static void warning(final Actor source, final Object... parameters) {
 		log(Level.WARNING, source, parameters);
 	}
 
+	public static void warning(final Actor source, final String format) {
+		if (isActivated(source, Level.WARNING)) {
+			append(Level.WARNING, source, new Object[] { format });
+		}
+	}
+
+	public static void warning(final Actor source, final String format, final Object arg) {
+		if (isActivated(source, Level.WARNING)) {
+			append(Level.WARNING, source, new Object[] { format, arg });
+		}
+	}
+
+	public static void warning(final Actor source, final String format, final Object arg1, final Object arg2) {
+		if (isActivated(source, Level.WARNING)) {
+			append(Level.WARNING, source, new Object[] { format, arg1, arg2 });
+		}
+	}
+
+	public static void warning(final Actor source, final String format, final Object arg1, final Object arg2,
+			final Object arg3) {
+		if (isActivated(source, Level.WARNING)) {
+			append(Level.WARNING, source, new Object[] { format, arg1, arg2, arg3 });
+		}
+	}
+
+	public static void warning(final Actor source, final Supplier<String> message) {
+		if (isActivated(source, Level.WARNING)) {
+			append(Level.WARNING, source, new Object[] { "%s", message.get() });
+		}
+	}
+
 	private final Actor delegate;
 
 	private final Integer id;
 
+	private final LogRing ring;
+
+	private final String name;
+
+	private volatile ProbeRecorder probeRecorder;
+
 	/**
 	 * Builds a logger actor.
 	 *
@@ -135,9 +410,24 @@ public final class Logger implements Actor {
 	public Logger(final Engine engine) {
 		delegate = ActorDelegate.createDelegate(engine, this);
 		id = IdBuilder.nextId();
+		name = getSimpleName() + ":" + engine.getName();
+		ring = new LogRing(name, RING_CAPACITY, new TextLogSink());
 		subscribe(Engine.LOG_EVENT);
 	}
 
+	/**
+	 * Writes all the appended records and stops the writer thread of this logger,
+	 * then closes its probe recorder. Records appended later are dropped. This
+	 * method is called when the logger stops.
+	 */
+	public void close() {
+		ring.close();
+		final ProbeRecorder recorder = probeRecorder;
+		if (recorder != null) {
+			recorder.close();
+		}
+	}
+
 	@Override
 	public boolean equals(final Object obj) {
 		if (this == obj) {
@@ -163,6 +453,29 @@ public final class Logger implements Actor {
 		return id;
 	}
 
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the probe recorder of this logger, null if there is none.
+	 *
+	 * @return the probe recorder of this logger
+	 */
+	public ProbeRecorder getProbeRecorder() {
+		return probeRecorder;
+	}
+
+	/**
+	 * Returns the sink where the records of this logger are written.
+	 *
+	 * @return the sink of this logger
+	 */
+	public LogSink getSink() {
+		return ring.getSink();
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(id);
@@ -172,40 +485,55 @@ public final class Logger implements Actor {
 	@Override
 	public void process(final Event event) {
 		if (Engine.LOG_EVENT.equals(event.getTopic())) {
+			// LOG events are still accepted, for instance from an other engine
 			final Object[] parameters = event.getParameters();
 			final Level level = (Level) parameters[0];
-			final String format = (String) parameters[1];
-			if (Level.PROBE == level) {
-				System.out.printf(String.format(PREFIX_PROBE, event.getTime()) + format,
-						Arrays.copyOfRange(parameters, 2, parameters.length));
-			} else {
-				System.out.printf(String.format(PREFIX, event.getTime(), level, event.getSource().getName()) + format,
-						Arrays.copyOfRange(parameters, 2, parameters.length));
-
-			}
+			ring.append(level, event.getTime(), event.getSource(), Arrays.copyOfRange(parameters, 1, parameters.length));
 		} else if (Engine.PURGE_QUEUE_EVENT.equals(event.getTopic())) {
 			purgeQueue((BlockingQueue<Event>) event.getParameters()[0]);
 		}
 	}
 
+	/**
+	 * Processes all the events remaining in a queue. The logger is stopped by its
+	 * engine once all the other actors are stopped, so no event can be posted in
+	 * the queue anymore and there is no need to wait. Each purged event leaves the
+	 * termination detector of the engine.
+	 *
+	 * @param events the queue to purge
+	 */
 	public void purgeQueue(final BlockingQueue<Event> events) {
-		Event event = null;
-		try {
-			event = events.poll(TIMEOUT, TimeUnit.SECONDS);
-		} catch (final InterruptedException e) {
-			e.printStackTrace();
-			Thread.currentThread().interrupt();
-		}
+		final TerminationDetector detector = TerminationDetector.of(getEngine());
+		Event event = events.poll();
 		while (event != null) {
-			process(event);
-			Thread.yield();
 			try {
-				event = events.poll(TIMEOUT, TimeUnit.SECONDS);
-			} catch (final InterruptedException e) {
-				e.printStackTrace();
-				Thread.currentThread().interrupt();
+				process(event);
+			} finally {
+				detector.exit(event);
 			}
+			event = events.poll();
 		}
 	}
 
+	/**
+	 * Sets the probe recorder of this logger. The recorder is closed with this
+	 * logger.
+	 *
+	 * @param recorder the probe recorder, null to drop the samples
+	 */
+	public void setProbeRecorder(final ProbeRecorder recorder) {
+		probeRecorder = recorder;
+	}
+
+	/**
+	 * Sets the sink where the records of this logger are written. The records
+	 * appended before may still be written to the previous sink, which is flushed
+	 * but not closed. The sink is closed with this logger.
+	 *
+	 * @param sink the new sink of this logger
+	 */
+	public void setSink(final LogSink sink) {
+		ring.setSink(Objects.requireNonNull(sink));
+	}
+
 }
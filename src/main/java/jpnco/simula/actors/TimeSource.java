@@ -1,20 +1,29 @@
 package jpnco.simula.actors;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import jpnco.simula.Actor;
+import jpnco.simula.Checkpointable;
 import jpnco.simula.Engine;
 import jpnco.simula.Event;
+import jpnco.simula.engine.ActorMetrics;
 import jpnco.simula.engine.EventImpl;
+import jpnco.simula.engine.EventReader;
+import jpnco.simula.engine.EventWriter;
 import jpnco.simula.engine.IdBuilder;
+import jpnco.simula.engine.TerminationDetector;
+import jpnco.simula.engine.TickBarrier;
+import jpnco.simula.jfr.TickFired;
+import jpnco.simula.trace.Tracing;
 
 /**
  *
@@ -47,11 +56,19 @@ import jpnco.simula.engine.IdBuilder;
  * The alarm is signaled by an event with the topic associated to the alarm.
  * <p>
  * Until an alarm is fired, it can be cleared.
+ * <p>
+ * A pending one-shot alarm is counted as an event in flight by the
+ * {@link TerminationDetector} of the engine. A periodic alarm is not counted,
+ * otherwise the engine would never be quiescent.
+ * <p>
+ * The clock skips its ticks while the engine tree is paused by its
+ * {@link TickBarrier}, and the checkpoint of a time source holds its time and
+ * its pending alarms.
  *
  * @author Jean-Pascal Cozic
  *
  */
-public final class TimeSource implements Actor {
+public final class TimeSource implements Checkpointable {
 
 	/**
 	 * This class represents an alarm that is set to fire at a given time. Fire an
@@ -118,6 +135,10 @@ public final class TimeSource implements Actor {
 		private int currentTime = 0;
 		private final ScheduledExecutorService scheduler;
 		private TimeSource timeSource;
+		private long startNanos;
+		private long periodNanos;
+		private volatile long lagNanos = 0;
+		private TickBarrier.Gate gate;
 
 		Clock() {
 			scheduler = Executors.newScheduledThreadPool(1);
@@ -125,7 +146,18 @@ public final class TimeSource implements Actor {
 
 		@Override
 		public void run() {
-			timeSource.setTime(++currentTime);
+			if (!gate.tryEnter()) {
+				// the tree is paused: the tick is skipped and the schedule is shifted
+				startNanos += periodNanos;
+				return;
+			}
+			try {
+				// how late this tick is compared to its schedule
+				lagNanos = System.nanoTime() - (startNanos + (currentTime + 1) * periodNanos);
+				timeSource.setTime(++currentTime);
+			} finally {
+				gate.exit();
+			}
 		}
 
 		/**
@@ -133,9 +165,13 @@ public final class TimeSource implements Actor {
 		 *
 		 * @param timeSource the timeSource that owns this clock
 		 * @param period     the period of this clock
+		 * @param gate       the gate entered at each tick
 		 */
-		void start(final TimeSource timeSource, final int period) {
+		void start(final TimeSource timeSource, final int period, final TickBarrier.Gate gate) {
 			this.timeSource = timeSource;
+			this.gate = gate;
+			startNanos = System.nanoTime();
+			periodNanos = TimeUnit.SECONDS.toNanos(period);
 			scheduler.scheduleAtFixedRate(this, period, period, TimeUnit.SECONDS);
 		}
 
@@ -144,6 +180,7 @@ public final class TimeSource implements Actor {
 		 */
 		void stop() {
 			scheduler.shutdown();
+			gate.leave();
 		}
 	}
 
@@ -151,23 +188,62 @@ public final class TimeSource implements Actor {
 	private final int TIMEOUT;
 	private int currentTime = 0;
 	private final LinkedBlockingQueue<Event> events;
-	private final Map<String, Alarm> alarms = new HashMap<>();
+	private final Map<String, Alarm> alarms = new ConcurrentHashMap<>();
 	private final Integer id;
 	private final Engine engine;
 	private final Clock clock;
+	private final TerminationDetector detector;
+	private volatile boolean started = false;
+	private final Logger.LevelActivation activation = new Logger.LevelActivation();
+	private final String name;
+	private final ActorMetrics metrics;
+	// the events posted and not yet processed
+	private final AtomicInteger pending = new AtomicInteger();
+	private final TickBarrier.Gate gate;
 
 	public TimeSource(final Engine engine, final int timeFactor) {
 		TIME_FACTOR = timeFactor;
 		TIMEOUT = 1 * TIME_FACTOR;
 		id = IdBuilder.nextId();
 		this.engine = engine;
+		name = getSimpleName() + ":" + engine.getName();
+		detector = TerminationDetector.of(engine);
 		Logger.debug(this, "Building\n");
 		// events = new ArrayBlockingQueue<>(10, true);
 		events = new LinkedBlockingQueue<>();
+		metrics = new ActorMetrics(name, events::size);
+		// the alarm requests already posted are processed while the tree is paused
+		final TickBarrier barrier = TickBarrier.of(engine);
+		gate = barrier.newGate(() -> pending.get() == 0);
 		subscribe(Engine.START_EVENT);
 		subscribe(Engine.STOP_EVENT);
 		clock = new Clock();
-		clock.start(this, TIMEOUT);
+		clock.start(this, TIMEOUT, barrier.newGate());
+	}
+
+	/**
+	 * Writes the current time and the pending alarms.
+	 *
+	 * @param out the writer of the checkpoint
+	 */
+	@Override
+	public void checkpoint(final EventWriter out) {
+		final List<Alarm> pendingAlarms = List.copyOf(alarms.values());
+		out.writeVarint(currentTime).writeVarint(pendingAlarms.size());
+		for (final Alarm alarm : pendingAlarms) {
+			out.writeTopic(alarm.getTopic()).writeVarint(alarm.getTimeToFire()).writeInt(alarm.period);
+		}
+	}
+
+	/**
+	 * Counts a pending alarm as an event in flight, unless it is periodic.
+	 *
+	 * @param alarm the pending alarm
+	 */
+	private void enter(final Alarm alarm) {
+		if (!alarm.isPeriodic()) {
+			detector.enter();
+		}
 	}
 
 	@Override
@@ -185,6 +261,17 @@ public final class TimeSource implements Actor {
 		return Objects.equals(id, other.id);
 	}
 
+	/**
+	 * Stops counting an alarm that is no longer pending.
+	 *
+	 * @param alarm the alarm that is no longer pending, may be null
+	 */
+	private void exit(final Alarm alarm) {
+		if (alarm != null && !alarm.isPeriodic()) {
+			detector.exit(false);
+		}
+	}
+
 	/**
 	 * Fire an alarm
 	 *
@@ -195,6 +282,20 @@ public final class TimeSource implements Actor {
 		getEngine().signal(fire);
 	}
 
+	/**
+	 * Returns the number of pending alarms.
+	 *
+	 * @return the number of pending alarms
+	 */
+	public int getAlarmCount() {
+		return alarms.size();
+	}
+
+	@Override
+	public Logger.LevelActivation getActivation() {
+		return activation;
+	}
+
 	@Override
 	public Actor getDelegate() {
 		throw new UnsupportedOperationException();
@@ -210,6 +311,30 @@ public final class TimeSource implements Actor {
 		return id;
 	}
 
+	/**
+	 * Returns the runtime metrics of this time source.
+	 *
+	 * @return the runtime metrics of this time source
+	 */
+	public ActorMetrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns how late the last tick of the clock was, in nanoseconds, compared to
+	 * its schedule.
+	 *
+	 * @return the lag of the last tick in nanoseconds
+	 */
+	public long getTickLagNanos() {
+		return clock.lagNanos;
+	}
+
 	/**
 	 * Returns the current time.
 	 *
@@ -226,10 +351,13 @@ public final class TimeSource implements Actor {
 
 	@Override
 	public void post(final Event event) {
+		detector.enter();
+		pending.incrementAndGet();
 		while (!events.offer(event)) {
 			// System.out.printf("%s No room in queue\n", getName());
 			Thread.yield();
 		}
+		metrics.received(event);
 	}
 
 	/**
@@ -259,7 +387,7 @@ public final class TimeSource implements Actor {
 	 */
 	private void processClearAlarm(final Event event) {
 		Logger.debug(this, "clears alarm %s\n", event.getParameters()[0]);
-		alarms.remove(event.getParameters()[0]);
+		exit(alarms.remove(event.getParameters()[0]));
 	}
 
 	/**
@@ -278,12 +406,39 @@ public final class TimeSource implements Actor {
 			alarm = new Alarm(topic, time);
 		}
 		Logger.debug(this, "creates alarm %s:%d\n", topic, time);
-		alarms.put(topic, alarm);
+		enter(alarm);
+		exit(alarms.put(topic, alarm));
 	}
 
 	@Override
 	public void purgeEvents() {
-		events.clear();
+		events.removeIf(event -> {
+			pending.decrementAndGet();
+			detector.exit(false);
+			return true;
+		});
+	}
+
+	/**
+	 * Replaces the current time and the pending alarms by the ones of a
+	 * checkpoint. The clock goes on from the restored time.
+	 *
+	 * @param in the reader of the checkpoint
+	 */
+	@Override
+	public void restore(final EventReader in) {
+		final int time = in.readVarint();
+		alarms.values().removeIf(alarm -> {
+			exit(alarm);
+			return true;
+		});
+		for (int count = in.readVarint(); count > 0; count--) {
+			final Alarm alarm = new Alarm(in.readTopic(), in.readVarint(), in.readInt());
+			enter(alarm);
+			exit(alarms.put(alarm.getTopic(), alarm));
+		}
+		currentTime = time;
+		clock.currentTime = time;
 	}
 
 	/**
@@ -296,9 +451,14 @@ public final class TimeSource implements Actor {
 		try {
 			if (!runBeforeStart()) {
 				runAfterStart();
+			} else {
+				clock.stop();
+				gate.leave();
+				engine.signal(EventImpl.createEvent(Engine.STOPPED_ACTOR_EVENT, this));
 			}
 		} catch (final Throwable exc) {
 			System.out.printf("%s is dead because of %s\n", getSimpleName(), exc.getClass().getCanonicalName());
+			gate.leave();
 			getEngine().unregister(this);
 			Logger.error(this, "is dead because of %s\n", exc.getClass().getCanonicalName());
 			throw exc;
@@ -313,21 +473,27 @@ public final class TimeSource implements Actor {
 	private void runAfterStart() {
 		while (true) {
 			try {
-				// Wait for an event during at most one second
-				// if an event occurs
-				final Event event = events.poll(TIMEOUT, TimeUnit.SECONDS);
-				if (event != null) {
+				final Event event = events.take();
+				final long start = metrics.taken(event);
+				final long traced = Tracing.begin(event);
+				try {
 					if (Engine.STOP_EVENT.equals(event.getTopic())) {
 						Logger.debug(this, "STOP requested by %s\n", event.getSource().getName());
 						clock.stop();
 						break;
 					}
 					process(event);
+				} finally {
+					metrics.processed(event, start);
+					Tracing.end(event, this, traced);
+					detector.exit(event);
+					pending.decrementAndGet();
 				}
 			} catch (final InterruptedException e) {
 				e.printStackTrace();
 			}
 		}
+		gate.leave();
 		engine.signal(EventImpl.createEvent(Engine.STOPPED_ACTOR_EVENT, this));
 	}
 
@@ -343,12 +509,14 @@ public final class TimeSource implements Actor {
 		boolean stop = false;
 		LOOP: while (true) {
 			try {
-				// TODO is the timeout usefull ?
-				final Event event = events.poll(TIMEOUT, TimeUnit.SECONDS);
-				if (event != null) {
+				final Event event = events.take();
+				final long start = metrics.taken(event);
+				final long traced = Tracing.begin(event);
+				try {
 					switch (event.getTopic()) {
 					case Engine.START_EVENT:
 						Logger.debug(this, "Starting\n");
+						started = true;
 						break LOOP;
 					case Engine.STOP_EVENT:
 						beforeStop();
@@ -364,6 +532,11 @@ public final class TimeSource implements Actor {
 						break;
 					default:
 					}
+				} finally {
+					metrics.processed(event, start);
+					Tracing.end(event, this, traced);
+					detector.exit(event);
+					pending.decrementAndGet();
 				}
 			} catch (final InterruptedException e) {
 				e.printStackTrace();
@@ -374,11 +547,21 @@ public final class TimeSource implements Actor {
 
 	/**
 	 * Set the current time and fires TIME_EVENT and alarms if needed. This method
-	 * is called by the clock instance.
+	 * is called by the clock instance. If the engine must stop when idle and the
+	 * simulation is idle, stops the engine instead. Package-private for the
+	 * benchmarks.
 	 *
 	 * @param time the time to set
 	 */
-	private void setTime(final int time) {
+	void setTime(final int time) {
+		if (started && detector.tick()) {
+			Logger.info(this, "Simulation is idle, stopping %s\n", engine.getName());
+			started = false;
+			engine.stop();
+			return;
+		}
+		final TickFired tick = new TickFired();
+		tick.begin();
 		currentTime = time;
 		final Event timeEvent = EventImpl.createEvent(Engine.TIME_EVENT, this, currentTime);
 		final Map<Boolean, List<Alarm>> m = alarms.values().stream()
@@ -389,10 +572,15 @@ public final class TimeSource implements Actor {
 			if (a.isPeriodic()) {
 				a.update();
 			} else {
-				alarms.remove(a.getTopic());
+				exit(alarms.remove(a.getTopic()));
 			}
 		});
 		engine.signal(timeEvent);
-
+		if (tick.shouldCommit()) {
+			tick.tick = time;
+			tick.alarmsFired = m.get(true).size();
+			tick.lag = clock.lagNanos;
+			tick.commit();
+		}
 	}
 }
@@ -4,6 +4,8 @@
  * <li>Logger: this actor is used to log actors's activity
  * <li>TimeSource: this actor is used to signaled time event. by default, one
  * event by "simulated second" is signaled.
+ * <li>LoadGenerator: this actor emits synthetic events at a target rate and
+ * measures their delivery latency, acknowledged by LoadSink actors
  * 
  * @author Jean-Pascal Cozic
  *
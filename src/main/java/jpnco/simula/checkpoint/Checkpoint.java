@@ -0,0 +1,369 @@
+package jpnco.simula.checkpoint;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Checkpointable;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.actors.TimeSource;
+import jpnco.simula.engine.ActorDelegate;
+import jpnco.simula.engine.Codec;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.engine.EventReader;
+import jpnco.simula.engine.EventWriter;
+import jpnco.simula.engine.StandIn;
+import jpnco.simula.engine.TickBarrier;
+
+/**
+ * A checkpoint of an engine tree, taken between two ticks, and its restore in a
+ * rebuilt tree.
+ * <p>
+ * Taking a checkpoint closes the {@link TickBarrier} of the tree: the clock
+ * skips its ticks and the actors and the engines finish the event they are
+ * processing, then the tree is written to a snapshot file and the barrier is
+ * opened again. The snapshot holds the state of the {@link Checkpointable}
+ * actors, the time source first, then the events pending in the mailboxes of
+ * all the actors. The state of the other actors is not saved.
+ * <p>
+ * The tree is not rebuilt from the snapshot: the application builds the same
+ * tree again, with engines and actors of the same names, and the restore pauses
+ * it, restores the state of its checkpointable actors, posts the pending events
+ * again and lets it go on from the tick of the checkpoint. The source of a
+ * pending event, and the actors that are its parameters, are the actors of the
+ * same name in the rebuilt tree, otherwise stand-ins. The control events, such
+ * as START or STOP, are not saved.
+ * <p>
+ * Since the actors are found by name, the engines of the tree, and the actors
+ * of each engine, must have distinct names: the default name of an actor is
+ * the one of its class, so the actors of the same class must be given their
+ * own names. Taking or restoring a checkpoint of a tree where two actors of an
+ * engine have the same name fails before anything is written or restored.
+ * <p>
+ * The snapshot starts with a magic number and the tick of the checkpoint,
+ * followed by chunks, each one made of its length and of records. The records
+ * are buffered by an {@link EventWriter} and written by a gathering write on a
+ * {@link FileChannel} once a chunk exceeds 1 MB, so the state of an actor is
+ * never split. The chunks are mapped in memory by the restore.
+ * <p>
+ * The events signaled by threads outside of the tree while a checkpoint is
+ * taken may or may not be in the snapshot. A checkpoint must not be taken by an
+ * actor of the tree.
+ *
+ * @param time   the tick of the checkpoint
+ * @param states the number of actor states
+ * @param events the number of pending events
+ * @param bytes  the size of the snapshot
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public record Checkpoint(int time, int states, long events, long bytes) {
+
+	/**
+	 * Writes the records of a snapshot in chunks.
+	 */
+	private static final class SnapshotWriter implements AutoCloseable {
+
+		private final FileChannel channel;
+		private final EventWriter writer = new EventWriter();
+		private final ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+		private int states = 0;
+		private long events = 0;
+		private long bytes = HEADER_SIZE;
+
+		private SnapshotWriter(final Path file, final int time) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(MAGIC).putInt(time).flip();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				flush();
+			} finally {
+				channel.close();
+			}
+		}
+
+		private void flush() throws IOException {
+			if (writer.size() == 0) {
+				return;
+			}
+			final ByteBuffer body = writer.buffer().flip();
+			final int size = body.remaining();
+			final ByteBuffer[] chunk = { length.clear().putInt(size).flip(), body };
+			while (body.hasRemaining()) {
+				channel.write(chunk);
+			}
+			bytes += Integer.BYTES + size;
+			writer.clear();
+		}
+
+		private void flushIfFull() throws IOException {
+			if (writer.size() >= CHUNK_SIZE) {
+				flush();
+			}
+		}
+
+		private void writeEvents(final Codec codec, final Engine engine, final Actor actor) throws IOException {
+			if (actor.getDelegate() instanceof final ActorDelegate delegate) {
+				for (final Event event : delegate.getQueue()) {
+					writer.writeByte(EVENT).writeName(engine.getName()).writeName(actor.getName());
+					codec.encode(event, writer);
+					events++;
+					flushIfFull();
+				}
+			}
+		}
+
+		private void writeState(final Engine engine, final Actor actor) throws IOException {
+			if (actor instanceof final Checkpointable checkpointable) {
+				writer.writeByte(STATE).writeName(engine.getName()).writeName(actor.getName());
+				checkpointable.checkpoint(writer);
+				states++;
+				flushIfFull();
+			}
+		}
+	}
+
+	private static final long MAGIC = 0x53494d534e503031L; // "SIMSNP01"
+	private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+	private static final int CHUNK_SIZE = 1 << 20;
+	private static final byte STATE = 1;
+	private static final byte EVENT = 2;
+
+	/**
+	 * Returns the actors of an engine.
+	 */
+	private static List<Actor> actorsOf(final EngineImpl engine) {
+		final List<Actor> actors = new ArrayList<>();
+		engine.getActors().forEach(actors::add);
+		return actors;
+	}
+
+	/**
+	 * Returns the actors of the engines of a tree by engine name and by actor
+	 * name, each engine being one of its own actors.
+	 *
+	 * @throws IOException if two engines, or two actors of an engine, have the
+	 *                     same name
+	 */
+	private static Map<String, Map<String, Actor>> byName(final List<EngineImpl> engines) throws IOException {
+		final Map<String, Map<String, Actor>> actors = new HashMap<>();
+		for (final EngineImpl engine : engines) {
+			final Map<String, Actor> byName = new HashMap<>();
+			if (actors.putIfAbsent(engine.getName(), byName) != null) {
+				throw new IOException("several engines named " + engine.getName());
+			}
+			byName.put(engine.getName(), engine);
+			for (final Actor actor : actorsOf(engine)) {
+				if (byName.putIfAbsent(actor.getName(), actor) != null) {
+					throw new IOException(
+							"several actors named " + actor.getName() + " in engine " + engine.getName());
+				}
+			}
+		}
+		return actors;
+	}
+
+	/**
+	 * Returns the engines of a tree, the root first.
+	 */
+	private static List<EngineImpl> collect(final EngineImpl root) {
+		final List<EngineImpl> engines = new ArrayList<>();
+		engines.add(root);
+		for (int i = 0; i < engines.size(); i++) {
+			for (final Engine child : engines.get(i).getChildren()) {
+				if (child instanceof final EngineImpl impl) {
+					engines.add(impl);
+				}
+			}
+		}
+		return engines;
+	}
+
+	/**
+	 * Restores a checkpoint written with the default codec in a rebuilt tree.
+	 *
+	 * @param file the snapshot file
+	 * @param root the root of the rebuilt tree
+	 * @return the restored checkpoint
+	 * @throws IOException          if the snapshot cannot be read, is not a
+	 *                              snapshot, is corrupted or holds an actor that
+	 *                              is not in the rebuilt tree, or if two actors
+	 *                              of an engine of the tree have the same name
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *                              pausing the tree
+	 */
+	public static Checkpoint restore(final Path file, final EngineImpl root) throws IOException, InterruptedException {
+		return restore(file, root, new Codec());
+	}
+
+	/**
+	 * Restores a checkpoint in a rebuilt tree.
+	 *
+	 * @param file  the snapshot file
+	 * @param root  the root of the rebuilt tree
+	 * @param codec the codec the snapshot was written with
+	 * @return the restored checkpoint
+	 * @throws IOException          if the snapshot cannot be read, is not a
+	 *                              snapshot, is corrupted or holds an actor that
+	 *                              is not in the rebuilt tree, or if two actors
+	 *                              of an engine of the tree have the same name
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *                              pausing the tree
+	 */
+	public static Checkpoint restore(final Path file, final EngineImpl root, final Codec codec)
+			throws IOException, InterruptedException {
+		Objects.requireNonNull(codec);
+		final Map<String, Map<String, Actor>> actors = byName(collect(Objects.requireNonNull(root)));
+		final TickBarrier barrier = root.getBarrier();
+		barrier.close();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// reads the whole header
+			}
+			if (header.hasRemaining() || header.flip().getLong() != MAGIC) {
+				throw new IOException(file + " is not a snapshot");
+			}
+			final int time = header.getInt();
+			final ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+			final EventReader reader = new EventReader();
+			int states = 0;
+			long events = 0;
+			for (long position = HEADER_SIZE; position < size;) {
+				if (channel.read(length.clear(), position) != Integer.BYTES) {
+					throw new IOException("truncated chunk at " + position + " in " + file);
+				}
+				final int chunkSize = length.flip().getInt();
+				if (chunkSize <= 0 || position + Integer.BYTES + chunkSize > size) {
+					throw new IOException("corrupted chunk at " + position + " in " + file);
+				}
+				reader.reset(channel.map(MapMode.READ_ONLY, position + Integer.BYTES, chunkSize));
+				position += Integer.BYTES + chunkSize;
+				try {
+					while (reader.remaining() > 0) {
+						final byte kind = reader.readByte();
+						final String engineName = reader.readName();
+						final Map<String, Actor> byName = actors.get(engineName);
+						final String actorName = reader.readName();
+						final Actor actor = byName != null ? byName.get(actorName) : null;
+						if (actor == null) {
+							throw new IOException("no actor " + actorName + " in engine " + engineName);
+						}
+						switch (kind) {
+						case STATE -> {
+							if (!(actor instanceof final Checkpointable checkpointable)) {
+								throw new IOException(actorName + " is not checkpointable");
+							}
+							checkpointable.restore(reader);
+							states++;
+						}
+						case EVENT -> {
+							final Engine engine = (Engine) byName.get(engineName);
+							actor.post(codec.decode(reader).toEvent(
+									name -> byName.computeIfAbsent(name, n -> new StandIn(n, engine))));
+							events++;
+						}
+						default -> throw new IOException("bad record " + kind + " in " + file);
+						}
+					}
+				} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+						| IllegalStateException e) {
+					throw new IOException("corrupted chunk in " + file, e);
+				}
+			}
+			return new Checkpoint(time, states, events, size);
+		} finally {
+			barrier.open();
+		}
+	}
+
+	/**
+	 * Takes a checkpoint of an engine tree with the default codec.
+	 *
+	 * @param root the root of the tree
+	 * @param file the snapshot file, replaced if it exists
+	 * @return the checkpoint
+	 * @throws IOException          if the snapshot cannot be written, or if two
+	 *                              actors of an engine of the tree have the same
+	 *                              name
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *                              pausing the tree
+	 */
+	public static Checkpoint take(final EngineImpl root, final Path file) throws IOException, InterruptedException {
+		return take(root, file, new Codec());
+	}
+
+	/**
+	 * Takes a checkpoint of an engine tree.
+	 *
+	 * @param root  the root of the tree
+	 * @param file  the snapshot file, replaced if it exists
+	 * @param codec the codec of the pending events
+	 * @return the checkpoint
+	 * @throws IOException          if the snapshot cannot be written, or if two
+	 *                              actors of an engine of the tree have the same
+	 *                              name
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *                              pausing the tree
+	 */
+	public static Checkpoint take(final EngineImpl root, final Path file, final Codec codec)
+			throws IOException, InterruptedException {
+		Objects.requireNonNull(file);
+		Objects.requireNonNull(codec);
+		final TickBarrier barrier = root.getBarrier();
+		barrier.close();
+		try {
+			final List<EngineImpl> engines = collect(root);
+			// the restore finds the actors by name
+			byName(engines);
+			final int time = root.getTime();
+			final SnapshotWriter snapshot;
+			try (SnapshotWriter writer = new SnapshotWriter(file, time)) {
+				snapshot = writer;
+				final TimeSource timeSource = root.getTimeSource();
+				if (timeSource != null) {
+					writer.writeState(root, timeSource);
+				}
+				for (final EngineImpl engine : engines) {
+					for (final Actor actor : actorsOf(engine)) {
+						if (actor != timeSource) {
+							writer.writeState(engine, actor);
+						}
+					}
+				}
+				// the time source has no pending event once the tree is paused
+				for (final EngineImpl engine : engines) {
+					for (final Actor actor : actorsOf(engine)) {
+						if (actor != timeSource) {
+							writer.writeEvents(codec, engine, actor);
+						}
+					}
+				}
+			}
+			return new Checkpoint(time, snapshot.states, snapshot.events, snapshot.bytes);
+		} finally {
+			barrier.open();
+		}
+	}
+
+}
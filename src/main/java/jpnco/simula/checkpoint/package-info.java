@@ -0,0 +1,10 @@
+/**
+ * This packages contains the checkpoint of an engine tree and its restore :
+ * <li>Checkpoint: pauses an engine tree between two ticks, writes the state of
+ * its checkpointable actors and its pending events to a snapshot file, and
+ * restores them in a rebuilt tree
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+package jpnco.simula.checkpoint;
@@ -1,16 +1,20 @@
 package jpnco.simula.engine;
 
+import java.util.Collections;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.DelayQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
-import java.util.concurrent.TimeUnit;
 
 import jpnco.simula.Actor;
 import jpnco.simula.Engine;
 import jpnco.simula.Event;
 import jpnco.simula.actors.Logger;
+import jpnco.simula.jfr.ActorStarted;
+import jpnco.simula.jfr.ActorStopped;
+import jpnco.simula.jfr.EventProcessed;
+import jpnco.simula.trace.Tracing;
 
 /**
  * This class implements the "standard" behavior of an actor and is intended to
@@ -22,8 +26,6 @@ import jpnco.simula.actors.Logger;
  */
 public final class ActorDelegate implements Actor {
 
-	private static final int TIMEOUT = 30;
-
 	public static Actor createDelayedDelegate(final Engine engine, final Actor delegator) {
 		return new ActorDelegate(engine, delegator, new DelayQueue<Event>());
 	}
@@ -38,19 +40,58 @@ public final class ActorDelegate implements Actor {
 
 	private final Actor delegator;
 
-	private final BlockingQueue<Event> events;
+	private final Mailbox mailbox;
 
 	private final Engine engine;
 
+	private final TerminationDetector detector;
+
+	private final Logger.LevelActivation activation = new Logger.LevelActivation();
+
+	private final String name;
+
+	private final ActorMetrics metrics;
+
+	// set once the loop is left: the events posted since then are dropped
+	private volatile boolean stopped = false;
+
 	private ActorDelegate(final Engine engine, final Actor delegator, final BlockingQueue<Event> queue) {
 		Objects.requireNonNull(engine);
 		Objects.requireNonNull(delegator);
-		events = queue;
+		mailbox = new Mailbox(queue, Mailbox.ACTOR_CONTROL_TOPICS, TickBarrier.of(engine).newGate());
 		this.engine = engine;
 		this.delegator = delegator;
+		detector = TerminationDetector.of(engine);
+		name = getClass().getSimpleName() + ":" + engine.getName();
+		metrics = new ActorMetrics(delegator.getSimpleName() + ":" + engine.getName(), mailbox::depth);
 		Thread.currentThread().setName(delegator.getSimpleName());
 	}
 
+	/**
+	 * Commits the JFR event of a processed event, if it is enabled and above its
+	 * threshold.
+	 */
+	private void commit(final EventProcessed processed, final Event event) {
+		if (processed.shouldCommit()) {
+			processed.actor = delegator.getName();
+			processed.topic = event.getTopic();
+			if (event instanceof final EventImpl impl && impl.getReadyNanos() != 0) {
+				processed.queueWait = Math.max(0, System.nanoTime() - impl.getReadyNanos());
+			}
+			processed.commit();
+		}
+	}
+
+	/**
+	 * Drops the events of both queues of the mailbox, each one leaving the
+	 * termination detector.
+	 */
+	private void dropEvents() {
+		for (int dropped = mailbox.clearAll(); dropped > 0; dropped--) {
+			detector.exit(false);
+		}
+	}
+
 	@Override
 	public boolean equals(final Object obj) {
 		if (this == obj) {
@@ -66,6 +107,11 @@ public final class ActorDelegate implements Actor {
 		return Objects.equals(delegator, other.delegator) && Objects.equals(engine, other.engine);
 	}
 
+	@Override
+	public Logger.LevelActivation getActivation() {
+		return activation;
+	}
+
 	@Override
 	public Actor getDelegate() {
 		Logger.error(delegator, "Delegate has no delegate - delegator is %s\n", delegator.getName());
@@ -83,8 +129,29 @@ public final class ActorDelegate implements Actor {
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * Returns the runtime metrics of this actor.
+	 *
+	 * @return the runtime metrics of this actor
+	 */
+	public ActorMetrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the data queue of this actor. Events of the control topics (START,
+	 * STOP and STOP_ME) are posted in a separate control queue, that is always
+	 * checked first.
+	 *
+	 * @return the data queue of this actor.
+	 */
 	public BlockingQueue<Event> getQueue() {
-		return events;
+		return mailbox.getEvents();
 	}
 
 	@Override
@@ -95,9 +162,12 @@ public final class ActorDelegate implements Actor {
 	@Override
 	public void post(final Event event) {
 		Objects.requireNonNull(event);
-		while (!events.offer(event)) {
-			// System.out.printf("%s No room in queue\n", getName());
-			Thread.yield();
+		detector.enter();
+		mailbox.post(event);
+		metrics.received(event);
+		if (stopped) {
+			// posted after the loop exit: nobody will take it
+			dropEvents();
 		}
 	}
 
@@ -110,7 +180,9 @@ public final class ActorDelegate implements Actor {
 	@Override
 	public void purgeEvents() {
 		try {
-			events.clear();
+			for (int purged = mailbox.clear(); purged > 0; purged--) {
+				detector.exit(false);
+			}
 		} catch (final UnsupportedOperationException exc) {
 			System.out.println("============================ ERROR ============================");
 			System.out.println("============================ ERROR ============================");
@@ -122,9 +194,12 @@ public final class ActorDelegate implements Actor {
 	public void run() {
 		try {
 			Logger.debug(this, "Running delegate for %s\n", delegator.getName());
-			delegator.subscribe(Engine.START_EVENT);
-			delegator.subscribe(Engine.STOP_EVENT);
-			delegator.subscribe(Engine.STOP_ME_EVENT);
+			if (!(engine instanceof EngineImpl)) {
+				// an EngineImpl subscribes the lifecycle topics before starting the
+				// actor, other engines let the actor do it
+				engine.subscribeAll(Collections.singleton(delegator), Engine.START_EVENT, Engine.STOP_EVENT,
+						Engine.STOP_ME_EVENT);
+			}
 			if (!(delegator instanceof Logger)) {
 				if (!runBeforeStart()) {
 					runAfterStart();
@@ -138,7 +213,7 @@ public final class ActorDelegate implements Actor {
 			Logger.error(delegator, "Stopping actor %s %s because of %s(message=%s)\n",
 					delegator.getClass().getSimpleName(), delegator.getName(), exc.getClass().getSimpleName(),
 					exc.getMessage());
-			engine.signal(EventImpl.createEvent(Engine.STOPPED_ACTOR_EVENT, delegator));
+			signalStopped();
 			Logger.debug(this, "is stopped\n");
 		}
 	}
@@ -146,15 +221,20 @@ public final class ActorDelegate implements Actor {
 	private void runAfterStart() {
 		LOOP: while (true) {
 			try {
-				final Event event = events.poll(TIMEOUT, TimeUnit.SECONDS);
-				if (event != null) {
+				final Event event = mailbox.take();
+				final long start = metrics.taken(event);
+				final long traced = Tracing.begin(event);
+				final EventProcessed processed = new EventProcessed();
+				processed.begin();
+				try {
 					switch (event.getTopic()) {
 					case Engine.STOP_EVENT:
 						delegator.beforeStop();
 						Logger.debug(delegator, "STOP requested by %s\n", event.getSource().getName(),
 								event.getSource().getName());
 						if (delegator instanceof Logger) {
-							((Logger) delegator).purgeQueue(events);
+							((Logger) delegator).purgeQueue(mailbox.getEvents());
+							((Logger) delegator).close();
 						}
 						break LOOP;
 					case Engine.STOP_ME_EVENT:
@@ -165,8 +245,11 @@ public final class ActorDelegate implements Actor {
 					default:
 						delegator.process(event);
 					}
-				} else {
-					// System.out.printf("RAS: %s is still alive\n", delegator.getName());
+				} finally {
+					commit(processed, event);
+					metrics.processed(event, start);
+					Tracing.end(event, delegator, traced);
+					detector.exit(event);
 				}
 			} catch (final InterruptedException e) {
 				e.printStackTrace();
@@ -174,7 +257,7 @@ public final class ActorDelegate implements Actor {
 			}
 		}
 		Logger.trace(delegator, "RAS: Stopping actor %s\n", delegator.getSimpleName());
-		engine.signal(EventImpl.createEvent(Engine.STOPPED_ACTOR_EVENT, delegator));
+		signalStopped();
 		Logger.debug(this, "is stopped\n");
 	}
 
@@ -182,12 +265,21 @@ public final class ActorDelegate implements Actor {
 		boolean stop = false;
 		LOOP: while (true) {
 			try {
-				final Event event = events.poll(TIMEOUT, TimeUnit.SECONDS);
-				if (event != null) {
+				final Event event = mailbox.take();
+				final long start = metrics.taken(event);
+				final long traced = Tracing.begin(event);
+				final EventProcessed processed = new EventProcessed();
+				processed.begin();
+				try {
 					switch (event.getTopic()) {
 					case Engine.START_EVENT:
 						Logger.trace(delegator, "Starting\n");
 						delegator.afterStart();
+						final ActorStarted started = new ActorStarted();
+						if (started.shouldCommit()) {
+							started.actor = delegator.getName();
+							started.commit();
+						}
 						break LOOP;
 					case Engine.STOP_EVENT:
 						delegator.beforeStop();
@@ -204,8 +296,11 @@ public final class ActorDelegate implements Actor {
 					default:
 						delegator.process(event);
 					}
-				} else {
-					// System.out.printf("RBS: %s is still alive\n", delegator.getName());
+				} finally {
+					commit(processed, event);
+					metrics.processed(event, start);
+					Tracing.end(event, delegator, traced);
+					detector.exit(event);
 				}
 			} catch (final InterruptedException e) {
 				e.printStackTrace();
@@ -214,10 +309,26 @@ public final class ActorDelegate implements Actor {
 		}
 		if (stop) {
 			Logger.trace(delegator, "RBS: Stopping actor %s\n", delegator.getSimpleName());
-			engine.signal(EventImpl.createEvent(Engine.STOPPED_ACTOR_EVENT, delegator));
+			signalStopped();
 			Logger.debug(this, "is stopped\n");
 		}
 		return stop;
 	}
 
+	/**
+	 * Signals that the delegator is stopped. The events left in the mailbox, and
+	 * the ones posted until the delegator is unregistered, are dropped.
+	 */
+	private void signalStopped() {
+		mailbox.leave();
+		stopped = true;
+		dropEvents();
+		final ActorStopped stopped = new ActorStopped();
+		if (stopped.shouldCommit()) {
+			stopped.actor = delegator.getName();
+			stopped.commit();
+		}
+		engine.signal(EventImpl.createEvent(Engine.STOPPED_ACTOR_EVENT, delegator));
+	}
+
 }
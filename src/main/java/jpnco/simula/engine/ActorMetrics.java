@@ -0,0 +1,308 @@
+package jpnco.simula.engine;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import jpnco.simula.Event;
+
+/**
+ * The runtime metrics of an actor loop: events received and processed per
+ * topic, mailbox depth and its high-water mark, time spent in process (service
+ * time) and time spent by the events before being processed (queue time).
+ * <p>
+ * The metrics are disabled by default: when disabled, recording costs a
+ * volatile read. Events received are counted by the posting threads in striped
+ * counters; everything else is recorded by the single thread of the actor loop
+ * with plain writes, so recording costs a few nanoseconds per event. The
+ * latency histograms of an actor are only allocated when its first event is
+ * recorded. Snapshots can be taken at any time from any thread.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class ActorMetrics {
+
+	/**
+	 * A latency distribution, in nanoseconds, with power of 2 buckets: the bucket
+	 * i counts the latencies less than 2^i.
+	 */
+	public record Latency(long count, long totalNanos, long maxNanos, long[] buckets) {
+
+		/**
+		 * Returns the mean latency in nanoseconds, NaN if there is none.
+		 *
+		 * @return the mean latency
+		 */
+		public double meanNanos() {
+			return count == 0 ? Double.NaN : (double) totalNanos / count;
+		}
+
+		/**
+		 * Adds two latency distributions.
+		 *
+		 * @param other the latency distribution to add
+		 * @return the sum of the latency distributions
+		 */
+		public Latency merge(final Latency other) {
+			final long[] sum = buckets.clone();
+			for (int i = 0; i < sum.length; i++) {
+				sum[i] += other.buckets[i];
+			}
+			return new Latency(count + other.count, totalNanos + other.totalNanos, Math.max(maxNanos, other.maxNanos),
+					sum);
+		}
+
+		/**
+		 * Returns an upper bound of a percentile of the latencies, in nanoseconds.
+		 *
+		 * @param percentile the percentile, between 0 and 1
+		 * @return the upper bound of the bucket of the percentile
+		 */
+		public long percentileNanos(final double percentile) {
+			final long rank = (long) Math.ceil(percentile * count);
+			long seen = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				seen += buckets[i];
+				if (seen >= rank && seen > 0) {
+					return Math.min(maxNanos, i < 63 ? 1L << i : Long.MAX_VALUE);
+				}
+			}
+			return 0;
+		}
+	}
+
+	/**
+	 * A snapshot of the metrics of an actor, or of an aggregate of actors.
+	 */
+	public record Snapshot(String name, long received, long processed, int depth, int highWaterMark,
+			Map<String, Long> receivedByTopic, Map<String, Long> processedByTopic, Latency serviceTime,
+			Latency queueTime) {
+
+		/**
+		 * Aggregates two snapshots: counts, depths and latencies are added, the
+		 * high-water mark is the greatest one.
+		 *
+		 * @param aggregate the name of the aggregate
+		 * @param other     the snapshot to aggregate
+		 * @return the aggregate snapshot
+		 */
+		public Snapshot merge(final String aggregate, final Snapshot other) {
+			return new Snapshot(aggregate, received + other.received, processed + other.processed,
+					depth + other.depth, Math.max(highWaterMark, other.highWaterMark),
+					merge(receivedByTopic, other.receivedByTopic), merge(processedByTopic, other.processedByTopic),
+					serviceTime.merge(other.serviceTime), queueTime.merge(other.queueTime));
+		}
+
+		private static Map<String, Long> merge(final Map<String, Long> first, final Map<String, Long> second) {
+			final Map<String, Long> sum = new TreeMap<>(first);
+			second.forEach((topic, count) -> sum.merge(topic, count, Long::sum));
+			return sum;
+		}
+	}
+
+	/**
+	 * A latency histogram written by a single thread.
+	 */
+	private static final class Histogram {
+		private static final int COUNT = 64;
+		private static final int TOTAL = 65;
+		private static final int MAX = 66;
+		// buckets, then count, total and max
+		private final AtomicLongArray values = new AtomicLongArray(MAX + 1);
+
+		void record(final long nanos) {
+			final long latency = Math.max(0, nanos);
+			final int bucket = 64 - Long.numberOfLeadingZeros(latency);
+			values.setOpaque(bucket, values.getPlain(bucket) + 1);
+			values.setOpaque(TOTAL, values.getPlain(TOTAL) + latency);
+			if (latency > values.getPlain(MAX)) {
+				values.setOpaque(MAX, latency);
+			}
+			values.setOpaque(COUNT, values.getPlain(COUNT) + 1);
+		}
+
+		Latency snapshot() {
+			final long[] buckets = new long[COUNT];
+			for (int i = 0; i < COUNT; i++) {
+				buckets[i] = values.getOpaque(i);
+			}
+			return new Latency(values.getOpaque(COUNT), values.getOpaque(TOTAL), values.getOpaque(MAX), buckets);
+		}
+	}
+
+	/**
+	 * The counters of a topic.
+	 */
+	private static final class TopicCounters {
+		private final LongAdder received = new LongAdder();
+		private final AtomicLong processed = new AtomicLong();
+	}
+
+	private static volatile boolean enabled = false;
+
+	private static Latency emptyLatency() {
+		return new Latency(0, 0, 0, new long[Histogram.COUNT]);
+	}
+
+	/**
+	 * Returns an empty snapshot.
+	 *
+	 * @param name the name of the snapshot
+	 * @return an empty snapshot
+	 */
+	public static Snapshot emptySnapshot(final String name) {
+		final Latency none = emptyLatency();
+		return new Snapshot(name, 0, 0, 0, 0, Map.of(), Map.of(), none, none);
+	}
+
+	/**
+	 * Returns true if the metrics are recorded.
+	 *
+	 * @return true if the metrics are recorded
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables the recording of the metrics of all actors. The metrics
+	 * already recorded are kept.
+	 *
+	 * @param isEnabled true to record the metrics
+	 */
+	public static void setEnabled(final boolean isEnabled) {
+		enabled = isEnabled;
+	}
+
+	private static Latency snapshot(final Histogram histogram) {
+		return histogram != null ? histogram.snapshot() : emptyLatency();
+	}
+
+	private final String name;
+	private final IntSupplier depth;
+	private final Map<String, TopicCounters> topics = new ConcurrentHashMap<>();
+	private final AtomicInteger highWaterMark = new AtomicInteger();
+	// created by the thread of the actor loop when its first event is recorded
+	private volatile Histogram serviceTime;
+	private volatile Histogram queueTime;
+
+	/**
+	 * Builds the metrics of an actor loop.
+	 *
+	 * @param name  the name of the actor
+	 * @param depth gives the number of events in the mailbox of the actor
+	 */
+	public ActorMetrics(final String name, final IntSupplier depth) {
+		this.name = Objects.requireNonNull(name);
+		this.depth = Objects.requireNonNull(depth);
+	}
+
+	private TopicCounters counters(final String topic) {
+		final TopicCounters counters = topics.get(topic);
+		return counters != null ? counters : topics.computeIfAbsent(topic, key -> new TopicCounters());
+	}
+
+	/**
+	 * Returns the number of events in the mailbox.
+	 *
+	 * @return the number of events in the mailbox
+	 */
+	public int getDepth() {
+		return depth.getAsInt();
+	}
+
+	/**
+	 * Returns the highest number of events observed in the mailbox while the
+	 * metrics were enabled.
+	 *
+	 * @return the high-water mark of the mailbox
+	 */
+	public int getHighWaterMark() {
+		return highWaterMark.get();
+	}
+
+	/**
+	 * Records the end of the processing of an event. Called by the thread of the
+	 * actor loop.
+	 *
+	 * @param event the processed event
+	 * @param start the value returned by {@link #taken(Event)}
+	 */
+	public void processed(final Event event, final long start) {
+		if (start != 0) {
+			serviceTime.record(System.nanoTime() - start);
+			final AtomicLong processed = counters(event.getTopic()).processed;
+			processed.setOpaque(processed.getPlain() + 1);
+		}
+	}
+
+	/**
+	 * Records an event posted to the actor. Called by the posting thread, after
+	 * the event is in the mailbox.
+	 *
+	 * @param event the posted event
+	 */
+	public void received(final Event event) {
+		if (enabled) {
+			counters(event.getTopic()).received.increment();
+			final int current = depth.getAsInt();
+			if (current > highWaterMark.get()) {
+				highWaterMark.accumulateAndGet(current, Math::max);
+			}
+		}
+	}
+
+	/**
+	 * Returns a snapshot of these metrics.
+	 *
+	 * @return a snapshot of these metrics
+	 */
+	public Snapshot snapshot() {
+		final Map<String, Long> received = new TreeMap<>();
+		final Map<String, Long> processed = new TreeMap<>();
+		long receivedCount = 0;
+		long processedCount = 0;
+		for (final Map.Entry<String, TopicCounters> entry : topics.entrySet()) {
+			final long topicReceived = entry.getValue().received.sum();
+			final long topicProcessed = entry.getValue().processed.getOpaque();
+			received.put(entry.getKey(), topicReceived);
+			processed.put(entry.getKey(), topicProcessed);
+			receivedCount += topicReceived;
+			processedCount += topicProcessed;
+		}
+		return new Snapshot(name, receivedCount, processedCount, depth.getAsInt(), highWaterMark.get(), received,
+				processed, snapshot(serviceTime), snapshot(queueTime));
+	}
+
+	/**
+	 * Records an event taken from the mailbox and returns the start time of its
+	 * processing, 0 if the metrics are disabled. Called by the thread of the
+	 * actor loop.
+	 *
+	 * @param event the taken event
+	 * @return the start time of the processing in nanoseconds, or 0
+	 */
+	public long taken(final Event event) {
+		if (!enabled) {
+			return 0;
+		}
+		if (serviceTime == null) {
+			queueTime = new Histogram();
+			serviceTime = new Histogram();
+		}
+		final long now = System.nanoTime();
+		if (event instanceof final EventImpl impl && impl.getReadyNanos() != 0) {
+			queueTime.record(now - impl.getReadyNanos());
+		}
+		// 0 means disabled
+		return now != 0 ? now : 1;
+	}
+
+}
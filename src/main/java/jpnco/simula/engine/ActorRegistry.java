@@ -0,0 +1,179 @@
+package jpnco.simula.engine;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import jpnco.simula.Actor;
+
+/**
+ * A dense registry of the actors run by an engine. Each registered actor gets a
+ * slot, i.e. a small int index, that stays valid until the actor is
+ * unregistered. Freed slots are recycled, so the slots of an engine are always
+ * close to 0..size. Per-actor side tables can then be plain arrays indexed by
+ * slot instead of hash maps.
+ * <p>
+ * Slots are stored in fixed size chunks that are never moved. Growing the
+ * registry only appends a chunk, so registration, unregistration and lookup do
+ * not need any lock.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class ActorRegistry {
+
+	public static final int NO_SLOT = -1;
+
+	private static final int CHUNK_SHIFT = 10;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private volatile AtomicReferenceArray<Actor>[] chunks;
+	private final AtomicInteger highWater = new AtomicInteger();
+	private final AtomicInteger size = new AtomicInteger();
+	private final ConcurrentLinkedQueue<Integer> freeSlots = new ConcurrentLinkedQueue<>();
+	private final Map<Integer, Integer> slotsById = new ConcurrentHashMap<>();
+
+	@SuppressWarnings("unchecked")
+	private static AtomicReferenceArray<Actor>[] newChunks(final int length) {
+		return (AtomicReferenceArray<Actor>[]) new AtomicReferenceArray<?>[length];
+	}
+
+	public ActorRegistry() {
+		chunks = newChunks(1);
+		chunks[0] = new AtomicReferenceArray<>(CHUNK_SIZE);
+	}
+
+	/**
+	 * Returns the number of slots ever allocated. All valid slots are lower than
+	 * this value, so it can be used to size a side table.
+	 *
+	 * @return the number of slots ever allocated.
+	 */
+	public int capacity() {
+		return highWater.get();
+	}
+
+	private AtomicReferenceArray<Actor> chunk(final int slot) {
+		final int index = slot >>> CHUNK_SHIFT;
+		AtomicReferenceArray<Actor>[] current = chunks;
+		if (index >= current.length) {
+			current = grow(index);
+		}
+		return current[index];
+	}
+
+	/**
+	 * Calls a consumer for each registered actor. Actors registered or
+	 * unregistered during the iteration may or may not be seen.
+	 *
+	 * @param consumer the consumer to call.
+	 */
+	public void forEach(final Consumer<Actor> consumer) {
+		final int max = highWater.get();
+		for (int slot = 0; slot < max; slot++) {
+			final Actor actor = get(slot);
+			if (actor != null) {
+				consumer.accept(actor);
+			}
+		}
+	}
+
+	/**
+	 * Returns the actor registered in a given slot, or null if the slot is free.
+	 *
+	 * @param slot the slot of the actor
+	 * @return the actor registered in this slot or null.
+	 */
+	public Actor get(final int slot) {
+		final AtomicReferenceArray<Actor>[] current = chunks;
+		final int index = slot >>> CHUNK_SHIFT;
+		if (slot < 0 || index >= current.length) {
+			return null;
+		}
+		return current[index].get(slot & CHUNK_MASK);
+	}
+
+	synchronized private AtomicReferenceArray<Actor>[] grow(final int index) {
+		AtomicReferenceArray<Actor>[] current = chunks;
+		if (index >= current.length) {
+			final AtomicReferenceArray<Actor>[] grown = newChunks(Math.max(index + 1, 2 * current.length));
+			System.arraycopy(current, 0, grown, 0, current.length);
+			for (int i = current.length; i < grown.length; i++) {
+				grown[i] = new AtomicReferenceArray<>(CHUNK_SIZE);
+			}
+			chunks = grown;
+			current = grown;
+		}
+		return current;
+	}
+
+	public boolean isEmpty() {
+		return size.get() == 0;
+	}
+
+	/**
+	 * Registers an actor and returns its slot. If the actor is already registered,
+	 * its current slot is returned.
+	 *
+	 * @param actor the actor to register.
+	 * @return the slot of this actor.
+	 */
+	public int register(final Actor actor) {
+		Objects.requireNonNull(actor);
+		final Integer recycled = freeSlots.poll();
+		final int slot = recycled != null ? recycled : highWater.getAndIncrement();
+		// the actor is in its slot before its id is mapped, so an unregister that
+		// finds the id always frees a filled slot
+		final AtomicReferenceArray<Actor> chunk = chunk(slot);
+		chunk.set(slot & CHUNK_MASK, actor);
+		final Integer previous = slotsById.putIfAbsent(actor.getId(), slot);
+		if (previous != null) {
+			chunk.set(slot & CHUNK_MASK, null);
+			freeSlots.offer(slot);
+			return previous;
+		}
+		size.incrementAndGet();
+		return slot;
+	}
+
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Returns the slot of a registered actor or NO_SLOT if this actor is not
+	 * registered.
+	 *
+	 * @param actor the actor
+	 * @return the slot of this actor or NO_SLOT.
+	 */
+	public int slotOf(final Actor actor) {
+		final Integer slot = slotsById.get(actor.getId());
+		return slot != null ? slot : NO_SLOT;
+	}
+
+	/**
+	 * Unregisters an actor and returns its former slot, or NO_SLOT if this actor
+	 * was not registered.
+	 *
+	 * @param actor the actor to unregister.
+	 * @return the former slot of this actor or NO_SLOT.
+	 */
+	public int unregister(final Actor actor) {
+		Objects.requireNonNull(actor);
+		final Integer slot = slotsById.remove(actor.getId());
+		if (slot == null) {
+			return NO_SLOT;
+		}
+		chunk(slot).set(slot & CHUNK_MASK, null);
+		size.decrementAndGet();
+		freeSlots.offer(slot);
+		return slot;
+	}
+
+}
@@ -0,0 +1,341 @@
+package jpnco.simula.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Event;
+import jpnco.simula.engine.EventRecord.ActorName;
+import jpnco.simula.engine.EventRecord.Kind;
+
+/**
+ * The binary codec of events, for everything that must leave the heap:
+ * journals, remote engines... An event is written with an {@link EventWriter}
+ * and read back as an {@link EventRecord} with an {@link EventReader}.
+ * <p>
+ * An encoded event is made of its topic (topic dictionary), the name of its
+ * source (name dictionary), its simulated time (zigzag varint), its kind
+ * (byte), its priority (varint) for a priority event or its delay in
+ * milliseconds (varlong) for a delayed event, its parameter count (varint) and
+ * each parameter as a tag byte followed by its value.
+ * <p>
+ * A new codec, the default codec, encodes the parameters of the SIMULA topics
+ * and the common types: null, the boxed primitives, strings, byte arrays,
+ * actors (by name, decoded as {@link ActorName}) and enums (by class name and
+ * ordinal). Other types need a {@link PayloadSerializer}, registered with a tag
+ * from {@link #FIRST_USER_TAG}; without one, a parameter is written as the
+ * string returned by its toString method.
+ * <p>
+ * The Java serialization of the parameters is slow and, since the decoded
+ * bytes may come from another process, unsafe: it is only used once allowed by
+ * {@link #allowSerialization}, with a filter of the classes that may be
+ * deserialized. A serializable parameter is then written with the Java
+ * serialization.
+ * <p>
+ * A codec is thread safe once its serializers are registered.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class Codec {
+
+	/** The first tag available for the registered serializers */
+	public static final int FIRST_USER_TAG = 32;
+	/** The last tag available for the registered serializers */
+	public static final int LAST_USER_TAG = 255;
+
+	static final byte NULL = 0;
+	static final byte INT = 1;
+	static final byte LONG = 2;
+	static final byte DOUBLE = 3;
+	static final byte FLOAT = 4;
+	static final byte SHORT = 5;
+	static final byte BYTE = 6;
+	static final byte BOOLEAN = 7;
+	static final byte CHAR = 8;
+	static final byte STRING = 9;
+	static final byte BYTES = 10;
+	static final byte ACTOR = 11;
+	static final byte ENUM = 12;
+	static final byte SERIALIZED = 13;
+
+	private static final Kind[] KINDS = Kind.values();
+	private static final Registration NONE = new Registration(-1, Object.class, null);
+
+	/**
+	 * A registered serializer.
+	 */
+	private record Registration(int tag, Class<?> type, PayloadSerializer<Object> serializer) {
+	}
+
+	private final Registration[] byTag = new Registration[LAST_USER_TAG + 1];
+	// the registration of each class met, null values are not allowed so the
+	// classes without serializer are mapped to NONE
+	private final Map<Class<?>, Registration> byClass = new ConcurrentHashMap<>();
+	private final Map<String, Object[]> enums = new ConcurrentHashMap<>();
+	// the filter of the deserialized classes, null if the Java serialization is
+	// not allowed
+	private volatile ObjectInputFilter serialization = null;
+
+	/**
+	 * Allows the Java serialization of the parameters that are neither registered
+	 * nor of a common type. Only the classes allowed by the filter are
+	 * deserialized: the classes it leaves undecided are rejected, so a pattern
+	 * filter such as <code>com.example.model.*</code> is an allowlist.
+	 *
+	 * @param filter the filter of the deserialized classes
+	 * @return this codec
+	 */
+	public synchronized Codec allowSerialization(final ObjectInputFilter filter) {
+		serialization = ObjectInputFilter.rejectUndecidedClass(Objects.requireNonNull(filter));
+		return this;
+	}
+
+	/**
+	 * Decodes an event.
+	 *
+	 * @param in the reader to read from
+	 * @return the decoded event
+	 * @throws java.nio.BufferUnderflowException if the event is truncated
+	 * @throws IllegalArgumentException          if the event is corrupted
+	 */
+	public EventRecord decode(final EventReader in) {
+		final String topic = in.readTopic();
+		final String source = in.readName();
+		final int time = in.readInt();
+		final int ordinal = in.readByte();
+		if (ordinal < 0 || ordinal >= KINDS.length) {
+			throw new IllegalArgumentException("bad event kind " + ordinal);
+		}
+		final Kind kind = KINDS[ordinal];
+		final int priority = kind == Kind.PRIORITY ? in.readVarint() : 0;
+		final long delay = kind == Kind.DELAYED ? in.readVarlong() : 0;
+		final Object[] parameters = new Object[in.readVarint()];
+		for (int i = 0; i < parameters.length; i++) {
+			parameters[i] = readParameter(in);
+		}
+		return new EventRecord(topic, source, time, kind, priority, delay, parameters);
+	}
+
+	/**
+	 * Encodes an event. A delayed event is written with its remaining delay.
+	 *
+	 * @param event the event to encode
+	 * @param out   the writer to write to
+	 */
+	public void encode(final Event event, final EventWriter out) {
+		out.writeTopic(event.getTopic());
+		out.writeName(event.getSource().getName());
+		out.writeInt(event.getTime());
+		if (event.isPrioritized()) {
+			out.writeByte((byte) Kind.PRIORITY.ordinal());
+			out.writeVarint(event.getPriority());
+		} else if (event.isDelayed()) {
+			out.writeByte((byte) Kind.DELAYED.ordinal());
+			out.writeVarlong(Math.max(0, event.getDelay(TimeUnit.MILLISECONDS)));
+		} else {
+			out.writeByte((byte) Kind.STANDARD.ordinal());
+		}
+		if (event instanceof final EventImpl impl) {
+			// getParameters would copy the parameters
+			final int count = impl.getParameterCount();
+			out.writeVarint(count);
+			for (int i = 0; i < count; i++) {
+				writeParameter(impl.getParameter(i), out);
+			}
+		} else {
+			final Object[] parameters = event.getParameters();
+			out.writeVarint(parameters.length);
+			for (final Object parameter : parameters) {
+				writeParameter(parameter, out);
+			}
+		}
+	}
+
+	/**
+	 * Returns the constants of an enum class, by its name.
+	 */
+	private Object[] enumConstants(final String className) {
+		return enums.computeIfAbsent(className, name -> {
+			try {
+				final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+				final Class<?> type = Class.forName(name, false,
+						loader != null ? loader : Codec.class.getClassLoader());
+				if (!type.isEnum()) {
+					throw new IllegalArgumentException(name + " is not an enum");
+				}
+				return type.getEnumConstants();
+			} catch (final ClassNotFoundException e) {
+				throw new IllegalArgumentException("unknown enum " + name, e);
+			}
+		});
+	}
+
+	/**
+	 * Reads a parameter.
+	 *
+	 * @param in the reader to read from
+	 * @return the read parameter
+	 * @throws IllegalArgumentException if the tag of the parameter is unknown, or
+	 *                                  if the parameter is serialized and the Java
+	 *                                  serialization is not allowed or its class
+	 *                                  is rejected
+	 */
+	public Object readParameter(final EventReader in) {
+		final int tag = in.readByte() & 0xFF;
+		return switch (tag) {
+		case NULL -> null;
+		case INT -> in.readInt();
+		case LONG -> in.readLong();
+		case DOUBLE -> in.readDouble();
+		case FLOAT -> in.readFloat();
+		case SHORT -> in.readShort();
+		case BYTE -> in.readByte();
+		case BOOLEAN -> in.readBoolean();
+		case CHAR -> in.readChar();
+		case STRING -> in.readString();
+		case BYTES -> in.readBytes();
+		case ACTOR -> new ActorName(in.readName());
+		case ENUM -> {
+			final Object[] constants = enumConstants(in.readName());
+			yield constants[in.readVarint()];
+		}
+		case SERIALIZED -> {
+			final ObjectInputFilter filter = serialization;
+			if (filter == null) {
+				throw new IllegalArgumentException("the Java serialization is not allowed");
+			}
+			try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(in.readBytes()))) {
+				stream.setObjectInputFilter(filter);
+				yield stream.readObject();
+			} catch (final IOException | ClassNotFoundException e) {
+				throw new IllegalArgumentException("cannot deserialize a parameter", e);
+			}
+		}
+		default -> {
+			final Registration registration = byTag[tag];
+			if (registration == null) {
+				throw new IllegalArgumentException("unknown parameter tag " + tag);
+			}
+			yield registration.serializer().read(in);
+		}
+		};
+	}
+
+	/**
+	 * Registers the serializer of a type. The subclasses of the type are written
+	 * by the same serializer, unless a serializer is registered for them.
+	 *
+	 * @param <T>        the type
+	 * @param tag        the tag of the type, between {@link #FIRST_USER_TAG} and
+	 *                   {@link #LAST_USER_TAG}
+	 * @param type       the type
+	 * @param serializer the serializer of the type
+	 * @return this codec
+	 * @throws IllegalArgumentException if the tag is out of range or already
+	 *                                  used, or if the type is already registered
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T> Codec register(final int tag, final Class<T> type,
+			final PayloadSerializer<? super T> serializer) {
+		Objects.requireNonNull(type);
+		Objects.requireNonNull(serializer);
+		if (tag < FIRST_USER_TAG || tag > LAST_USER_TAG) {
+			throw new IllegalArgumentException("bad tag " + tag);
+		}
+		if (byTag[tag] != null) {
+			throw new IllegalArgumentException("tag " + tag + " is already used by " + byTag[tag].type().getName());
+		}
+		for (final Registration registration : byTag) {
+			if (registration != null && registration.type() == type) {
+				throw new IllegalArgumentException(type.getName() + " is already registered");
+			}
+		}
+		byTag[tag] = new Registration(tag, type, (PayloadSerializer<Object>) serializer);
+		// the classes met so far are resolved again
+		byClass.clear();
+		return this;
+	}
+
+	/**
+	 * Returns the registration used for a class: the registration of the class, or
+	 * else of its closest registered supertype.
+	 */
+	private Registration resolve(final Class<?> type) {
+		return byClass.computeIfAbsent(type, t -> {
+			Registration best = NONE;
+			for (final Registration registration : byTag) {
+				if (registration != null && registration.type().isAssignableFrom(t)
+						&& (best == NONE || best.type().isAssignableFrom(registration.type()))) {
+					best = registration;
+				}
+			}
+			return best;
+		});
+	}
+
+	/**
+	 * Returns the Java serialization of a value, null if it cannot be serialized.
+	 */
+	private static byte[] serialize(final Object value) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+			stream.writeObject(value);
+		} catch (final IOException e) {
+			// a field is not serializable
+			return null;
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes a parameter.
+	 *
+	 * @param value the parameter to write, may be null
+	 * @param out   the writer to write to
+	 */
+	public void writeParameter(final Object value, final EventWriter out) {
+		switch (value) {
+		case null -> out.writeByte(NULL);
+		case final Integer v -> out.writeByte(INT).writeInt(v);
+		case final Long v -> out.writeByte(LONG).writeLong(v);
+		case final Double v -> out.writeByte(DOUBLE).writeDouble(v);
+		case final Float v -> out.writeByte(FLOAT).writeFloat(v);
+		case final Short v -> out.writeByte(SHORT).writeShort(v);
+		case final Byte v -> out.writeByte(BYTE).writeByte(v);
+		case final Boolean v -> out.writeByte(BOOLEAN).writeBoolean(v);
+		case final Character v -> out.writeByte(CHAR).writeChar(v);
+		case final String v -> out.writeByte(STRING).writeString(v);
+		case final byte[] v -> out.writeByte(BYTES).writeBytes(v);
+		case final Actor v -> out.writeByte(ACTOR).writeName(v.getName());
+		default -> {
+			final Registration registration = resolve(value.getClass());
+			if (registration != NONE) {
+				out.writeByte((byte) registration.tag());
+				registration.serializer().write(out, value);
+			} else if (value instanceof final Enum<?> constant) {
+				out.writeByte(ENUM).writeName(constant.getDeclaringClass().getName())
+						.writeVarint(constant.ordinal());
+			} else {
+				final byte[] serialized = serialization != null && value instanceof Serializable ? serialize(value)
+						: null;
+				if (serialized != null) {
+					out.writeByte(SERIALIZED).writeBytes(serialized);
+				} else {
+					out.writeByte(STRING).writeString(value.toString());
+				}
+			}
+		}
+		}
+	}
+
+}
@@ -1,39 +1,72 @@
 package jpnco.simula.engine;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
 
 import jpnco.simula.Actor;
 import jpnco.simula.Engine;
 import jpnco.simula.Event;
 import jpnco.simula.actors.Logger;
 import jpnco.simula.actors.TimeSource;
+import jpnco.simula.jfr.EventDispatched;
+import jpnco.simula.journal.EventJournal;
+import jpnco.simula.management.Management;
+import jpnco.simula.stats.Statistics;
+import jpnco.simula.trace.Tracing;
 
 /**
  * The implementation of the Engine interface.
+ * <p>
+ * Each engine advertises to its parent the topics subscribed in its subtree, by
+ * an actor other than an engine. So an event is only signaled to the child
+ * engines whose subtree subscribes its topic: the TIME events do not wake the
+ * subtrees without a TIME subscriber, and {@link #route} delivers an event to
+ * the subscribers of the whole tree. The START and STOP events reach every
+ * child engine, and a child engine that is not an EngineImpl, such as a remote
+ * engine, is deemed to subscribe every topic.
  *
  * @author Jean-Pascal Cozic
  *
  */
 public final class EngineImpl implements Engine {
 
-	private final Map<Integer, Actor> actors = new ConcurrentHashMap<>();
+	private final ActorRegistry actors = new ActorRegistry();
 	private final Set<Engine> children = new HashSet<>();
-	private final LinkedBlockingQueue<Event> events = new LinkedBlockingQueue<>();
+	private final TickBarrier barrier;
+	private final Mailbox mailbox;
 	private final Integer id;
 	private final Engine parent;
-	private final Map<String, Set<Actor>> subscribersBytopic = new ConcurrentHashMap<>();
+	private final Map<String, Subscribers> subscribersBytopic = new ConcurrentHashMap<>();
+	// the child engines whose subtree subscribes each topic
+	private final Map<String, Set<Engine>> interestedChildren = new ConcurrentHashMap<>();
+	// the child engines that do not advertise their topics
+	private final Set<Engine> opaqueChildren = ConcurrentHashMap.newKeySet();
+	// the topics subscribed in the subtree of this engine, as advertised to the
+	// parent
+	private final Set<String> interests = new HashSet<>();
 	private final int TIME_FACTOR;
-	private final int TIMEOUT;
 	private final TimeSource timeSource;
 	private final String name;
 	private final Logger logger;
+	private final CompletableFuture<Void> terminated = new CompletableFuture<>();
+	private final TerminationDetector detector;
+	private final Logger.LevelActivation activation = new Logger.LevelActivation();
+	private final Statistics statistics = new Statistics();
+	private final ActorMetrics metrics;
+	private volatile EventJournal journal;
+	private boolean stopping = false;
+	private boolean loggerStopping = false;
 
 	public EngineImpl(final String title, final Engine parent) {
 		this(title, parent, 0);
@@ -41,15 +74,24 @@ public final class EngineImpl implements Engine {
 
 	private EngineImpl(final String title, final Engine parent, final int timeFactor) {
 		this.parent = parent;
+		// id must be set before adding this engine to its parent because it is the
+		// hash code of this engine
+		id = IdBuilder.nextId();
+		// the engines of a tree share the barrier of the root engine
+		barrier = parent instanceof final EngineImpl impl ? impl.getBarrier() : new TickBarrier();
+		mailbox = new Mailbox(new LinkedBlockingQueue<>(), Mailbox.ENGINE_CONTROL_TOPICS, barrier.newGate());
+		// metrics must be set before this engine can receive events
+		metrics = new ActorMetrics(getClass().getSimpleName() + ":" + title, mailbox::depth);
+		detector = new TerminationDetector(parent != null ? TerminationDetector.of(parent) : null);
+		// a child engine journals its events in the journal of its parent
+		journal = parent instanceof final EngineImpl impl ? impl.getJournal() : null;
 		if (parent != null) {
 			parent.addChild(this);
 			TIME_FACTOR = parent.getTimeFactor();
 		} else {
 			TIME_FACTOR = timeFactor;
 		}
-		TIMEOUT = 10 * TIME_FACTOR;
 		name = title;
-		id = IdBuilder.nextId();
 		start(this);
 		logger = new Logger(this);
 		registerAndStart(logger);
@@ -64,6 +106,7 @@ public final class EngineImpl implements Engine {
 		subscribe(Engine.STOPPED_ACTOR_EVENT);
 		subscribe(Engine.STOPPED_ENGINE_EVENT);
 		subscribe(Engine.TIME_EVENT);
+		Management.register(this);
 	}
 
 	public EngineImpl(final String title, final int timeFactor) {
@@ -73,6 +116,9 @@ public final class EngineImpl implements Engine {
 	@Override
 	synchronized public void addChild(final Engine child) {
 		children.add(child);
+		if (!(child instanceof EngineImpl)) {
+			opaqueChildren.add(child);
+		}
 	}
 
 	@Override
@@ -90,6 +136,16 @@ public final class EngineImpl implements Engine {
 		return Objects.equals(id, other.id);
 	}
 
+	/**
+	 * Returns the registry of the actors run by this engine. The slot of an actor
+	 * in this registry can be used as an index in per-actor side tables.
+	 *
+	 * @return the registry of the actors run by this engine.
+	 */
+	public ActorRegistry getActors() {
+		return actors;
+	}
+
 	/**
 	 * Filters actors that are not an Engine or Logger instance
 	 *
@@ -100,6 +156,20 @@ public final class EngineImpl implements Engine {
 		return !EngineImpl.class.equals(actor.getClass()) && !Logger.class.equals(actor.getClass());
 	}
 
+	@Override
+	public Logger.LevelActivation getActivation() {
+		return activation;
+	}
+
+	/**
+	 * Returns the barrier that pauses the tree of this engine between two ticks.
+	 *
+	 * @return the barrier of the tree of this engine
+	 */
+	public TickBarrier getBarrier() {
+		return barrier;
+	}
+
 	@Override
 	public Actor getDelegate() {
 		throw new UnsupportedOperationException();
@@ -115,6 +185,36 @@ public final class EngineImpl implements Engine {
 		return id;
 	}
 
+	/**
+	 * Returns the child engines of this engine.
+	 *
+	 * @return a copy of the child engines of this engine
+	 */
+	public Set<Engine> getChildren() {
+		synchronized (children) {
+			return new HashSet<>(children);
+		}
+	}
+
+	/**
+	 * Returns the topics subscribed in the subtree of this engine, by an actor
+	 * other than an engine, as advertised to its parent.
+	 *
+	 * @return the topics subscribed in the subtree of this engine
+	 */
+	public synchronized Set<String> getInterests() {
+		return new HashSet<>(interests);
+	}
+
+	/**
+	 * Returns the journal of the events signaled by this engine.
+	 *
+	 * @return the journal of this engine, null if the events are not journaled
+	 */
+	public EventJournal getJournal() {
+		return journal;
+	}
+
 	@Override
 	public Logger getLogger() {
 		return logger;
@@ -125,6 +225,49 @@ public final class EngineImpl implements Engine {
 		return name;
 	}
 
+	/**
+	 * Returns the runtime metrics of the loop of this engine.
+	 *
+	 * @return the runtime metrics of this engine
+	 */
+	public ActorMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Returns the aggregate of the runtime metrics of this engine and of its
+	 * registered actors.
+	 *
+	 * @return the aggregate of the runtime metrics
+	 */
+	public ActorMetrics.Snapshot getMetricsAggregate() {
+		ActorMetrics.Snapshot aggregate = ActorMetrics.emptySnapshot(getName());
+		for (final ActorMetrics.Snapshot snapshot : getMetricsSnapshots()) {
+			aggregate = aggregate.merge(getName(), snapshot);
+		}
+		return aggregate;
+	}
+
+	/**
+	 * Returns a snapshot of the runtime metrics of this engine, followed by the
+	 * snapshots of its registered actors.
+	 *
+	 * @return the snapshots of the runtime metrics
+	 */
+	public List<ActorMetrics.Snapshot> getMetricsSnapshots() {
+		final List<ActorMetrics.Snapshot> snapshots = new ArrayList<>();
+		snapshots.add(metrics.snapshot());
+		actors.forEach(actor -> {
+			// the time source has no delegate
+			if (actor instanceof final TimeSource source) {
+				snapshots.add(source.getMetrics().snapshot());
+			} else if (actor.getDelegate() instanceof final ActorDelegate delegate) {
+				snapshots.add(delegate.getMetrics().snapshot());
+			}
+		});
+		return snapshots;
+	}
+
 	@Override
 	public Engine getParent() {
 		return parent;
@@ -136,19 +279,41 @@ public final class EngineImpl implements Engine {
 	}
 
 	/**
-	 * Returns a copy of the set of subscribers of a topic. So it is possible to
-	 * subscribe and unsubscribe during the copy is iterated
+	 * Returns a snapshot of the subscribers of a topic. So it is possible to
+	 * subscribe and unsubscribe while the snapshot is iterated. The returned array
+	 * is shared and must not be modified.
 	 *
 	 * @param topic to searched topic
-	 * @return a copy of the set of subscribers of a topic
+	 * @return a snapshot of the subscribers of a topic
 	 */
-	synchronized private Set<Actor> getSubscribers(final String topic) {
-		final Set<Actor> subs = subscribersBytopic.get(topic);
+	private Actor[] getSubscribers(final String topic) {
+		final Subscribers subs = subscribersBytopic.get(topic);
 		if (subs != null) {
-			final Set<Actor> subscribers = new HashSet<>(subs);
-			return subscribers;
+			return subs.snapshot(this);
 		}
-		return Collections.emptySet();
+		return Subscribers.none();
+	}
+
+	@Override
+	public Statistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Returns the names of the subscribers of each topic, sorted by topic.
+	 *
+	 * @return the subscriber table of this engine
+	 */
+	public Map<String, List<String>> getSubscriberTable() {
+		final Map<String, List<String>> table = new TreeMap<>();
+		subscribersBytopic.forEach((topic, subscribers) -> {
+			final List<String> names = new ArrayList<>();
+			for (final Actor actor : subscribers.snapshot(this)) {
+				names.add(actor.getName());
+			}
+			table.put(topic, names);
+		});
+		return table;
 	}
 
 	@Override
@@ -171,6 +336,21 @@ public final class EngineImpl implements Engine {
 		return TIME_FACTOR;
 	}
 
+	/**
+	 * Returns a future that completes once this engine and all its child engines
+	 * are stopped.
+	 *
+	 * @return a future that completes once this engine is stopped.
+	 */
+	public CompletableFuture<Void> getTermination() {
+		return terminated;
+	}
+
+	@Override
+	public TerminationDetector getTerminationDetector() {
+		return detector;
+	}
+
 	@Override
 	public TimeSource getTimeSource() {
 		return timeSource;
@@ -183,10 +363,9 @@ public final class EngineImpl implements Engine {
 
 	@Override
 	public void post(final Event event) {
-		while (!events.offer(event)) {
-			// System.out.printf("%s No room in queue\n", getName());
-			Thread.yield();
-		}
+		detector.enter();
+		mailbox.post(event);
+		metrics.received(event);
 	}
 
 	@Override
@@ -199,14 +378,42 @@ public final class EngineImpl implements Engine {
 		signalToChildren(event);
 	}
 
+	/**
+	 * Returns true if this engine can terminate, i.e. it has no longer any actor
+	 * nor child engine. Once a stop is requested, the logger is stopped in a final
+	 * phase when all the other actors and all the child engines are stopped, in
+	 * order to have the maximum of logs.
+	 *
+	 * @return true if this engine can terminate
+	 */
+	private boolean isTerminated() {
+		synchronized (children) {
+			if (!children.isEmpty()) {
+				return false;
+			}
+		}
+		if (actors.isEmpty()) {
+			return true;
+		}
+		if (stopping && !loggerStopping && actors.size() == 1 && actors.slotOf(logger) != ActorRegistry.NO_SLOT) {
+			Logger.debug(this, "All actors are stopped, stopping logger\n");
+			loggerStopping = true;
+			logger.post(EventImpl.createEvent(Engine.STOP_EVENT, this, (Actor) null));
+		}
+		return false;
+	}
+
 	private void processStopEvent(final Event event) {
 		Logger.debug(this, "===== processStopEvent(%s) =====\n", getName());
+		stopping = true;
 		signalToChildren(event);
 	}
 
-	private boolean processStoppedActorEvent(final Event event) {
-		Logger.debug(this, "Actor %s is stopped\n", event.getSource().getName());
-		return unregister(event.getSource());
+	private void processStoppedActorEvent(final Event event) {
+		if (Logger.isDebugActivated(this)) {
+			Logger.debug(this, "Actor %s is stopped\n", event.getSource().getName());
+		}
+		unregister(event.getSource());
 	}
 
 	private void processStoppedEngineEvent(final Event event) {
@@ -215,6 +422,14 @@ public final class EngineImpl implements Engine {
 		synchronized (children) {
 			children.remove(child);
 		}
+		synchronized (this) {
+			opaqueChildren.remove(child);
+			interestedChildren.forEach((topic, interested) -> {
+				if (interested.remove(child)) {
+					updateInterest(topic);
+				}
+			});
+		}
 	}
 
 	private void processTimeEvent(final Event event) {
@@ -222,46 +437,136 @@ public final class EngineImpl implements Engine {
 		signalToChildren(event);
 	}
 
-	synchronized private void register(final Actor actor) {
-		Logger.trace(this, "Registering actor %s:%d\n", actor.getName(), actor.getId());
-		actors.put(actor.getId(), actor);
+	/**
+	 * Returns true if an event of a topic must be signaled to a child engine.
+	 */
+	private boolean reaches(final Engine child, final String topic) {
+		if (Engine.START_EVENT.equals(topic) || Engine.STOP_EVENT.equals(topic) || opaqueChildren.contains(child)) {
+			return true;
+		}
+		final Set<Engine> interested = interestedChildren.get(topic);
+		return interested != null && interested.contains(child);
+	}
+
+	private void register(final Actor actor) {
+		if (Logger.isTraceActivated(this)) {
+			Logger.trace(this, "Registering actor %s:%d\n", actor.getName(), actor.getId());
+		}
+		actors.register(actor);
+		Management.register(this, actor);
 	}
 
 	@Override
 	public Actor registerAndStart(final Actor actor) {
 		register(actor);
+		// Subscribes lifecycle topics before starting, as registerAndStartAll
+		subscribeAll(Collections.singleton(actor), Engine.START_EVENT, Engine.STOP_EVENT, Engine.STOP_ME_EVENT);
 		start(actor);
 		return actor;
 	}
 
+	@Override
+	public void registerAndStartAll(final Collection<? extends Actor> newActors) {
+		Objects.requireNonNull(newActors);
+		Logger.debug(this, "Registering and starting %d actors\n", newActors.size());
+		for (final Actor actor : newActors) {
+			actors.register(actor);
+			Management.register(this, actor);
+		}
+		// Subscribes lifecycle topics before starting, so a START signaled in the
+		// meantime can not be missed
+		subscribeAll(newActors, Engine.START_EVENT, Engine.STOP_EVENT, Engine.STOP_ME_EVENT);
+		newActors.parallelStream().forEach(this::start);
+	}
+
+	/**
+	 * Signals an event by this engine if it has subscribers, and by the child
+	 * engines whose subtree subscribes its topic, except the one the event comes
+	 * from, then climbs to the root, each ancestor signaling the event to its
+	 * other subtrees. A parent that is not an EngineImpl, such as the proxy of a
+	 * remote parent, signals the event in its own process and ends the climb.
+	 */
+	@Override
+	public void route(final Event event) {
+		routeFrom(event, null);
+	}
+
+	/**
+	 * Routes an event coming out of the subtree of a child engine: signals it in
+	 * the subtree of this engine, except the subtree of the child, then climbs to
+	 * the root as {@link #route}. Used by the proxies of the remote child engines.
+	 *
+	 * @param event the event to route
+	 * @param child the child engine the event comes from, null for none
+	 */
+	public void routeFrom(final Event event, final Engine child) {
+		Objects.requireNonNull(event);
+		routeDown(event, child);
+		Engine from = this;
+		for (Engine up = parent; up != null; from = up, up = up.getParent()) {
+			if (up instanceof final EngineImpl impl) {
+				impl.routeDown(event, from);
+			} else {
+				up.signal(event);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Signals an event in the subtree of this engine, except the subtree of a
+	 * given child.
+	 */
+	private void routeDown(final Event event, final Engine from) {
+		final String topic = event.getTopic();
+		if (getSubscribers(topic).length > 0) {
+			signal(event);
+		}
+		final Set<Engine> interested = interestedChildren.get(topic);
+		if (interested != null) {
+			for (final Engine child : interested) {
+				if (child != from) {
+					((EngineImpl) child).routeDown(event, null);
+				}
+			}
+		}
+		for (final Engine child : opaqueChildren) {
+			if (child != from) {
+				child.signal(event);
+			}
+		}
+	}
+
 	@Override
 	public void run() {
 		try {
 			Logger.trace(this, "is running\n");
 			LOOP: while (true) {
 				try {
-					final Event event = events.poll(TIMEOUT, TimeUnit.SECONDS);
-					if (event != null) {
+					final Event event = mailbox.take();
+					final long start = metrics.taken(event);
+					final long traced = Tracing.begin(event);
+					try {
 						switch (event.getTopic()) {
 						case Engine.START_EVENT:
 							processStartEvent(event);
 							break;
 						case Engine.STOP_EVENT:
 							processStopEvent(event);
+							if (isTerminated()) {
+								break LOOP;
+							}
 							break;
 						case Engine.STOPPED_ACTOR_EVENT:
-							if (processStoppedActorEvent(event) && children.isEmpty()) {
+							processStoppedActorEvent(event);
+							if (isTerminated()) {
 								break LOOP;
 							}
 							break;
 						case Engine.STOPPED_ENGINE_EVENT:
 							processStoppedEngineEvent(event);
-							synchronized (actors) {
-								synchronized (children) {
-									if (actors.isEmpty() && children.isEmpty()) {
-										break LOOP;
-									}
-								}
+							if (isTerminated()) {
+								break LOOP;
 							}
 							break;
 						case Engine.TIME_EVENT:
@@ -270,54 +575,162 @@ public final class EngineImpl implements Engine {
 						default:
 							process(event);
 						}
-					} else {
-//						System.out.printf("%s is still alive with %d actors and %d child engines alive.\n",
-//								getSimpleName(), actors.size(), children.size());
+					} finally {
+						metrics.processed(event, start);
+						Tracing.end(event, this, traced);
+						detector.exit(event);
 					}
 				} catch (final InterruptedException e) {
 					e.printStackTrace();
 				}
 			}
+			mailbox.leave();
+			statistics.advanceTo(getTime());
+			final Statistics parentStatistics = parent != null ? parent.getStatistics() : null;
+			if (parentStatistics != null) {
+				// merged before the parent knows this engine is stopped
+				try {
+					parentStatistics.merge(statistics);
+				} catch (final IllegalArgumentException e) {
+					// a conflict of statistics must not prevent the parent from stopping
+					Logger.error(this, "Merging the statistics of %s failed: %s\n", getName(), e.getMessage());
+				}
+			}
+			Logger.trace(this, "is stopped\n");
+			Management.unregister(this);
+			// completed before the parent knows this engine is stopped, so the
+			// termination of a tree implies the termination of all its engines
+			terminated.complete(null);
 			if (parent != null) {
 				// signals parent that this engine is stopped
 				final Event stopped = EventImpl.createEvent(Engine.STOPPED_ENGINE_EVENT, this, this);
 				parent.signal(stopped);
 			}
-			Logger.trace(this, "is stopped\n");
 		} catch (final Throwable exc) {
 			// System.out.printf("%s is dead because of %s\n", getSimpleName(),
 			// exc.getClass().getCanonicalName());
 			Logger.error(this, "Stopping actor %s because of %s(message=%s)\n", getName(),
 					exc.getClass().getCanonicalName(), exc.getMessage());
 			exc.printStackTrace();
+			mailbox.leave();
 			Logger.trace(this, "is stopped\n");
+			terminated.completeExceptionally(exc);
 		}
 	}
 
+	/**
+	 * Records whether the subtree of a child engine subscribes a topic, and
+	 * advertises a change of the interest of this engine to its parent.
+	 *
+	 * @param child      the child engine
+	 * @param topic      the topic
+	 * @param interested true if the subtree of the child subscribes the topic
+	 */
+	synchronized void setInterest(final Engine child, final String topic, final boolean interested) {
+		if (interested) {
+			interestedChildren.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(child);
+		} else {
+			final Set<Engine> set = interestedChildren.get(topic);
+			if (set != null) {
+				set.remove(child);
+			}
+		}
+		updateInterest(topic);
+	}
+
+	/**
+	 * Sets the journal of the events signaled by this engine and its child
+	 * engines. The child engines added later use the journal of their parent.
+	 *
+	 * @param newJournal the journal, null to stop journaling the events
+	 */
+	public void setJournal(final EventJournal newJournal) {
+		journal = newJournal;
+		for (final Engine child : getChildren()) {
+			if (child instanceof final EngineImpl impl) {
+				impl.setJournal(newJournal);
+			}
+		}
+	}
+
+	/**
+	 * Asks this engine to stop as soon as the simulation is idle, i.e. there is no
+	 * event in flight nor pending alarm at two consecutive ticks and no event has
+	 * been processed in between. Only relevant for the root engine.
+	 *
+	 * @param stopWhenIdle true to stop as soon as the simulation is idle
+	 */
+	public void setStopWhenIdle(final boolean stopWhenIdle) {
+		detector.setStopWhenIdle(stopWhenIdle);
+	}
+
 	@Override
 	public void signal(final Event event) {
 		Objects.requireNonNull(event);
-		if (!Engine.LOG_EVENT.equals(event.getTopic())) {
-			Logger.trace(this, "%s signals %s at %d\n", event.getSource().getName(), event.getTopic(), event.getTime());
+		signal(event, getSubscribers(event.getTopic()), Subscribers.none());
+	}
+
+	/**
+	 * Signals an event to the wildcard subscribers of its topic and to the
+	 * subscribers of a key only. Looking up the subscribers of the key does not
+	 * depend on their number. The key is not journaled: a replayed event is
+	 * signaled without a key.
+	 */
+	@Override
+	public void signal(final Event event, final Object key) {
+		Objects.requireNonNull(event);
+		Objects.requireNonNull(key);
+		final Subscribers subscribers = subscribersBytopic.get(event.getTopic());
+		if (subscribers != null) {
+			signal(event, subscribers.wildcards(this), subscribers.keyed(key, this));
 		} else {
-			// Do not log because of infinite loop !
+			signal(event, Subscribers.none(), Subscribers.none());
 		}
-		if (Engine.STOP_EVENT.equals(event.getTopic())) {
-			// Must stop logger after all actors in order to have the maximum of logs
-			getSubscribers(event.getTopic()).stream().sorted().forEach(s -> {
-				s.post(event);
-				Thread.yield();
-			});
-		} else {
-			getSubscribers(event.getTopic()).stream().forEach(s -> s.post(event));
+	}
+
+	/**
+	 * Posts an event to two disjoint sets of subscribers.
+	 */
+	private void signal(final Event event, final Actor[] subscribers, final Actor[] others) {
+		final EventJournal current = journal;
+		if (current != null) {
+			current.append(this, event);
+		}
+		// Logger.isTraceActivated is checked first, so this statement costs nothing
+		// when the trace level is not activated
+		if (Logger.isTraceActivated(this) && !Engine.LOG_EVENT.equals(event.getTopic())) {
+			Logger.trace(this, "%s signals %s at %d\n", event.getSource().getName(), event.getTopic(),
+					event.getTime());
+		}
+		// Logger is stopped after all actors in order to have the maximum of logs
+		final boolean isStop = Engine.STOP_EVENT.equals(event.getTopic());
+		final EventDispatched dispatched = new EventDispatched();
+		dispatched.begin();
+		int fanOut = 0;
+		for (final Actor subscriber : subscribers) {
+			if (!isStop || subscriber != logger) {
+				subscriber.post(event);
+				fanOut++;
+			}
+		}
+		for (final Actor subscriber : others) {
+			subscriber.post(event);
+			fanOut++;
+		}
+		if (dispatched.shouldCommit()) {
+			dispatched.engine = name;
+			dispatched.topic = event.getTopic();
+			dispatched.fanOut = fanOut;
+			dispatched.commit();
 		}
 	}
 
 	@Override
 	public void signalToChildren(final Event event) {
 		Objects.requireNonNull(event);
+		final String topic = event.getTopic();
 		synchronized (children) {
-			children.parallelStream().forEach(s -> s.signal(event.duplicate(s)));
+			children.parallelStream().filter(s -> reaches(s, topic)).forEach(s -> s.signal(event.duplicate(s)));
 		}
 	}
 
@@ -330,30 +743,61 @@ public final class EngineImpl implements Engine {
 
 	private void start(final Actor actor) {
 		Objects.requireNonNull(actor);
-		Logger.trace(this, "starting (%s)...\n", actor.getName());
+		if (Logger.isTraceActivated(this)) {
+			Logger.trace(this, "starting (%s)...\n", actor.getName());
+		}
 		new Thread(actor, actor.getName()).start();
 		// final Thread.Builder builder = Thread.ofVirtual().name(actor.getName());
 		// builder.start(actor);
 	}
 
 	@Override
-	public void stop() {
+	public CompletableFuture<Void> stop() {
 		Logger.debug(this, "===== stop(%s) =====\n", getName());
 		final Event stop = EventImpl.createEvent(Engine.STOP_EVENT, this, (Actor) null);
 		signal(stop);
+		return terminated;
 	}
 
 	@Override
 	synchronized public void subscribe(final Actor actor, final String topic) {
 		Objects.requireNonNull(actor);
 		Objects.requireNonNull(topic);
-		Logger.trace(this, "Actor %s subscribes to topic %s\n", actor.getName(), topic);
-		Set<Actor> subscribers = subscribersBytopic.get(topic);
-		if (subscribers == null) {
-			subscribers = new HashSet<>();
-			subscribersBytopic.put(topic, subscribers);
+		if (Logger.isTraceActivated(this)) {
+			Logger.trace(this, "Actor %s subscribes to topic %s\n", actor.getName(), topic);
+		}
+		subscribersBytopic.computeIfAbsent(topic, t -> new Subscribers()).add(actor);
+		updateInterest(topic);
+	}
+
+	/**
+	 * Subscribes an actor to the events of a topic signaled with a key, or without
+	 * a key. The subscription is ignored if the actor subscribes every event of
+	 * the topic.
+	 */
+	@Override
+	synchronized public void subscribe(final Actor actor, final String topic, final Object key) {
+		Objects.requireNonNull(actor);
+		Objects.requireNonNull(topic);
+		Objects.requireNonNull(key);
+		if (Logger.isTraceActivated(this)) {
+			Logger.trace(this, "Actor %s subscribes to topic %s with key %s\n", actor.getName(), topic, key);
+		}
+		subscribersBytopic.computeIfAbsent(topic, t -> new Subscribers()).add(actor, key);
+		updateInterest(topic);
+	}
+
+	@Override
+	synchronized public void subscribeAll(final Collection<? extends Actor> subscribers, final String... topics) {
+		Objects.requireNonNull(subscribers);
+		if (Logger.isTraceActivated(this)) {
+			Logger.trace(this, "%d actors subscribe to topics %s\n", subscribers.size(), Arrays.toString(topics));
+		}
+		for (final String topic : topics) {
+			Objects.requireNonNull(topic);
+			subscribersBytopic.computeIfAbsent(topic, t -> new Subscribers()).addAll(subscribers);
+			updateInterest(topic);
 		}
-		subscribers.add(actor);
 	}
 
 	@Override
@@ -366,13 +810,11 @@ public final class EngineImpl implements Engine {
 		buf.append(" #actors=");
 		buf.append(actors.size());
 		buf.append("\n");
-		synchronized (actors) {
-			actors.values().stream().forEach(a -> {
-				buf.append("\t");
-				buf.append(a.getSimpleName());
-				buf.append("\n");
-			});
-		}
+		actors.forEach(a -> {
+			buf.append("\t");
+			buf.append(a.getSimpleName());
+			buf.append("\n");
+		});
 		synchronized (children) {
 			if (!children.isEmpty()) {
 				// display all child engines
@@ -388,18 +830,25 @@ public final class EngineImpl implements Engine {
 	}
 
 	@Override
-	synchronized public boolean unregister(final Actor actor) {
+	public boolean unregister(final Actor actor) {
 		Objects.requireNonNull(actor);
 		if (!(actor instanceof Engine)) {
-			Logger.debug(this, "Unregister %s\n", actor.getName());
-			synchronized (subscribersBytopic) {
-				subscribersBytopic.values().stream().forEach(s -> s.remove(actor));
+			if (Logger.isDebugActivated(this)) {
+				Logger.debug(this, "Unregister %s\n", actor.getName());
 			}
-			if (actors.remove(actor.getId()) == null) {
+			synchronized (this) {
+				subscribersBytopic.forEach((topic, s) -> {
+					if (s.remove(actor)) {
+						updateInterest(topic);
+					}
+				});
+			}
+			if (actors.unregister(actor) == ActorRegistry.NO_SLOT) {
 				// System.out.printf("Actor %s is already unregistered\n", actor.getName());
 				Logger.error(this, "Actor %s is already unregistered\n", actor.getName());
 				Thread.dumpStack();
 			}
+			Management.unregister(this, actor);
 		} else {
 			Logger.error(this, "Unregister Engine %s - %d\n", actor.getName(), actors.size());
 			Thread.dumpStack();
@@ -411,13 +860,49 @@ public final class EngineImpl implements Engine {
 	synchronized public void unsubscribe(final Actor actor, final String topic) {
 		Objects.requireNonNull(actor);
 		Objects.requireNonNull(topic);
-		Logger.trace(this, "%s unsubscribes to topic %s\n", actor.getName(), topic);
-		final Set<Actor> subscribers = subscribersBytopic.get(topic);
+		if (Logger.isTraceActivated(this)) {
+			Logger.trace(this, "%s unsubscribes to topic %s\n", actor.getName(), topic);
+		}
+		final Subscribers subscribers = subscribersBytopic.get(topic);
 		if (subscribers != null) {
 			subscribers.remove(actor);
+			updateInterest(topic);
 		} else {
 			Logger.error(this, "Cannot unsubscribe %s because it is not subscribed by %s\n", topic,
 					actor.getSimpleName());
 		}
 	}
+
+	@Override
+	synchronized public void unsubscribe(final Actor actor, final String topic, final Object key) {
+		Objects.requireNonNull(actor);
+		Objects.requireNonNull(topic);
+		Objects.requireNonNull(key);
+		if (Logger.isTraceActivated(this)) {
+			Logger.trace(this, "%s unsubscribes to topic %s with key %s\n", actor.getName(), topic, key);
+		}
+		final Subscribers subscribers = subscribersBytopic.get(topic);
+		if (subscribers != null && subscribers.remove(actor, key)) {
+			updateInterest(topic);
+		} else {
+			Logger.error(this, "Cannot unsubscribe %s with key %s because it is not subscribed by %s\n", topic, key,
+					actor.getSimpleName());
+		}
+	}
+
+	/**
+	 * Updates the interest of this engine in a topic after a subscription change
+	 * in its subtree, and advertises a change to its parent. Must be called under
+	 * the lock of this engine.
+	 */
+	private void updateInterest(final String topic) {
+		final Subscribers subscribers = subscribersBytopic.get(topic);
+		final Set<Engine> interested = interestedChildren.get(topic);
+		final boolean interest = subscribers != null && subscribers.hasMemberOtherThan(this)
+				|| interested != null && !interested.isEmpty();
+		final boolean changed = interest ? interests.add(topic) : interests.remove(topic);
+		if (changed && parent instanceof final EngineImpl impl) {
+			impl.setInterest(this, topic, interest);
+		}
+	}
 }
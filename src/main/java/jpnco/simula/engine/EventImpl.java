@@ -7,6 +7,9 @@ import java.util.concurrent.TimeUnit;
 
 import jpnco.simula.Actor;
 import jpnco.simula.Event;
+import jpnco.simula.jfr.EventProcessed;
+import jpnco.simula.trace.TraceContext;
+import jpnco.simula.trace.Tracing;
 
 public final class EventImpl implements Event {
 
@@ -67,6 +70,11 @@ public final class EventImpl implements Event {
 	private boolean isPrioritized;
 	private boolean isDelayed;
 	private long startTime;
+	// when the event can be processed, only set when the metrics or the JFR event
+	// EventProcessed are enabled
+	private long readyNanos;
+	// null when tracing is disabled, shared by the duplicates of this event
+	private final TraceContext trace;
 
 	/**
 	 * Builds an event
@@ -86,6 +94,8 @@ public final class EventImpl implements Event {
 		priority = 0;
 		delay = 0;
 		this.parameters = Arrays.copyOf(parameters, parameters.length);
+		readyNanos = ActorMetrics.isEnabled() || new EventProcessed().isEnabled() ? System.nanoTime() : 0;
+		trace = Tracing.isEnabled() ? Tracing.next() : null;
 	}
 
 	/**
@@ -117,6 +127,9 @@ public final class EventImpl implements Event {
 		this.delay = delay;
 		isDelayed = true;
 		startTime = System.currentTimeMillis() + delay;
+		if (readyNanos != 0) {
+			readyNanos += TimeUnit.MILLISECONDS.toNanos(delay);
+		}
 	}
 
 	@Override
@@ -170,11 +183,41 @@ public final class EventImpl implements Event {
 		return unit.convert(diff, TimeUnit.MILLISECONDS);
 	}
 
+	/**
+	 * Returns a parameter of this event, without copying the parameters.
+	 *
+	 * @param index the index of the parameter
+	 * @return the parameter
+	 */
+	Object getParameter(final int index) {
+		return parameters[index];
+	}
+
+	/**
+	 * Returns the number of parameters of this event.
+	 *
+	 * @return the number of parameters
+	 */
+	int getParameterCount() {
+		return parameters.length;
+	}
+
 	@Override
 	public Object[] getParameters() {
 		return Arrays.copyOf(parameters, parameters.length);
 	}
 
+	/**
+	 * Returns the time, in nanoseconds, from which this event can be processed. 0
+	 * if neither the metrics nor the JFR event EventProcessed were enabled when
+	 * this event was built.
+	 *
+	 * @return the time from which this event can be processed
+	 */
+	long getReadyNanos() {
+		return readyNanos;
+	}
+
 	@Override
 	public int getPriority() {
 		return priority;
@@ -195,6 +238,11 @@ public final class EventImpl implements Event {
 		return topic;
 	}
 
+	@Override
+	public TraceContext getTrace() {
+		return trace;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -0,0 +1,240 @@
+package jpnco.simula.engine;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Reads the primitives written by {@link EventWriter} from a buffer. A reader is
+ * reused from one buffer to the next, with {@link #reset(ByteBuffer)}; its
+ * dictionaries are kept, so the buffers of one stream must be read in order.
+ * <p>
+ * Reading past the limit of the buffer throws a
+ * {@link java.nio.BufferUnderflowException}.
+ * <p>
+ * A reader is not thread safe.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class EventReader {
+
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private static long unzigzag(final long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private final StringDictionary topics;
+	private final StringDictionary names;
+	private ByteBuffer buffer = EMPTY;
+
+	/**
+	 * Builds a reader with new dictionaries.
+	 */
+	public EventReader() {
+		this(StringDictionary.forTopics(), new StringDictionary());
+	}
+
+	/**
+	 * Builds a reader.
+	 *
+	 * @param topics the dictionary of the topics
+	 * @param names  the dictionary of the names
+	 */
+	public EventReader(final StringDictionary topics, final StringDictionary names) {
+		this.topics = Objects.requireNonNull(topics);
+		this.names = Objects.requireNonNull(names);
+	}
+
+	/**
+	 * Returns the buffer read by this reader.
+	 *
+	 * @return the buffer read by this reader
+	 */
+	public ByteBuffer buffer() {
+		return buffer;
+	}
+
+	/**
+	 * Returns the dictionary of the names.
+	 *
+	 * @return the dictionary of the names
+	 */
+	public StringDictionary getNames() {
+		return names;
+	}
+
+	/**
+	 * Returns the dictionary of the topics.
+	 *
+	 * @return the dictionary of the topics
+	 */
+	public StringDictionary getTopics() {
+		return topics;
+	}
+
+	public boolean readBoolean() {
+		return buffer.get() != 0;
+	}
+
+	public byte readByte() {
+		return buffer.get();
+	}
+
+	/**
+	 * Reads a byte array written as its length followed by its bytes.
+	 *
+	 * @return the read bytes
+	 */
+	public byte[] readBytes() {
+		final byte[] bytes = new byte[readLength()];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	public char readChar() {
+		return buffer.getChar();
+	}
+
+	private String readDefined(final StringDictionary dictionary) {
+		final int value = readVarint();
+		final int id = value >>> 1;
+		if ((value & 1) == 0) {
+			return dictionary.get(id);
+		}
+		final String string = readString();
+		if (dictionary.add(string) != id) {
+			throw new IllegalStateException("the dictionary is out of sync at " + string);
+		}
+		return string;
+	}
+
+	public double readDouble() {
+		return buffer.getDouble();
+	}
+
+	public float readFloat() {
+		return buffer.getFloat();
+	}
+
+	/**
+	 * Reads a signed int written as a zigzag varint.
+	 *
+	 * @return the read value
+	 */
+	public int readInt() {
+		return (int) unzigzag(readVarlong());
+	}
+
+	/**
+	 * Reads a signed long written as a zigzag varint.
+	 *
+	 * @return the read value
+	 */
+	public long readLong() {
+		return unzigzag(readVarlong());
+	}
+
+	/**
+	 * Reads the length of a string or a byte array, checked against the remaining
+	 * bytes.
+	 */
+	private int readLength() {
+		final int length = readVarint();
+		if (length < 0 || length > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		return length;
+	}
+
+	/**
+	 * Reads a name written through the name dictionary.
+	 *
+	 * @return the read name
+	 */
+	public String readName() {
+		return readDefined(names);
+	}
+
+	public short readShort() {
+		return buffer.getShort();
+	}
+
+	/**
+	 * Reads a string written as its UTF-8 length followed by its UTF-8 bytes.
+	 *
+	 * @return the read string
+	 */
+	public String readString() {
+		final int length = readLength();
+		final String string;
+		if (buffer.hasArray()) {
+			string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+					StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+		} else {
+			final byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			string = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return string;
+	}
+
+	/**
+	 * Reads a topic written through the topic dictionary.
+	 *
+	 * @return the read topic
+	 */
+	public String readTopic() {
+		return readDefined(topics);
+	}
+
+	/**
+	 * Reads an unsigned int written as a varint.
+	 *
+	 * @return the read value
+	 */
+	public int readVarint() {
+		return (int) readVarlong();
+	}
+
+	/**
+	 * Reads an unsigned long written as a varint.
+	 *
+	 * @return the read value
+	 */
+	public long readVarlong() {
+		long value = 0;
+		for (int shift = 0;; shift += 7) {
+			final byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of bytes remaining in the buffer.
+	 *
+	 * @return the number of bytes remaining
+	 */
+	public int remaining() {
+		return buffer.remaining();
+	}
+
+	/**
+	 * Reads a new buffer, from its position to its limit. The dictionaries are
+	 * kept.
+	 *
+	 * @param newBuffer the buffer to read
+	 * @return this reader
+	 */
+	public EventReader reset(final ByteBuffer newBuffer) {
+		buffer = Objects.requireNonNull(newBuffer);
+		return this;
+	}
+
+}
@@ -0,0 +1,67 @@
+package jpnco.simula.engine;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Event;
+
+/**
+ * An event decoded by a {@link Codec}, detached from any engine: its source and
+ * the actors in its parameters are known by their names only.
+ *
+ * @param topic      the topic of the event
+ * @param source     the name of the actor that signaled the event
+ * @param time       the simulated time of the event
+ * @param kind       the kind of the event
+ * @param priority   the priority of a priority event, 0 otherwise
+ * @param delay      the delay in milliseconds of a delayed event, 0 otherwise
+ * @param parameters the parameters of the event, the actors being decoded as
+ *                   {@link ActorName}
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public record EventRecord(String topic, String source, int time, Kind kind, int priority, long delay,
+		Object[] parameters) {
+
+	/**
+	 * The name of an actor that was a parameter of an event.
+	 *
+	 * @param name the name of the actor
+	 */
+	public record ActorName(String name) {
+	}
+
+	/**
+	 * The kinds of event.
+	 */
+	public enum Kind {
+		STANDARD, PRIORITY, DELAYED
+	}
+
+	/**
+	 * Builds an event from this record. The event gets the simulated time of the
+	 * engine of its source.
+	 *
+	 * @param actors returns the actor of a name, for the source and the actors in
+	 *               the parameters
+	 * @return the built event
+	 */
+	public Event toEvent(final Function<String, Actor> actors) {
+		Objects.requireNonNull(actors);
+		final Object[] resolved = parameters.clone();
+		for (int i = 0; i < resolved.length; i++) {
+			if (resolved[i] instanceof final ActorName actor) {
+				resolved[i] = actors.apply(actor.name());
+			}
+		}
+		final Actor actor = actors.apply(source);
+		return switch (kind) {
+		case PRIORITY -> EventImpl.createPriorityEvent(topic, priority, actor, resolved);
+		case DELAYED -> EventImpl.createDelayedEvent(topic, delay, actor, resolved);
+		default -> EventImpl.createEvent(topic, actor, resolved);
+		};
+	}
+
+}
@@ -0,0 +1,321 @@
+package jpnco.simula.engine;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Writes the primitives of the binary encoding of events into a growable heap
+ * buffer, read back by {@link EventReader}. A writer is reused from one event to
+ * the next: once its buffer is large enough, writing an event does not
+ * allocate.
+ * <p>
+ * Integers are written as varints: 7 bits per byte, least significant first,
+ * the high bit set on all bytes but the last. Signed integers are zigzag encoded
+ * first, so small negative values stay short. A string is written as its UTF-8
+ * length (varint) followed by its UTF-8 bytes. Topics and names are written
+ * through a {@link StringDictionary}: a known string is written as its id
+ * shifted left by one bit, a new string as its new id shifted left by one bit
+ * with the low bit set, followed by the string.
+ * <p>
+ * A writer that does not define strings only writes the topics and names
+ * already known by its dictionaries: an unknown one leaves the writer
+ * incomplete, and the written bytes must be dropped. Such a writer can share
+ * the dictionaries of a defining writer owned by another thread.
+ * <p>
+ * A writer is not thread safe.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class EventWriter {
+
+	private static final int DEFAULT_CAPACITY = 1 << 10;
+
+	private static long zigzag(final long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private final StringDictionary topics;
+	private final StringDictionary names;
+	private final boolean defining;
+	private ByteBuffer buffer;
+	private boolean complete = true;
+
+	/**
+	 * Builds a writer with new dictionaries.
+	 */
+	public EventWriter() {
+		this(StringDictionary.forTopics(), new StringDictionary());
+	}
+
+	/**
+	 * Builds a writer.
+	 *
+	 * @param topics the dictionary of the topics
+	 * @param names  the dictionary of the names
+	 */
+	public EventWriter(final StringDictionary topics, final StringDictionary names) {
+		this(topics, names, true);
+	}
+
+	/**
+	 * Builds a writer that may not define strings.
+	 *
+	 * @param topics   the dictionary of the topics
+	 * @param names    the dictionary of the names
+	 * @param defining false if this writer must not add strings to its
+	 *                 dictionaries
+	 */
+	public EventWriter(final StringDictionary topics, final StringDictionary names, final boolean defining) {
+		this.topics = Objects.requireNonNull(topics);
+		this.names = Objects.requireNonNull(names);
+		this.defining = defining;
+		buffer = ByteBuffer.allocate(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Returns the buffer of this writer: the written bytes are between 0 and its
+	 * position. The buffer may change when it grows.
+	 *
+	 * @return the buffer of this writer
+	 */
+	public ByteBuffer buffer() {
+		return buffer;
+	}
+
+	/**
+	 * Forgets the written bytes. The dictionaries are kept.
+	 *
+	 * @return this writer
+	 */
+	public EventWriter clear() {
+		buffer.clear();
+		complete = true;
+		return this;
+	}
+
+	/**
+	 * Returns the dictionary of the names.
+	 *
+	 * @return the dictionary of the names
+	 */
+	public StringDictionary getNames() {
+		return names;
+	}
+
+	/**
+	 * Returns the dictionary of the topics.
+	 *
+	 * @return the dictionary of the topics
+	 */
+	public StringDictionary getTopics() {
+		return topics;
+	}
+
+	/**
+	 * Returns false if a topic or a name written since the last clear was unknown
+	 * and this writer does not define strings. The written bytes are then
+	 * meaningless.
+	 *
+	 * @return true if all the written topics and names were known or defined
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Grows the buffer if it has less than size bytes remaining.
+	 */
+	private void reserve(final int size) {
+		if (buffer.remaining() < size) {
+			final ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+			buffer.flip();
+			buffer = larger.put(buffer);
+		}
+	}
+
+	/**
+	 * Returns the number of written bytes.
+	 *
+	 * @return the number of written bytes
+	 */
+	public int size() {
+		return buffer.position();
+	}
+
+	public EventWriter writeBoolean(final boolean value) {
+		return writeByte((byte) (value ? 1 : 0));
+	}
+
+	public EventWriter writeByte(final byte value) {
+		reserve(1);
+		buffer.put(value);
+		return this;
+	}
+
+	/**
+	 * Writes a byte array as its length (varint) followed by its bytes.
+	 *
+	 * @param value the bytes to write
+	 * @return this writer
+	 */
+	public EventWriter writeBytes(final byte[] value) {
+		writeVarint(value.length);
+		reserve(value.length);
+		buffer.put(value);
+		return this;
+	}
+
+	public EventWriter writeChar(final char value) {
+		reserve(2);
+		buffer.putChar(value);
+		return this;
+	}
+
+	private EventWriter writeDefined(final StringDictionary dictionary, final String value) {
+		final int id = dictionary.idOf(value);
+		if (id >= 0) {
+			return writeVarint(id << 1);
+		}
+		if (!defining) {
+			complete = false;
+			return this;
+		}
+		writeVarint(dictionary.add(value) << 1 | 1);
+		return writeString(value);
+	}
+
+	public EventWriter writeDouble(final double value) {
+		reserve(8);
+		buffer.putDouble(value);
+		return this;
+	}
+
+	public EventWriter writeFloat(final float value) {
+		reserve(4);
+		buffer.putFloat(value);
+		return this;
+	}
+
+	/**
+	 * Writes a signed int as a zigzag varint.
+	 *
+	 * @param value the value to write
+	 * @return this writer
+	 */
+	public EventWriter writeInt(final int value) {
+		return writeVarlong(zigzag(value));
+	}
+
+	/**
+	 * Writes a signed long as a zigzag varint.
+	 *
+	 * @param value the value to write
+	 * @return this writer
+	 */
+	public EventWriter writeLong(final long value) {
+		return writeVarlong(zigzag(value));
+	}
+
+	/**
+	 * Writes a name, such as an actor or an engine name, through the name
+	 * dictionary.
+	 *
+	 * @param name the name to write
+	 * @return this writer
+	 */
+	public EventWriter writeName(final String name) {
+		return writeDefined(names, name);
+	}
+
+	public EventWriter writeShort(final short value) {
+		reserve(2);
+		buffer.putShort(value);
+		return this;
+	}
+
+	/**
+	 * Writes a string as its UTF-8 length (varint) followed by its UTF-8 bytes,
+	 * without allocating.
+	 *
+	 * @param value the string to write
+	 * @return this writer
+	 */
+	public EventWriter writeString(final String value) {
+		final int length = value.length();
+		int utf8 = length;
+		for (int i = 0; i < length; i++) {
+			final char c = value.charAt(i);
+			if (c >= 0x80) {
+				if (c < 0x800) {
+					utf8++;
+				} else if (Character.isHighSurrogate(c) && i + 1 < length
+						&& Character.isLowSurrogate(value.charAt(i + 1))) {
+					// 4 bytes for 2 chars
+					utf8 += 2;
+					i++;
+				} else if (!Character.isSurrogate(c)) {
+					utf8 += 2;
+				}
+			}
+		}
+		writeVarint(utf8);
+		reserve(utf8);
+		for (int i = 0; i < length; i++) {
+			final char c = value.charAt(i);
+			if (c < 0x80) {
+				buffer.put((byte) c);
+			} else if (c < 0x800) {
+				buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				final int code = Character.toCodePoint(c, value.charAt(++i));
+				buffer.put((byte) (0xF0 | code >> 18)).put((byte) (0x80 | code >> 12 & 0x3F))
+						.put((byte) (0x80 | code >> 6 & 0x3F)).put((byte) (0x80 | code & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				// an unpaired surrogate is replaced, as String.getBytes does
+				buffer.put((byte) '?');
+			} else {
+				buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Writes a topic through the topic dictionary.
+	 *
+	 * @param topic the topic to write
+	 * @return this writer
+	 */
+	public EventWriter writeTopic(final String topic) {
+		return writeDefined(topics, topic);
+	}
+
+	/**
+	 * Writes an unsigned int as a varint.
+	 *
+	 * @param value the value to write
+	 * @return this writer
+	 */
+	public EventWriter writeVarint(final int value) {
+		return writeVarlong(value & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Writes an unsigned long as a varint.
+	 *
+	 * @param value the value to write
+	 * @return this writer
+	 */
+	public EventWriter writeVarlong(long value) {
+		reserve(10);
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+		return this;
+	}
+
+}
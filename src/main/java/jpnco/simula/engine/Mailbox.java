@@ -0,0 +1,196 @@
+package jpnco.simula.engine;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+
+/**
+ * The mailbox of an actor or an engine. It holds two queues: a control queue
+ * for the lifecycle topics and a data queue for all the other topics. The
+ * control queue is always checked first, so a STOP or a STOPPED_ENGINE is never
+ * stuck behind a backlog of business events.
+ * <p>
+ * A semaphore counts the posted events, so a consumer parks until an event is
+ * posted in any of the two queues. The data queue may be a DelayQueue: in this
+ * case, the consumer also wakes up when the first delayed event expires.
+ * <p>
+ * The consumer enters the gate of the {@link TickBarrier} of its tree while it
+ * takes and processes an event, so a paused tree keeps its events in the
+ * mailboxes.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+final class Mailbox {
+
+	/**
+	 * The control topics of an actor
+	 */
+	static final Set<String> ACTOR_CONTROL_TOPICS = Set.of(Engine.START_EVENT, Engine.STOP_EVENT,
+			Engine.STOP_ME_EVENT);
+
+	/**
+	 * The control topics of an engine. TIME is a control topic for an engine so
+	 * that ticks are forwarded to child engines without delay.
+	 */
+	static final Set<String> ENGINE_CONTROL_TOPICS = Set.of(Engine.START_EVENT, Engine.STOP_EVENT,
+			Engine.STOPPED_ACTOR_EVENT, Engine.STOPPED_ENGINE_EVENT, Engine.TIME_EVENT);
+
+	private final BlockingQueue<Event> control = new LinkedBlockingQueue<>();
+	private final BlockingQueue<Event> events;
+	private final Set<String> controlTopics;
+	private final Semaphore available = new Semaphore(0);
+	private final TickBarrier.Gate gate;
+
+	/**
+	 * Builds a mailbox with a detached gate.
+	 *
+	 * @param events        the data queue
+	 * @param controlTopics the topics that are posted in the control queue
+	 */
+	Mailbox(final BlockingQueue<Event> events, final Set<String> controlTopics) {
+		this(events, controlTopics, new TickBarrier().newGate());
+	}
+
+	/**
+	 * Builds a mailbox.
+	 *
+	 * @param events        the data queue
+	 * @param controlTopics the topics that are posted in the control queue
+	 * @param gate          the gate entered by the consumer
+	 */
+	Mailbox(final BlockingQueue<Event> events, final Set<String> controlTopics, final TickBarrier.Gate gate) {
+		this.events = events;
+		this.controlTopics = controlTopics;
+		this.gate = gate;
+	}
+
+	/**
+	 * Removes all the events of the data queue and returns their number.
+	 *
+	 * @return the number of removed events
+	 */
+	int clear() {
+		final int[] count = { 0 };
+		events.removeIf(event -> {
+			available.tryAcquire();
+			count[0]++;
+			return true;
+		});
+		return count[0];
+	}
+
+	/**
+	 * Removes all the events of both queues and returns their number.
+	 *
+	 * @return the number of removed events
+	 */
+	int clearAll() {
+		final int[] count = { clear() };
+		control.removeIf(event -> {
+			available.tryAcquire();
+			count[0]++;
+			return true;
+		});
+		return count[0];
+	}
+
+	/**
+	 * Returns an estimate of the number of events in the mailbox, without locking
+	 * the queues.
+	 *
+	 * @return an estimate of the number of events in the mailbox
+	 */
+	int depth() {
+		return available.availablePermits();
+	}
+
+	/**
+	 * Returns the data queue.
+	 *
+	 * @return the data queue.
+	 */
+	BlockingQueue<Event> getEvents() {
+		return events;
+	}
+
+	private boolean isControl(final String topic) {
+		return topic != null && controlTopics.contains(topic);
+	}
+
+	/**
+	 * Tells that the consumer no longer takes events, so the barrier of the tree
+	 * no longer waits for it.
+	 */
+	void leave() {
+		gate.leave();
+	}
+
+	/**
+	 * Posts an event in the control or the data queue according to its topic.
+	 *
+	 * @param event the event to post
+	 */
+	void post(final Event event) {
+		final BlockingQueue<Event> queue = isControl(event.getTopic()) ? control : events;
+		while (!queue.offer(event)) {
+			Thread.yield();
+		}
+		available.release();
+	}
+
+	/**
+	 * Returns the number of events in the mailbox.
+	 *
+	 * @return the number of events in the mailbox.
+	 */
+	int size() {
+		return control.size() + events.size();
+	}
+
+	/**
+	 * Takes the next event, waiting if necessary. A control event is always taken
+	 * before a data event. The previous event is considered processed, and the
+	 * gate stays entered until the next call.
+	 *
+	 * @return the next event
+	 * @throws InterruptedException if the current thread is interrupted
+	 */
+	Event take() throws InterruptedException {
+		gate.exit();
+		available.acquire();
+		int held = 1;
+		boolean taken = false;
+		try {
+			while (true) {
+				gate.enter();
+				Event event = control.poll();
+				if (event == null) {
+					event = events.poll();
+				}
+				if (event != null) {
+					taken = true;
+					return event;
+				}
+				// The permit belongs to a delayed event that is not expired yet or to a
+				// purged event: waits for a new event or for the expiration.
+				gate.exit();
+				final Event head = events.peek();
+				if (head == null) {
+					available.acquire();
+					held++;
+				} else if (available.tryAcquire(head.getDelay(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)) {
+					held++;
+				}
+			}
+		} finally {
+			available.release(taken ? held - 1 : held);
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+package jpnco.simula.engine;
+
+/**
+ * Writes and reads the event parameters of a given type. A serializer is
+ * registered in a {@link Codec} with a tag that identifies its type in the
+ * encoded events, so both ends of a stream must register the same serializers
+ * with the same tags.
+ * <p>
+ * A serializer must not keep state between two parameters: it may be called by
+ * several threads, each with its own writer or reader.
+ *
+ * @param <T> the type of the parameters
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public interface PayloadSerializer<T> {
+
+	/**
+	 * Reads a parameter.
+	 *
+	 * @param in the reader to read from
+	 * @return the read parameter
+	 */
+	T read(EventReader in);
+
+	/**
+	 * Writes a parameter.
+	 *
+	 * @param out   the writer to write to
+	 * @param value the parameter to write, not null
+	 */
+	void write(EventWriter out, T value);
+
+}
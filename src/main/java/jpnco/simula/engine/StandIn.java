@@ -0,0 +1,58 @@
+package jpnco.simula.engine;
+
+import java.util.Objects;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+
+/**
+ * An actor of a recorded run that is not registered in a rebuilt engine tree.
+ * It only carries the recorded name, so it can be the source or a parameter of
+ * a rebuilt event. It is never started.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class StandIn implements Actor {
+
+	private final Integer id = IdBuilder.nextId();
+	private final String name;
+	private final Engine engine;
+
+	/**
+	 * Builds a stand-in.
+	 *
+	 * @param name   the recorded name
+	 * @param engine the engine of the rebuilt tree
+	 */
+	public StandIn(final String name, final Engine engine) {
+		this.name = Objects.requireNonNull(name);
+		this.engine = Objects.requireNonNull(engine);
+	}
+
+	@Override
+	public Actor getDelegate() {
+		return null;
+	}
+
+	@Override
+	public Engine getEngine() {
+		return engine;
+	}
+
+	@Override
+	public Integer getId() {
+		return id;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void process(final Event event) {
+	}
+
+}
@@ -0,0 +1,128 @@
+package jpnco.simula.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jpnco.simula.Engine;
+
+/**
+ * A dictionary of strings, such as topics or actor names, used by
+ * {@link EventWriter} and {@link EventReader} to write a string once per stream:
+ * the first use of a string defines it inline, the next uses only write its id.
+ * The writer and the reader of a stream each keep their own dictionary, built
+ * in the same order.
+ * <p>
+ * A dictionary may start with predefined strings, known by both ends without
+ * being defined in the stream. The topic dictionary predefines the SIMULA
+ * topics.
+ * <p>
+ * A dictionary is not thread safe: it belongs to the writer or the reader of
+ * one stream. Only {@link #idOf(String)} may be called by other threads while
+ * the owner of the dictionary adds or removes strings.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class StringDictionary {
+
+	/** The topics predefined in the topic dictionaries, in the order of their ids */
+	public static final List<String> BUILT_IN_TOPICS = List.of(Engine.LOG_EVENT, Engine.PURGE_QUEUE_EVENT,
+			Engine.START_EVENT, Engine.STOP_EVENT, Engine.STOP_ME_EVENT, Engine.STOPPED_ACTOR_EVENT,
+			Engine.STOPPED_ENGINE_EVENT, Engine.TIME_EVENT, Engine.REQUEST_ALARM_EVENT, Engine.CLEAR_ALARM_EVENT);
+
+	/**
+	 * Returns a new topic dictionary, that predefines the SIMULA topics.
+	 *
+	 * @return a new topic dictionary
+	 */
+	public static StringDictionary forTopics() {
+		return new StringDictionary(BUILT_IN_TOPICS);
+	}
+
+	private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+	private final List<String> strings = new ArrayList<>();
+	private final int predefined;
+
+	/**
+	 * Builds an empty dictionary.
+	 */
+	public StringDictionary() {
+		this(List.of());
+	}
+
+	/**
+	 * Builds a dictionary with predefined strings.
+	 *
+	 * @param predefined the predefined strings, their ids are their indexes
+	 */
+	public StringDictionary(final List<String> predefined) {
+		for (final String string : predefined) {
+			add(string);
+		}
+		this.predefined = strings.size();
+	}
+
+	/**
+	 * Adds a string and returns its id.
+	 *
+	 * @param string the string to add
+	 * @return the id of the string
+	 * @throws IllegalArgumentException if the string is already defined
+	 */
+	public int add(final String string) {
+		Objects.requireNonNull(string);
+		final int id = strings.size();
+		if (ids.putIfAbsent(string, id) != null) {
+			throw new IllegalArgumentException(string + " is already defined");
+		}
+		strings.add(string);
+		return id;
+	}
+
+	/**
+	 * Returns the string of an id.
+	 *
+	 * @param id the id of the string
+	 * @return the string of the id
+	 * @throws IndexOutOfBoundsException if the id is not defined
+	 */
+	public String get(final int id) {
+		return strings.get(id);
+	}
+
+	/**
+	 * Returns the id of a string.
+	 *
+	 * @param string the string
+	 * @return the id of the string, -1 if it is not defined
+	 */
+	public int idOf(final String string) {
+		final Integer id = ids.get(string);
+		return id != null ? id : -1;
+	}
+
+	/**
+	 * Returns the number of strings of this dictionary, predefined ones included.
+	 *
+	 * @return the number of strings
+	 */
+	public int size() {
+		return strings.size();
+	}
+
+	/**
+	 * Removes the strings added after a given size, to undo the definitions of an
+	 * entry that is finally not written. The predefined strings are kept.
+	 *
+	 * @param size the size to go back to
+	 */
+	public void truncate(final int size) {
+		for (int i = strings.size() - 1; i >= Math.max(size, predefined); i--) {
+			ids.remove(strings.remove(i));
+		}
+	}
+
+}
@@ -0,0 +1,237 @@
+package jpnco.simula.engine;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jpnco.simula.Actor;
+
+/**
+ * The set of subscribers of a topic. The set is only modified under the lock of
+ * its engine, but it is read without any lock through an immutable snapshot.
+ * The snapshot is rebuilt lazily on the first read following a modification,
+ * so subscribing a lot of actors in a row costs one copy and signaling an event
+ * costs no copy at all.
+ * <p>
+ * A subscriber is either a wildcard subscriber, which receives all the events
+ * of the topic, or a keyed subscriber, which receives the events signaled with
+ * one of its keys and the events signaled without a key. The keyed subscribers
+ * are indexed by key, so an event signaled with a key costs a lookup whatever
+ * the number of subscribers. An actor is never both: a wildcard subscription
+ * replaces the keyed ones, and a keyed subscription of a wildcard subscriber is
+ * ignored.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+final class Subscribers {
+
+	private static final Actor[] NONE = new Actor[0];
+
+	static Actor[] none() {
+		return NONE;
+	}
+
+	private final Set<Actor> members = new HashSet<>();
+	// the keyed subscribers by key
+	private final Map<Object, Subscribers> byKey = new ConcurrentHashMap<>();
+	// the keys of each keyed subscriber
+	private final Map<Actor, Set<Object>> keysOf = new HashMap<>();
+
+	// the wildcard and the keyed subscribers
+	private volatile Actor[] snapshot = NONE;
+	// the wildcard subscribers
+	private volatile Actor[] wildcards = NONE;
+
+	/**
+	 * Adds a wildcard subscriber, and removes its keyed subscriptions. Must be
+	 * called under the lock of the engine.
+	 *
+	 * @param actor the subscriber to add
+	 * @return true if the actor was not already a wildcard subscriber
+	 */
+	boolean add(final Actor actor) {
+		if (members.add(actor)) {
+			removeKeys(actor);
+			changed();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds a keyed subscriber. Must be called under the lock of the engine.
+	 *
+	 * @param actor the subscriber to add
+	 * @param key   the key of the events to receive
+	 * @return true if the actor did not already receive the events of the key
+	 */
+	boolean add(final Actor actor, final Object key) {
+		if (members.contains(actor)) {
+			return false;
+		}
+		if (byKey.computeIfAbsent(key, k -> new Subscribers()).add(actor)) {
+			keysOf.computeIfAbsent(actor, a -> {
+				snapshot = null;
+				return new HashSet<>();
+			}).add(key);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds a set of wildcard subscribers. Must be called under the lock of the
+	 * engine.
+	 *
+	 * @param actors the subscribers to add
+	 */
+	void addAll(final Collection<? extends Actor> actors) {
+		if (members.addAll(actors)) {
+			if (!keysOf.isEmpty()) {
+				actors.forEach(this::removeKeys);
+			}
+			changed();
+		}
+	}
+
+	private void changed() {
+		snapshot = null;
+		wildcards = null;
+	}
+
+	/**
+	 * Returns true if an actor other than a given one is a subscriber. Must be
+	 * called under the lock of the engine.
+	 *
+	 * @param actor the actor not to count, usually the engine itself
+	 * @return true if an actor other than the given one is a subscriber
+	 */
+	boolean hasMemberOtherThan(final Actor actor) {
+		return members.size() + keysOf.size() > (members.contains(actor) ? 1 : 0);
+	}
+
+	/**
+	 * Returns an immutable snapshot of the keyed subscribers of a key, without the
+	 * wildcard subscribers. The returned array must not be modified.
+	 *
+	 * @param key  the key
+	 * @param lock the lock of the engine
+	 * @return an immutable snapshot of the keyed subscribers of the key
+	 */
+	Actor[] keyed(final Object key, final Object lock) {
+		final Subscribers subscribers = byKey.get(key);
+		return subscribers != null ? subscribers.snapshot(lock) : NONE;
+	}
+
+	/**
+	 * Removes a subscriber, wildcard or keyed. Must be called under the lock of the
+	 * engine.
+	 *
+	 * @param actor the subscriber to remove
+	 * @return true if the actor was a subscriber
+	 */
+	boolean remove(final Actor actor) {
+		if (members.remove(actor)) {
+			changed();
+			return true;
+		}
+		return removeKeys(actor);
+	}
+
+	/**
+	 * Removes a keyed subscription. Must be called under the lock of the engine.
+	 *
+	 * @param actor the subscriber to remove
+	 * @param key   the key of the subscription
+	 * @return true if the actor subscribed the key
+	 */
+	boolean remove(final Actor actor, final Object key) {
+		final Set<Object> keys = keysOf.get(actor);
+		if (keys == null || !keys.remove(key)) {
+			return false;
+		}
+		if (keys.isEmpty()) {
+			keysOf.remove(actor);
+			snapshot = null;
+		}
+		removeFromKey(actor, key);
+		return true;
+	}
+
+	private void removeFromKey(final Actor actor, final Object key) {
+		final Subscribers subscribers = byKey.get(key);
+		subscribers.remove(actor);
+		if (subscribers.members.isEmpty()) {
+			byKey.remove(key);
+		}
+	}
+
+	/**
+	 * Removes all the keyed subscriptions of an actor.
+	 */
+	private boolean removeKeys(final Actor actor) {
+		final Set<Object> keys = keysOf.remove(actor);
+		if (keys == null) {
+			return false;
+		}
+		for (final Object key : keys) {
+			removeFromKey(actor, key);
+		}
+		snapshot = null;
+		return true;
+	}
+
+	/**
+	 * Returns an immutable snapshot of the subscribers, wildcard and keyed, which
+	 * receive the events signaled without a key. The returned array must not be
+	 * modified.
+	 *
+	 * @param lock the lock of the engine
+	 * @return an immutable snapshot of the subscribers.
+	 */
+	Actor[] snapshot(final Object lock) {
+		Actor[] current = snapshot;
+		if (current == null) {
+			synchronized (lock) {
+				current = snapshot;
+				if (current == null) {
+					if (keysOf.isEmpty()) {
+						current = members.toArray(NONE);
+					} else {
+						final Set<Actor> all = new HashSet<>(members);
+						all.addAll(keysOf.keySet());
+						current = all.toArray(NONE);
+					}
+					snapshot = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Returns an immutable snapshot of the wildcard subscribers, which receive the
+	 * events signaled with any key. The returned array must not be modified.
+	 *
+	 * @param lock the lock of the engine
+	 * @return an immutable snapshot of the wildcard subscribers
+	 */
+	Actor[] wildcards(final Object lock) {
+		Actor[] current = wildcards;
+		if (current == null) {
+			synchronized (lock) {
+				current = wildcards;
+				if (current == null) {
+					current = members.toArray(NONE);
+					wildcards = current;
+				}
+			}
+		}
+		return current;
+	}
+
+}
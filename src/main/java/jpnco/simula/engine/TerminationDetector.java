@@ -0,0 +1,209 @@
+package jpnco.simula.engine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+
+/**
+ * Detects that a simulation has nothing left to do. Each engine owns a detector
+ * that counts the events that are in flight, i.e. posted to one of its actors
+ * and not yet processed, the pending one-shot alarms and its busy child
+ * engines. A detector only tells the detector of its parent engine when its
+ * count leaves 0 or comes back to 0, so the detector of the root engine covers
+ * the whole engine tree without being updated for each event.
+ * <p>
+ * An event must enter the detector before being posted and must exit it once
+ * processed. Because an actor signals the events caused by an event before
+ * this event exits, the count can only reach 0 when there is no more work in
+ * the subtree of the engine.
+ * <p>
+ * TIME events are counted as any event, but they are not considered as work.
+ * The work of a child engine is added to the work of its parent each time the
+ * child becomes quiescent.
+ * The simulation is idle when it is quiescent at two consecutive ticks and no
+ * work has been completed in between. An engine can be asked to stop as soon
+ * as it is idle.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class TerminationDetector {
+
+	/**
+	 * Returns the detector of an engine, or a detached detector if this engine
+	 * provides none.
+	 *
+	 * @param engine the engine
+	 * @return the detector of this engine or a detached detector.
+	 */
+	public static TerminationDetector of(final Engine engine) {
+		final TerminationDetector detector = engine != null ? engine.getTerminationDetector() : null;
+		return detector != null ? detector : new TerminationDetector(null);
+	}
+
+	private final TerminationDetector parent;
+	private final AtomicLong inFlight = new AtomicLong();
+	private final AtomicLong work = new AtomicLong();
+	private final AtomicLong reportedWork = new AtomicLong();
+	private volatile boolean stopWhenIdle = false;
+	private boolean quiescentAtLastTick = false;
+	private long workAtLastTick = 0;
+
+	/**
+	 * Builds a detector.
+	 *
+	 * @param parent the detector of the parent engine, may be null.
+	 */
+	public TerminationDetector(final TerminationDetector parent) {
+		this.parent = parent;
+	}
+
+	/**
+	 * Waits until this detector is quiescent.
+	 *
+	 * @throws InterruptedException if the current thread is interrupted
+	 */
+	public synchronized void awaitQuiescence() throws InterruptedException {
+		while (inFlight.get() != 0) {
+			wait();
+		}
+	}
+
+	/**
+	 * Waits at most a given time until this detector is quiescent.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit    the unit of the timeout
+	 * @return true if this detector is quiescent, false if the timeout elapsed.
+	 * @throws InterruptedException if the current thread is interrupted
+	 */
+	public synchronized boolean awaitQuiescence(final long timeout, final TimeUnit unit)
+			throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (inFlight.get() != 0) {
+			final long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return true;
+	}
+
+	/**
+	 * Counts an event or an alarm in flight.
+	 */
+	public void enter() {
+		changed(inFlight.incrementAndGet(), 1);
+	}
+
+	/**
+	 * Counts an event or an alarm that is no longer in flight.
+	 *
+	 * @param isWork true if some work has been done
+	 */
+	public void exit(final boolean isWork) {
+		exit(isWork ? 1 : 0);
+	}
+
+	/**
+	 * Counts a processed event.
+	 *
+	 * @param event the processed event
+	 */
+	public void exit(final Event event) {
+		final String topic = event.getTopic();
+		exit(!Engine.TIME_EVENT.equals(topic) && !Engine.LOG_EVENT.equals(topic));
+	}
+
+	/**
+	 * Returns the number of events, alarms and busy child engines in flight.
+	 *
+	 * @return the number of events, alarms and busy child engines in flight.
+	 */
+	public long getInFlight() {
+		return inFlight.get();
+	}
+
+	/**
+	 * Returns the number of processed events that are not TIME or LOG events,
+	 * including the ones reported by the child engines.
+	 *
+	 * @return the number of processed events that are not TIME or LOG events.
+	 */
+	public long getWork() {
+		return work.get();
+	}
+
+	/**
+	 * Returns true if there is no event, alarm nor busy child engine in flight.
+	 *
+	 * @return true if there is no event, alarm nor busy child engine in flight.
+	 */
+	public boolean isQuiescent() {
+		return inFlight.get() == 0;
+	}
+
+	public boolean isStopWhenIdle() {
+		return stopWhenIdle;
+	}
+
+	/**
+	 * Asks the engine to stop as soon as it is idle. Only the detector of the root
+	 * engine is checked at each tick.
+	 *
+	 * @param stopWhenIdle true to stop the engine as soon as it is idle
+	 */
+	public void setStopWhenIdle(final boolean stopWhenIdle) {
+		this.stopWhenIdle = stopWhenIdle;
+	}
+
+	/**
+	 * Must be called at each tick, before the TIME event is signaled. Returns true
+	 * if the engine must stop because it is idle.
+	 *
+	 * @return true if the engine must stop because it is idle.
+	 */
+	public synchronized boolean tick() {
+		final boolean quiescent = isQuiescent();
+		final long current = work.get();
+		final boolean idle = quiescent && quiescentAtLastTick && current == workAtLastTick;
+		quiescentAtLastTick = quiescent;
+		workAtLastTick = current;
+		return stopWhenIdle && idle;
+	}
+
+	/**
+	 * Tells the parent detector that the count has left 0 or has come back to 0.
+	 * As the parent is told after the count has changed, the count of the parent
+	 * may briefly be negative when the count of this detector comes back to 0 in
+	 * another thread, so the transitions are checked in both directions.
+	 *
+	 * @param count the count after the change
+	 * @param delta the change
+	 */
+	private void changed(final long count, final long delta) {
+		if (count == 0) {
+			synchronized (this) {
+				notifyAll();
+			}
+			if (parent != null) {
+				final long current = work.get();
+				final long reported = reportedWork.getAndAccumulate(current, Math::max);
+				parent.exit(Math.max(0, current - reported));
+			}
+		} else if (count == delta && parent != null) {
+			parent.enter();
+		}
+	}
+
+	private void exit(final long done) {
+		if (done != 0) {
+			work.addAndGet(done);
+		}
+		changed(inFlight.decrementAndGet(), -1);
+	}
+
+}
@@ -0,0 +1,188 @@
+package jpnco.simula.engine;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import jpnco.simula.Engine;
+
+/**
+ * Pauses an engine tree between two ticks. Each thread that processes the
+ * events of the tree, i.e. the actors, the engines and the clock of the time
+ * source, owns a gate of the barrier of the tree: it enters its gate before
+ * processing an event and exits it once the event is processed. Closing the
+ * barrier waits until no gate is entered, and no gate can be entered until the
+ * barrier is opened again. The events posted in the meantime wait in the
+ * mailboxes, and the clock skips its ticks.
+ * <p>
+ * A gate may also be idle only under a condition, for a thread that keeps on
+ * draining its queue while the barrier is closed.
+ * <p>
+ * Entering and exiting an open gate costs two volatile writes and a volatile
+ * read, so a gate is entered for each event. The barrier must not be closed by
+ * a thread that owns one of its gates.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class TickBarrier {
+
+	/**
+	 * The gate of a thread that processes events.
+	 */
+	public final class Gate {
+
+		private final BooleanSupplier idle;
+		private volatile boolean entered = false;
+
+		private Gate(final BooleanSupplier idle) {
+			this.idle = idle;
+		}
+
+		/**
+		 * Enters this gate, waiting while the barrier is closed.
+		 *
+		 * @throws InterruptedException if the current thread is interrupted while
+		 *                              waiting
+		 */
+		public void enter() throws InterruptedException {
+			entered = true;
+			while (closed) {
+				entered = false;
+				awaitOpen();
+				entered = true;
+			}
+		}
+
+		/**
+		 * Exits this gate.
+		 */
+		public void exit() {
+			entered = false;
+		}
+
+		private boolean isBusy() {
+			return entered || !idle.getAsBoolean();
+		}
+
+		/**
+		 * Exits this gate for good: the barrier no longer waits for it.
+		 */
+		public void leave() {
+			entered = false;
+			gates.remove(this);
+		}
+
+		/**
+		 * Enters this gate if the barrier is open.
+		 *
+		 * @return true if this gate is entered, false if the barrier is closed
+		 */
+		public boolean tryEnter() {
+			entered = true;
+			if (closed) {
+				entered = false;
+				return false;
+			}
+			return true;
+		}
+	}
+
+	private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	/**
+	 * Returns the barrier of an engine tree, or a detached barrier if the engine
+	 * provides none.
+	 *
+	 * @param engine the engine
+	 * @return the barrier of the tree of this engine or a detached barrier
+	 */
+	public static TickBarrier of(final Engine engine) {
+		return engine instanceof final EngineImpl impl && impl.getBarrier() != null ? impl.getBarrier()
+				: new TickBarrier();
+	}
+
+	private final Set<Gate> gates = ConcurrentHashMap.newKeySet();
+	private volatile boolean closed = false;
+
+	private synchronized void awaitOpen() throws InterruptedException {
+		while (closed) {
+			wait();
+		}
+	}
+
+	/**
+	 * Closes this barrier and waits until no gate is entered. If the barrier is
+	 * already closed, waits until it is opened first.
+	 *
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *                              waiting, the barrier is opened again
+	 */
+	public void close() throws InterruptedException {
+		synchronized (this) {
+			while (closed) {
+				wait();
+			}
+			closed = true;
+		}
+		for (final Gate gate : gates) {
+			while (gate.isBusy()) {
+				LockSupport.parkNanos(SPIN_NANOS);
+				if (Thread.interrupted()) {
+					open();
+					throw new InterruptedException();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of gates of this barrier.
+	 *
+	 * @return the number of gates of this barrier
+	 */
+	public int getGates() {
+		return gates.size();
+	}
+
+	/**
+	 * Returns true if this barrier is closed.
+	 *
+	 * @return true if this barrier is closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Returns a new gate, idle when it is not entered.
+	 *
+	 * @return a new gate
+	 */
+	public Gate newGate() {
+		return newGate(() -> true);
+	}
+
+	/**
+	 * Returns a new gate, idle when it is not entered and a condition holds.
+	 *
+	 * @param idle the condition
+	 * @return a new gate
+	 */
+	public Gate newGate(final BooleanSupplier idle) {
+		final Gate gate = new Gate(idle);
+		gates.add(gate);
+		return gate;
+	}
+
+	/**
+	 * Opens this barrier.
+	 */
+	public synchronized void open() {
+		closed = false;
+		notifyAll();
+	}
+
+}
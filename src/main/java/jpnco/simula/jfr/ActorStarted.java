@@ -0,0 +1,23 @@
+package jpnco.simula.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emitted when an actor receives its START event.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+@Name("jpnco.simula.ActorStarted")
+@Label("Actor Started")
+@Category({ "Simula", "Actors" })
+@StackTrace(false)
+public final class ActorStarted extends jdk.jfr.Event {
+
+	@Label("Actor")
+	public String actor;
+
+}
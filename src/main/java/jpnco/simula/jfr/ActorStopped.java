@@ -0,0 +1,23 @@
+package jpnco.simula.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emitted when an actor stops.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+@Name("jpnco.simula.ActorStopped")
+@Label("Actor Stopped")
+@Category({ "Simula", "Actors" })
+@StackTrace(false)
+public final class ActorStopped extends jdk.jfr.Event {
+
+	@Label("Actor")
+	public String actor;
+
+}
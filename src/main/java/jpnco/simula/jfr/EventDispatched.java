@@ -0,0 +1,35 @@
+package jpnco.simula.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Emitted when an engine signals an event to its subscribers. The duration is
+ * the time spent posting the event to all the subscribers.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+@Name("jpnco.simula.EventDispatched")
+@Label("Event Dispatched")
+@Category({ "Simula", "Events" })
+@Description("An event signaled by an engine to its subscribers")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class EventDispatched extends jdk.jfr.Event {
+
+	@Label("Engine")
+	public String engine;
+
+	@Label("Topic")
+	public String topic;
+
+	@Label("Fan-out")
+	@Description("The number of subscribers the event was posted to")
+	public int fanOut;
+
+}
@@ -0,0 +1,37 @@
+package jpnco.simula.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Emitted when an actor has processed an event. The duration is the process
+ * time.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+@Name("jpnco.simula.EventProcessed")
+@Label("Event Processed")
+@Category({ "Simula", "Events" })
+@Description("An event processed by an actor")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class EventProcessed extends jdk.jfr.Event {
+
+	@Label("Actor")
+	public String actor;
+
+	@Label("Topic")
+	public String topic;
+
+	@Label("Queue Wait")
+	@Description("The time the event waited in the mailbox before being processed")
+	@Timespan(Timespan.NANOSECONDS)
+	public long queueWait;
+
+}
@@ -0,0 +1,35 @@
+package jpnco.simula.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emitted when the time source sets the time. The duration is the time spent
+ * firing the alarms and signaling the TIME event.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+@Name("jpnco.simula.TickFired")
+@Label("Tick Fired")
+@Category({ "Simula", "Time" })
+@Description("A tick of the time source")
+@StackTrace(false)
+public final class TickFired extends jdk.jfr.Event {
+
+	@Label("Tick")
+	public int tick;
+
+	@Label("Alarms Fired")
+	public int alarmsFired;
+
+	@Label("Lag")
+	@Description("How late the tick was compared to its schedule")
+	@Timespan(Timespan.NANOSECONDS)
+	public long lag;
+
+}
@@ -0,0 +1,13 @@
+/**
+ * This packages contains the Java Flight Recorder events of SIMULA. They are
+ * recorded with <code>-XX:StartFlightRecording</code> and cost nothing when
+ * disabled :
+ * <li>EventDispatched: an event signaled by an engine, with its fan-out
+ * <li>EventProcessed: an event processed by an actor, with its queue wait
+ * <li>TickFired: a tick of the time source, with the alarms fired and its lag
+ * <li>ActorStarted and ActorStopped: the life cycle of the actors
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+package jpnco.simula.jfr;
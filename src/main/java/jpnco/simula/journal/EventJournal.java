@@ -0,0 +1,284 @@
+package jpnco.simula.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.engine.Codec;
+import jpnco.simula.engine.EventWriter;
+
+/**
+ * An append-only journal of the events signaled by engines, read by
+ * {@link JournalReader} and replayed by {@link Replay}. The journal is attached
+ * to an engine tree with {@link jpnco.simula.engine.EngineImpl#setJournal}.
+ * <p>
+ * The journal is a directory of segments of a fixed size, named
+ * journal-000000.seg, journal-000001.seg... Each segment is mapped in memory and
+ * starts with a header (magic long, segment index int, padding int), followed by
+ * entries. An entry is its length (int) followed by its body; a length of 0
+ * ends the segment. The length is written after the body, so a reader never
+ * sees a partial entry.
+ * <p>
+ * The body of an entry is the name of the engine (name dictionary), the
+ * nanoseconds since the opening of the journal (varlong) and the event encoded
+ * by a {@link Codec}. The dictionaries of the topics and names span the whole
+ * journal, so the segments must be read in order, with the same codec.
+ * <p>
+ * An event is encoded by the appending thread before taking the lock of the
+ * journal, with the strings already defined in the journal; the lock is held to
+ * copy the entry. Only the entries that define new strings are encoded under
+ * the lock. A full segment is forced to the disk after the lock is released.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class EventJournal implements AutoCloseable {
+
+	/** "SIMJRN02" */
+	public static final long MAGIC = 0x53494D4A524E3032L;
+	static final int HEADER_SIZE = 16;
+	static final int DEFAULT_SEGMENT_SIZE = 1 << 26;
+
+	/**
+	 * Returns the path of a segment.
+	 *
+	 * @param directory the directory of the journal
+	 * @param index     the index of the segment
+	 * @return the path of the segment
+	 */
+	static Path segmentPath(final Path directory, final int index) {
+		return directory.resolve(String.format("journal-%06d.seg", index));
+	}
+
+	/**
+	 * A segment that is full, to be forced to the disk and closed.
+	 */
+	private record Retired(FileChannel channel, MappedByteBuffer segment) {
+
+		void close() {
+			try {
+				segment.force();
+				channel.close();
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private final Path directory;
+	private final int segmentSize;
+	private final Codec codec;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final EventWriter writer = new EventWriter();
+	// the writers of the appending threads, that do not define strings
+	private final ThreadLocal<EventWriter> writers = ThreadLocal
+			.withInitial(() -> new EventWriter(writer.getTopics(), writer.getNames(), false));
+	// incremented under the lock when defined strings are removed
+	private volatile int generation = 0;
+	private final long origin = System.nanoTime();
+	private FileChannel channel;
+	private MappedByteBuffer segment;
+	private int segments = 0;
+	private long appended = 0;
+	private boolean closed = false;
+
+	/**
+	 * Builds a journal with segments of 64 MiB and the default codec. The
+	 * directory is created if needed, and the segments of a previous journal are
+	 * overwritten.
+	 *
+	 * @param directory the directory of the journal
+	 * @throws IOException if the directory or the first segment cannot be created
+	 */
+	public EventJournal(final Path directory) throws IOException {
+		this(directory, DEFAULT_SEGMENT_SIZE, new Codec());
+	}
+
+	/**
+	 * Builds a journal. The directory is created if needed, and the segments of a
+	 * previous journal are overwritten.
+	 *
+	 * @param directory   the directory of the journal
+	 * @param segmentSize the size in bytes of a segment
+	 * @param codec       the codec of the events
+	 * @throws IOException if the directory or the first segment cannot be created
+	 */
+	public EventJournal(final Path directory, final int segmentSize, final Codec codec) throws IOException {
+		if (segmentSize <= HEADER_SIZE + 4) {
+			throw new IllegalArgumentException("bad segment size " + segmentSize);
+		}
+		this.directory = Files.createDirectories(Objects.requireNonNull(directory));
+		this.segmentSize = segmentSize;
+		this.codec = Objects.requireNonNull(codec);
+		for (int index = 0; Files.deleteIfExists(segmentPath(directory, index)); index++) {
+			// removes the segments of a previous journal
+		}
+		nextSegment();
+	}
+
+	/**
+	 * Appends an event signaled by an engine. The events appended after the
+	 * journal is closed are dropped.
+	 *
+	 * @param engine the engine that signals the event
+	 * @param event  the signaled event
+	 * @throws IllegalArgumentException if the encoded event does not fit in a
+	 *                                  segment
+	 * @throws UncheckedIOException     if a new segment cannot be mapped, or a full
+	 *                                  segment cannot be forced to the disk
+	 */
+	public void append(final Engine engine, final Event event) {
+		final String name = engine.getName();
+		final long nanos = System.nanoTime() - origin;
+		final int known = generation;
+		final EventWriter local = encode(writers.get(), name, nanos, event);
+		Retired retired = null;
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			EventWriter entry = local;
+			if (!local.isComplete() || known != generation) {
+				// the event defines strings, or uses strings that are removed
+				final int topics = writer.getTopics().size();
+				final int names = writer.getNames().size();
+				entry = encode(writer, name, nanos, event);
+				if (entry.size() > segmentSize - HEADER_SIZE - 4) {
+					// the strings defined by this event are not written
+					writer.getTopics().truncate(topics);
+					writer.getNames().truncate(names);
+					generation++;
+				}
+			}
+			final int length = entry.size();
+			if (length > segmentSize - HEADER_SIZE - 4) {
+				throw new IllegalArgumentException("event of " + length + " bytes larger than a segment");
+			}
+			if (segment.remaining() < 4 + length) {
+				// the rest of the segment is zeroed, so a reader finds a length of 0
+				retired = nextSegment();
+			}
+			final int position = segment.position();
+			segment.position(position + 4);
+			segment.put(entry.buffer().flip());
+			// the length is published after the body
+			segment.putInt(position, length);
+			appended++;
+		} finally {
+			lock.unlock();
+		}
+		if (retired != null) {
+			retired.close();
+		}
+	}
+
+	/**
+	 * Closes this journal: the last segment is truncated after its last entry.
+	 */
+	@Override
+	public void close() {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			segment.force();
+			final long end = segment.position();
+			segment = null;
+			channel.truncate(end);
+			channel.close();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Encodes the body of an entry.
+	 *
+	 * @param out   the writer of the entry
+	 * @param name  the name of the engine
+	 * @param nanos the nanoseconds since the opening of the journal
+	 * @param event the event
+	 * @return the writer of the entry
+	 */
+	private EventWriter encode(final EventWriter out, final String name, final long nanos, final Event event) {
+		out.clear();
+		out.writeName(name);
+		if (out.isComplete()) {
+			out.writeVarlong(nanos);
+			codec.encode(event, out);
+		}
+		return out;
+	}
+
+	/**
+	 * Returns the number of events appended to this journal.
+	 *
+	 * @return the number of events appended
+	 */
+	public long getAppended() {
+		lock.lock();
+		try {
+			return appended;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the directory of this journal.
+	 *
+	 * @return the directory of this journal
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns the number of segments of this journal.
+	 *
+	 * @return the number of segments
+	 */
+	public int getSegments() {
+		lock.lock();
+		try {
+			return segments;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Maps the next segment. Called with the lock held.
+	 *
+	 * @return the previous segment, to be closed once the lock is released, null
+	 *         for the first segment
+	 */
+	private Retired nextSegment() {
+		final Retired retired = channel != null ? new Retired(channel, segment) : null;
+		try {
+			channel = FileChannel.open(segmentPath(directory, segments), StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			segment = channel.map(MapMode.READ_WRITE, 0, segmentSize);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		segment.putLong(MAGIC).putInt(segments).putInt(0);
+		segments++;
+		return retired;
+	}
+
+}
@@ -0,0 +1,120 @@
+package jpnco.simula.journal;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import jpnco.simula.engine.Codec;
+import jpnco.simula.engine.EventReader;
+
+/**
+ * Reads the events of a journal written by {@link EventJournal}, in the order
+ * they were appended. The segments are mapped in memory one at a time.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class JournalReader {
+
+	private final Path directory;
+	private final Codec codec;
+	private final EventReader reader = new EventReader();
+	private ByteBuffer segment;
+	private int index = 0;
+
+	/**
+	 * Builds a reader of a journal written with the default codec.
+	 *
+	 * @param directory the directory of the journal
+	 */
+	public JournalReader(final Path directory) {
+		this(directory, new Codec());
+	}
+
+	/**
+	 * Builds a reader of a journal.
+	 *
+	 * @param directory the directory of the journal
+	 * @param codec     the codec the journal was written with
+	 */
+	public JournalReader(final Path directory, final Codec codec) {
+		this.directory = Objects.requireNonNull(directory);
+		this.codec = Objects.requireNonNull(codec);
+	}
+
+	/**
+	 * Reads the next event.
+	 *
+	 * @return the next event, null at the end of the journal
+	 * @throws IOException if a segment cannot be read, is not a segment of a
+	 *                     journal or is corrupted
+	 */
+	public JournalRecord next() throws IOException {
+		if ((segment == null || segment.remaining() < 4 || segment.getInt(segment.position()) == 0)
+				&& !nextSegment()) {
+			return null;
+		}
+		try {
+			final int length = segment.getInt();
+			final int end = segment.position() + length;
+			reader.reset(segment.slice(segment.position(), length));
+			segment.position(end);
+			final String engine = reader.readName();
+			final long nanos = reader.readVarlong();
+			final JournalRecord record = new JournalRecord(engine, nanos, codec.decode(reader));
+			if (reader.remaining() != 0) {
+				throw new IOException("bad entry length in segment " + (index - 1));
+			}
+			return record;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+				| IllegalStateException e) {
+			throw new IOException("corrupted entry in segment " + (index - 1), e);
+		}
+	}
+
+	/**
+	 * Maps the next segment. Returns false if there is no more segment.
+	 */
+	private boolean nextSegment() throws IOException {
+		segment = null;
+		final Path path = EventJournal.segmentPath(directory, index);
+		if (!Files.exists(path)) {
+			return false;
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			segment = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (segment.remaining() < EventJournal.HEADER_SIZE || segment.getLong() != EventJournal.MAGIC
+				|| segment.getInt() != index) {
+			throw new IOException(path + " is not the segment " + index + " of a journal");
+		}
+		segment.getInt();
+		index++;
+		// an empty segment ends the journal
+		return segment.remaining() >= 4 && segment.getInt(segment.position()) != 0;
+	}
+
+	/**
+	 * Reads all the remaining events.
+	 *
+	 * @return the remaining events
+	 * @throws IOException if a segment cannot be read, is not a segment of a
+	 *                     journal or is corrupted
+	 */
+	public List<JournalRecord> readAll() throws IOException {
+		final List<JournalRecord> records = new ArrayList<>();
+		for (JournalRecord record = next(); record != null; record = next()) {
+			records.add(record);
+		}
+		return records;
+	}
+
+}
@@ -0,0 +1,18 @@
+package jpnco.simula.journal;
+
+import jpnco.simula.engine.EventRecord;
+
+/**
+ * An event read from a journal.
+ *
+ * @param engine the name of the engine that signaled the event
+ * @param nanos  the nanoseconds elapsed between the opening of the journal and
+ *               the signal of the event
+ * @param event  the decoded event
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public record JournalRecord(String engine, long nanos, EventRecord event) {
+
+}
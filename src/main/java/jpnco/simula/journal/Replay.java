@@ -0,0 +1,196 @@
+package jpnco.simula.journal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.engine.Codec;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.engine.StandIn;
+import jpnco.simula.engine.StringDictionary;
+
+/**
+ * Re-feeds the events of a journal into a fresh engine tree: each event is
+ * signaled again by the engine of the same name, either as fast as possible or
+ * at the pacing of the recorded run.
+ * <p>
+ * The source of a replayed event, and the actors that are parameters of the
+ * event, are the actors of the same name registered in the engine when there
+ * are some, otherwise stand-ins that only carry the recorded name. Since the
+ * actors are found by name, the actors of each engine of the fresh tree must
+ * have distinct names, otherwise the replay fails before signaling any event.
+ * The replayed events get the simulated time of the fresh tree. The events of
+ * the engines that are not in the fresh tree are skipped.
+ * <p>
+ * By default, the SIMULA topics are skipped, since the fresh tree signals its
+ * own life cycle, ticks, alarms and logs: only the application events are
+ * replayed. When the fresh tree runs the same actors as the recorded run, the
+ * filter should only keep the topics of the events coming from outside the
+ * model, otherwise the events signaled by the actors are signaled twice.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class Replay {
+
+	/**
+	 * The pacing of a replay.
+	 */
+	public enum Pacing {
+		/** The events are signaled as fast as possible */
+		AS_FAST_AS_POSSIBLE,
+		/** The events are signaled at the same wall-clock offsets as recorded */
+		ORIGINAL
+	}
+
+	private static final Set<String> SIMULA_TOPICS = Set.copyOf(StringDictionary.BUILT_IN_TOPICS);
+
+	/** The default filter: all the topics but the SIMULA topics */
+	public static final Predicate<String> APPLICATION_TOPICS = topic -> !SIMULA_TOPICS.contains(topic);
+
+	private final Path directory;
+	private final Engine root;
+	private final Codec codec;
+	private final Pacing pacing;
+	private final Predicate<String> filter;
+	private final Map<String, Engine> engines = new HashMap<>();
+	private final Map<Engine, Map<String, Actor>> actors = new HashMap<>();
+	private long replayed = 0;
+	private long skipped = 0;
+
+	/**
+	 * Builds a replay of the application events as fast as possible, for a journal
+	 * written with the default codec.
+	 *
+	 * @param directory the directory of the journal
+	 * @param root      the root of the fresh engine tree
+	 */
+	public Replay(final Path directory, final Engine root) {
+		this(directory, root, new Codec(), Pacing.AS_FAST_AS_POSSIBLE, APPLICATION_TOPICS);
+	}
+
+	/**
+	 * Builds a replay.
+	 *
+	 * @param directory the directory of the journal
+	 * @param root      the root of the fresh engine tree
+	 * @param codec     the codec the journal was written with
+	 * @param pacing    the pacing of the replay
+	 * @param filter    the topics to replay
+	 */
+	public Replay(final Path directory, final Engine root, final Codec codec, final Pacing pacing,
+			final Predicate<String> filter) {
+		this.directory = Objects.requireNonNull(directory);
+		this.root = Objects.requireNonNull(root);
+		this.codec = Objects.requireNonNull(codec);
+		this.pacing = Objects.requireNonNull(pacing);
+		this.filter = Objects.requireNonNull(filter);
+	}
+
+	/**
+	 * Collects the engines of a tree by name and their actors by name, each engine
+	 * being one of its own actors.
+	 *
+	 * @throws IOException if two engines, or two actors of an engine, have the
+	 *                     same name
+	 */
+	private void collect(final Engine engine) throws IOException {
+		final Engine previous = engines.putIfAbsent(engine.getName(), engine);
+		if (previous != null && previous != engine) {
+			throw new IOException("several engines named " + engine.getName());
+		}
+		final Map<String, Actor> byName = new HashMap<>();
+		byName.put(engine.getName(), engine);
+		final List<Actor> registered = new ArrayList<>();
+		if (engine instanceof final EngineImpl impl) {
+			impl.getActors().forEach(registered::add);
+		}
+		for (final Actor actor : registered) {
+			if (byName.putIfAbsent(actor.getName(), actor) != null) {
+				throw new IOException("several actors named " + actor.getName() + " in engine " + engine.getName());
+			}
+		}
+		actors.put(engine, byName);
+		if (engine instanceof final EngineImpl impl) {
+			for (final Engine child : impl.getChildren()) {
+				collect(child);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of events replayed.
+	 *
+	 * @return the number of events replayed
+	 */
+	public long getReplayed() {
+		return replayed;
+	}
+
+	/**
+	 * Returns the number of events skipped, because of the filter or because their
+	 * engine is not in the fresh tree.
+	 *
+	 * @return the number of events skipped
+	 */
+	public long getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * Returns the actor of an engine with a given name, or its stand-in.
+	 */
+	private Actor resolve(final Engine engine, final String name) {
+		return actors.get(engine).computeIfAbsent(name, n -> new StandIn(n, engine));
+	}
+
+	/**
+	 * Replays the journal. The tree should be started.
+	 *
+	 * @return the number of events replayed
+	 * @throws IOException          if the journal cannot be read, or if two
+	 *                              actors of an engine of the tree have the same
+	 *                              name
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *                              waiting for the next event
+	 */
+	public long run() throws IOException, InterruptedException {
+		collect(root);
+		final JournalReader reader = new JournalReader(directory, codec);
+		long start = 0;
+		long first = 0;
+		for (JournalRecord record = reader.next(); record != null; record = reader.next()) {
+			final Engine engine = engines.get(record.engine());
+			if (engine == null || !filter.test(record.event().topic())) {
+				skipped++;
+				continue;
+			}
+			if (pacing == Pacing.ORIGINAL) {
+				if (start == 0) {
+					start = System.nanoTime();
+					first = record.nanos();
+				}
+				final long due = start + record.nanos() - first;
+				for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+					LockSupport.parkNanos(wait);
+					if (Thread.interrupted()) {
+						throw new InterruptedException();
+					}
+				}
+			}
+			engine.signal(record.event().toEvent(name -> resolve(engine, name)));
+			replayed++;
+		}
+		return replayed;
+	}
+
+}
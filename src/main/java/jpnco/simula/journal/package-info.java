@@ -0,0 +1,13 @@
+/**
+ * This packages contains the journal of the signaled events and its replay :
+ * <li>EventJournal: appends the events signaled by an engine tree to segmented,
+ * memory-mapped files
+ * <li>JournalReader: reads the events of a journal in order
+ * <li>JournalRecord: an event read from a journal
+ * <li>Replay: re-feeds a journal into a fresh engine tree, as fast as possible
+ * or at the original pacing
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+package jpnco.simula.journal;
@@ -0,0 +1,171 @@
+package jpnco.simula.log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Objects;
+
+import jpnco.simula.actors.Logger.Level;
+
+/**
+ * Renders as text a log written by {@link BinaryLogSink}. The text is the same
+ * as the one written by {@link TextLogSink}.
+ * <p>
+ * Usage: <code>java jpnco.simula.log.BinaryLogDecoder log [text]</code>, the
+ * text is written to the standard output if no text file is given.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class BinaryLogDecoder {
+
+	private static final Level[] LEVELS = Level.values();
+	private static final int BATCH_LENGTH = 1 << 15;
+
+	/**
+	 * Decodes a binary log.
+	 *
+	 * @param args the binary log and optionally the text file to write
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: BinaryLogDecoder log [text]");
+			System.exit(1);
+		}
+		try (InputStream in = Files.newInputStream(Path.of(args[0]))) {
+			if (args.length == 2) {
+				try (Writer out = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8)) {
+					new BinaryLogDecoder(in).decode(out);
+				}
+			} else {
+				final Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+				new BinaryLogDecoder(in).decode(out);
+				out.flush();
+			}
+		}
+	}
+
+	private final DataInputStream in;
+	private final List<String> formats = new ArrayList<>();
+	private final List<String> strings = new ArrayList<>();
+
+	/**
+	 * Builds a decoder reading a stream. The stream is not closed by the decoder.
+	 *
+	 * @param in the stream to read
+	 */
+	public BinaryLogDecoder(final InputStream in) {
+		this.in = new DataInputStream(new BufferedInputStream(Objects.requireNonNull(in)));
+	}
+
+	/**
+	 * Decodes all the records of the stream and writes their text.
+	 *
+	 * @param out where to write the text
+	 * @return the number of decoded records
+	 * @throws IOException if the stream cannot be read, is not a binary log or is
+	 *                     truncated, or if the text cannot be written
+	 */
+	public long decode(final Appendable out) throws IOException {
+		if (in.readLong() != BinaryLogSink.MAGIC) {
+			throw new IOException("not a binary log");
+		}
+		final StringBuilder buffer = new StringBuilder(BATCH_LENGTH * 2);
+		final Formatter formatter = new Formatter(buffer);
+		long count = 0;
+		int tag;
+		while ((tag = in.read()) != -1) {
+			switch (tag) {
+			case BinaryLogSink.FORMAT -> define(formats);
+			case BinaryLogSink.STRING -> define(strings);
+			case BinaryLogSink.RECORD -> {
+				final String format = formats.get(readVarint());
+				final int time = (int) unzigzag(readVarlong());
+				final Level level = LEVELS[in.readUnsignedByte()];
+				final int nameId = readVarint();
+				final String name = nameId < 0 ? null : strings.get(nameId);
+				final Object[] args = new Object[readVarint()];
+				for (int i = 0; i < args.length; i++) {
+					args[i] = readArgument();
+				}
+				TextLogSink.format(formatter, level, time, name, format, args);
+				count++;
+				if (buffer.length() >= BATCH_LENGTH) {
+					out.append(buffer);
+					buffer.setLength(0);
+				}
+			}
+			default -> throw new IOException("unknown entry " + tag);
+			}
+		}
+		out.append(buffer);
+		return count;
+	}
+
+	private void define(final List<String> dictionary) throws IOException {
+		final int id = readVarint();
+		if (id != dictionary.size()) {
+			throw new IOException("unexpected dictionary id " + id);
+		}
+		dictionary.add(readString());
+	}
+
+	private Object readArgument() throws IOException {
+		final int type = in.readUnsignedByte();
+		return switch (type) {
+		case BinaryLogSink.ARG_NULL -> null;
+		case BinaryLogSink.ARG_INT -> (int) unzigzag(readVarlong());
+		case BinaryLogSink.ARG_LONG -> unzigzag(readVarlong());
+		case BinaryLogSink.ARG_DOUBLE -> in.readDouble();
+		case BinaryLogSink.ARG_FLOAT -> in.readFloat();
+		case BinaryLogSink.ARG_SHORT -> in.readShort();
+		case BinaryLogSink.ARG_BYTE -> in.readByte();
+		case BinaryLogSink.ARG_BOOLEAN -> in.readByte() != 0;
+		case BinaryLogSink.ARG_CHAR -> in.readChar();
+		case BinaryLogSink.ARG_STRING_ID -> strings.get(readVarint());
+		case BinaryLogSink.ARG_STRING -> readString();
+		default -> throw new IOException("unknown argument type " + type);
+		};
+	}
+
+	private String readString() throws IOException {
+		final byte[] bytes = new byte[readVarint()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private int readVarint() throws IOException {
+		return (int) readVarlong();
+	}
+
+	private long readVarlong() throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			final int b = in.read();
+			if (b == -1) {
+				throw new EOFException();
+			}
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("malformed varint");
+	}
+
+	private static long unzigzag(final long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+}
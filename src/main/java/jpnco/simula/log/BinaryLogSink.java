@@ -0,0 +1,259 @@
+package jpnco.simula.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import jpnco.simula.Actor;
+import jpnco.simula.actors.Logger.Level;
+
+/**
+ * A sink that writes the records in a compact binary form, without formatting
+ * them. The text is rendered offline by {@link BinaryLogDecoder}.
+ * <p>
+ * Format strings and short string or enum arguments (actor names, topics...) are
+ * registered once in a dictionary written inline in the stream, just before
+ * their first use; a record then holds the id of its format, its time, its
+ * level, the id of the name of its actor and its raw arguments.
+ * <p>
+ * The stream starts with {@link #MAGIC}, followed by entries. Each entry starts
+ * with a tag byte:
+ * <li>{@link #FORMAT}: id (varint), format (string)
+ * <li>{@link #STRING}: id (varint), value (string)
+ * <li>{@link #RECORD}: format id (varint), time (zigzag varint), level (byte),
+ * actor name id (varint), argument count (varint), then each argument as a type
+ * byte followed by its value.
+ * <p>
+ * A string is written as its UTF-8 length (varint) followed by its UTF-8 bytes.
+ * Arguments that are not numbers, booleans, characters or strings are written as
+ * the string returned by their toString method.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class BinaryLogSink implements LogSink {
+
+	/** "SIMLOG01" */
+	public static final long MAGIC = 0x53494D4C4F473031L;
+
+	static final byte FORMAT = 1;
+	static final byte STRING = 2;
+	static final byte RECORD = 3;
+
+	static final byte ARG_NULL = 0;
+	static final byte ARG_INT = 1;
+	static final byte ARG_LONG = 2;
+	static final byte ARG_DOUBLE = 3;
+	static final byte ARG_FLOAT = 4;
+	static final byte ARG_SHORT = 5;
+	static final byte ARG_BYTE = 6;
+	static final byte ARG_BOOLEAN = 7;
+	static final byte ARG_CHAR = 8;
+	static final byte ARG_STRING_ID = 9;
+	static final byte ARG_STRING = 10;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int MAX_DICTIONARY_STRING_LENGTH = 64;
+	private static final int MAX_DICTIONARY_STRINGS = 1 << 16;
+	private static final int NO_ID = -1;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final Map<String, Integer> formats = new HashMap<>();
+	private final Map<String, Integer> strings = new HashMap<>();
+	private int[] stringIds = new int[8];
+
+	/**
+	 * Builds a sink writing to a file. The file is created or truncated.
+	 *
+	 * @param path the path of the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public BinaryLogSink(final Path path) throws IOException {
+		this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE));
+	}
+
+	/**
+	 * Builds a sink writing to a channel. The channel is closed with this sink.
+	 *
+	 * @param channel the channel to write to
+	 */
+	public BinaryLogSink(final WritableByteChannel channel) {
+		this.channel = Objects.requireNonNull(channel);
+		buffer.putLong(MAGIC);
+	}
+
+	@Override
+	public void close() {
+		flush();
+		try {
+			channel.close();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the id of a format, registers it if needed.
+	 */
+	private int defineFormat(final String format) {
+		Integer id = formats.get(format);
+		if (id == null) {
+			id = formats.size();
+			formats.put(format, id);
+			reserve(1 + 5);
+			buffer.put(FORMAT);
+			putVarint(id);
+			putString(format);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the id of a string, registers it if needed. Returns NO_ID if the
+	 * string is an argument that is not kept in the dictionary.
+	 */
+	private int defineString(final String value, final boolean isArgument) {
+		Integer id = strings.get(value);
+		if (id == null) {
+			if (isArgument && (value.length() > MAX_DICTIONARY_STRING_LENGTH
+					|| strings.size() >= MAX_DICTIONARY_STRINGS)) {
+				return NO_ID;
+			}
+			id = strings.size();
+			strings.put(value, id);
+			reserve(1 + 5);
+			buffer.put(STRING);
+			putVarint(id);
+			putString(value);
+		}
+		return id;
+	}
+
+	@Override
+	public void flush() {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	private void putArgument(final Object arg, final int stringId) {
+		reserve(1 + 10);
+		switch (arg) {
+		case null -> buffer.put(ARG_NULL);
+		case final Integer value -> {
+			buffer.put(ARG_INT);
+			putVarlong(zigzag(value));
+		}
+		case final Long value -> {
+			buffer.put(ARG_LONG);
+			putVarlong(zigzag(value));
+		}
+		case final Double value -> buffer.put(ARG_DOUBLE).putDouble(value);
+		case final Float value -> buffer.put(ARG_FLOAT).putFloat(value);
+		case final Short value -> buffer.put(ARG_SHORT).putShort(value);
+		case final Byte value -> buffer.put(ARG_BYTE).put(value);
+		case final Boolean value -> buffer.put(ARG_BOOLEAN).put((byte) (value ? 1 : 0));
+		case final Character value -> buffer.put(ARG_CHAR).putChar(value);
+		default -> {
+			if (stringId == NO_ID) {
+				buffer.put(ARG_STRING);
+				putString(arg.toString());
+			} else {
+				buffer.put(ARG_STRING_ID);
+				putVarint(stringId);
+			}
+		}
+		}
+	}
+
+	private void putString(final String value) {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		reserve(5);
+		putVarint(bytes.length);
+		if (bytes.length <= buffer.capacity()) {
+			reserve(bytes.length);
+			buffer.put(bytes);
+		} else {
+			flush();
+			try {
+				final ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+				while (wrapped.hasRemaining()) {
+					channel.write(wrapped);
+				}
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private void putVarint(final int value) {
+		putVarlong(value & 0xFFFFFFFFL);
+	}
+
+	private void putVarlong(long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Flushes the buffer if it has less than size bytes remaining.
+	 */
+	private void reserve(final int size) {
+		if (buffer.remaining() < size) {
+			flush();
+		}
+	}
+
+	@Override
+	public void write(final Level level, final int time, final Actor source, final String format,
+			final Object[] args, final int from) {
+		// the dictionary entries are written before the record
+		final int formatId = defineFormat(format);
+		final int nameId = Level.PROBE == level ? NO_ID : defineString(String.valueOf(source.getName()), false);
+		final int count = args.length - from;
+		if (stringIds.length < count) {
+			stringIds = new int[count];
+		}
+		for (int i = 0; i < count; i++) {
+			final Object arg = args[from + i];
+			stringIds[i] = arg instanceof String || arg instanceof Enum ? defineString(arg.toString(), true)
+					: NO_ID;
+		}
+		reserve(1 + 5 + 5 + 1 + 5 + 5);
+		buffer.put(RECORD);
+		putVarint(formatId);
+		putVarlong(zigzag(time));
+		buffer.put((byte) level.ordinal());
+		// NO_ID is written as 0xFFFFFFFF
+		putVarint(nameId);
+		putVarint(count);
+		for (int i = 0; i < count; i++) {
+			putArgument(args[from + i], stringIds[i]);
+		}
+	}
+
+	private static long zigzag(final long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+}
@@ -0,0 +1,235 @@
+package jpnco.simula.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Formatter;
+import java.util.Objects;
+
+import jpnco.simula.Actor;
+import jpnco.simula.actors.Logger.Level;
+
+/**
+ * A sink that formats the records as text, as {@link TextLogSink}, and writes
+ * them to a file. The text is encoded in UTF-8 into a direct buffer, and the
+ * buffer is written with one system call per batch of records, or when it is
+ * full.
+ * <p>
+ * The file is rotated when its size reaches a maximum or when it gets older
+ * than a maximum age: the file is renamed with the suffix ".1", the previous
+ * ".1" file becomes ".2" and so on, and the oldest backups are deleted. A file
+ * always holds whole records. The age is checked when a record is written.
+ * <p>
+ * The sink is selected per engine with
+ * <code>engine.getLogger().setSink(new FileLogSink(path))</code>.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class FileLogSink implements LogSink {
+
+	/**
+	 * When the file is forced to the storage device.
+	 */
+	public enum Fsync {
+		/** Never, the operating system decides */
+		NEVER,
+		/** When the file is rotated or closed */
+		ON_ROTATE,
+		/** After each batch of records */
+		ON_FLUSH
+	}
+
+	/** No rotation on size */
+	public static final long UNLIMITED_SIZE = Long.MAX_VALUE;
+	/** No rotation on age */
+	public static final Duration UNLIMITED_AGE = null;
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final Path path;
+	private final long maxSize;
+	private final long maxAgeMillis;
+	private final int maxBackups;
+	private final Fsync fsync;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final StringBuilder text = new StringBuilder(1024);
+	private final Formatter formatter = new Formatter(text);
+	private final TextLogSink.Arguments arguments = new TextLogSink.Arguments();
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private char[] chars = new char[1024];
+	private CharBuffer charBuffer = CharBuffer.wrap(chars);
+	private FileChannel channel;
+	private long size;
+	private long openedAt;
+
+	/**
+	 * Builds a sink writing to a file without rotation nor fsync. The file is
+	 * created or truncated.
+	 *
+	 * @param path the path of the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public FileLogSink(final Path path) throws IOException {
+		this(path, UNLIMITED_SIZE, UNLIMITED_AGE, 0, Fsync.NEVER);
+	}
+
+	/**
+	 * Builds a sink writing to a file. The file is created or truncated.
+	 *
+	 * @param path       the path of the file
+	 * @param maxSize    the size in bytes that triggers a rotation, or
+	 *                   {@link #UNLIMITED_SIZE}
+	 * @param maxAge     the age that triggers a rotation, or
+	 *                   {@link #UNLIMITED_AGE}
+	 * @param maxBackups the number of rotated files to keep
+	 * @param fsync      when the file is forced to the storage device
+	 * @throws IOException if the file cannot be opened
+	 */
+	public FileLogSink(final Path path, final long maxSize, final Duration maxAge, final int maxBackups,
+			final Fsync fsync) throws IOException {
+		if (maxSize <= 0 || maxBackups < 0) {
+			throw new IllegalArgumentException("maxSize must be positive and maxBackups must not be negative");
+		}
+		this.path = Objects.requireNonNull(path);
+		this.maxSize = maxSize;
+		maxAgeMillis = maxAge == null ? Long.MAX_VALUE : maxAge.toMillis();
+		this.maxBackups = maxBackups;
+		this.fsync = Objects.requireNonNull(fsync);
+		open();
+	}
+
+	@Override
+	public void close() {
+		flush();
+		try {
+			if (fsync != Fsync.NEVER) {
+				channel.force(false);
+			}
+			channel.close();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Encodes the formatted text of a record into the buffer.
+	 */
+	private void encode() {
+		final int length = text.length();
+		if (chars.length < length) {
+			chars = new char[Math.max(length, chars.length * 2)];
+			charBuffer = CharBuffer.wrap(chars);
+		}
+		text.getChars(0, length, chars, 0);
+		charBuffer.clear().limit(length);
+		encoder.reset();
+		CoderResult result;
+		while ((result = encoder.encode(charBuffer, buffer, true)).isOverflow()) {
+			writeBuffer();
+		}
+		while (encoder.flush(buffer).isOverflow()) {
+			writeBuffer();
+		}
+		if (result.isError()) {
+			// cannot happen with REPLACE actions
+			throw new IllegalStateException(result.toString());
+		}
+		text.setLength(0);
+	}
+
+	@Override
+	public void flush() {
+		writeBuffer();
+		if (fsync == Fsync.ON_FLUSH) {
+			try {
+				channel.force(false);
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the path of the backup of a given rank.
+	 */
+	private Path getBackup(final int rank) {
+		return path.resolveSibling(path.getFileName() + "." + rank);
+	}
+
+	private void open() throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+		size = 0;
+		openedAt = System.currentTimeMillis();
+	}
+
+	/**
+	 * Closes the file, shifts the backups and opens a new file.
+	 */
+	private void rotate() {
+		writeBuffer();
+		try {
+			if (fsync != Fsync.NEVER) {
+				channel.force(false);
+			}
+			channel.close();
+			if (maxBackups == 0) {
+				Files.delete(path);
+			} else {
+				Files.deleteIfExists(getBackup(maxBackups));
+				for (int rank = maxBackups - 1; rank > 0; rank--) {
+					final Path backup = getBackup(rank);
+					if (Files.exists(backup)) {
+						Files.move(backup, getBackup(rank + 1), StandardCopyOption.REPLACE_EXISTING);
+					}
+				}
+				Files.move(path, getBackup(1), StandardCopyOption.REPLACE_EXISTING);
+			}
+			open();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void write(final Level level, final int time, final Actor source, final String format,
+			final Object[] args, final int from) {
+		TextLogSink.format(formatter, arguments, level, time, Level.PROBE == level ? null : source.getName(), format,
+				args, from);
+		final long pending = size + buffer.position();
+		// the record is written in the next file if it does not fit, its size is
+		// estimated by its length
+		if (pending > 0 && (pending + text.length() > maxSize
+				|| System.currentTimeMillis() - openedAt >= maxAgeMillis)) {
+			rotate();
+		}
+		encode();
+	}
+
+	private void writeBuffer() {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				size += channel.write(buffer);
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			buffer.clear();
+		}
+	}
+
+}
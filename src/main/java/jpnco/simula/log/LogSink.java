@@ -0,0 +1,40 @@
+package jpnco.simula.log;
+
+import jpnco.simula.Actor;
+import jpnco.simula.actors.Logger.Level;
+
+/**
+ * A destination of the log records of a logger. A sink is only called by the
+ * writer thread of its logger, so it does not need to be thread safe. Records
+ * are written in batches: flush is called at the end of each batch.
+ * <p>
+ * I/O errors are thrown as UncheckedIOException.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public interface LogSink {
+
+	/**
+	 * Writes the records not yet written and releases the resources of this sink.
+	 */
+	void close();
+
+	/**
+	 * Writes the records not yet written. Called at the end of each batch.
+	 */
+	void flush();
+
+	/**
+	 * Writes a record.
+	 *
+	 * @param level  the level of the record
+	 * @param time   the simulated time of the record
+	 * @param source the actor that logged the record
+	 * @param format the format of the record
+	 * @param args   the arguments of the format, must not be modified
+	 * @param from   the index of the first argument in args
+	 */
+	void write(Level level, int time, Actor source, String format, Object[] args, int from);
+
+}
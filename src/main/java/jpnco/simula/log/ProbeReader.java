@@ -0,0 +1,194 @@
+package jpnco.simula.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a file written by {@link ProbeRecorder}. The chunks are mapped in
+ * memory and their columns are scanned without parsing: scanning the samples of
+ * one probe only reads the values of its own samples.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class ProbeReader implements AutoCloseable {
+
+	/**
+	 * Accepts the double samples of a probe.
+	 */
+	@FunctionalInterface
+	public interface DoubleSampleConsumer {
+		void accept(int time, double value);
+	}
+
+	/**
+	 * Accepts the long samples of a probe.
+	 */
+	@FunctionalInterface
+	public interface LongSampleConsumer {
+		void accept(int time, long value);
+	}
+
+	/**
+	 * Accepts all the samples, the value is the raw bits for a double sample.
+	 */
+	@FunctionalInterface
+	public interface SampleConsumer {
+		void accept(int time, int probe, long value);
+	}
+
+	private final FileChannel channel;
+	private final int capacity;
+	private final int chunkCount;
+	private final List<String> names;
+
+	/**
+	 * Opens a probe file.
+	 *
+	 * @param path the path of the file
+	 * @throws IOException if the file cannot be read or is not a closed probe
+	 *                     file
+	 */
+	public ProbeReader(final Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			final long size = channel.size();
+			final ByteBuffer header = read(0, ProbeRecorder.HEADER_SIZE);
+			final ByteBuffer footer = read(size - 16, 16);
+			if (header.getLong() != ProbeRecorder.MAGIC || footer.getLong(8) != ProbeRecorder.MAGIC) {
+				throw new IOException("not a closed probe file");
+			}
+			capacity = header.getInt();
+			final long end = footer.getLong(0);
+			chunkCount = (int) ((end - ProbeRecorder.HEADER_SIZE) / ProbeRecorder.chunkSize(capacity));
+			final ByteBuffer trailer = read(end, (int) (size - 16 - end));
+			final List<String> list = new ArrayList<>(trailer.getInt());
+			while (trailer.hasRemaining()) {
+				final byte[] bytes = new byte[trailer.getInt()];
+				trailer.get(bytes);
+				list.add(new String(bytes, StandardCharsets.UTF_8));
+			}
+			names = Collections.unmodifiableList(list);
+		} catch (final IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Calls a consumer for all the samples, in the order they were recorded.
+	 *
+	 * @param consumer the consumer of the samples
+	 * @throws IOException if the file cannot be read
+	 */
+	public void forEach(final SampleConsumer consumer) throws IOException {
+		final int probes = ProbeRecorder.probesOffset(capacity);
+		final int values = ProbeRecorder.valuesOffset(capacity);
+		for (int c = 0; c < chunkCount; c++) {
+			final MappedByteBuffer chunk = map(c);
+			final int count = chunk.getInt(0);
+			for (int i = 0; i < count; i++) {
+				consumer.accept(chunk.getInt(ProbeRecorder.timesOffset() + i * 4), chunk.getInt(probes + i * 4),
+						chunk.getLong(values + i * 8));
+			}
+		}
+	}
+
+	/**
+	 * Returns the id of a probe, -1 if the probe does not exist.
+	 *
+	 * @param name the name of the probe
+	 * @return the id of the probe
+	 */
+	public int getId(final String name) {
+		return names.indexOf(name);
+	}
+
+	/**
+	 * Returns the names of the probes, indexed by their id.
+	 *
+	 * @return the names of the probes
+	 */
+	public List<String> getNames() {
+		return names;
+	}
+
+	/**
+	 * Returns the number of samples of the file.
+	 *
+	 * @return the number of samples
+	 * @throws IOException if the file cannot be read
+	 */
+	public long getSampleCount() throws IOException {
+		long count = 0;
+		for (int c = 0; c < chunkCount; c++) {
+			count += read(ProbeRecorder.HEADER_SIZE + c * ProbeRecorder.chunkSize(capacity), 4).getInt();
+		}
+		return count;
+	}
+
+	private MappedByteBuffer map(final int chunk) throws IOException {
+		final long size = ProbeRecorder.chunkSize(capacity);
+		return channel.map(MapMode.READ_ONLY, ProbeRecorder.HEADER_SIZE + chunk * size, size);
+	}
+
+	private ByteBuffer read(final long position, final int length) throws IOException {
+		if (position < 0 || length < 0) {
+			throw new IOException("not a closed probe file");
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("truncated probe file");
+			}
+		}
+		return buffer.flip();
+	}
+
+	/**
+	 * Calls a consumer for the samples of a double probe.
+	 *
+	 * @param probe    the id of the probe
+	 * @param consumer the consumer of the samples
+	 * @throws IOException if the file cannot be read
+	 */
+	public void scanDoubles(final int probe, final DoubleSampleConsumer consumer) throws IOException {
+		scanLongs(probe, (time, value) -> consumer.accept(time, Double.longBitsToDouble(value)));
+	}
+
+	/**
+	 * Calls a consumer for the samples of a long probe.
+	 *
+	 * @param probe    the id of the probe
+	 * @param consumer the consumer of the samples
+	 * @throws IOException if the file cannot be read
+	 */
+	public void scanLongs(final int probe, final LongSampleConsumer consumer) throws IOException {
+		final int probes = ProbeRecorder.probesOffset(capacity);
+		final int values = ProbeRecorder.valuesOffset(capacity);
+		for (int c = 0; c < chunkCount; c++) {
+			final MappedByteBuffer chunk = map(c);
+			final int count = chunk.getInt(0);
+			for (int i = 0; i < count; i++) {
+				if (chunk.getInt(probes + i * 4) == probe) {
+					consumer.accept(chunk.getInt(ProbeRecorder.timesOffset() + i * 4), chunk.getLong(values + i * 8));
+				}
+			}
+		}
+	}
+
+}
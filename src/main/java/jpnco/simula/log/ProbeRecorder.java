@@ -0,0 +1,237 @@
+package jpnco.simula.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records typed probe samples into a memory-mapped columnar file, read by
+ * {@link ProbeReader}. A sample is made of a simulated time, a probe id and a
+ * value; a probe records either long or double values.
+ * <p>
+ * The samples are appended in chunks of a fixed capacity. Each chunk is mapped
+ * in memory and holds one column per field: its sample count, then the times
+ * (int), the probe ids (int) and the values (long, the raw bits for doubles).
+ * The names of the probes are written in a trailer when the recorder is closed.
+ * <p>
+ * Recording a sample does not allocate: it takes an uncontended lock and writes
+ * three values into the mapped chunk.
+ * <p>
+ * File layout: header (magic long, chunk capacity int, padding int), chunks,
+ * trailer (probe count int, each name as UTF-8 length int and bytes, trailer
+ * offset long, magic long).
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class ProbeRecorder implements AutoCloseable {
+
+	/** "SIMPRB01" */
+	static final long MAGIC = 0x53494D5052423031L;
+	static final int HEADER_SIZE = 16;
+	static final int DEFAULT_CHUNK_CAPACITY = 1 << 16;
+
+	/**
+	 * Returns the size in bytes of a chunk.
+	 *
+	 * @param capacity the number of samples of the chunk
+	 * @return the size in bytes of the chunk
+	 */
+	static long chunkSize(final int capacity) {
+		// count, times, probes, values; the values column is aligned on 8 bytes
+		return 8 + capacity * 8L + capacity * 8L;
+	}
+
+	/**
+	 * Returns the offset of the times column in a chunk.
+	 */
+	static int timesOffset() {
+		return 8;
+	}
+
+	/**
+	 * Returns the offset of the probes column in a chunk.
+	 */
+	static int probesOffset(final int capacity) {
+		return 8 + capacity * 4;
+	}
+
+	/**
+	 * Returns the offset of the values column in a chunk.
+	 */
+	static int valuesOffset(final int capacity) {
+		return 8 + capacity * 8;
+	}
+
+	private final FileChannel channel;
+	private final int capacity;
+	private final List<String> names = new ArrayList<>();
+	private final ReentrantLock lock = new ReentrantLock();
+	private MappedByteBuffer chunk;
+	private long chunkPosition;
+	private int count;
+	private boolean closed = false;
+
+	/**
+	 * Builds a recorder writing to a file with chunks of 65536 samples. The file
+	 * is created or truncated.
+	 *
+	 * @param path the path of the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public ProbeRecorder(final Path path) throws IOException {
+		this(path, DEFAULT_CHUNK_CAPACITY);
+	}
+
+	/**
+	 * Builds a recorder writing to a file. The file is created or truncated.
+	 *
+	 * @param path          the path of the file
+	 * @param chunkCapacity the number of samples of a chunk
+	 * @throws IOException if the file cannot be opened
+	 */
+	public ProbeRecorder(final Path path, final int chunkCapacity) throws IOException {
+		if (chunkCapacity <= 0 || chunkSize(chunkCapacity) > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("bad chunk capacity " + chunkCapacity);
+		}
+		capacity = chunkCapacity;
+		channel = FileChannel.open(Objects.requireNonNull(path), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putLong(MAGIC).putInt(capacity).putInt(0).flip();
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+		chunkPosition = HEADER_SIZE - chunkSize(capacity);
+		count = capacity;
+	}
+
+	/**
+	 * Closes this recorder: the file is truncated after the last sample and the
+	 * names of the probes are written. Samples recorded later are dropped.
+	 */
+	@Override
+	public void close() {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			long end = HEADER_SIZE;
+			if (chunk != null) {
+				chunk.force();
+				// the last chunk is kept whole, so that the reader finds its columns
+				end = chunkPosition + chunkSize(capacity);
+				chunk = null;
+			}
+			int size = 4 + 16;
+			final List<byte[]> encoded = new ArrayList<>(names.size());
+			for (final String name : names) {
+				final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+				encoded.add(bytes);
+				size += 4 + bytes.length;
+			}
+			final ByteBuffer trailer = ByteBuffer.allocate(size);
+			trailer.putInt(encoded.size());
+			for (final byte[] bytes : encoded) {
+				trailer.putInt(bytes.length).put(bytes);
+			}
+			trailer.putLong(end).putLong(MAGIC).flip();
+			channel.truncate(end);
+			channel.position(end);
+			while (trailer.hasRemaining()) {
+				channel.write(trailer);
+			}
+			channel.close();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Maps the next chunk. Called with the lock held.
+	 */
+	private void nextChunk() {
+		chunkPosition += chunkSize(capacity);
+		try {
+			chunk = channel.map(MapMode.READ_WRITE, chunkPosition, chunkSize(capacity));
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		count = 0;
+	}
+
+	/**
+	 * Records a double sample.
+	 *
+	 * @param probe the id of the probe
+	 * @param time  the simulated time of the sample
+	 * @param value the value of the sample
+	 */
+	public void record(final int probe, final int time, final double value) {
+		record(probe, time, Double.doubleToRawLongBits(value));
+	}
+
+	/**
+	 * Records a long sample.
+	 *
+	 * @param probe the id of the probe
+	 * @param time  the simulated time of the sample
+	 * @param value the value of the sample
+	 */
+	public void record(final int probe, final int time, final long value) {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			if (count == capacity) {
+				nextChunk();
+			}
+			chunk.putInt(timesOffset() + count * 4, time);
+			chunk.putInt(probesOffset(capacity) + count * 4, probe);
+			chunk.putLong(valuesOffset(capacity) + count * 8, value);
+			count++;
+			// the count is published after the sample
+			chunk.putInt(0, count);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Registers a probe and returns its id. A name registered twice returns the
+	 * same id.
+	 *
+	 * @param name the name of the probe
+	 * @return the id of the probe
+	 */
+	public int register(final String name) {
+		Objects.requireNonNull(name);
+		lock.lock();
+		try {
+			final int id = names.indexOf(name);
+			if (id >= 0) {
+				return id;
+			}
+			names.add(name);
+			return names.size() - 1;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
@@ -0,0 +1,176 @@
+package jpnco.simula.log;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.IllegalFormatException;
+import java.util.Objects;
+
+import jpnco.simula.Actor;
+import jpnco.simula.actors.Logger.Level;
+
+/**
+ * A sink that formats the records as text and writes them to a print stream.
+ * This is the default sink of a logger, writing to the standard output.
+ * <p>
+ * A record is written as "time level name message", a probe record as "time
+ * message".
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class TextLogSink implements LogSink {
+
+	/**
+	 * The arrays of format arguments reused by a sink, one per length. A
+	 * {@link Formatter} needs the arguments of a record in an array of their own,
+	 * while a sink receives them after the format, in the array of the record.
+	 */
+	static final class Arguments {
+
+		private static final int MAX_LENGTH = 16;
+
+		private final Object[][] arrays = new Object[MAX_LENGTH + 1][];
+
+		/**
+		 * Returns the arguments that start at a given index, in a reused array if
+		 * they do not start at 0.
+		 *
+		 * @param args the arguments
+		 * @param from the index of the first argument in args
+		 * @return the arguments
+		 */
+		Object[] of(final Object[] args, final int from) {
+			final int length = args.length - from;
+			if (from == 0) {
+				return args;
+			}
+			Object[] window = length <= MAX_LENGTH ? arrays[length] : null;
+			if (window == null) {
+				window = new Object[length];
+				if (length <= MAX_LENGTH) {
+					arrays[length] = window;
+				}
+			}
+			System.arraycopy(args, from, window, 0, length);
+			return window;
+		}
+
+		/**
+		 * Releases the arguments returned by {@link #of(Object[], int)}, so a reused
+		 * array does not keep them reachable.
+		 *
+		 * @param window the arguments
+		 */
+		void release(final Object[] window) {
+			if (window.length <= MAX_LENGTH && arrays[window.length] == window) {
+				Arrays.fill(window, null);
+			}
+		}
+	}
+
+	private static final String PREFIX_PROBE = "%d ";
+	private static final String PREFIX = "%d %s %s ";
+
+	private final StringBuilder buffer = new StringBuilder(1 << 15);
+	private final Formatter formatter = new Formatter(buffer);
+	private final Arguments arguments = new Arguments();
+	private final PrintStream out;
+	private final boolean closeOut;
+
+	/**
+	 * Builds a sink writing to the standard output.
+	 */
+	public TextLogSink() {
+		this(System.out, false);
+	}
+
+	/**
+	 * Builds a sink writing to a stream.
+	 *
+	 * @param out      the stream to write to
+	 * @param closeOut true if the stream must be closed with this sink
+	 */
+	public TextLogSink(final PrintStream out, final boolean closeOut) {
+		this.out = Objects.requireNonNull(out);
+		this.closeOut = closeOut;
+	}
+
+	/**
+	 * Formats a record into a formatter. A record that cannot be formatted is
+	 * replaced by an error message.
+	 *
+	 * @param formatter the formatter to format into, its destination must be a
+	 *                  StringBuilder
+	 * @param level     the level of the record
+	 * @param time      the simulated time of the record
+	 * @param name      the name of the actor that logged the record
+	 * @param format    the format of the record
+	 * @param args      the arguments of the format
+	 */
+	static void format(final Formatter formatter, final Level level, final int time, final String name,
+			final String format, final Object[] args) {
+		final StringBuilder buffer = (StringBuilder) formatter.out();
+		final int start = buffer.length();
+		try {
+			if (Level.PROBE == level) {
+				formatter.format(PREFIX_PROBE, time);
+			} else {
+				formatter.format(PREFIX, time, level, name);
+			}
+			formatter.format(format, args);
+		} catch (final IllegalFormatException | NullPointerException exc) {
+			buffer.setLength(start);
+			buffer.append(time).append(' ').append(level).append(" cannot format log record: ")
+					.append(exc.getMessage()).append('\n');
+		}
+	}
+
+	/**
+	 * Formats a record whose arguments start at a given index of an array.
+	 *
+	 * @param formatter the formatter to format into, its destination must be a
+	 *                  StringBuilder
+	 * @param arguments the arrays reused for the arguments
+	 * @param level     the level of the record
+	 * @param time      the simulated time of the record
+	 * @param name      the name of the actor that logged the record
+	 * @param format    the format of the record
+	 * @param args      the arguments of the format
+	 * @param from      the index of the first argument in args
+	 */
+	static void format(final Formatter formatter, final Arguments arguments, final Level level, final int time,
+			final String name, final String format, final Object[] args, final int from) {
+		final Object[] window = arguments.of(args, from);
+		try {
+			format(formatter, level, time, name, format, window);
+		} finally {
+			arguments.release(window);
+		}
+	}
+
+	@Override
+	public void close() {
+		flush();
+		if (closeOut) {
+			out.close();
+		}
+	}
+
+	@Override
+	public void flush() {
+		if (buffer.length() > 0) {
+			out.append(buffer);
+			buffer.setLength(0);
+		}
+		out.flush();
+	}
+
+	@Override
+	public void write(final Level level, final int time, final Actor source, final String format,
+			final Object[] args, final int from) {
+		format(formatter, arguments, level, time, Level.PROBE == level ? null : source.getName(), format, args,
+				from);
+	}
+
+}
@@ -0,0 +1,15 @@
+/**
+ * This packages contains the sinks of the Logger actor and its probe recorder :
+ * <li>TextLogSink: formats the records as text, the default sink writes to the
+ * standard output
+ * <li>FileLogSink: formats the records as text into a file, with batched
+ * writes, rotation and a fsync policy
+ * <li>BinaryLogSink: writes the records without formatting them, in a compact
+ * binary form decoded offline by BinaryLogDecoder
+ * <li>ProbeRecorder: records typed probe samples into a memory-mapped columnar
+ * file, scanned by ProbeReader
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+package jpnco.simula.log;
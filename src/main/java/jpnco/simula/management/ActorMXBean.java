@@ -0,0 +1,36 @@
+package jpnco.simula.management;
+
+/**
+ * The management interface of an actor. The counters are only updated while
+ * the actor metrics are enabled.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public interface ActorMXBean {
+
+	/**
+	 * Sets the log level of the actor.
+	 *
+	 * @param level TRACE, DEBUG, WARNING, INFO, ERROR or PROBE
+	 */
+	void changeLogLevel(String level);
+
+	/**
+	 * Returns the number of events processed per second since the previous call.
+	 *
+	 * @return the number of events processed per second
+	 */
+	double getEventsPerSecond();
+
+	long getEventsProcessed();
+
+	long getEventsReceived();
+
+	int getMailboxDepth();
+
+	int getMailboxHighWaterMark();
+
+	String getName();
+
+}
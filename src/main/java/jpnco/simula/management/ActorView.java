@@ -0,0 +1,59 @@
+package jpnco.simula.management;
+
+import jpnco.simula.Actor;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.engine.ActorMetrics;
+
+/**
+ * The management view of an actor.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+final class ActorView implements ActorMXBean {
+
+	private final Actor actor;
+	private final ActorMetrics metrics;
+	private final Rate rate = new Rate();
+
+	ActorView(final Actor actor, final ActorMetrics metrics) {
+		this.actor = actor;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void changeLogLevel(final String level) {
+		Logger.setActivated(actor, Logger.Level.valueOf(level), true);
+	}
+
+	@Override
+	public double getEventsPerSecond() {
+		return rate.perSecond(getEventsProcessed());
+	}
+
+	@Override
+	public long getEventsProcessed() {
+		return metrics.snapshot().processed();
+	}
+
+	@Override
+	public long getEventsReceived() {
+		return metrics.snapshot().received();
+	}
+
+	@Override
+	public int getMailboxDepth() {
+		return metrics.getDepth();
+	}
+
+	@Override
+	public int getMailboxHighWaterMark() {
+		return metrics.getHighWaterMark();
+	}
+
+	@Override
+	public String getName() {
+		return actor.getName();
+	}
+
+}
@@ -0,0 +1,47 @@
+package jpnco.simula.management;
+
+/**
+ * The management interface of an engine.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public interface EngineMXBean {
+
+	/**
+	 * Sets the log level of the engine and of all its actors.
+	 *
+	 * @param level TRACE, DEBUG, WARNING, INFO, ERROR or PROBE
+	 */
+	void changeLogLevel(String level);
+
+	/**
+	 * Returns the subscribers of each topic, one topic per line.
+	 *
+	 * @return the subscriber table of the engine
+	 */
+	String dumpSubscribers();
+
+	int getActorCount();
+
+	int getChildCount();
+
+	/**
+	 * Returns the number of events processed per second by the engine and its
+	 * child engines since the previous call.
+	 *
+	 * @return the number of events processed per second
+	 */
+	double getEventsPerSecond();
+
+	long getEventsInFlight();
+
+	int getMailboxDepth();
+
+	String getName();
+
+	int getTime();
+
+	void requestStop();
+
+}
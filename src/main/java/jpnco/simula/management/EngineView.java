@@ -0,0 +1,80 @@
+package jpnco.simula.management;
+
+import java.util.List;
+import java.util.Map;
+
+import jpnco.simula.actors.Logger;
+import jpnco.simula.engine.EngineImpl;
+
+/**
+ * The management view of an engine.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+final class EngineView implements EngineMXBean {
+
+	private final EngineImpl engine;
+	private final Rate rate = new Rate();
+
+	EngineView(final EngineImpl engine) {
+		this.engine = engine;
+	}
+
+	@Override
+	public void changeLogLevel(final String level) {
+		final Logger.Level activated = Logger.Level.valueOf(level);
+		Logger.setActivated(engine, activated, true);
+		engine.getActors().forEach(actor -> Logger.setActivated(actor, activated, true));
+	}
+
+	@Override
+	public String dumpSubscribers() {
+		final StringBuilder dump = new StringBuilder();
+		for (final Map.Entry<String, List<String>> entry : engine.getSubscriberTable().entrySet()) {
+			dump.append(entry.getKey()).append(": ").append(String.join(", ", entry.getValue())).append('\n');
+		}
+		return dump.toString();
+	}
+
+	@Override
+	public int getActorCount() {
+		return engine.getActors().size();
+	}
+
+	@Override
+	public int getChildCount() {
+		return engine.getChildren().size();
+	}
+
+	@Override
+	public long getEventsInFlight() {
+		return engine.getTerminationDetector().getInFlight();
+	}
+
+	@Override
+	public double getEventsPerSecond() {
+		return rate.perSecond(engine.getTerminationDetector().getWork());
+	}
+
+	@Override
+	public int getMailboxDepth() {
+		return engine.getMetrics().getDepth();
+	}
+
+	@Override
+	public String getName() {
+		return engine.getName();
+	}
+
+	@Override
+	public int getTime() {
+		return engine.getTime();
+	}
+
+	@Override
+	public void requestStop() {
+		engine.stop();
+	}
+
+}
@@ -0,0 +1,217 @@
+package jpnco.simula.management;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.TimeSource;
+import jpnco.simula.engine.ActorDelegate;
+import jpnco.simula.engine.EngineImpl;
+
+/**
+ * Registers the engines, their actors and the time source as MXBeans in the
+ * platform MBean server, so that a running simulation can be watched with
+ * JConsole or VisualVM. The object names mirror the engine tree: an engine is
+ * named by the names of the engines from the root, for instance
+ * <code>jpnco.simula:e0=root,e1=child,type=Engine</code>, and its actors are
+ * named <code>jpnco.simula:e0=root,e1=child,type=Actor,name=Worker#12</code>.
+ * <p>
+ * The registration is disabled by default. It is enabled with
+ * {@link #setEnabled(boolean)} or the system property
+ * <code>jpnco.simula.jmx=true</code>, before the engines are built.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class Management {
+
+	public static final String DOMAIN = "jpnco.simula";
+
+	private static volatile boolean enabled = Boolean.getBoolean("jpnco.simula.jmx");
+	// the number of MBeans registered and not yet unregistered
+	private static final AtomicInteger registered = new AtomicInteger();
+
+	/**
+	 * Returns the object name of an actor of an engine.
+	 *
+	 * @param engine the engine of the actor
+	 * @param actor  the actor
+	 * @return the object name of the actor
+	 * @throws MalformedObjectNameException if a name cannot be quoted
+	 */
+	public static ObjectName actorName(final Engine engine, final Actor actor) throws MalformedObjectNameException {
+		if (actor instanceof TimeSource) {
+			return new ObjectName(enginePath(engine) + ",type=TimeSource");
+		}
+		return new ObjectName(
+				enginePath(engine) + ",type=Actor,name=" + value(actor.getSimpleName() + "#" + actor.getId()));
+	}
+
+	/**
+	 * Returns the object name of an engine.
+	 *
+	 * @param engine the engine
+	 * @return the object name of the engine
+	 * @throws MalformedObjectNameException if a name cannot be quoted
+	 */
+	public static ObjectName engineName(final Engine engine) throws MalformedObjectNameException {
+		return new ObjectName(enginePath(engine) + ",type=Engine");
+	}
+
+	private static String enginePath(final Engine engine) {
+		final Deque<String> names = new ArrayDeque<>();
+		for (Engine current = engine; current != null; current = current.getParent()) {
+			names.push(current.getName());
+		}
+		final StringBuilder path = new StringBuilder(DOMAIN).append(':');
+		int level = 0;
+		for (final String name : names) {
+			if (level > 0) {
+				path.append(',');
+			}
+			path.append('e').append(level++).append('=').append(value(name));
+		}
+		return path.toString();
+	}
+
+	/**
+	 * Returns true if the engines and their actors are registered.
+	 *
+	 * @return true if the registration is enabled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	private static void register(final Engine engine, final Object view, final ObjectName name) {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.registerMBean(view, name);
+			registered.incrementAndGet();
+		} catch (final InstanceAlreadyExistsException exc) {
+			Logger.warning(engine, "MBean %s is already registered\n", name);
+		} catch (final JMException exc) {
+			Logger.error(engine, "Cannot register MBean %s because of %s\n", name, exc.getMessage());
+		}
+	}
+
+	/**
+	 * Registers the MXBean of an engine, if the registration is enabled.
+	 *
+	 * @param engine the engine to register
+	 */
+	public static void register(final EngineImpl engine) {
+		if (enabled) {
+			try {
+				register(engine, new EngineView(engine), engineName(engine));
+			} catch (final MalformedObjectNameException exc) {
+				Logger.error(engine, "Cannot name MBean of %s\n", engine.getName());
+			}
+		}
+	}
+
+	/**
+	 * Registers the MXBean of an actor of an engine, if the registration is
+	 * enabled. Only the time source and the actors that run with an
+	 * {@link ActorDelegate} are registered.
+	 *
+	 * @param engine the engine of the actor
+	 * @param actor  the actor to register
+	 */
+	public static void register(final EngineImpl engine, final Actor actor) {
+		if (enabled) {
+			try {
+				if (actor instanceof final TimeSource timeSource) {
+					register(engine, new TimeSourceView(timeSource), actorName(engine, actor));
+				} else if (actor.getDelegate() instanceof final ActorDelegate delegate) {
+					register(engine, new ActorView(actor, delegate.getMetrics()), actorName(engine, actor));
+				}
+			} catch (final MalformedObjectNameException exc) {
+				Logger.error(engine, "Cannot name MBean of %s\n", actor.getName());
+			}
+		}
+	}
+
+	/**
+	 * Enables or disables the registration of the engines built later and of their
+	 * actors. The MXBeans registered before are still unregistered when their
+	 * engine or actor stops.
+	 *
+	 * @param isEnabled true to register the engines and their actors
+	 */
+	public static void setEnabled(final boolean isEnabled) {
+		enabled = isEnabled;
+	}
+
+	/**
+	 * Unregisters the MXBean of an engine, if it is registered.
+	 *
+	 * @param engine the engine to unregister
+	 */
+	public static void unregister(final Engine engine) {
+		if (registered.get() == 0) {
+			return;
+		}
+		try {
+			unregister(engine, engineName(engine));
+		} catch (final MalformedObjectNameException exc) {
+			// cannot have been registered
+		}
+	}
+
+	/**
+	 * Unregisters the MXBean of an actor, if it is registered.
+	 *
+	 * @param engine the engine of the actor
+	 * @param actor  the actor to unregister
+	 */
+	public static void unregister(final Engine engine, final Actor actor) {
+		if (registered.get() == 0) {
+			return;
+		}
+		try {
+			unregister(engine, actorName(engine, actor));
+		} catch (final MalformedObjectNameException exc) {
+			// cannot have been registered
+		}
+	}
+
+	private static void unregister(final Engine engine, final ObjectName name) {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.unregisterMBean(name);
+			registered.decrementAndGet();
+		} catch (final InstanceNotFoundException exc) {
+			// not registered
+		} catch (final JMException exc) {
+			Logger.error(engine, "Cannot unregister MBean %s because of %s\n", name, exc.getMessage());
+		}
+	}
+
+	/**
+	 * Returns a value of an object name, quoted if needed.
+	 */
+	private static String value(final String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (",=:\"*?\n".indexOf(value.charAt(i)) >= 0) {
+				return ObjectName.quote(value);
+			}
+		}
+		return value;
+	}
+
+	private Management() {
+	}
+
+}
@@ -0,0 +1,28 @@
+package jpnco.simula.management;
+
+/**
+ * The rate of a growing count between two consecutive reads.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+final class Rate {
+
+	private long lastCount = 0;
+	private long lastNanos = System.nanoTime();
+
+	/**
+	 * Returns the number of occurrences per second since the previous call.
+	 *
+	 * @param count the current count
+	 * @return the number of occurrences per second
+	 */
+	synchronized double perSecond(final long count) {
+		final long now = System.nanoTime();
+		final double rate = (count - lastCount) * 1e9 / Math.max(1, now - lastNanos);
+		lastCount = count;
+		lastNanos = now;
+		return rate;
+	}
+
+}
@@ -0,0 +1,26 @@
+package jpnco.simula.management;
+
+/**
+ * The management interface of a time source.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public interface TimeSourceMXBean {
+
+	int getAlarmCount();
+
+	int getMailboxDepth();
+
+	/**
+	 * Returns how late the last tick of the clock was, in milliseconds.
+	 *
+	 * @return the lag of the last tick
+	 */
+	double getTickLagMillis();
+
+	int getTime();
+
+	int getTimeFactor();
+
+}
@@ -0,0 +1,44 @@
+package jpnco.simula.management;
+
+import jpnco.simula.actors.TimeSource;
+
+/**
+ * The management view of a time source.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+final class TimeSourceView implements TimeSourceMXBean {
+
+	private final TimeSource timeSource;
+
+	TimeSourceView(final TimeSource timeSource) {
+		this.timeSource = timeSource;
+	}
+
+	@Override
+	public int getAlarmCount() {
+		return timeSource.getAlarmCount();
+	}
+
+	@Override
+	public int getMailboxDepth() {
+		return timeSource.getMetrics().getDepth();
+	}
+
+	@Override
+	public double getTickLagMillis() {
+		return timeSource.getTickLagNanos() / 1e6;
+	}
+
+	@Override
+	public int getTime() {
+		return timeSource.getTime();
+	}
+
+	@Override
+	public int getTimeFactor() {
+		return timeSource.TIME_FACTOR;
+	}
+
+}
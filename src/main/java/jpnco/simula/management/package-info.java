@@ -0,0 +1,11 @@
+/**
+ * This packages exposes a running simulation through JMX :
+ * <li>EngineMXBean: actors, child engines, mailbox, event rate, stop and log
+ * level of an engine
+ * <li>ActorMXBean: mailbox, event counts and log level of an actor
+ * <li>TimeSourceMXBean: time, pending alarms and tick lag of the time source
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+package jpnco.simula.management;
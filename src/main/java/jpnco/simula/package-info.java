@@ -1,6 +1,7 @@
 /**
  * This packages contains all interfaces needed to develop a SIMULA project.
  * <li>Actor: an actor is a piece of independent behavior
+ * <li>Checkpointable: an actor whose state is saved by a checkpoint
  * <li>Event: An event is signaled by an actor and posted to the actors that
  * have subscribe it through a topic (publish/subscribe pattern).
  * <li>Engine: A engine engine pilots a set of actors and allows this different
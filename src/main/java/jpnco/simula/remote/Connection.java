@@ -0,0 +1,209 @@
+package jpnco.simula.remote;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import jpnco.simula.Event;
+import jpnco.simula.engine.Codec;
+import jpnco.simula.engine.EventReader;
+import jpnco.simula.engine.EventRecord;
+import jpnco.simula.engine.EventWriter;
+
+/**
+ * The two ways of a frame channel between an engine and its remote parent or
+ * child. The events to send are queued and a sender thread writes them in
+ * batches: a frame holds the events encoded one after the other by the codec,
+ * so a burst of events costs one write. The receiver reads the frames and hands
+ * the decoded events to a handler, in order.
+ * <p>
+ * The first frame of each way is a hello: the name of the remote engine, the
+ * time factor and the time of the parent. The topics and the names are defined
+ * once per way, since the frames are read in the order they are written.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+final class Connection implements AutoCloseable {
+
+	/**
+	 * The first frame of a connection.
+	 *
+	 * @param name       the name of the remote engine
+	 * @param timeFactor the time factor of the parent
+	 * @param time       the time of the parent
+	 */
+	record Hello(String name, int timeFactor, int time) {
+	}
+
+	private static final int MAX_BATCH = 1024;
+	private static final long POLL_MILLIS = 100;
+
+	private final FrameChannel frames;
+	private final Codec codec;
+	private final BlockingQueue<Event> outbox = new LinkedBlockingQueue<>();
+	private final EventWriter writer = new EventWriter();
+	private final EventReader reader = new EventReader();
+	private Thread sender;
+	private volatile boolean closing = false;
+	private volatile long sentEvents = 0;
+	private volatile long sentFrames = 0;
+
+	/**
+	 * Builds a connection.
+	 *
+	 * @param frames the channel of the frames
+	 * @param codec  the codec of the events
+	 */
+	Connection(final FrameChannel frames, final Codec codec) {
+		this.frames = frames;
+		this.codec = codec;
+	}
+
+	/**
+	 * Sends the queued events, then closes the channel. The remote receiver stops
+	 * at the end of the stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		closing = true;
+		if (sender != null && sender != Thread.currentThread()) {
+			try {
+				sender.join();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		frames.close();
+	}
+
+	long getSentEvents() {
+		return sentEvents;
+	}
+
+	long getSentFrames() {
+		return sentFrames;
+	}
+
+	/**
+	 * Reads a frame. Returns false at the end of the stream.
+	 */
+	private boolean readFrame() throws IOException {
+		final ByteBuffer frame = frames.read();
+		if (frame == null) {
+			return false;
+		}
+		reader.reset(frame);
+		return true;
+	}
+
+	/**
+	 * Reads the hello of the remote side.
+	 *
+	 * @return the hello
+	 * @throws IOException if the channel is closed before the hello or the hello
+	 *                     is corrupted
+	 */
+	Hello readHello() throws IOException {
+		if (!readFrame()) {
+			throw new EOFException("no hello");
+		}
+		try {
+			return new Hello(reader.readString(), reader.readVarint(), reader.readVarint());
+		} catch (final BufferUnderflowException e) {
+			throw new IOException("corrupted hello", e);
+		}
+	}
+
+	/**
+	 * Reads the frames until the end of the stream and hands their events to a
+	 * handler.
+	 *
+	 * @param handler the handler of the received events
+	 * @throws IOException if the channel cannot be read or a frame is corrupted
+	 */
+	void receive(final Consumer<EventRecord> handler) throws IOException {
+		while (readFrame()) {
+			try {
+				while (reader.remaining() > 0) {
+					handler.accept(codec.decode(reader));
+				}
+			} catch (BufferUnderflowException | IllegalArgumentException | IllegalStateException e) {
+				throw new IOException("corrupted frame", e);
+			}
+		}
+	}
+
+	/**
+	 * Queues an event to send.
+	 *
+	 * @param event the event
+	 */
+	void send(final Event event) {
+		outbox.add(event);
+	}
+
+	/**
+	 * Sends the hello, then starts the sender thread.
+	 *
+	 * @param hello the hello
+	 * @param name  the name of the sender thread
+	 * @throws IOException if the hello cannot be written
+	 */
+	void start(final Hello hello, final String name) throws IOException {
+		writer.clear().writeString(hello.name()).writeVarint(hello.timeFactor()).writeVarint(hello.time());
+		writeFrame();
+		sender = new Thread(this::runSender, name);
+		sender.setDaemon(true);
+		sender.start();
+	}
+
+	/**
+	 * The loop of the sender thread: waits for an event, then sends it with all
+	 * the events queued in the meantime.
+	 */
+	private void runSender() {
+		final List<Event> batch = new ArrayList<>();
+		try {
+			while (true) {
+				final Event first = outbox.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					if (closing) {
+						break;
+					}
+					continue;
+				}
+				batch.add(first);
+				outbox.drainTo(batch, MAX_BATCH - 1);
+				writer.clear();
+				for (final Event event : batch) {
+					codec.encode(event, writer);
+				}
+				writeFrame();
+				sentEvents += batch.size();
+				sentFrames++;
+				batch.clear();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (final IOException e) {
+			// the remote side is gone: the receiver sees the end of the stream
+			outbox.clear();
+		}
+	}
+
+	/**
+	 * Writes the content of the writer as a frame.
+	 */
+	private void writeFrame() throws IOException {
+		frames.write(writer.buffer().flip());
+	}
+
+}
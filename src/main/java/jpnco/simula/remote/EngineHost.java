@@ -0,0 +1,227 @@
+package jpnco.simula.remote;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.engine.Codec;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.engine.EventRecord;
+import jpnco.simula.engine.StandIn;
+
+/**
+ * Serves an engine to a parent engine of another process, which sees it through
+ * a {@link RemoteEngine}. The host accepts one connection, builds the engine
+ * with the name sent by the parent, lets a model register its actors, then
+ * signals the events received from the parent, until the engine is stopped.
+ * The connection is a socket, or a file of shared memory rings created by the
+ * host when the parent runs on the same host.
+ * <p>
+ * The source of a received event, and the actors that are its parameters, are
+ * the actors of the same name registered in the hosted engine, otherwise
+ * stand-ins. The time of the hosted engine is the time of the last TIME event
+ * received.
+ * <p>
+ * The main method serves an engine on the loopback interface or over shared
+ * memory: its arguments are the port, 0 for any free port, or the file of the
+ * rings, and the class name of the model, a <code>Consumer&lt;Engine&gt;</code>
+ * with a public no-argument constructor. It prints the port on the standard
+ * output, if any, and exits once the engine is stopped.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class EngineHost implements AutoCloseable {
+
+	/** The prefix of the line that gives the port on the standard output */
+	public static final String PORT_PREFIX = "PORT ";
+
+	/**
+	 * Serves an engine on the loopback interface or over shared memory until it is
+	 * stopped.
+	 *
+	 * @param args the port or the file of the rings, and the class name of the
+	 *             model
+	 * @throws Exception if the model cannot be built or the engine cannot be
+	 *                   served
+	 */
+	@SuppressWarnings("unchecked")
+	public static void main(final String[] args) throws Exception {
+		if (args.length != 2) {
+			System.err.println("usage: EngineHost <port>|<ring file> <model class>");
+			System.exit(2);
+		}
+		final Consumer<Engine> model = (Consumer<Engine>) Class.forName(args[1]).getDeclaredConstructor()
+				.newInstance();
+		if (args[0].chars().allMatch(Character::isDigit)) {
+			try (EngineHost host = new EngineHost(
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0])), new Codec())) {
+				System.out.println(PORT_PREFIX + host.getPort());
+				System.out.flush();
+				host.serve(model).getTermination().join();
+			}
+		} else {
+			try (EngineHost host = new EngineHost(Path.of(args[0]), new Codec())) {
+				host.serve(model).getTermination().join();
+			}
+		}
+		// the threads of the logger may still be running
+		System.exit(0);
+	}
+
+	/**
+	 * Returns a file for shared memory rings: in <code>/dev/shm</code> when it
+	 * exists, otherwise in the temporary directory.
+	 *
+	 * @param name the name of the file
+	 * @return the file
+	 */
+	public static Path sharedMemoryFile(final String name) {
+		final Path directory = Files.isDirectory(RingFrameChannel.SHARED_MEMORY) ? RingFrameChannel.SHARED_MEMORY
+				: Path.of(System.getProperty("java.io.tmpdir"));
+		return directory.resolve(Objects.requireNonNull(name));
+	}
+
+	private final ServerSocketChannel server;
+	private final FrameChannel ring;
+	private final Codec codec;
+	private final Map<String, Actor> actors = new HashMap<>();
+	private Connection connection;
+	private RemoteParent parent;
+	private EngineImpl engine;
+
+	/**
+	 * Builds a host listening on an address.
+	 *
+	 * @param address the address, with the port 0 for any free port
+	 * @param codec   the codec of the events, the same as the one of the parent
+	 * @throws IOException if the address cannot be bound
+	 */
+	public EngineHost(final InetSocketAddress address, final Codec codec) throws IOException {
+		this.codec = Objects.requireNonNull(codec);
+		server = ServerSocketChannel.open().bind(Objects.requireNonNull(address));
+		ring = null;
+	}
+
+	/**
+	 * Builds a host that creates a file of shared memory rings, for a parent of
+	 * the same host. The file is deleted when the host is closed.
+	 *
+	 * @param file  the file of the rings, usually in <code>/dev/shm</code>
+	 * @param codec the codec of the events, the same as the one of the parent
+	 * @throws IOException if the file cannot be created
+	 */
+	public EngineHost(final Path file, final Codec codec) throws IOException {
+		this.codec = Objects.requireNonNull(codec);
+		server = null;
+		ring = RingFrameChannel.create(Objects.requireNonNull(file), RingFrameChannel.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Sends the pending events to the parent and closes the connection. Once the
+	 * hosted engine is stopped, its STOPPED_ENGINE event is among them.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (engine != null && engine.getTermination().isDone()
+					&& !engine.getTermination().isCompletedExceptionally()) {
+				// the engine signals its STOPPED_ENGINE event after its termination
+				parent.awaitStopped();
+			}
+			if (connection != null) {
+				connection.close();
+			} else if (ring != null) {
+				ring.close();
+			}
+		} finally {
+			if (server != null) {
+				server.close();
+			}
+		}
+	}
+
+	/**
+	 * Returns the port the host listens on.
+	 *
+	 * @return the port the host listens on
+	 * @throws IOException           if the port cannot be read
+	 * @throws IllegalStateException if the host uses shared memory rings
+	 */
+	public int getPort() throws IOException {
+		if (server == null) {
+			throw new IllegalStateException("no port for shared memory rings");
+		}
+		return ((InetSocketAddress) server.getLocalAddress()).getPort();
+	}
+
+	/**
+	 * Handles an event received from the parent.
+	 */
+	private void receive(final EventRecord record) {
+		if (Engine.TIME_EVENT.equals(record.topic()) && record.parameters().length > 0
+				&& record.parameters()[0] instanceof final Integer time) {
+			parent.setTime(time);
+		}
+		final Event event = record.toEvent(this::resolve);
+		engine.signal(event);
+	}
+
+	/**
+	 * Returns the actor of the hosted engine with a given name, or a stand-in.
+	 */
+	private Actor resolve(final String name) {
+		Actor actor = actors.get(name);
+		if (actor == null) {
+			// the actors registered since the last lookup
+			engine.getActors().forEach(registered -> actors.putIfAbsent(registered.getName(), registered));
+			actor = actors.computeIfAbsent(name, n -> new StandIn(n, engine));
+		}
+		return actor;
+	}
+
+	/**
+	 * Accepts the connection of the parent, or waits for its hello on the rings,
+	 * builds the hosted engine, lets the model register its actors, then signals
+	 * the received events in a new thread.
+	 *
+	 * @param model the model that registers the actors of the hosted engine
+	 * @return the hosted engine
+	 * @throws IOException if the connection fails
+	 */
+	public EngineImpl serve(final Consumer<Engine> model) throws IOException {
+		Objects.requireNonNull(model);
+		connection = new Connection(server != null ? new SocketFrameChannel(server.accept()) : ring, codec);
+		final Connection.Hello hello = connection.readHello();
+		parent = new RemoteParent(hello, connection);
+		engine = new EngineImpl(hello.name(), parent);
+		actors.put(engine.getName(), engine);
+		model.accept(engine);
+		// the hello back tells the parent the engine is built
+		connection.start(hello, "EngineHost:" + hello.name());
+		final Thread receiver = new Thread(() -> {
+			try {
+				connection.receive(this::receive);
+			} catch (final IOException e) {
+				if (!engine.getTermination().isDone()) {
+					System.err.printf("EngineHost %s lost its parent: %s%n", hello.name(), e.getMessage());
+					engine.stop();
+				}
+			}
+		}, "EngineHost:" + hello.name() + ":receiver");
+		receiver.setDaemon(true);
+		receiver.start();
+		return engine;
+	}
+
+}
@@ -0,0 +1,42 @@
+package jpnco.simula.remote;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The two ways of a transport of frames between an engine and its remote parent
+ * or child. A frame is written by one thread and read by one thread.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+interface FrameChannel extends AutoCloseable {
+
+	/**
+	 * Tells the remote side that no more frame will be written, then releases the
+	 * resources of this channel.
+	 *
+	 * @throws IOException if the channel cannot be closed
+	 */
+	@Override
+	void close() throws IOException;
+
+	/**
+	 * Reads the next frame, waiting if necessary. The returned buffer holds the
+	 * frame between its position and its limit, and is valid until the next call.
+	 *
+	 * @return the next frame, null at the end of the stream
+	 * @throws IOException if the channel cannot be read or is corrupted
+	 */
+	ByteBuffer read() throws IOException;
+
+	/**
+	 * Writes a frame, waiting if necessary.
+	 *
+	 * @param frame the frame, between its position and its limit
+	 * @throws IOException if the channel cannot be written or the frame is too
+	 *                     large
+	 */
+	void write(ByteBuffer frame) throws IOException;
+
+}
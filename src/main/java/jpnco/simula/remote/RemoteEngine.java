@@ -0,0 +1,452 @@
+package jpnco.simula.remote;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.TimeSource;
+import jpnco.simula.engine.Codec;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.engine.EventImpl;
+import jpnco.simula.engine.EventRecord;
+import jpnco.simula.engine.IdBuilder;
+import jpnco.simula.engine.StandIn;
+import jpnco.simula.engine.TerminationDetector;
+import jpnco.simula.stats.Statistics;
+
+/**
+ * The proxy of a child engine that runs in another process, served by an
+ * {@link EngineHost}. It is a child of a local engine: the events signaled to
+ * it, among them the START, STOP and TIME events forwarded by its parent, are
+ * sent in batches, over a socket channel or over shared memory rings when both
+ * processes run on the same host, and signaled by the remote engine. When
+ * the remote engine is stopped, its STOPPED_ENGINE event comes back and is
+ * signaled to the parent, as for a local child engine.
+ * <p>
+ * The other events signaled to the parent by the remote engine, such as the
+ * events routed out of the remote subtree, are routed by the parent in the
+ * rest of the tree, or signaled by it when it is not an {@link EngineImpl}.
+ * Their source, and the actors that are their parameters, are stand-ins that
+ * carry the remote names, built once per name.
+ * <p>
+ * The actors and the subscriptions of a remote engine are built in its process,
+ * so the methods that register or subscribe actors are not supported. The
+ * events in flight in the remote engine are not counted by the termination
+ * detector of the parent, and the remote engine is not paused by a checkpoint.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class RemoteEngine implements Engine {
+
+	/**
+	 * Attaches to the shared memory rings of an engine host of the same host and
+	 * builds the proxy of its engine as a child of a local engine, with the
+	 * default codec.
+	 *
+	 * @param name    the name of the remote engine
+	 * @param parent  the local parent engine
+	 * @param file    the file of the rings created by the host
+	 * @param timeout the maximum time to wait for the file, in milliseconds
+	 * @return the proxy of the remote engine, once it is built by the host
+	 * @throws IOException if the rings are not ready in time
+	 */
+	public static RemoteEngine attach(final String name, final Engine parent, final Path file, final long timeout)
+			throws IOException {
+		return attach(name, parent, file, timeout, new Codec());
+	}
+
+	/**
+	 * Attaches to the shared memory rings of an engine host of the same host and
+	 * builds the proxy of its engine as a child of a local engine.
+	 *
+	 * @param name    the name of the remote engine
+	 * @param parent  the local parent engine
+	 * @param file    the file of the rings created by the host
+	 * @param timeout the maximum time to wait for the file, in milliseconds
+	 * @param codec   the codec of the events, the same as the one of the host
+	 * @return the proxy of the remote engine, once it is built by the host
+	 * @throws IOException if the rings are not ready in time
+	 */
+	public static RemoteEngine attach(final String name, final Engine parent, final Path file, final long timeout,
+			final Codec codec) throws IOException {
+		Objects.requireNonNull(name);
+		Objects.requireNonNull(parent);
+		Objects.requireNonNull(codec);
+		return open(name, parent, RingFrameChannel.open(Objects.requireNonNull(file), timeout), codec);
+	}
+
+	/**
+	 * Connects to an engine host and builds the proxy of its engine as a child of
+	 * a local engine, with the default codec.
+	 *
+	 * @param name    the name of the remote engine
+	 * @param parent  the local parent engine
+	 * @param address the address of the engine host
+	 * @return the proxy of the remote engine, once it is built by the host
+	 * @throws IOException if the host cannot be reached
+	 */
+	public static RemoteEngine connect(final String name, final Engine parent, final InetSocketAddress address)
+			throws IOException {
+		return connect(name, parent, address, new Codec());
+	}
+
+	/**
+	 * Connects to an engine host and builds the proxy of its engine as a child of
+	 * a local engine.
+	 *
+	 * @param name    the name of the remote engine
+	 * @param parent  the local parent engine
+	 * @param address the address of the engine host
+	 * @param codec   the codec of the events, the same as the one of the host
+	 * @return the proxy of the remote engine, once it is built by the host
+	 * @throws IOException if the host cannot be reached
+	 */
+	public static RemoteEngine connect(final String name, final Engine parent, final InetSocketAddress address,
+			final Codec codec) throws IOException {
+		Objects.requireNonNull(name);
+		Objects.requireNonNull(parent);
+		Objects.requireNonNull(codec);
+		final SocketChannel channel = SocketChannel.open(Objects.requireNonNull(address));
+		try {
+			return open(name, parent, new SocketFrameChannel(channel), codec);
+		} catch (final IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Says hello to the host, waits for its answer, then adds the proxy to its
+	 * parent and starts its receiver thread.
+	 */
+	private static RemoteEngine open(final String name, final Engine parent, final FrameChannel frames,
+			final Codec codec) throws IOException {
+		try {
+			final Connection connection = new Connection(frames, codec);
+			connection.start(new Connection.Hello(name, parent.getTimeFactor(), parent.getTime()),
+					"RemoteEngine:" + name);
+			// the host answers once the remote engine is built
+			connection.readHello();
+			final RemoteEngine engine = new RemoteEngine(name, parent, connection);
+			parent.addChild(engine);
+			final Thread receiver = new Thread(engine, name);
+			receiver.setDaemon(true);
+			receiver.start();
+			return engine;
+		} catch (final IOException | RuntimeException e) {
+			frames.close();
+			throw e;
+		}
+	}
+
+	private final Integer id = IdBuilder.nextId();
+	private final String name;
+	private final Engine parent;
+	private final Connection connection;
+	private final TerminationDetector detector = new TerminationDetector(null);
+	private final Statistics statistics = new Statistics();
+	private final Logger.LevelActivation activation = new Logger.LevelActivation();
+	private final CompletableFuture<Void> terminated = new CompletableFuture<>();
+	// the stand-ins of the remote actors, used by the receiver thread only
+	private final Map<String, Actor> standIns = new HashMap<>();
+
+	private RemoteEngine(final String name, final Engine parent, final Connection connection) {
+		this.name = name;
+		this.parent = parent;
+		this.connection = connection;
+	}
+
+	/**
+	 * Not supported: the child engines of a remote engine are built in its
+	 * process.
+	 */
+	@Override
+	public void addChild(final Engine child) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		return id.equals(((RemoteEngine) obj).id);
+	}
+
+	@Override
+	public Logger.LevelActivation getActivation() {
+		return activation;
+	}
+
+	@Override
+	public Actor getDelegate() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Engine getEngine() {
+		return this;
+	}
+
+	@Override
+	public Integer getId() {
+		return id;
+	}
+
+	@Override
+	public Logger getLogger() {
+		return parent.getLogger();
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public Engine getParent() {
+		return parent;
+	}
+
+	/**
+	 * Returns the number of events sent to the remote engine.
+	 *
+	 * @return the number of events sent to the remote engine
+	 */
+	public long getSentEvents() {
+		return connection.getSentEvents();
+	}
+
+	/**
+	 * Returns the number of frames sent to the remote engine. Each frame holds a
+	 * batch of events.
+	 *
+	 * @return the number of frames sent to the remote engine
+	 */
+	public long getSentFrames() {
+		return connection.getSentFrames();
+	}
+
+	/**
+	 * Returns the statistics of this proxy, which are empty: the statistics of the
+	 * remote engine stay in its process.
+	 */
+	@Override
+	public Statistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Returns a future completed when the remote engine is stopped, exceptionally
+	 * if the connection is lost before.
+	 *
+	 * @return the termination of the remote engine
+	 */
+	public CompletableFuture<Void> getTermination() {
+		return terminated;
+	}
+
+	/**
+	 * Returns a detached detector: the events in flight in the remote engine are
+	 * not counted.
+	 */
+	@Override
+	public TerminationDetector getTerminationDetector() {
+		return detector;
+	}
+
+	@Override
+	public int getTime() {
+		return parent.getTime();
+	}
+
+	@Override
+	public int getTimeFactor() {
+		return parent.getTimeFactor();
+	}
+
+	@Override
+	public TimeSource getTimeSource() {
+		return null;
+	}
+
+	@Override
+	public int hashCode() {
+		return id.hashCode();
+	}
+
+	@Override
+	public void post(final Event event) {
+		signal(event);
+	}
+
+	@Override
+	public void process(final Event event) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Handles an event received from the remote engine.
+	 */
+	private void receive(final EventRecord record) {
+		if (Engine.STOPPED_ENGINE_EVENT.equals(record.topic())) {
+			stopped();
+			return;
+		}
+		final Event event = record.toEvent(this::resolve);
+		if (parent instanceof final EngineImpl impl) {
+			// the event climbs out of the remote subtree
+			impl.routeFrom(event, this);
+		} else {
+			parent.signal(event);
+		}
+	}
+
+	/**
+	 * Not supported: the actors of a remote engine are built in its process.
+	 */
+	@Override
+	public Actor registerAndStart(final Actor actor) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Not supported: the actors of a remote engine are built in its process.
+	 */
+	@Override
+	public void registerAndStartAll(final Collection<? extends Actor> actors) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Returns this proxy for the name of the remote engine, otherwise the stand-in
+	 * of a remote actor.
+	 */
+	private Actor resolve(final String actorName) {
+		return name.equals(actorName) ? this : standIns.computeIfAbsent(actorName, n -> new StandIn(n, this));
+	}
+
+	/**
+	 * The loop of the receiver thread, started by {@link #attach} or
+	 * {@link #connect}.
+	 */
+	@Override
+	public void run() {
+		try {
+			connection.receive(this::receive);
+			if (!terminated.isDone()) {
+				throw new IOException("connection to " + name + " closed before it is stopped");
+			}
+		} catch (final IOException e) {
+			if (terminated.isDone()) {
+				// the connection is closed once the remote engine is stopped
+				return;
+			}
+			Logger.error(this, "Remote engine %s is lost because of %s\n", name, e.getMessage());
+			terminated.completeExceptionally(e);
+			// the parent must not wait for a lost engine
+			parent.signal(EventImpl.createEvent(Engine.STOPPED_ENGINE_EVENT, this, this));
+			try {
+				connection.close();
+			} catch (final IOException ignored) {
+				// already lost
+			}
+		}
+	}
+
+	/**
+	 * Sends an event to the remote engine, which signals it to its subscribers.
+	 */
+	@Override
+	public void signal(final Event event) {
+		Objects.requireNonNull(event);
+		connection.send(event);
+	}
+
+	/**
+	 * Sends an event to the remote engine, which signals it to its child engines.
+	 * Since the remote engine forwards the lifecycle and TIME events to its
+	 * children itself, this is the same as {@link #signal}.
+	 */
+	@Override
+	public void signalToChildren(final Event event) {
+		signal(event);
+	}
+
+	@Override
+	public void start() {
+		signal(EventImpl.createEvent(Engine.START_EVENT, this, (Actor) null));
+	}
+
+	@Override
+	public CompletableFuture<Void> stop() {
+		signal(EventImpl.createEvent(Engine.STOP_EVENT, this, (Actor) null));
+		return terminated;
+	}
+
+	/**
+	 * The remote engine is stopped: closes the connection and signals it to the
+	 * parent, once the termination is complete.
+	 */
+	private void stopped() {
+		try {
+			connection.close();
+		} catch (final IOException e) {
+			Logger.error(this, "Closing the connection to %s failed: %s\n", name, e.getMessage());
+		}
+		terminated.complete(null);
+		parent.signal(EventImpl.createEvent(Engine.STOPPED_ENGINE_EVENT, this, this));
+	}
+
+	/**
+	 * Not supported: the subscriptions of a remote engine are made in its process.
+	 */
+	@Override
+	public void subscribe(final Actor actor, final String topic) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Not supported: the subscriptions of a remote engine are made in its process.
+	 */
+	@Override
+	public void subscribeAll(final Collection<? extends Actor> actors, final String... topics) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public String toString() {
+		return "RemoteEngine:" + name;
+	}
+
+	/**
+	 * Not supported: the actors of a remote engine are built in its process.
+	 */
+	@Override
+	public boolean unregister(final Actor actor) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Not supported: the subscriptions of a remote engine are made in its process.
+	 */
+	@Override
+	public void unsubscribe(final Actor actor, final String topic) {
+		throw new UnsupportedOperationException();
+	}
+
+}
@@ -0,0 +1,208 @@
+package jpnco.simula.remote;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.TimeSource;
+import jpnco.simula.engine.IdBuilder;
+import jpnco.simula.engine.TerminationDetector;
+import jpnco.simula.stats.Statistics;
+
+/**
+ * The proxy of the parent of a hosted engine, in the process of the
+ * {@link EngineHost}. The events signaled to it, among them the STOPPED_ENGINE
+ * event of the hosted engine, are sent back to the parent. Its time is the time
+ * of the last TIME event received from the parent.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+final class RemoteParent implements Engine {
+
+	private final Integer id = IdBuilder.nextId();
+	private final String name;
+	private final int timeFactor;
+	private final Connection connection;
+	private final Logger.LevelActivation activation = new Logger.LevelActivation();
+	private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+	private volatile int time;
+
+	/**
+	 * Builds the proxy of a parent.
+	 *
+	 * @param hello      the hello of the parent
+	 * @param connection the connection to the parent
+	 */
+	RemoteParent(final Connection.Hello hello, final Connection connection) {
+		name = "RemoteParent:" + hello.name();
+		timeFactor = hello.timeFactor();
+		time = hello.time();
+		this.connection = connection;
+	}
+
+	/**
+	 * Does nothing: the hosted engine is the only child.
+	 */
+	@Override
+	public void addChild(final Engine child) {
+	}
+
+	/**
+	 * Waits until the STOPPED_ENGINE event of the hosted engine is queued to be
+	 * sent. The hosted engine signals it once its termination is complete.
+	 */
+	void awaitStopped() {
+		stopped.join();
+	}
+
+	@Override
+	public Logger.LevelActivation getActivation() {
+		return activation;
+	}
+
+	@Override
+	public Actor getDelegate() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Engine getEngine() {
+		return this;
+	}
+
+	@Override
+	public Integer getId() {
+		return id;
+	}
+
+	@Override
+	public Logger getLogger() {
+		return null;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public Engine getParent() {
+		return null;
+	}
+
+	/**
+	 * Returns null: the statistics of the hosted engine are not merged.
+	 */
+	@Override
+	public Statistics getStatistics() {
+		return null;
+	}
+
+	/**
+	 * Returns null: the hosted engine gets a detached detector.
+	 */
+	@Override
+	public TerminationDetector getTerminationDetector() {
+		return null;
+	}
+
+	@Override
+	public int getTime() {
+		return time;
+	}
+
+	@Override
+	public int getTimeFactor() {
+		return timeFactor;
+	}
+
+	@Override
+	public TimeSource getTimeSource() {
+		return null;
+	}
+
+	@Override
+	public void post(final Event event) {
+		signal(event);
+	}
+
+	@Override
+	public void process(final Event event) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Actor registerAndStart(final Actor actor) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void registerAndStartAll(final Collection<? extends Actor> actors) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void run() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Sets the time of the parent, when a TIME event is received.
+	 *
+	 * @param newTime the time of the parent
+	 */
+	void setTime(final int newTime) {
+		time = newTime;
+	}
+
+	/**
+	 * Sends an event back to the parent, which signals it.
+	 */
+	@Override
+	public void signal(final Event event) {
+		connection.send(event);
+		if (Engine.STOPPED_ENGINE_EVENT.equals(event.getTopic())) {
+			stopped.complete(null);
+		}
+	}
+
+	@Override
+	public void signalToChildren(final Event event) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void start() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public CompletableFuture<Void> stop() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void subscribe(final Actor actor, final String topic) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void subscribeAll(final Collection<? extends Actor> actors, final String... topics) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean unregister(final Actor actor) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void unsubscribe(final Actor actor, final String topic) {
+		throw new UnsupportedOperationException();
+	}
+
+}
@@ -0,0 +1,285 @@
+package jpnco.simula.remote;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Frames over a memory-mapped file shared by two processes of the same host,
+ * usually in <code>/dev/shm</code>. The file holds two single-producer
+ * single-consumer rings, one for each way. The process that creates the file
+ * writes in the second ring and reads the first one, the process that opens it
+ * does the opposite.
+ * <p>
+ * A ring is a control block followed by a power of two number of bytes. The
+ * producer sequence (tail), the consumer sequence (head) and the flag telling
+ * that the producer is closed are on their own cache lines: the producer
+ * publishes a frame by a release store of the tail, the consumer frees it by a
+ * release store of the head. A frame is its length followed by its bytes,
+ * aligned on 8 bytes; a frame never wraps around, the end of the ring is
+ * skipped with a padding marker instead. Reading a frame does not copy it: the
+ * reader gets a slice of the ring, which is freed at the next read.
+ * <p>
+ * A waiting side spins, then yields, then parks for a few microseconds. While
+ * parked, it checks from time to time that the process of the other side, whose
+ * pid is in the control block of the ring it produces, is alive.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+final class RingFrameChannel implements FrameChannel {
+
+	/**
+	 * Waits with a progressive backoff, and checks that the other process is
+	 * alive once parked.
+	 */
+	private final class Backoff {
+
+		private int count = 0;
+		private long nextCheck = 0;
+
+		private void idle() throws IOException {
+			count++;
+			if (count < SPINS) {
+				Thread.onSpinWait();
+			} else if (count < SPINS + YIELDS) {
+				Thread.yield();
+			} else {
+				LockSupport.parkNanos(PARK_NANOS);
+				final long now = System.nanoTime();
+				if (now - nextCheck > 0) {
+					nextCheck = now + CHECK_NANOS;
+					final long pid = (long) LONGS.getAcquire(buffer, in + PRODUCER);
+					if (pid != 0 && !ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+						throw new EOFException("the process " + pid + " of the other side is gone");
+					}
+				}
+			}
+		}
+
+		private void reset() {
+			count = 0;
+		}
+	}
+
+	/** The directory of the shared memory files, when there is one */
+	static final Path SHARED_MEMORY = Path.of("/dev/shm");
+
+	/** The default number of bytes of a ring */
+	static final int DEFAULT_CAPACITY = 16 << 20;
+
+	private static final long MAGIC = 0x53494d52494e4731L; // "SIMRING1"
+	private static final int HEADER_SIZE = 128;
+	private static final int CAPACITY = 8;
+	private static final int CONTROL_SIZE = 256;
+	// the offsets in the control block of a ring
+	private static final int TAIL = 0;
+	private static final int PRODUCER = 8;
+	private static final int CLOSED = 16;
+	private static final int HEAD = 128;
+	private static final int PADDING = -1;
+	private static final int SPINS = 256;
+	private static final int YIELDS = 64;
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+	private static final long CHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+			ByteOrder.nativeOrder());
+
+	private static int align(final int size) {
+		return (size + 7) & ~7;
+	}
+
+	/**
+	 * Creates the file of the rings and returns the side of the creator. An
+	 * existing file is replaced.
+	 *
+	 * @param file     the file of the rings
+	 * @param capacity the number of bytes of each ring, a power of two of at least
+	 *                 4 KB
+	 * @return the side of the creator
+	 * @throws IOException if the file cannot be created
+	 */
+	static RingFrameChannel create(final Path file, final int capacity) throws IOException {
+		if (capacity < 4096 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("the capacity must be a power of two of at least 4096: " + capacity);
+		}
+		final MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			buffer = channel.map(MapMode.READ_WRITE, 0, size(capacity));
+		}
+		buffer.order(ByteOrder.nativeOrder());
+		buffer.putInt(CAPACITY, capacity);
+		final RingFrameChannel side = new RingFrameChannel(file, buffer, capacity, 1, true);
+		// the magic is written last: the file is ready to be opened
+		LONGS.setRelease(buffer, 0, MAGIC);
+		return side;
+	}
+
+	/**
+	 * Opens the file of the rings created by the other side and returns the side
+	 * of the opener, waiting for the file to be created.
+	 *
+	 * @param file    the file of the rings
+	 * @param timeout the maximum time to wait for the file, in milliseconds
+	 * @return the side of the opener
+	 * @throws IOException if the file is not created in time or is not a file of
+	 *                     rings
+	 */
+	static RingFrameChannel open(final Path file, final long timeout) throws IOException {
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		while (true) {
+			if (Files.exists(file) && Files.size(file) >= HEADER_SIZE) {
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+					final MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, channel.size());
+					buffer.order(ByteOrder.nativeOrder());
+					if ((long) LONGS.getAcquire(buffer, 0) == MAGIC) {
+						final int capacity = buffer.getInt(CAPACITY);
+						if (channel.size() != size(capacity)) {
+							throw new IOException(file + " is not a file of rings");
+						}
+						return new RingFrameChannel(file, buffer, capacity, 0, false);
+					}
+				}
+			}
+			if (System.nanoTime() - deadline > 0) {
+				throw new IOException(file + " is not ready");
+			}
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+	}
+
+	private static long size(final int capacity) {
+		return HEADER_SIZE + 2L * (CONTROL_SIZE + capacity);
+	}
+
+	private final Path file;
+	private final MappedByteBuffer buffer;
+	private final int capacity;
+	private final int mask;
+	private final boolean creator;
+	// the offsets of the control blocks of the rings
+	private final int out;
+	private final int in;
+	private final Backoff writeBackoff = new Backoff();
+	private final Backoff readBackoff = new Backoff();
+	// the producer side of the out ring
+	private long tail;
+	private long cachedHead;
+	// the consumer side of the in ring
+	private long head;
+	private long next;
+	private long cachedTail;
+
+	private RingFrameChannel(final Path file, final MappedByteBuffer buffer, final int capacity, final int outRing,
+			final boolean creator) {
+		this.file = file;
+		this.buffer = buffer;
+		this.capacity = capacity;
+		this.creator = creator;
+		mask = capacity - 1;
+		out = HEADER_SIZE + outRing * (CONTROL_SIZE + capacity);
+		in = HEADER_SIZE + (1 - outRing) * (CONTROL_SIZE + capacity);
+		tail = (long) LONGS.getAcquire(buffer, out + TAIL);
+		cachedHead = (long) LONGS.getAcquire(buffer, out + HEAD);
+		head = (long) LONGS.getAcquire(buffer, in + HEAD);
+		next = head;
+		cachedTail = (long) LONGS.getAcquire(buffer, in + TAIL);
+		LONGS.setRelease(buffer, out + PRODUCER, ProcessHandle.current().pid());
+	}
+
+	/**
+	 * Closes the out ring. The creator also deletes the file: the mappings stay
+	 * valid.
+	 */
+	@Override
+	public void close() throws IOException {
+		LONGS.setRelease(buffer, out + CLOSED, 1L);
+		if (creator) {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Override
+	public ByteBuffer read() throws IOException {
+		if (next != head) {
+			// frees the previous frame
+			head = next;
+			LONGS.setRelease(buffer, in + HEAD, head);
+		}
+		final int data = in + CONTROL_SIZE;
+		while (true) {
+			if (head == cachedTail) {
+				cachedTail = (long) LONGS.getAcquire(buffer, in + TAIL);
+				if (head == cachedTail) {
+					if ((long) LONGS.getAcquire(buffer, in + CLOSED) != 0) {
+						// the frames written before closing are published first
+						cachedTail = (long) LONGS.getAcquire(buffer, in + TAIL);
+						if (head == cachedTail) {
+							return null;
+						}
+						continue;
+					}
+					readBackoff.idle();
+					continue;
+				}
+			}
+			readBackoff.reset();
+			final int offset = (int) (head & mask);
+			final int length = buffer.getInt(data + offset);
+			if (length == PADDING) {
+				head += capacity - offset;
+				LONGS.setRelease(buffer, in + HEAD, head);
+				next = head;
+				continue;
+			}
+			if (length < 0 || Integer.BYTES + length > capacity - offset) {
+				throw new IOException("corrupted ring in " + file);
+			}
+			next = head + align(Integer.BYTES + length);
+			return buffer.slice(data + offset + Integer.BYTES, length);
+		}
+	}
+
+	@Override
+	public void write(final ByteBuffer frame) throws IOException {
+		final int length = frame.remaining();
+		final int size = align(Integer.BYTES + length);
+		if (size > capacity / 2) {
+			throw new IOException("frame of " + length + " bytes is too large for a ring of " + capacity);
+		}
+		final int data = out + CONTROL_SIZE;
+		int offset = (int) (tail & mask);
+		final int toEnd = capacity - offset;
+		final long needed = size <= toEnd ? size : toEnd + size;
+		while (tail + needed - cachedHead > capacity) {
+			cachedHead = (long) LONGS.getAcquire(buffer, out + HEAD);
+			if (tail + needed - cachedHead > capacity) {
+				writeBackoff.idle();
+			}
+		}
+		writeBackoff.reset();
+		if (size > toEnd) {
+			buffer.putInt(data + offset, PADDING);
+			tail += toEnd;
+			offset = 0;
+		}
+		buffer.putInt(data + offset, length);
+		buffer.put(data + offset + Integer.BYTES, frame, frame.position(), length);
+		frame.position(frame.limit());
+		tail += size;
+		LONGS.setRelease(buffer, out + TAIL, tail);
+	}
+
+}
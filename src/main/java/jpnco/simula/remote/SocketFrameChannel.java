@@ -0,0 +1,79 @@
+package jpnco.simula.remote;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Frames over a socket channel in blocking mode: each frame is written as its
+ * length followed by its bytes, with a single gathering write.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+final class SocketFrameChannel implements FrameChannel {
+
+	private static final int MAX_FRAME = 64 << 20;
+
+	private final SocketChannel channel;
+	private final ByteBuffer outLength = ByteBuffer.allocate(Integer.BYTES);
+	private final ByteBuffer inLength = ByteBuffer.allocate(Integer.BYTES);
+	private ByteBuffer frame = ByteBuffer.allocate(1 << 16);
+
+	/**
+	 * Builds the frames of a connected channel.
+	 *
+	 * @param channel the connected channel, in blocking mode
+	 * @throws IOException if the channel cannot be configured
+	 */
+	SocketFrameChannel(final SocketChannel channel) throws IOException {
+		this.channel = channel;
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	@Override
+	public ByteBuffer read() throws IOException {
+		inLength.clear();
+		while (inLength.hasRemaining()) {
+			if (channel.read(inLength) < 0) {
+				if (inLength.position() == 0) {
+					return null;
+				}
+				throw new EOFException("truncated frame");
+			}
+		}
+		final int length = inLength.flip().getInt();
+		if (length < 0 || length > MAX_FRAME) {
+			throw new IOException("bad frame length " + length);
+		}
+		if (frame.capacity() < length) {
+			frame = ByteBuffer.allocate(Math.max(length, frame.capacity() * 2));
+		}
+		frame.clear().limit(length);
+		while (frame.hasRemaining()) {
+			if (channel.read(frame) < 0) {
+				throw new EOFException("truncated frame");
+			}
+		}
+		return frame.flip();
+	}
+
+	@Override
+	public void write(final ByteBuffer body) throws IOException {
+		if (body.remaining() > MAX_FRAME) {
+			throw new IOException("frame of " + body.remaining() + " bytes is too large");
+		}
+		final ByteBuffer[] buffers = { outLength.clear().putInt(body.remaining()).flip(), body };
+		while (body.hasRemaining()) {
+			channel.write(buffers);
+		}
+	}
+
+}
@@ -0,0 +1,14 @@
+/**
+ * This packages contains the child engines that run in another process :
+ * <li>RemoteEngine: the proxy of a remote child engine, which forwards the
+ * events signaled to it over a socket channel or shared memory rings and gets
+ * its STOPPED_ENGINE event back
+ * <li>EngineHost: serves an engine to a parent engine of another process
+ * <li>RingFrameChannel: the single-producer single-consumer rings of a
+ * memory-mapped file, in <code>/dev/shm</code>, between two processes of the
+ * same host
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+package jpnco.simula.remote;
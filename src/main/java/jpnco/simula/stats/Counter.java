@@ -0,0 +1,76 @@
+package jpnco.simula.stats;
+
+import java.util.Formatter;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A statistic that counts occurrences. The count is striped, so that actors of
+ * different threads can increment it without contention.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class Counter implements Statistic {
+
+	private final String name;
+	private final LongAdder count = new LongAdder();
+
+	/**
+	 * Builds a counter.
+	 *
+	 * @param name the name of the counter
+	 */
+	public Counter(final String name) {
+		this.name = Objects.requireNonNull(name);
+	}
+
+	/**
+	 * Adds a value to this counter.
+	 *
+	 * @param value the value to add
+	 */
+	public void add(final long value) {
+		count.add(value);
+	}
+
+	@Override
+	public Counter emptyCopy() {
+		return new Counter(name);
+	}
+
+	/**
+	 * Returns the count of this counter.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Adds one to this counter.
+	 */
+	public void increment() {
+		count.increment();
+	}
+
+	@Override
+	public void merge(final Statistic other) {
+		if (!(other instanceof final Counter counter)) {
+			throw new IllegalArgumentException(name + " is not a counter");
+		}
+		count.add(counter.getCount());
+	}
+
+	@Override
+	public void report(final Formatter out) {
+		out.format("counter %s count=%d%n", name, getCount());
+	}
+
+}
@@ -0,0 +1,126 @@
+package jpnco.simula.stats;
+
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.Objects;
+
+/**
+ * A statistic of observations counted in bins of the same width between a
+ * minimum and a maximum. The observations out of the bounds are counted in an
+ * underflow and an overflow bin.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class Histogram implements Statistic {
+
+	private final String name;
+	private final double min;
+	private final double max;
+	private final double width;
+	private final long[] counts;
+	private long underflow = 0;
+	private long overflow = 0;
+
+	/**
+	 * Builds an histogram.
+	 *
+	 * @param name the name of the histogram
+	 * @param min  the lower bound of the first bin, included
+	 * @param max  the upper bound of the last bin, excluded
+	 * @param bins the number of bins
+	 */
+	public Histogram(final String name, final double min, final double max, final int bins) {
+		if (!(min < max) || bins <= 0) {
+			throw new IllegalArgumentException("min must be less than max and bins must be positive");
+		}
+		this.name = Objects.requireNonNull(name);
+		this.min = min;
+		this.max = max;
+		width = (max - min) / bins;
+		counts = new long[bins];
+	}
+
+	/**
+	 * Adds an observation.
+	 *
+	 * @param value the observed value
+	 */
+	public synchronized void add(final double value) {
+		if (value < min) {
+			underflow++;
+		} else if (value >= max) {
+			overflow++;
+		} else {
+			// rounding can give counts.length for a value just below max
+			counts[Math.min((int) ((value - min) / width), counts.length - 1)]++;
+		}
+	}
+
+	@Override
+	public Histogram emptyCopy() {
+		return new Histogram(name, min, max, counts.length);
+	}
+
+	/**
+	 * Returns the counts of the bins.
+	 *
+	 * @return a copy of the counts of the bins
+	 */
+	public synchronized long[] getCounts() {
+		return counts.clone();
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the number of observations greater than or equal to the maximum.
+	 *
+	 * @return the overflow count
+	 */
+	public synchronized long getOverflow() {
+		return overflow;
+	}
+
+	/**
+	 * Returns the number of observations less than the minimum.
+	 *
+	 * @return the underflow count
+	 */
+	public synchronized long getUnderflow() {
+		return underflow;
+	}
+
+	@Override
+	public void merge(final Statistic other) {
+		if (!(other instanceof final Histogram histogram) || histogram.min != min || histogram.max != max
+				|| histogram.counts.length != counts.length) {
+			throw new IllegalArgumentException(name + " is not an histogram with the same bins");
+		}
+		final long[] otherCounts;
+		final long otherUnderflow;
+		final long otherOverflow;
+		synchronized (histogram) {
+			otherCounts = histogram.counts.clone();
+			otherUnderflow = histogram.underflow;
+			otherOverflow = histogram.overflow;
+		}
+		synchronized (this) {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] += otherCounts[i];
+			}
+			underflow += otherUnderflow;
+			overflow += otherOverflow;
+		}
+	}
+
+	@Override
+	public synchronized void report(final Formatter out) {
+		out.format("histogram %s min=%g max=%g underflow=%d overflow=%d counts=%s%n", name, min, max, underflow,
+				overflow, Arrays.toString(counts));
+	}
+
+}
@@ -0,0 +1,222 @@
+package jpnco.simula.stats;
+
+import java.util.Formatter;
+import java.util.Objects;
+
+/**
+ * A streaming statistic that estimates the quantiles of observations with a
+ * bounded relative error, in the spirit of DDSketch: the values are counted in
+ * logarithmic buckets, so that any quantile is estimated within the relative
+ * accuracy of the sketch. Adding a value and merging sketches are exact
+ * operations on the buckets.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class QuantileSketch implements Statistic {
+
+	/**
+	 * Counts of contiguous bucket indexes, grown on demand.
+	 */
+	private static final class Buckets {
+		private long[] counts = new long[0];
+		private int offset;
+
+		void add(final int index, final long count) {
+			if (counts.length == 0) {
+				counts = new long[64];
+				offset = index - 32;
+			} else if (index < offset || index >= offset + counts.length) {
+				final int low = Math.min(offset, index);
+				final int high = Math.max(offset + counts.length, index + 1);
+				final int length = Math.max(high - low, counts.length * 2);
+				final long[] grown = new long[length];
+				// leaves room on the side that grows
+				final int newOffset = index < offset ? high - length : low;
+				System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+				counts = grown;
+				offset = newOffset;
+			}
+			counts[index - offset] += count;
+		}
+
+		void addAll(final Buckets other) {
+			for (int i = 0; i < other.counts.length; i++) {
+				if (other.counts[i] != 0) {
+					add(other.offset + i, other.counts[i]);
+				}
+			}
+		}
+
+		Buckets copy() {
+			final Buckets copy = new Buckets();
+			copy.counts = counts.clone();
+			copy.offset = offset;
+			return copy;
+		}
+	}
+
+	/**
+	 * The default relative accuracy, 1%.
+	 */
+	public static final double DEFAULT_ACCURACY = 0.01;
+
+	private final String name;
+	private final double accuracy;
+	private final double gamma;
+	private final double logGamma;
+	private final Buckets positives = new Buckets();
+	private final Buckets negatives = new Buckets();
+	private long zeros = 0;
+	private long count = 0;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Builds a sketch with the default relative accuracy.
+	 *
+	 * @param name the name of the sketch
+	 */
+	public QuantileSketch(final String name) {
+		this(name, DEFAULT_ACCURACY);
+	}
+
+	/**
+	 * Builds a sketch.
+	 *
+	 * @param name     the name of the sketch
+	 * @param accuracy the relative accuracy of the quantiles, between 0 and 1
+	 */
+	public QuantileSketch(final String name, final double accuracy) {
+		if (!(accuracy > 0 && accuracy < 1)) {
+			throw new IllegalArgumentException("accuracy must be between 0 and 1");
+		}
+		this.name = Objects.requireNonNull(name);
+		this.accuracy = accuracy;
+		gamma = (1 + accuracy) / (1 - accuracy);
+		logGamma = Math.log(gamma);
+	}
+
+	/**
+	 * Adds an observation.
+	 *
+	 * @param value the observed value
+	 */
+	public synchronized void add(final double value) {
+		if (value > Double.MIN_NORMAL) {
+			positives.add(index(value), 1);
+		} else if (value < -Double.MIN_NORMAL) {
+			negatives.add(index(-value), 1);
+		} else {
+			zeros++;
+		}
+		count++;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	@Override
+	public QuantileSketch emptyCopy() {
+		return new QuantileSketch(name, accuracy);
+	}
+
+	/**
+	 * Returns the number of observations.
+	 *
+	 * @return the number of observations
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns an estimate of a quantile, NaN if there is no observation.
+	 *
+	 * @param quantile the quantile, between 0 and 1
+	 * @return the estimate of the quantile
+	 */
+	public synchronized double getQuantile(final double quantile) {
+		if (quantile < 0 || quantile > 1) {
+			throw new IllegalArgumentException("quantile must be between 0 and 1");
+		}
+		if (count == 0) {
+			return Double.NaN;
+		}
+		final long rank = (long) (quantile * (count - 1));
+		long seen = 0;
+		for (int i = negatives.counts.length - 1; i >= 0; i--) {
+			seen += negatives.counts[i];
+			if (seen > rank) {
+				return clamp(-value(negatives.offset + i));
+			}
+		}
+		seen += zeros;
+		if (seen > rank) {
+			return 0;
+		}
+		for (int i = 0; i < positives.counts.length; i++) {
+			seen += positives.counts[i];
+			if (seen > rank) {
+				return clamp(value(positives.offset + i));
+			}
+		}
+		return max;
+	}
+
+	private double clamp(final double value) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+	private int index(final double value) {
+		return (int) Math.ceil(Math.log(value) / logGamma);
+	}
+
+	@Override
+	public void merge(final Statistic other) {
+		if (!(other instanceof final QuantileSketch sketch) || sketch.accuracy != accuracy) {
+			throw new IllegalArgumentException(name + " is not a quantile sketch with the same accuracy");
+		}
+		final Buckets otherPositives;
+		final Buckets otherNegatives;
+		final long otherZeros;
+		final long otherCount;
+		final double otherMin;
+		final double otherMax;
+		synchronized (sketch) {
+			otherPositives = sketch.positives.copy();
+			otherNegatives = sketch.negatives.copy();
+			otherZeros = sketch.zeros;
+			otherCount = sketch.count;
+			otherMin = sketch.min;
+			otherMax = sketch.max;
+		}
+		synchronized (this) {
+			positives.addAll(otherPositives);
+			negatives.addAll(otherNegatives);
+			zeros += otherZeros;
+			count += otherCount;
+			min = Math.min(min, otherMin);
+			max = Math.max(max, otherMax);
+		}
+	}
+
+	@Override
+	public synchronized void report(final Formatter out) {
+		out.format("quantiles %s count=%d min=%g p50=%g p90=%g p99=%g p999=%g max=%g%n", name, count, min,
+				getQuantile(0.5), getQuantile(0.9), getQuantile(0.99), getQuantile(0.999), max);
+	}
+
+	/**
+	 * Returns the value that represents a bucket, within the relative accuracy of
+	 * all the values of the bucket.
+	 */
+	private double value(final int index) {
+		return 2 * Math.pow(gamma, index) / (gamma + 1);
+	}
+
+}
@@ -0,0 +1,47 @@
+package jpnco.simula.stats;
+
+import java.util.Formatter;
+
+/**
+ * A statistic collected during a simulation. A statistic is updated in constant
+ * time and can be merged with a statistic of the same kind, for instance the
+ * statistic of the same name in a child engine.
+ * <p>
+ * Statistics are thread safe.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public interface Statistic {
+
+	/**
+	 * Returns an empty statistic of the same kind, name and configuration.
+	 *
+	 * @return an empty statistic
+	 */
+	Statistic emptyCopy();
+
+	/**
+	 * Returns the name of this statistic.
+	 *
+	 * @return the name of this statistic
+	 */
+	String getName();
+
+	/**
+	 * Adds the values of an other statistic to this statistic.
+	 *
+	 * @param other the statistic to merge
+	 * @throws IllegalArgumentException if the other statistic is not of the same
+	 *                                  kind and configuration
+	 */
+	void merge(Statistic other);
+
+	/**
+	 * Writes a summary of this statistic, on one line.
+	 *
+	 * @param out where to write the summary
+	 */
+	void report(Formatter out);
+
+}
@@ -0,0 +1,139 @@
+package jpnco.simula.stats;
+
+import java.util.Formatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The statistics of an engine, by name. A statistic is created the first time
+ * it is asked for; actors should keep it in a field rather than look it up for
+ * each update.
+ * <p>
+ * When an engine stops, its statistics are merged into the statistics of its
+ * parent, so that the statistics of the root engine aggregate the whole engine
+ * tree once the simulation is over.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class Statistics {
+
+	private final Map<String, Statistic> statistics = new ConcurrentHashMap<>();
+
+	/**
+	 * Accounts the current values of the time-weighted statistics until a given
+	 * time. Called by the engine when it stops.
+	 *
+	 * @param time the simulated time
+	 */
+	public void advanceTo(final int time) {
+		for (final Statistic statistic : statistics.values()) {
+			if (statistic instanceof final TimeWeighted timeWeighted) {
+				timeWeighted.advanceTo(time);
+			}
+		}
+	}
+
+	/**
+	 * Returns the counter of a given name, creates it if needed.
+	 *
+	 * @param name the name of the counter
+	 * @return the counter
+	 */
+	public Counter counter(final String name) {
+		return get(name, Counter.class, Counter::new);
+	}
+
+	/**
+	 * Returns the statistic of a given name, null if there is none.
+	 *
+	 * @param name the name of the statistic
+	 * @return the statistic
+	 */
+	public Statistic get(final String name) {
+		return statistics.get(name);
+	}
+
+	private <S extends Statistic> S get(final String name, final Class<S> kind,
+			final Function<String, S> constructor) {
+		final Statistic statistic = statistics.computeIfAbsent(name, constructor);
+		if (!kind.isInstance(statistic)) {
+			throw new IllegalArgumentException(name + " is not a " + kind.getSimpleName());
+		}
+		return kind.cast(statistic);
+	}
+
+	/**
+	 * Returns the histogram of a given name, creates it with the given bins if
+	 * needed.
+	 *
+	 * @param name the name of the histogram
+	 * @param min  the lower bound of the first bin, included
+	 * @param max  the upper bound of the last bin, excluded
+	 * @param bins the number of bins
+	 * @return the histogram
+	 */
+	public Histogram histogram(final String name, final double min, final double max, final int bins) {
+		return get(name, Histogram.class, key -> new Histogram(key, min, max, bins));
+	}
+
+	/**
+	 * Adds the statistics of an other engine to these statistics. A statistic
+	 * that does not exist yet is created.
+	 *
+	 * @param other the statistics to merge
+	 * @throws IllegalArgumentException if two statistics of the same name are not
+	 *                                  of the same kind
+	 */
+	public void merge(final Statistics other) {
+		for (final Statistic statistic : other.statistics.values()) {
+			statistics.computeIfAbsent(statistic.getName(), key -> statistic.emptyCopy()).merge(statistic);
+		}
+	}
+
+	/**
+	 * Returns the quantile sketch of a given name, creates it with the default
+	 * accuracy if needed.
+	 *
+	 * @param name the name of the sketch
+	 * @return the quantile sketch
+	 */
+	public QuantileSketch quantiles(final String name) {
+		return get(name, QuantileSketch.class, QuantileSketch::new);
+	}
+
+	/**
+	 * Returns a summary of all the statistics, one line per statistic, sorted by
+	 * name.
+	 *
+	 * @return the summary of the statistics
+	 */
+	public String report() {
+		final Formatter out = new Formatter(new StringBuilder());
+		new TreeMap<>(statistics).values().forEach(statistic -> statistic.report(out));
+		return out.toString();
+	}
+
+	/**
+	 * Returns the tally of a given name, creates it if needed.
+	 *
+	 * @param name the name of the tally
+	 * @return the tally
+	 */
+	public Tally tally(final String name) {
+		return get(name, Tally.class, Tally::new);
+	}
+
+	/**
+	 * Returns the time-weighted statistic of a given name, creates it if needed.
+	 *
+	 * @param name the name of the statistic
+	 * @return the time-weighted statistic
+	 */
+	public TimeWeighted timeWeighted(final String name) {
+		return get(name, TimeWeighted.class, TimeWeighted::new);
+	}
+
+}
@@ -0,0 +1,149 @@
+package jpnco.simula.stats;
+
+import java.util.Formatter;
+import java.util.Objects;
+
+/**
+ * A statistic of observations, for instance the delays of customers: count,
+ * mean, variance, minimum and maximum. The mean and the variance are updated
+ * with Welford's algorithm, which is numerically stable.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class Tally implements Statistic {
+
+	private final String name;
+	private long count = 0;
+	private double mean = 0;
+	private double m2 = 0;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Builds a tally.
+	 *
+	 * @param name the name of the tally
+	 */
+	public Tally(final String name) {
+		this.name = Objects.requireNonNull(name);
+	}
+
+	/**
+	 * Adds an observation.
+	 *
+	 * @param value the observed value
+	 */
+	public synchronized void add(final double value) {
+		count++;
+		final double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	@Override
+	public Tally emptyCopy() {
+		return new Tally(name);
+	}
+
+	/**
+	 * Returns the number of observations.
+	 *
+	 * @return the number of observations
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the greatest observation, -infinity if there is none.
+	 *
+	 * @return the greatest observation
+	 */
+	public synchronized double getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the mean of the observations, NaN if there is none.
+	 *
+	 * @return the mean of the observations
+	 */
+	public synchronized double getMean() {
+		return count == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * Returns the smallest observation, +infinity if there is none.
+	 *
+	 * @return the smallest observation
+	 */
+	public synchronized double getMin() {
+		return min;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the standard deviation of the observations.
+	 *
+	 * @return the standard deviation of the observations
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Returns the sample variance of the observations, NaN if there are less than
+	 * two observations.
+	 *
+	 * @return the variance of the observations
+	 */
+	public synchronized double getVariance() {
+		return count < 2 ? Double.NaN : m2 / (count - 1);
+	}
+
+	@Override
+	public void merge(final Statistic other) {
+		if (!(other instanceof final Tally tally)) {
+			throw new IllegalArgumentException(name + " is not a tally");
+		}
+		final long otherCount;
+		final double otherMean;
+		final double otherM2;
+		final double otherMin;
+		final double otherMax;
+		synchronized (tally) {
+			otherCount = tally.count;
+			otherMean = tally.mean;
+			otherM2 = tally.m2;
+			otherMin = tally.min;
+			otherMax = tally.max;
+		}
+		if (otherCount == 0) {
+			return;
+		}
+		synchronized (this) {
+			// Chan's parallel algorithm
+			final long total = count + otherCount;
+			final double delta = otherMean - mean;
+			mean += delta * otherCount / total;
+			m2 += otherM2 + delta * delta * count * otherCount / total;
+			count = total;
+			min = Math.min(min, otherMin);
+			max = Math.max(max, otherMax);
+		}
+	}
+
+	@Override
+	public synchronized void report(final Formatter out) {
+		out.format("tally %s count=%d mean=%g sd=%g min=%g max=%g%n", name, count, getMean(),
+				getStandardDeviation(), min, max);
+	}
+
+}
@@ -0,0 +1,140 @@
+package jpnco.simula.stats;
+
+import java.util.Formatter;
+import java.util.Objects;
+
+/**
+ * A statistic of a value that changes over the simulated time, for instance the
+ * length of a queue: its time-weighted mean, minimum and maximum. Each value
+ * holds from the time it is set until the time of the next update.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class TimeWeighted implements Statistic {
+
+	private final String name;
+	private boolean started = false;
+	private int lastTime;
+	private double lastValue;
+	private double area = 0;
+	private long duration = 0;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Builds a time-weighted statistic.
+	 *
+	 * @param name the name of the statistic
+	 */
+	public TimeWeighted(final String name) {
+		this.name = Objects.requireNonNull(name);
+	}
+
+	/**
+	 * Accounts the current value until a given time. Called when the simulation
+	 * ends.
+	 *
+	 * @param time the simulated time
+	 */
+	public synchronized void advanceTo(final int time) {
+		if (started && time > lastTime) {
+			area += lastValue * (time - lastTime);
+			duration += time - lastTime;
+			lastTime = time;
+		}
+	}
+
+	@Override
+	public TimeWeighted emptyCopy() {
+		return new TimeWeighted(name);
+	}
+
+	/**
+	 * Returns the accounted duration.
+	 *
+	 * @return the accounted duration
+	 */
+	public synchronized long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Returns the greatest value, -infinity if there is none.
+	 *
+	 * @return the greatest value
+	 */
+	public synchronized double getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the time-weighted mean of the value over the accounted duration, NaN
+	 * if the duration is 0.
+	 *
+	 * @return the time-weighted mean
+	 */
+	public synchronized double getMean() {
+		return duration == 0 ? Double.NaN : area / duration;
+	}
+
+	/**
+	 * Returns the smallest value, +infinity if there is none.
+	 *
+	 * @return the smallest value
+	 */
+	public synchronized double getMin() {
+		return min;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void merge(final Statistic other) {
+		if (!(other instanceof final TimeWeighted timeWeighted)) {
+			throw new IllegalArgumentException(name + " is not a time-weighted statistic");
+		}
+		final double otherArea;
+		final long otherDuration;
+		final double otherMin;
+		final double otherMax;
+		synchronized (timeWeighted) {
+			otherArea = timeWeighted.area;
+			otherDuration = timeWeighted.duration;
+			otherMin = timeWeighted.min;
+			otherMax = timeWeighted.max;
+		}
+		synchronized (this) {
+			area += otherArea;
+			duration += otherDuration;
+			min = Math.min(min, otherMin);
+			max = Math.max(max, otherMax);
+		}
+	}
+
+	@Override
+	public synchronized void report(final Formatter out) {
+		out.format("time-weighted %s mean=%g min=%g max=%g duration=%d%n", name, getMean(), min, max, duration);
+	}
+
+	/**
+	 * Sets the value at a given time. The times must not decrease.
+	 *
+	 * @param time  the simulated time
+	 * @param value the new value
+	 */
+	public synchronized void update(final int time, final double value) {
+		advanceTo(time);
+		if (!started) {
+			started = true;
+			lastTime = time;
+		}
+		lastValue = value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+}
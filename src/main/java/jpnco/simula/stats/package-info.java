@@ -0,0 +1,14 @@
+/**
+ * This packages contains the statistics collected during a simulation. Each
+ * statistic is updated in constant time and is merged up the engine tree when
+ * the engines stop :
+ * <li>Counter: counts occurrences
+ * <li>Tally: mean, variance, minimum and maximum of observations
+ * <li>TimeWeighted: time-weighted mean of a value, as the length of a queue
+ * <li>QuantileSketch: quantiles of observations with a bounded relative error
+ * <li>Histogram: observations counted in bins
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+package jpnco.simula.stats;
@@ -0,0 +1,43 @@
+package jpnco.simula.trace;
+
+/**
+ * The processing of a traced event by one actor. An event signaled to several
+ * actors gives one span per actor, all with the same event id.
+ *
+ * @param traceId      the id of the trace
+ * @param eventId      the id of the event
+ * @param parentId     the id of the parent event, {@link TraceContext#NO_PARENT}
+ *                     for a root event
+ * @param topic        the topic of the event
+ * @param source       the name of the actor that signaled the event
+ * @param actor        the name of the actor that processed the event
+ * @param createdNanos the creation time of the event
+ * @param startNanos   the start time of the processing
+ * @param endNanos     the end time of the processing
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public record Span(long traceId, long eventId, long parentId, String topic, String source, String actor,
+		long createdNanos, long startNanos, long endNanos) {
+
+	/**
+	 * Returns the time spent by the event between its creation and the start of
+	 * its processing: the dispatch and the wait in the mailbox.
+	 *
+	 * @return the queueing delay in nanoseconds
+	 */
+	public long queueNanos() {
+		return startNanos - createdNanos;
+	}
+
+	/**
+	 * Returns the time spent processing the event.
+	 *
+	 * @return the service time in nanoseconds
+	 */
+	public long serviceNanos() {
+		return endNanos - startNanos;
+	}
+
+}
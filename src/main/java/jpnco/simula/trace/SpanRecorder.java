@@ -0,0 +1,214 @@
+package jpnco.simula.trace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records the spans of the sampled events into an in-memory ring, which keeps
+ * the most recent spans, and optionally into a local file, one JSON object per
+ * line:
+ *
+ * <pre>
+ * {"trace":1,"event":2,"parent":1,"topic":"pong","source":"A:e","actor":"B:e","created":10,"start":12,"end":15}
+ * </pre>
+ *
+ * The spans of a trace give its critical path: the chain of causally linked
+ * spans ending with the last span of the trace.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class SpanRecorder implements AutoCloseable {
+
+	private final AtomicReferenceArray<Span> ring;
+	private final int mask;
+	private final AtomicLong recorded = new AtomicLong();
+	private final Writer out;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final StringBuilder line = new StringBuilder(256);
+
+	/**
+	 * Builds a recorder keeping the spans in memory only.
+	 *
+	 * @param capacity the number of spans kept, rounded up to a power of 2
+	 */
+	public SpanRecorder(final int capacity) {
+		this(capacity, null);
+	}
+
+	/**
+	 * Builds a recorder keeping the spans in memory and writing them to a file.
+	 * The file is created or truncated.
+	 *
+	 * @param capacity the number of spans kept, rounded up to a power of 2
+	 * @param path     the path of the file, null to keep the spans in memory only
+	 * @throws UncheckedIOException if the file cannot be opened
+	 */
+	public SpanRecorder(final int capacity, final Path path) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("bad capacity " + capacity);
+		}
+		final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		ring = new AtomicReferenceArray<>(size);
+		mask = size - 1;
+		try {
+			out = path == null ? null : Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void appendString(final StringBuilder builder, final String name, final String value) {
+		builder.append(",\"").append(name).append("\":\"");
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				builder.append('\\').append(c);
+			} else if (c < ' ') {
+				builder.append(String.format("\\u%04x", (int) c));
+			} else {
+				builder.append(c);
+			}
+		}
+		builder.append('"');
+	}
+
+	/**
+	 * Flushes and closes the file, if any. Spans recorded later are only kept in
+	 * memory.
+	 */
+	@Override
+	public void close() {
+		if (out != null) {
+			lock.lock();
+			try {
+				out.close();
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Returns the critical path of a trace among the spans in memory: starting from
+	 * the span that ends last, each span is preceded by the span of its parent
+	 * event processed by its source actor.
+	 *
+	 * @param traceId the id of the trace
+	 * @return the spans of the critical path, from the root, empty if the trace is
+	 *         unknown
+	 */
+	public List<Span> criticalPath(final long traceId) {
+		final List<Span> spans = getTrace(traceId);
+		if (spans.isEmpty()) {
+			return spans;
+		}
+		// the span of an event by the actor that processed it
+		final Map<Long, Map<String, Span>> byEvent = new HashMap<>();
+		Span last = spans.get(0);
+		for (final Span span : spans) {
+			byEvent.computeIfAbsent(span.eventId(), id -> new HashMap<>()).put(span.actor(), span);
+			if (span.endNanos() > last.endNanos()) {
+				last = span;
+			}
+		}
+		final List<Span> path = new ArrayList<>();
+		for (Span span = last; span != null;) {
+			path.add(span);
+			final Map<String, Span> parents = byEvent.get(span.parentId());
+			span = parents == null ? null : parents.get(span.source());
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Returns the number of spans recorded since the creation of this recorder.
+	 *
+	 * @return the number of spans recorded
+	 */
+	public long getRecorded() {
+		return recorded.get();
+	}
+
+	/**
+	 * Returns the spans in memory, the oldest first. The spans recorded during the
+	 * call may be missing.
+	 *
+	 * @return the spans in memory
+	 */
+	public List<Span> getSpans() {
+		final long end = recorded.get();
+		final long start = Math.max(0, end - ring.length());
+		final List<Span> spans = new ArrayList<>((int) (end - start));
+		for (long i = start; i < end; i++) {
+			final Span span = ring.get((int) (i & mask));
+			if (span != null) {
+				spans.add(span);
+			}
+		}
+		return spans;
+	}
+
+	/**
+	 * Returns the spans of a trace among the spans in memory, the oldest first.
+	 *
+	 * @param traceId the id of the trace
+	 * @return the spans of the trace
+	 */
+	public List<Span> getTrace(final long traceId) {
+		final List<Span> spans = new ArrayList<>();
+		for (final Span span : getSpans()) {
+			if (span.traceId() == traceId) {
+				spans.add(span);
+			}
+		}
+		return spans;
+	}
+
+	/**
+	 * Records a span.
+	 *
+	 * @param span the span to record
+	 */
+	public void record(final Span span) {
+		ring.set((int) (recorded.getAndIncrement() & mask), span);
+		if (out != null) {
+			write(span);
+		}
+	}
+
+	private void write(final Span span) {
+		lock.lock();
+		try {
+			line.setLength(0);
+			line.append("{\"trace\":").append(span.traceId()).append(",\"event\":").append(span.eventId())
+					.append(",\"parent\":").append(span.parentId());
+			appendString(line, "topic", span.topic());
+			appendString(line, "source", span.source());
+			appendString(line, "actor", span.actor());
+			line.append(",\"created\":").append(span.createdNanos()).append(",\"start\":").append(span.startNanos())
+					.append(",\"end\":").append(span.endNanos()).append("}\n");
+			out.append(line);
+		} catch (final IOException e) {
+			// the file is closed, the span is only kept in memory
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
@@ -0,0 +1,46 @@
+package jpnco.simula.trace;
+
+/**
+ * The trace context of an event: the trace it belongs to, its own id and the id
+ * of the event whose processing signaled it. The root event of a trace has no
+ * parent and its id is the id of the trace.
+ *
+ * @param traceId      the id of the trace, 0 if not sampled
+ * @param eventId      the id of the event, 0 if not sampled
+ * @param parentId     the id of the parent event, {@link #NO_PARENT} for a root
+ *                     event
+ * @param createdNanos the creation time of the event, from System.nanoTime
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public record TraceContext(long traceId, long eventId, long parentId, long createdNanos) {
+
+	/** The parent id of a root event */
+	public static final long NO_PARENT = 0;
+
+	/**
+	 * The context of the events of a trace that is not sampled: their children are
+	 * not sampled either.
+	 */
+	public static final TraceContext UNSAMPLED = new TraceContext(0, 0, NO_PARENT, 0);
+
+	/**
+	 * Returns true if the event is the root of its trace.
+	 *
+	 * @return true if the event is the root of its trace
+	 */
+	public boolean isRoot() {
+		return parentId == NO_PARENT;
+	}
+
+	/**
+	 * Returns true if the event is recorded.
+	 *
+	 * @return true if the event is recorded
+	 */
+	public boolean isSampled() {
+		return this != UNSAMPLED;
+	}
+
+}
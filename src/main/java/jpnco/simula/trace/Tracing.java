@@ -0,0 +1,155 @@
+package jpnco.simula.trace;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Event;
+
+/**
+ * The causal tracing of events. When a span recorder is set, every new event
+ * gets a trace context: an event created while an actor processes a traced
+ * event is its child in the same trace, any other event starts a new trace,
+ * which is sampled at the sampling rate. The children of an unsampled event are
+ * not sampled either, so a trace is recorded whole or not at all.
+ * <p>
+ * The actor loops call {@link #begin(Event)} and
+ * {@link #end(Event, Actor, long)} around the processing of each event: the
+ * event being processed is kept in a thread local, and a span is recorded for
+ * each sampled event.
+ * <p>
+ * Tracing is disabled by default: when disabled, it costs a volatile read per
+ * event created and per event processed.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class Tracing {
+
+	private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+	private static final AtomicLong IDS = new AtomicLong();
+	private static volatile SpanRecorder recorder = null;
+	private static volatile double samplingRate = 1;
+
+	/**
+	 * Called by an actor loop before processing an event. Returns the start time
+	 * of the processing if the event is sampled, 0 otherwise.
+	 *
+	 * @param event the event to process
+	 * @return the start time of the processing in nanoseconds, or 0
+	 */
+	public static long begin(final Event event) {
+		if (recorder == null) {
+			return 0;
+		}
+		final TraceContext trace = event.getTrace();
+		CURRENT.set(trace);
+		if (trace == null || !trace.isSampled()) {
+			return 0;
+		}
+		final long now = System.nanoTime();
+		// 0 means not sampled
+		return now != 0 ? now : 1;
+	}
+
+	/**
+	 * Returns the trace context of the event processed by the current thread, null
+	 * if none.
+	 *
+	 * @return the trace context of the event being processed
+	 */
+	public static TraceContext current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Called by an actor loop after processing an event: records its span if it is
+	 * sampled.
+	 *
+	 * @param event the processed event
+	 * @param actor the actor that processed the event
+	 * @param start the value returned by {@link #begin(Event)}
+	 */
+	public static void end(final Event event, final Actor actor, final long start) {
+		if (start == 0) {
+			if (recorder != null) {
+				CURRENT.set(null);
+			}
+			return;
+		}
+		final long end = System.nanoTime();
+		CURRENT.set(null);
+		final SpanRecorder current = recorder;
+		if (current != null) {
+			final TraceContext trace = event.getTrace();
+			current.record(new Span(trace.traceId(), trace.eventId(), trace.parentId(), event.getTopic(),
+					event.getSource().getName(), actor.getName(), trace.createdNanos(), start, end));
+		}
+	}
+
+	public static SpanRecorder getRecorder() {
+		return recorder;
+	}
+
+	public static double getSamplingRate() {
+		return samplingRate;
+	}
+
+	/**
+	 * Returns true if the events are traced.
+	 *
+	 * @return true if the events are traced
+	 */
+	public static boolean isEnabled() {
+		return recorder != null;
+	}
+
+	/**
+	 * Returns the trace context of a new event: a child of the event processed by
+	 * the current thread, or the root of a new trace. Called when an event is
+	 * created, only if tracing is enabled.
+	 *
+	 * @return the trace context of a new event
+	 */
+	public static TraceContext next() {
+		final TraceContext parent = CURRENT.get();
+		if (parent != null) {
+			if (!parent.isSampled()) {
+				return TraceContext.UNSAMPLED;
+			}
+			return new TraceContext(parent.traceId(), IDS.incrementAndGet(), parent.eventId(), System.nanoTime());
+		}
+		final double rate = samplingRate;
+		if (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate) {
+			return TraceContext.UNSAMPLED;
+		}
+		final long id = IDS.incrementAndGet();
+		return new TraceContext(id, id, TraceContext.NO_PARENT, System.nanoTime());
+	}
+
+	/**
+	 * Sets the recorder of the spans and enables tracing, or disables it. The
+	 * events created before tracing is enabled are not traced.
+	 *
+	 * @param newRecorder the recorder of the spans, null to disable tracing
+	 */
+	public static void setRecorder(final SpanRecorder newRecorder) {
+		recorder = newRecorder;
+	}
+
+	/**
+	 * Sets the probability for a new trace to be recorded.
+	 *
+	 * @param rate the sampling rate, between 0 and 1
+	 */
+	public static void setSamplingRate(final double rate) {
+		if (!(rate >= 0 && rate <= 1)) {
+			throw new IllegalArgumentException("the sampling rate must be between 0 and 1");
+		}
+		samplingRate = rate;
+	}
+
+	private Tracing() {
+	}
+
+}
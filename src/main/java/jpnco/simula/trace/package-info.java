@@ -0,0 +1,16 @@
+/**
+ * This packages contains the causal tracing of events. A traced event carries
+ * the id of its trace, its own id and the id of the event whose processing
+ * signaled it :
+ * <li>Tracing: enables tracing, samples the traces and propagates the trace
+ * context from the event being processed to the events it signals
+ * <li>TraceContext: the trace context of an event
+ * <li>Span: the processing of a traced event by one actor, with its queueing
+ * delay and its service time
+ * <li>SpanRecorder: keeps the spans in an in-memory ring and writes them to a
+ * local file, and computes the critical path of a trace
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+package jpnco.simula.trace;
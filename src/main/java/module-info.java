@@ -1,6 +1,17 @@
 module Simula {
+	requires transitive java.management;
+	requires transitive jdk.jfr;
+
 	exports jpnco.simula;
 	exports jpnco.simula.actors;
+	exports jpnco.simula.checkpoint;
 	exports jpnco.simula.engine;
+	exports jpnco.simula.jfr;
+	exports jpnco.simula.journal;
+	exports jpnco.simula.log;
+	exports jpnco.simula.management;
+	exports jpnco.simula.remote;
+	exports jpnco.simula.stats;
+	exports jpnco.simula.trace;
 
 }
\ No newline at end of file
@@ -79,6 +79,27 @@ class ActorTest {
 		Assertions.assertTrue(actor2.compareTo(actor2) == 0);
 	}
 
+	@Test
+	void testGetActivation() {
+		final Actor actor = new Actor() {
+
+			@Override
+			public Actor getDelegate() {
+				return null;
+			}
+
+			@Override
+			public Integer getId() {
+				return 0;
+			}
+
+			@Override
+			public void process(final Event event) {
+			}
+		};
+		Assertions.assertNull(actor.getActivation());
+	}
+
 	@Test
 	void testGetEngine() {
 		assertEquals(engine, new AnActor().getEngine());
@@ -0,0 +1,47 @@
+package jpnco.simula;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class EngineTest {
+
+	private final Engine engine = mock(Engine.class, CALLS_REAL_METHODS);
+
+	@Test
+	void testAwaitQuiescenceWithoutDetector() throws InterruptedException {
+		assertNull(engine.getTerminationDetector());
+		engine.awaitQuiescence();
+	}
+
+	@Test
+	void testGetStatistics() {
+		assertNull(engine.getStatistics());
+	}
+
+	@Test
+	void testRegisterAndStartAll() {
+		final Actor first = mock(Actor.class);
+		final Actor second = mock(Actor.class);
+		engine.registerAndStartAll(List.of(first, second));
+		verify(engine).registerAndStart(first);
+		verify(engine).registerAndStart(second);
+	}
+
+	@Test
+	void testSubscribeAll() {
+		final Actor first = mock(Actor.class);
+		final Actor second = mock(Actor.class);
+		engine.subscribeAll(List.of(first, second), "A", "B");
+		verify(engine).subscribe(first, "A");
+		verify(engine).subscribe(first, "B");
+		verify(engine).subscribe(second, "A");
+		verify(engine).subscribe(second, "B");
+	}
+
+}
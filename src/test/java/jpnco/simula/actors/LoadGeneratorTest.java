@@ -0,0 +1,74 @@
+package jpnco.simula.actors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import jpnco.simula.actors.LoadGenerator.Profile;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.engine.EngineImpl;
+
+class LoadGeneratorTest {
+
+	private static void awaitAcks(final LoadGenerator generator, final long acks) throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (generator.getAcked() < acks && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	@BeforeAll
+	static void setUpBeforeClass() {
+		Logger.forceLevel(Level.ERROR);
+	}
+
+	@Test
+	void testBadProfile() {
+		assertThrows(IllegalArgumentException.class, () -> Profile.constant(0));
+		assertThrows(IllegalArgumentException.class, () -> Profile.constant(10).withFanOut(0));
+		assertThrows(IllegalArgumentException.class, () -> Profile.bursty(10, 0));
+		assertThrows(IllegalArgumentException.class, () -> Profile.poisson(10, 1).withPayloadSize(-1));
+	}
+
+	@Test
+	void testBursty() throws Exception {
+		final EngineImpl engine = new EngineImpl("testBursty", 1);
+		final LoadGenerator generator = new LoadGenerator(engine, Profile.bursty(1000, 50).withCount(200), "load");
+		final LoadSink sink = new LoadSink(engine, "load");
+		engine.registerAndStartAll(List.of(generator, sink));
+		engine.start();
+		awaitAcks(generator, 200);
+		engine.stop().get(10, TimeUnit.SECONDS);
+		assertEquals(200, generator.getSent());
+		assertEquals(200, generator.getAcked());
+		assertEquals(200, sink.getReceived());
+	}
+
+	@Test
+	void testFanOutAndLatency() throws Exception {
+		final EngineImpl engine = new EngineImpl("testFanOutAndLatency", 1);
+		final Profile profile = Profile.poisson(2000, 42).withFanOut(2).withPayloadSize(128).withCount(200);
+		final LoadGenerator generator = new LoadGenerator(engine, profile, "a", "b");
+		// each event is signaled to a and b, so acknowledged 3 times
+		final LoadSink first = new LoadSink(engine, "a");
+		final LoadSink second = new LoadSink(engine, "a", "b");
+		engine.registerAndStartAll(List.of(generator, first, second));
+		engine.start();
+		awaitAcks(generator, 600);
+		engine.stop().get(10, TimeUnit.SECONDS);
+		assertEquals(200, generator.getSent());
+		assertEquals(600, generator.getAcked());
+		assertEquals(200, first.getReceived());
+		assertEquals(400, second.getReceived());
+		assertEquals(600, generator.getLatency().getCount());
+		assertTrue(generator.getLatency().getQuantile(0.5) > 0);
+		assertTrue(engine.getStatistics().report().contains(generator.getLatency().getName()));
+	}
+
+}
@@ -0,0 +1,61 @@
+package jpnco.simula.actors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import jpnco.simula.Actor;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.log.TextLogSink;
+
+class LogRingTest {
+
+	@Test
+	void testAppendFromSeveralThreads() throws InterruptedException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final LogRing ring = new LogRing("testAppendFromSeveralThreads", 16, new TextLogSink(new PrintStream(bytes), true));
+		final Actor source = mock(Actor.class);
+		when(source.getName()).thenReturn("source");
+		final List<Thread> producers = new ArrayList<>();
+		for (int p = 0; p < 4; p++) {
+			final int producer = p;
+			producers.add(new Thread(() -> {
+				for (int i = 0; i < 1000; i++) {
+					ring.append(Level.INFO, i, source, new Object[] { "%d-%d\n", producer, i });
+				}
+			}));
+		}
+		producers.forEach(Thread::start);
+		for (final Thread producer : producers) {
+			producer.join();
+		}
+		ring.close();
+		final String[] lines = bytes.toString().split("\n");
+		assertEquals(4000, lines.length);
+		assertTrue(lines[0].matches("\\d+ INFO source \\d-\\d+"));
+	}
+
+	@Test
+	void testBadFormatDoesNotKillWriter() {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final LogRing ring = new LogRing("testBadFormatDoesNotKillWriter", 16, new TextLogSink(new PrintStream(bytes), true));
+		final Actor source = mock(Actor.class);
+		ring.append(Level.PROBE, 1, source, new Object[] { "%d\n", "not a number" });
+		ring.append(Level.PROBE, 2, source, new Object[] { "%d\n", 2 });
+		ring.close();
+		final String[] lines = bytes.toString().split("\n");
+		assertEquals(2, lines.length);
+		assertEquals("2 2", lines[1]);
+		// dropped
+		ring.append(Level.PROBE, 3, source, new Object[] { "%d\n", 3 });
+	}
+
+}
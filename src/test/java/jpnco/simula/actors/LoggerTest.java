@@ -1,8 +1,11 @@
 package jpnco.simula.actors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -10,8 +13,11 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import jpnco.simula.Actor;
 import jpnco.simula.Engine;
 import jpnco.simula.Event;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.engine.ActorDelegate;
 
 class LoggerTest {
 
@@ -39,6 +45,28 @@ class LoggerTest {
 		assertNotNull(logger.getDelegate());
 	}
 
+	@Test
+	void testIsActivated() {
+		Logger.forceLevel(null);
+		final Engine ENGINE = mock(Engine.class);
+		final Actor delegator = mock(Actor.class);
+		when(delegator.getSimpleName()).thenReturn("delegator");
+		final Actor delegate = ActorDelegate.createDelegate(ENGINE, delegator);
+		assertFalse(Logger.isActivated(delegate, Level.DEBUG));
+		assertTrue(Logger.isActivated(delegate, Level.ERROR));
+		Logger.setActivated(delegate, Level.DEBUG, true);
+		assertTrue(Logger.isDebugActivated(delegate));
+		assertFalse(Logger.isTraceActivated(delegate));
+		// an actor without activation uses the default one until a level is set
+		assertFalse(Logger.isActivated(delegator, Level.DEBUG));
+		Logger.setActivated(delegator, Level.DEBUG, true);
+		assertTrue(Logger.isActivated(delegator, Level.DEBUG));
+		assertFalse(Logger.isActivated(delegator, Level.TRACE));
+		assertFalse(Logger.isActivated(mock(Actor.class), Level.DEBUG));
+		Logger.forceLevel(Level.TRACE);
+		assertTrue(Logger.isActivated(delegator, Level.TRACE));
+	}
+
 	@Test
 	void testPurgeQueue() {
 		final Engine ENGINE = mock(Engine.class);
@@ -6,6 +6,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -28,6 +31,7 @@ class TimeSourceTest {
 		private final Actor delegate;
 		private boolean alarmIsOk = false;
 		private int count = 0;
+		private final CountDownLatch fired = new CountDownLatch(2);
 		private int expectedTime = 0;
 
 		AnActor(final Engine engine) {
@@ -66,6 +70,7 @@ class TimeSourceTest {
 			case ALARM:
 				alarmIsOk = true;
 				++count;
+				fired.countDown();
 				break;
 			}
 
@@ -104,7 +109,7 @@ class TimeSourceTest {
 	}
 
 	@Test
-	void testTimeAndAlarm() {
+	void testTimeAndAlarm() throws InterruptedException {
 		final int TIME_FACTOR = 2;
 		final String NAME = "testAlarm";
 		final EngineImpl engine = new EngineImpl(NAME, TIME_FACTOR);
@@ -117,19 +122,16 @@ class TimeSourceTest {
 		final Object[] params = new Object[] { ALARM, 3 };
 		when(REQUEST_ALARM.getParameters()).thenReturn(params);
 		ts.post(REQUEST_ALARM);
-		try {
-			Thread.sleep(10000);
-		} catch (final InterruptedException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+		// the pending alarm keeps the engine busy until it is fired
+		assertTrue(engine.getTerminationDetector().awaitQuiescence(20, TimeUnit.SECONDS));
 		assertTrue(actor.isAlarmOk());
+		assertEquals(0, ts.getAlarmCount());
 		engine.stop();
 
 	}
 
 	@Test
-	void testTimeAndPeriodicAlarm() {
+	void testTimeAndPeriodicAlarm() throws InterruptedException {
 		final int TIME_FACTOR = 2;
 		final String NAME = "testPeriodicAlarm";
 		final EngineImpl engine = new EngineImpl(NAME, TIME_FACTOR);
@@ -142,14 +144,12 @@ class TimeSourceTest {
 		final Object[] params = new Object[] { ALARM, 3, 2 };
 		when(REQUEST_ALARM.getParameters()).thenReturn(params);
 		ts.post(REQUEST_ALARM);
-		try {
-			Thread.sleep(14000);
-		} catch (final InterruptedException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+		assertTrue(actor.fired.await(30, TimeUnit.SECONDS));
 		assertTrue(actor.isAlarmOk());
 		assertEquals(2, actor.getCount());
+		// a periodic alarm does not keep the engine busy
+		assertTrue(engine.getTerminationDetector().awaitQuiescence(5, TimeUnit.SECONDS));
+		assertEquals(1, ts.getAlarmCount());
 		engine.stop();
 	}
 
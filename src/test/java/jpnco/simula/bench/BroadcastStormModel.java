@@ -0,0 +1,114 @@
+package jpnco.simula.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.engine.EngineImpl;
+
+/**
+ * A broadcast storm: a few broadcasters signal as fast as they can on random
+ * topics among 50, and 200 listeners each subscribe to 5 random topics, so every
+ * signal is fanned out to about 20 mailboxes. The model completes once all the
+ * signals are delivered and processed.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class BroadcastStormModel extends Model {
+
+	private static final String NEXT = "storm.next";
+	private static final String TOPIC = "storm.";
+	private static final int TOPICS = 50;
+	private static final int LISTENERS = 200;
+	private static final int SUBSCRIPTIONS = 5;
+	private static final int BROADCASTERS = 4;
+	private static final int SIGNALS = 50_000;
+
+	private final class Broadcaster extends ModelActor {
+
+		private final SplittableRandom random;
+		private final int signals;
+		private int sent = 0;
+
+		Broadcaster(final Engine engine, final Mode mode, final long seed, final int signals) {
+			super(engine, mode);
+			random = new SplittableRandom(seed);
+			this.signals = signals;
+		}
+
+		@Override
+		public void afterStart() {
+			post(mode.createEvent(NEXT, 0, this));
+		}
+
+		@Override
+		public void process(final Event event) {
+			final int topic = random.nextInt(TOPICS);
+			// counted before the signal, so that pending can not reach 0 too early
+			pending.addAndGet(fanOut[topic]);
+			signal(TOPIC + topic, ++sent);
+			if (sent < signals) {
+				post(mode.createEvent(NEXT, sent, this));
+			} else if (finished.incrementAndGet() == BROADCASTERS && pending.get() == 0) {
+				complete();
+			}
+		}
+	}
+
+	private final class Listener extends ModelActor {
+
+		Listener(final Engine engine, final Mode mode) {
+			super(engine, mode);
+		}
+
+		@Override
+		public void process(final Event event) {
+			processed(Mode.timestamp(event));
+			if (pending.decrementAndGet() == 0 && finished.get() == BROADCASTERS) {
+				complete();
+			}
+		}
+	}
+
+	private final int[] fanOut = new int[TOPICS];
+	private final AtomicLong pending = new AtomicLong();
+	private final AtomicInteger finished = new AtomicInteger();
+
+	public BroadcastStormModel() {
+		super("broadcast-storm");
+	}
+
+	@Override
+	public void build(final EngineImpl engine, final Settings settings) {
+		final SplittableRandom random = new SplittableRandom(settings.seed());
+		final List<Listener> listeners = new ArrayList<>(LISTENERS);
+		for (int i = 0; i < LISTENERS; i++) {
+			listeners.add(new Listener(engine, settings.mode()));
+		}
+		final List<Broadcaster> broadcasters = new ArrayList<>(BROADCASTERS);
+		for (int i = 0; i < BROADCASTERS; i++) {
+			broadcasters.add(new Broadcaster(engine, settings.mode(), settings.seed() + 1 + i,
+					settings.scaled(SIGNALS / BROADCASTERS)));
+		}
+		engine.registerAndStartAll(listeners);
+		engine.registerAndStartAll(broadcasters);
+		for (final Listener listener : listeners) {
+			final boolean[] subscribed = new boolean[TOPICS];
+			for (int s = 0; s < SUBSCRIPTIONS;) {
+				final int topic = random.nextInt(TOPICS);
+				if (!subscribed[topic]) {
+					subscribed[topic] = true;
+					fanOut[topic]++;
+					engine.subscribe(listener, TOPIC + topic);
+					s++;
+				}
+			}
+		}
+	}
+
+}
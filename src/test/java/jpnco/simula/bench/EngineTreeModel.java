@@ -0,0 +1,40 @@
+package jpnco.simula.bench;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jpnco.simula.engine.EngineImpl;
+
+/**
+ * A deep engine tree: a root engine with 100 child engines, each one running its
+ * own token ring of 4 actors with one token. The rings are independent, so the
+ * model measures the cost of many engines side by side: their threads, their
+ * loggers and the ticks forwarded from the root to every child.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class EngineTreeModel extends Model {
+
+	private static final int CHILDREN = 100;
+	private static final int RING_SIZE = 4;
+	private static final int HOPS = 2_000;
+
+	private final AtomicInteger running = new AtomicInteger(CHILDREN);
+
+	public EngineTreeModel() {
+		super("engine-tree");
+	}
+
+	@Override
+	public void build(final EngineImpl engine, final Settings settings) {
+		for (int i = 0; i < CHILDREN; i++) {
+			final EngineImpl child = new EngineImpl(engine.getName() + ".child" + i, engine);
+			new Ring(this, child, settings.mode(), "ring.", RING_SIZE, 1, settings.scaled(HOPS), () -> {
+				if (running.decrementAndGet() == 0) {
+					complete();
+				}
+			});
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+package jpnco.simula.bench;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.stats.Tally;
+
+/**
+ * An M/M/1 queue: a source signals customers with exponential inter-arrival
+ * times, a server serves them in order with exponential service times. The
+ * queue itself is computed by the server from the timestamps (Lindley
+ * recursion), so the actors run as fast as the framework allows. The waiting
+ * times are tallied in the statistics of the engine as "mm1.wait", their mean
+ * tends to rho / (mu - lambda).
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class MM1Model extends Model {
+
+	private static final String NEXT = "mm1.next";
+	private static final String ARRIVAL = "mm1.arrival";
+	private static final double LAMBDA = 1.0;
+	private static final double MU = 1.25;
+	private static final int CUSTOMERS = 100_000;
+
+	private final class Source extends ModelActor {
+
+		private final SplittableRandom random;
+		private final int customers;
+		private double time = 0;
+		private int sent = 0;
+
+		Source(final Engine engine, final Mode mode, final long seed, final int customers) {
+			super(engine, mode);
+			random = new SplittableRandom(seed);
+			this.customers = customers;
+		}
+
+		@Override
+		public void afterStart() {
+			// the source schedules itself by posting to its own mailbox
+			post(mode.createEvent(NEXT, 0, this));
+		}
+
+		@Override
+		public void process(final Event event) {
+			time += exponential(random, LAMBDA);
+			signal(ARRIVAL, time);
+			processed(Mode.timestamp(event));
+			if (++sent < customers) {
+				post(mode.createEvent(NEXT, time, this));
+			}
+		}
+	}
+
+	private final class Server extends ModelActor {
+
+		private final SplittableRandom random;
+		private final int customers;
+		private final Tally wait;
+		private double departure = 0;
+		private int served = 0;
+
+		Server(final Engine engine, final Mode mode, final long seed, final int customers) {
+			super(engine, mode);
+			random = new SplittableRandom(seed);
+			this.customers = customers;
+			wait = engine.getStatistics().tally("mm1.wait");
+		}
+
+		@Override
+		public void process(final Event event) {
+			final double arrival = Mode.timestamp(event);
+			final double start = Math.max(arrival, departure);
+			wait.add(start - arrival);
+			departure = start + exponential(random, MU);
+			processed(departure);
+			if (++served == customers) {
+				complete();
+			}
+		}
+	}
+
+	static double exponential(final SplittableRandom random, final double rate) {
+		return -Math.log(1 - random.nextDouble()) / rate;
+	}
+
+	public MM1Model() {
+		super("mm1");
+	}
+
+	@Override
+	public void build(final EngineImpl engine, final Settings settings) {
+		final int customers = settings.scaled(CUSTOMERS);
+		final Source source = new Source(engine, settings.mode(), settings.seed(), customers);
+		final Server server = new Server(engine, settings.mode(), settings.seed() + 1, customers);
+		engine.registerAndStartAll(List.of(source, server));
+		engine.subscribe(server, ARRIVAL);
+	}
+
+}
@@ -0,0 +1,122 @@
+package jpnco.simula.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.engine.EngineImpl;
+
+/**
+ * Runs the reference models headless and reports, for each one, the events
+ * processed per second, the ratio of simulated to wall time, the peak heap and
+ * the peak thread count. The models use fixed seeds, so two runs with the same
+ * arguments execute the same workloads.
+ * <p>
+ * This is not a unit test. Run it with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=jpnco.simula.bench.MacroBenchmark -Dexec.args="-mode PRIORITY mm1 phold"
+ * </pre>
+ *
+ * Arguments: <code>[-seed n] [-mode LINKED|PRIORITY|DELAY] [-timeFactor n]
+ * [-scale x] [model...]</code>, all the models are run by default.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class MacroBenchmark {
+
+	/** The models, by name */
+	static final Map<String, Supplier<Model>> MODELS = new LinkedHashMap<>();
+
+	static {
+		MODELS.put("mm1", MM1Model::new);
+		MODELS.put("phold", PholdModel::new);
+		MODELS.put("token-ring", TokenRingModel::new);
+		MODELS.put("broadcast-storm", BroadcastStormModel::new);
+		MODELS.put("engine-tree", EngineTreeModel::new);
+	}
+
+	private static final long TIMEOUT_SECONDS = 600;
+
+	public static void main(final String[] args) throws Exception {
+		Logger.forceLevel(Level.ERROR);
+		long seed = Settings.DEFAULT.seed();
+		Mode mode = Settings.DEFAULT.mode();
+		int timeFactor = Settings.DEFAULT.timeFactor();
+		double scale = Settings.DEFAULT.scale();
+		final List<String> names = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "-seed" -> seed = Long.parseLong(args[++i]);
+			case "-mode" -> mode = Mode.valueOf(args[++i]);
+			case "-timeFactor" -> timeFactor = Integer.parseInt(args[++i]);
+			case "-scale" -> scale = Double.parseDouble(args[++i]);
+			default -> {
+				if (!MODELS.containsKey(args[i])) {
+					throw new IllegalArgumentException("unknown model " + args[i] + ", expected one of "
+							+ MODELS.keySet());
+				}
+				names.add(args[i]);
+			}
+			}
+		}
+		if (names.isEmpty()) {
+			names.addAll(MODELS.keySet());
+		}
+		final Settings settings = new Settings(seed, mode, timeFactor, scale);
+		System.out.printf("%s%n", settings);
+		System.out.printf("%-16s %10s %10s %12s %12s %10s %8s%n", "model", "events", "wall ms", "events/s",
+				"sim/wall", "heap MB", "threads");
+		for (final String name : names) {
+			final Result result = run(MODELS.get(name).get(), settings);
+			System.out.printf("%-16s %10d %10d %12.0f %12.2f %10.1f %8d%n", result.model(), result.events(),
+					TimeUnit.NANOSECONDS.toMillis(result.wallNanos()), result.eventsPerSecond(),
+					result.simulatedToWall(), result.peakHeap() / (1024.0 * 1024.0), result.peakThreads());
+		}
+	}
+
+	/**
+	 * Runs a model in a new root engine until its budget of events is processed,
+	 * then stops the engine and waits for its termination.
+	 *
+	 * @param model    the model to run
+	 * @param settings the settings of the run
+	 * @return the result of the run
+	 * @throws ExecutionException   if the engine terminates exceptionally
+	 * @throws InterruptedException if the current thread is interrupted
+	 * @throws TimeoutException     if the model does not complete in time
+	 */
+	public static Result run(final Model model, final Settings settings)
+			throws ExecutionException, InterruptedException, TimeoutException {
+		final List<MemoryPoolMXBean> heap = ManagementFactory.getMemoryPoolMXBeans().stream()
+				.filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+		final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		System.gc();
+		heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+		threads.resetPeakThreadCount();
+		final EngineImpl engine = new EngineImpl(model.getName(), settings.timeFactor());
+		model.build(engine, settings);
+		final long start = System.nanoTime();
+		engine.start();
+		model.getDone().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		final long wallNanos = System.nanoTime() - start;
+		final long processed = model.getProcessed();
+		engine.stop().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		final long peakHeap = heap.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+		return new Result(model.getName(), processed, wallNanos, model.getSimulatedTime(), peakHeap,
+				threads.getPeakThreadCount());
+	}
+
+}
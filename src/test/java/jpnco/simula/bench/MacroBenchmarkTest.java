@@ -0,0 +1,42 @@
+package jpnco.simula.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.Logger.Level;
+
+class MacroBenchmarkTest {
+
+	private static final Settings SMALL = new Settings(42, Mode.LINKED, 1, 0.01);
+
+	@BeforeAll
+	static void setUpBeforeClass() {
+		Logger.forceLevel(Level.ERROR);
+	}
+
+	@Test
+	void testModels() throws Exception {
+		for (final String name : MacroBenchmark.MODELS.keySet()) {
+			final Result result = MacroBenchmark.run(MacroBenchmark.MODELS.get(name).get(), SMALL);
+			assertEquals(name, result.model());
+			assertTrue(result.events() > 0, name);
+			assertTrue(result.simulatedTime() > 0, name);
+			assertTrue(result.peakHeap() > 0 && result.peakThreads() > 0, name);
+		}
+	}
+
+	@Test
+	void testModes() throws Exception {
+		for (final Mode mode : Mode.values()) {
+			final Settings settings = new Settings(42, mode, 1, 0.01);
+			final Result result = MacroBenchmark.run(new MM1Model(), settings);
+			// each customer is an arrival and a departure
+			assertEquals(2 * settings.scaled(100_000), result.events(), mode.name());
+		}
+	}
+
+}
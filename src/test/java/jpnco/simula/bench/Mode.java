@@ -0,0 +1,70 @@
+package jpnco.simula.bench;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.engine.ActorDelegate;
+import jpnco.simula.engine.EventImpl;
+
+/**
+ * The mailbox mode of the actors of a model: the data queue of their delegate
+ * and the kind of the events they signal.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public enum Mode {
+	/** LinkedBlockingQueue and plain events */
+	LINKED,
+	/**
+	 * PriorityBlockingQueue and priority events, the priority is the timestamp in
+	 * thousandths
+	 */
+	PRIORITY,
+	/** DelayQueue and delayed events without delay */
+	DELAY;
+
+	/**
+	 * Creates the delegate of an actor.
+	 *
+	 * @param engine    the engine of the actor
+	 * @param delegator the actor
+	 * @return the delegate of the actor
+	 */
+	public Actor createDelegate(final Engine engine, final Actor delegator) {
+		return switch (this) {
+		case LINKED -> ActorDelegate.createDelegate(engine, delegator);
+		case PRIORITY -> ActorDelegate.createPrioritizedDelegate(engine, delegator);
+		case DELAY -> ActorDelegate.createDelayedDelegate(engine, delegator);
+		};
+	}
+
+	/**
+	 * Creates an event whose first parameter is its timestamp in the time of the
+	 * model.
+	 *
+	 * @param topic     the topic of the event
+	 * @param timestamp the timestamp of the event in the time of the model
+	 * @param source    the actor that signals the event
+	 * @return the created event
+	 */
+	public Event createEvent(final String topic, final double timestamp, final Actor source) {
+		return switch (this) {
+		case LINKED -> EventImpl.createEvent(topic, source, timestamp);
+		case PRIORITY -> EventImpl.createPriorityEvent(topic, (int) Math.min(Integer.MAX_VALUE, timestamp * 1000),
+				source, timestamp);
+		case DELAY -> EventImpl.createDelayedEvent(topic, 0, source, timestamp);
+		};
+	}
+
+	/**
+	 * Returns the timestamp of an event created by {@link #createEvent}.
+	 *
+	 * @param event the event
+	 * @return the timestamp of the event
+	 */
+	public static double timestamp(final Event event) {
+		return (Double) event.getParameters()[0];
+	}
+
+}
@@ -0,0 +1,87 @@
+package jpnco.simula.bench;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jpnco.simula.engine.EngineImpl;
+
+/**
+ * A reference simulation model. A model builds its actors in a root engine,
+ * counts the events it processes, advances its own simulated time carried by
+ * the timestamps of its events, and completes once its budget of events is
+ * processed. The runner then stops the engine.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public abstract class Model {
+
+	private final String name;
+	private final LongAdder processed = new LongAdder();
+	private final DoubleAccumulator simulatedTime = new DoubleAccumulator(Math::max, 0);
+	private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+	protected Model(final String name) {
+		this.name = Objects.requireNonNull(name);
+	}
+
+	/**
+	 * Builds the actors, and the child engines if any, of this model. The root
+	 * engine is not started yet.
+	 *
+	 * @param engine   the root engine
+	 * @param settings the settings of the run
+	 */
+	public abstract void build(EngineImpl engine, Settings settings);
+
+	/**
+	 * Completes this model. Can be called several times.
+	 */
+	protected final void complete() {
+		done.complete(null);
+	}
+
+	/**
+	 * Returns a future completed when the budget of events is processed.
+	 *
+	 * @return a future completed when the budget of events is processed
+	 */
+	public CompletableFuture<Void> getDone() {
+		return done;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the number of events processed by the actors of this model.
+	 *
+	 * @return the number of events processed
+	 */
+	public long getProcessed() {
+		return processed.sum();
+	}
+
+	/**
+	 * Returns the greatest timestamp processed, in the time of the model.
+	 *
+	 * @return the simulated time reached
+	 */
+	public double getSimulatedTime() {
+		return simulatedTime.get();
+	}
+
+	/**
+	 * Counts a processed event.
+	 *
+	 * @param timestamp the timestamp of the event in the time of the model
+	 */
+	protected final void processed(final double timestamp) {
+		processed.increment();
+		simulatedTime.accumulate(timestamp);
+	}
+
+}
@@ -0,0 +1,45 @@
+package jpnco.simula.bench;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.engine.IdBuilder;
+
+/**
+ * The base class of the actors of the models, its delegate depends on the
+ * mailbox mode.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+abstract class ModelActor implements Actor {
+
+	private final Integer id = IdBuilder.nextId();
+	private final Actor delegate;
+	protected final Mode mode;
+
+	ModelActor(final Engine engine, final Mode mode) {
+		this.mode = mode;
+		delegate = mode.createDelegate(engine, this);
+	}
+
+	@Override
+	public Actor getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * Signals an event with a timestamp.
+	 *
+	 * @param topic     the topic of the event
+	 * @param timestamp the timestamp of the event in the time of the model
+	 */
+	void signal(final String topic, final double timestamp) {
+		getEngine().signal(mode.createEvent(topic, timestamp, this));
+	}
+
+}
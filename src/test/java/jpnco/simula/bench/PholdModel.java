@@ -0,0 +1,82 @@
+package jpnco.simula.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.engine.EngineImpl;
+
+/**
+ * A PHOLD random-event storm: logical processes start with a population of
+ * events, and each processed event schedules a new one, with a timestamp
+ * increment of a lookahead plus an exponential delay, to a random process or,
+ * sometimes, to itself. The number of events in flight stays constant until the
+ * budget of events is processed.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class PholdModel extends Model {
+
+	private static final String TOPIC = "phold.";
+	private static final int PROCESSES = 64;
+	private static final int POPULATION = 4;
+	private static final double LOOKAHEAD = 0.1;
+	private static final double REMOTE = 0.9;
+	private static final int EVENTS = 200_000;
+
+	private final class Process extends ModelActor {
+
+		private final SplittableRandom random;
+		private final String topic;
+
+		Process(final Engine engine, final Mode mode, final long seed, final int index) {
+			super(engine, mode);
+			random = new SplittableRandom(seed);
+			topic = TOPIC + index;
+		}
+
+		@Override
+		public void afterStart() {
+			for (int i = 0; i < POPULATION; i++) {
+				post(mode.createEvent(topic, MM1Model.exponential(random, 1), this));
+			}
+		}
+
+		@Override
+		public void process(final Event event) {
+			final double timestamp = Mode.timestamp(event);
+			processed(timestamp);
+			final long left = budget.decrementAndGet();
+			if (left == 0) {
+				complete();
+			} else if (left > 0) {
+				final String destination = random.nextDouble() < REMOTE ? TOPIC + random.nextInt(PROCESSES) : topic;
+				signal(destination, timestamp + LOOKAHEAD + MM1Model.exponential(random, 1));
+			}
+		}
+	}
+
+	private final AtomicLong budget = new AtomicLong();
+
+	public PholdModel() {
+		super("phold");
+	}
+
+	@Override
+	public void build(final EngineImpl engine, final Settings settings) {
+		budget.set(settings.scaled(EVENTS));
+		final List<Process> processes = new ArrayList<>(PROCESSES);
+		for (int i = 0; i < PROCESSES; i++) {
+			processes.add(new Process(engine, settings.mode(), settings.seed() + i, i));
+		}
+		engine.registerAndStartAll(processes);
+		for (int i = 0; i < PROCESSES; i++) {
+			engine.subscribe(processes.get(i), TOPIC + i);
+		}
+	}
+
+}
@@ -0,0 +1,39 @@
+package jpnco.simula.bench;
+
+/**
+ * The result of a model run.
+ *
+ * @param model         the name of the model
+ * @param events        the number of events processed by the actors of the
+ *                      model
+ * @param wallNanos     the wall time from the start of the engine to the
+ *                      completion of the model, in nanoseconds
+ * @param simulatedTime the simulated time reached, in the time of the model
+ * @param peakHeap      the peak of the heap used during the run, in bytes
+ * @param peakThreads   the peak number of live threads during the run
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public record Result(String model, long events, long wallNanos, double simulatedTime, long peakHeap,
+		int peakThreads) {
+
+	/**
+	 * Returns the number of events processed per wall second.
+	 *
+	 * @return the number of events processed per wall second
+	 */
+	public double eventsPerSecond() {
+		return events * 1e9 / wallNanos;
+	}
+
+	/**
+	 * Returns the simulated time reached per wall second.
+	 *
+	 * @return the ratio of simulated to wall time
+	 */
+	public double simulatedToWall() {
+		return simulatedTime * 1e9 / wallNanos;
+	}
+
+}
@@ -0,0 +1,90 @@
+package jpnco.simula.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+
+/**
+ * A ring of actors passing tokens to the next one, each actor subscribing to
+ * its own topic. Every hop advances the timestamp of the token by one. Once the
+ * budget of hops is used, the tokens are dropped and a callback is run.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+final class Ring {
+
+	private final class Member extends ModelActor {
+
+		private final String next;
+		private final boolean holdsToken;
+
+		Member(final Engine engine, final Mode mode, final int index, final boolean holdsToken) {
+			super(engine, mode);
+			next = prefix + (index + 1) % size;
+			this.holdsToken = holdsToken;
+		}
+
+		@Override
+		public void afterStart() {
+			if (holdsToken) {
+				signal(next, 0);
+			}
+		}
+
+		@Override
+		public void process(final Event event) {
+			final double timestamp = Mode.timestamp(event);
+			model.processed(timestamp);
+			final long left = hops.decrementAndGet();
+			if (left == 0) {
+				done.run();
+			} else if (left > 0) {
+				signal(next, timestamp + 1);
+			}
+		}
+	}
+
+	private final Model model;
+	private final String prefix;
+	private final int size;
+	private final AtomicLong hops;
+	private final Runnable done;
+
+	/**
+	 * Builds a ring, registers and starts its actors.
+	 *
+	 * @param model  the model that counts the hops
+	 * @param engine the engine of the actors
+	 * @param mode   the mailbox mode of the actors
+	 * @param prefix the prefix of the topics of the actors
+	 * @param size   the number of actors
+	 * @param tokens the number of tokens, evenly spread, at most size
+	 * @param hops   the budget of hops
+	 * @param done   called once the budget of hops is used
+	 */
+	Ring(final Model model, final Engine engine, final Mode mode, final String prefix, final int size,
+			final int tokens, final long hops, final Runnable done) {
+		this.model = model;
+		this.prefix = prefix;
+		this.size = size;
+		this.hops = new AtomicLong(hops);
+		this.done = done;
+		if (tokens <= 0 || tokens > size) {
+			throw new IllegalArgumentException("bad number of tokens " + tokens);
+		}
+		final int spacing = size / tokens;
+		final List<Member> members = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			members.add(new Member(engine, mode, i, i % spacing == 0 && i / spacing < tokens));
+		}
+		engine.registerAndStartAll(members);
+		for (int i = 0; i < size; i++) {
+			engine.subscribe(members.get(i), prefix + i);
+		}
+	}
+
+}
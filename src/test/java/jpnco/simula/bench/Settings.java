@@ -0,0 +1,38 @@
+package jpnco.simula.bench;
+
+import java.util.Objects;
+
+/**
+ * The settings of a run of the macro-benchmarks.
+ *
+ * @param seed       the seed of the random generators of the models
+ * @param mode       the mailbox mode of the actors
+ * @param timeFactor the time factor of the root engine
+ * @param scale      multiplies the number of events of the models
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public record Settings(long seed, Mode mode, int timeFactor, double scale) {
+
+	/** The default settings: seed 42, linked mailboxes, time factor 1, scale 1 */
+	public static final Settings DEFAULT = new Settings(42, Mode.LINKED, 1, 1);
+
+	public Settings {
+		Objects.requireNonNull(mode);
+		if (timeFactor <= 0 || scale <= 0) {
+			throw new IllegalArgumentException("timeFactor and scale must be positive");
+		}
+	}
+
+	/**
+	 * Scales a number of events, at least 1.
+	 *
+	 * @param count the number of events at scale 1
+	 * @return the scaled number of events
+	 */
+	public int scaled(final int count) {
+		return (int) Math.max(1, Math.round(count * scale));
+	}
+
+}
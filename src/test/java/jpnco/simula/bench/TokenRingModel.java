@@ -0,0 +1,28 @@
+package jpnco.simula.bench;
+
+import jpnco.simula.engine.EngineImpl;
+
+/**
+ * A token ring of 100 actors with 10 tokens: each hop is a signal to the topic
+ * of the next actor, so the model measures the latency of an event through the
+ * engine.
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class TokenRingModel extends Model {
+
+	private static final int SIZE = 100;
+	private static final int TOKENS = 10;
+	private static final int HOPS = 200_000;
+
+	public TokenRingModel() {
+		super("token-ring");
+	}
+
+	@Override
+	public void build(final EngineImpl engine, final Settings settings) {
+		new Ring(this, engine, settings.mode(), "ring.", SIZE, TOKENS, settings.scaled(HOPS), this::complete);
+	}
+
+}
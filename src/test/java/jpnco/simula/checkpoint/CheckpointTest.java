@@ -0,0 +1,238 @@
+package jpnco.simula.checkpoint;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Checkpointable;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.engine.ActorDelegate;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.engine.EventImpl;
+import jpnco.simula.engine.EventReader;
+import jpnco.simula.engine.EventWriter;
+import jpnco.simula.engine.IdBuilder;
+
+class CheckpointTest {
+
+	/**
+	 * Counts the "work" events and keeps a large state.
+	 */
+	private static class Counter implements Checkpointable {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Actor delegate;
+		private final CountDownLatch received;
+		private long count = 0;
+		private long sum = 0;
+		private byte[] state = new byte[0];
+
+		Counter(final Engine engine, final int expected) {
+			delegate = ActorDelegate.createDelegate(engine, this);
+			received = new CountDownLatch(expected);
+		}
+
+		@Override
+		public void checkpoint(final EventWriter out) {
+			out.writeLong(count).writeLong(sum).writeBytes(state);
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return delegate;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		@Override
+		public void process(final Event event) {
+			count++;
+			sum += (Integer) event.getParameters()[0];
+			received.countDown();
+		}
+
+		@Override
+		public void restore(final EventReader in) {
+			count = in.readLong();
+			sum = in.readLong();
+			state = in.readBytes();
+		}
+	}
+
+	/**
+	 * Receives delayed events, which are still pending when the checkpoint is
+	 * taken.
+	 */
+	private static class Waiter implements Actor {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Actor delegate;
+
+		Waiter(final Engine engine) {
+			delegate = ActorDelegate.createDelayedDelegate(engine, this);
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return delegate;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		@Override
+		public void process(final Event event) {
+		}
+
+		BlockingQueue<Event> queue() {
+			return ((ActorDelegate) delegate).getQueue();
+		}
+	}
+
+	private static final int EVENTS = 100;
+	private static final int STATE_SIZE = 3 << 20;
+	private static final int DELAY = 60_000;
+
+	@BeforeAll
+	static void setUpBeforeClass() {
+		Logger.forceLevel(Level.ERROR);
+	}
+
+	private static void awaitAlarm(final Engine root) throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (root.getTimeSource().getAlarmCount() == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	void testBadSnapshots(@TempDir final Path directory) throws Exception {
+		final Path notASnapshot = Files.write(directory.resolve("none"), new byte[] { 1, 2, 3 });
+		final EngineImpl engine = new EngineImpl("testBadSnapshots", 1);
+		assertThrows(IOException.class, () -> Checkpoint.restore(notASnapshot, engine));
+		final Counter counter = new Counter(engine, 0);
+		engine.registerAndStart(counter);
+		engine.start();
+		final Path snapshot = directory.resolve("snapshot");
+		Checkpoint.take(engine, snapshot);
+		engine.stop().get(10, TimeUnit.SECONDS);
+
+		// the counter is not in the rebuilt tree
+		final EngineImpl rebuilt = new EngineImpl("testBadSnapshots", 1);
+		rebuilt.start();
+		assertThrows(IOException.class, () -> Checkpoint.restore(snapshot, rebuilt));
+		// the tree goes on after a failed restore
+		rebuilt.stop().get(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testDuplicateNames(@TempDir final Path directory) throws Exception {
+		final EngineImpl engine = new EngineImpl("testDuplicateNames", 1);
+		engine.registerAndStart(new Counter(engine, 0));
+		engine.start();
+		final Path snapshot = directory.resolve("snapshot");
+		Checkpoint.take(engine, snapshot);
+		engine.stop().get(10, TimeUnit.SECONDS);
+
+		// the two counters get the same default name
+		final EngineImpl rebuilt = new EngineImpl("testDuplicateNames", 1);
+		final Counter counter = new Counter(rebuilt, 0);
+		final Counter other = new Counter(rebuilt, 0);
+		assertEquals(counter.getName(), other.getName());
+		rebuilt.registerAndStartAll(List.of(counter, other));
+		rebuilt.start();
+		assertThrows(IOException.class, () -> Checkpoint.restore(snapshot, rebuilt));
+		final Path duplicate = directory.resolve("duplicate");
+		assertThrows(IOException.class, () -> Checkpoint.take(rebuilt, duplicate));
+		assertFalse(Files.exists(duplicate));
+		// the tree goes on after a failed checkpoint
+		rebuilt.stop().get(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testTakeAndRestore(@TempDir final Path directory) throws Exception {
+		final EngineImpl root = new EngineImpl("testTakeAndRestore", 1);
+		final EngineImpl child = new EngineImpl("child", root);
+		final Counter counter = new Counter(child, EVENTS);
+		final Waiter waiter = new Waiter(child);
+		counter.state = new byte[STATE_SIZE];
+		Arrays.fill(counter.state, (byte) 7);
+		child.registerAndStart(counter);
+		child.registerAndStart(waiter);
+		child.subscribe(counter, "work");
+		child.subscribe(waiter, "later");
+		root.start();
+		for (int i = 0; i < EVENTS; i++) {
+			child.signal(EventImpl.createEvent("work", child, i));
+		}
+		assertTrue(counter.received.await(10, TimeUnit.SECONDS));
+		root.getTimeSource().post(EventImpl.createEvent(Engine.REQUEST_ALARM_EVENT, counter, "wake", 1000));
+		awaitAlarm(root);
+		for (int i = 0; i < 3; i++) {
+			child.signal(EventImpl.createDelayedEvent("later", DELAY, counter, i));
+		}
+
+		final Path snapshot = directory.resolve("snapshot");
+		final Checkpoint taken = Checkpoint.take(root, snapshot);
+		// the time source and the counter
+		assertEquals(2, taken.states());
+		assertEquals(3, taken.events());
+		assertEquals(Files.size(snapshot), taken.bytes());
+		assertTrue(taken.bytes() > STATE_SIZE);
+		root.stop().get(10, TimeUnit.SECONDS);
+
+		final EngineImpl rebuiltRoot = new EngineImpl("testTakeAndRestore", 1);
+		final EngineImpl rebuiltChild = new EngineImpl("child", rebuiltRoot);
+		final Counter rebuiltCounter = new Counter(rebuiltChild, 1);
+		final Waiter rebuiltWaiter = new Waiter(rebuiltChild);
+		rebuiltChild.registerAndStart(rebuiltCounter);
+		rebuiltChild.registerAndStart(rebuiltWaiter);
+		rebuiltChild.subscribe(rebuiltCounter, "work");
+		final Checkpoint restored = Checkpoint.restore(snapshot, rebuiltRoot);
+		assertEquals(taken, restored);
+		assertEquals(EVENTS, rebuiltCounter.count);
+		assertEquals(EVENTS * (EVENTS - 1) / 2, rebuiltCounter.sum);
+		assertArrayEquals(counter.state, rebuiltCounter.state);
+		assertTrue(rebuiltRoot.getTime() >= taken.time());
+		assertEquals(1, rebuiltRoot.getTimeSource().getAlarmCount());
+		assertEquals(3, rebuiltWaiter.queue().size());
+		for (final Event event : rebuiltWaiter.queue()) {
+			assertEquals("later", event.getTopic());
+			// the source is resolved in the rebuilt tree and the delay is kept
+			assertSame(rebuiltCounter, event.getSource());
+			assertTrue(event.isDelayed());
+		}
+
+		rebuiltRoot.start();
+		rebuiltChild.signal(EventImpl.createEvent("work", rebuiltChild, EVENTS));
+		assertTrue(rebuiltCounter.received.await(10, TimeUnit.SECONDS));
+		rebuiltRoot.stop().get(10, TimeUnit.SECONDS);
+		assertEquals(EVENTS + 1, rebuiltCounter.count);
+	}
+
+}
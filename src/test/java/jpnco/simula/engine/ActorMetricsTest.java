@@ -0,0 +1,100 @@
+package jpnco.simula.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.engine.ActorMetrics.Snapshot;
+
+class ActorMetricsTest {
+
+	@AfterEach
+	void disable() {
+		ActorMetrics.setEnabled(false);
+	}
+
+	private static Actor source() {
+		final Engine engine = mock(Engine.class);
+		final Actor source = mock(Actor.class);
+		when(source.getEngine()).thenReturn(engine);
+		return source;
+	}
+
+	@Test
+	void testDisabled() throws InterruptedException {
+		final Mailbox mailbox = new Mailbox(new LinkedBlockingQueue<>(), Mailbox.ACTOR_CONTROL_TOPICS);
+		final ActorMetrics metrics = new ActorMetrics("actor", mailbox::depth);
+		final Event event = EventImpl.createEvent("DATA", source());
+		mailbox.post(event);
+		metrics.received(event);
+		final long start = metrics.taken(mailbox.take());
+		assertEquals(0, start);
+		metrics.processed(event, start);
+		final Snapshot snapshot = metrics.snapshot();
+		assertEquals(0, snapshot.received());
+		assertEquals(0, snapshot.processed());
+		assertEquals(0, snapshot.serviceTime().count());
+		assertEquals(0, snapshot.queueTime().count());
+		assertEquals(64, snapshot.queueTime().buckets().length);
+		assertEquals(0, snapshot.serviceTime().percentileNanos(0.5));
+	}
+
+	@Test
+	void testEnabled() throws InterruptedException {
+		ActorMetrics.setEnabled(true);
+		final Mailbox mailbox = new Mailbox(new LinkedBlockingQueue<>(), Mailbox.ACTOR_CONTROL_TOPICS);
+		final ActorMetrics metrics = new ActorMetrics("actor", mailbox::depth);
+		final Actor source = source();
+		for (int i = 0; i < 10; i++) {
+			final Event event = EventImpl.createEvent(i % 2 == 0 ? "EVEN" : "ODD", source);
+			mailbox.post(event);
+			metrics.received(event);
+		}
+		Thread.sleep(1);
+		for (int i = 0; i < 4; i++) {
+			final Event event = mailbox.take();
+			metrics.processed(event, metrics.taken(event));
+		}
+		final Snapshot snapshot = metrics.snapshot();
+		assertEquals("actor", snapshot.name());
+		assertEquals(10, snapshot.received());
+		assertEquals(4, snapshot.processed());
+		assertEquals(6, snapshot.depth());
+		assertEquals(10, snapshot.highWaterMark());
+		assertEquals(Map.of("EVEN", 5L, "ODD", 5L), snapshot.receivedByTopic());
+		assertEquals(Map.of("EVEN", 2L, "ODD", 2L), snapshot.processedByTopic());
+		assertEquals(4, snapshot.serviceTime().count());
+		assertEquals(4, snapshot.queueTime().count());
+		// the events have been queued for at least one millisecond
+		assertTrue(snapshot.queueTime().percentileNanos(0.5) >= 1_000_000);
+
+		final Snapshot aggregate = ActorMetrics.emptySnapshot("engine").merge("engine", snapshot).merge("engine",
+				snapshot);
+		assertEquals(20, aggregate.received());
+		assertEquals(Map.of("EVEN", 4L, "ODD", 4L), aggregate.processedByTopic());
+		assertEquals(8, aggregate.queueTime().count());
+	}
+
+	@Test
+	void testEngineSnapshots() throws Exception {
+		ActorMetrics.setEnabled(true);
+		final EngineImpl engine = new EngineImpl("testEngineSnapshots", 1);
+		engine.start();
+		// engine, logger and time source
+		assertEquals(3, engine.getMetricsSnapshots().size());
+		engine.stop().get();
+		assertTrue(engine.getMetrics().snapshot().processedByTopic().containsKey(Engine.START_EVENT));
+		assertTrue(engine.getMetricsAggregate().processed() > 0);
+	}
+
+}
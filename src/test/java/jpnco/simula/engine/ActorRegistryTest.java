@@ -0,0 +1,135 @@
+package jpnco.simula.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Event;
+
+class ActorRegistryTest {
+
+	private ActorRegistry registry;
+
+	private Actor createActor() {
+		final Actor actor = mock(Actor.class);
+		final Integer id = IdBuilder.nextId();
+		when(actor.getId()).thenReturn(id);
+		return actor;
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		registry = new ActorRegistry();
+	}
+
+	@Test
+	void testConcurrentRegisterAndUnregister() throws InterruptedException {
+		// not a mock, whose calls are slower than the race
+		final Integer id = IdBuilder.nextId();
+		final Actor actor = new Actor() {
+
+			@Override
+			public Actor getDelegate() {
+				return null;
+			}
+
+			@Override
+			public Integer getId() {
+				return id;
+			}
+
+			@Override
+			public void process(final Event event) {
+			}
+		};
+		final Runnable registerer = () -> {
+			for (int i = 0; i < 100000; i++) {
+				registry.register(actor);
+			}
+		};
+		final Runnable unregisterer = () -> {
+			for (int i = 0; i < 100000; i++) {
+				registry.unregister(actor);
+			}
+		};
+		final Thread first = new Thread(registerer);
+		final Thread second = new Thread(unregisterer);
+		first.start();
+		second.start();
+		first.join();
+		second.join();
+		// the slots hold the actor if and only if it is registered
+		final int[] count = { 0 };
+		registry.forEach(a -> count[0]++);
+		final int slot = registry.slotOf(actor);
+		assertEquals(slot == ActorRegistry.NO_SLOT ? 0 : 1, count[0]);
+		assertEquals(count[0], registry.size());
+		if (slot != ActorRegistry.NO_SLOT) {
+			assertSame(actor, registry.get(slot));
+		}
+	}
+
+	@Test
+	void testGrowBeyondOneChunk() {
+		final List<Actor> actors = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			final Actor actor = createActor();
+			actors.add(actor);
+			assertEquals(i, registry.register(actor));
+		}
+		assertEquals(5000, registry.size());
+		assertEquals(5000, registry.capacity());
+		for (int i = 0; i < 5000; i++) {
+			assertSame(actors.get(i), registry.get(i));
+		}
+		final int[] count = { 0 };
+		registry.forEach(a -> count[0]++);
+		assertEquals(5000, count[0]);
+	}
+
+	@Test
+	void testRegisterTwice() {
+		final Actor actor = createActor();
+		final int slot = registry.register(actor);
+		assertEquals(slot, registry.register(actor));
+		assertEquals(1, registry.size());
+	}
+
+	@Test
+	void testSlotsAreRecycled() {
+		final Actor first = createActor();
+		final Actor second = createActor();
+		final Actor third = createActor();
+		assertEquals(0, registry.register(first));
+		assertEquals(1, registry.register(second));
+		assertEquals(0, registry.unregister(first));
+		assertNull(registry.get(0));
+		assertEquals(ActorRegistry.NO_SLOT, registry.slotOf(first));
+		assertEquals(0, registry.register(third));
+		assertSame(third, registry.get(0));
+		assertEquals(2, registry.capacity());
+	}
+
+	@Test
+	void testUnregister() {
+		final Actor actor = createActor();
+		registry.register(actor);
+		assertEquals(ActorRegistry.NO_SLOT, registry.unregister(createActor()));
+		registry.unregister(actor);
+		assertTrue(registry.isEmpty());
+		assertEquals(ActorRegistry.NO_SLOT, registry.unregister(actor));
+		assertNull(registry.get(-1));
+		assertNull(registry.get(1 << 20));
+	}
+
+}
@@ -0,0 +1,218 @@
+package jpnco.simula.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ObjectInputFilter;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.engine.EventRecord.ActorName;
+import jpnco.simula.engine.EventRecord.Kind;
+
+class CodecTest {
+
+	private record Point(int x, int y) {
+	}
+
+	private static final PayloadSerializer<Point> POINTS = new PayloadSerializer<>() {
+
+		@Override
+		public Point read(final EventReader in) {
+			return new Point(in.readInt(), in.readInt());
+		}
+
+		@Override
+		public void write(final EventWriter out, final Point value) {
+			out.writeInt(value.x()).writeInt(value.y());
+		}
+	};
+
+	private static EngineImpl engine;
+
+	@BeforeAll
+	static void setUpBeforeClass() {
+		Logger.forceLevel(Level.ERROR);
+		engine = new EngineImpl("CodecTest", 1);
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() {
+		engine.stop();
+	}
+
+	private static EventReader readerOf(final EventWriter writer) {
+		return new EventReader().reset(ByteBuffer.wrap(writer.buffer().array(), 0, writer.size()));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void testBadRegistrations() {
+		final Codec codec = new Codec().register(Codec.FIRST_USER_TAG, Point.class, POINTS);
+		final PayloadSerializer<Object> any = mock(PayloadSerializer.class);
+		assertThrows(IllegalArgumentException.class, () -> codec.register(Codec.SERIALIZED, Object.class, any));
+		assertThrows(IllegalArgumentException.class,
+				() -> codec.register(Codec.LAST_USER_TAG + 1, Duration.class, any));
+		assertThrows(IllegalArgumentException.class, () -> codec.register(Codec.FIRST_USER_TAG, Map.class, any));
+		assertThrows(IllegalArgumentException.class,
+				() -> codec.register(Codec.FIRST_USER_TAG + 1, Point.class, POINTS));
+		final EventWriter writer = new EventWriter();
+		writer.writeByte((byte) (Codec.FIRST_USER_TAG + 1));
+		assertThrows(IllegalArgumentException.class, () -> codec.readParameter(readerOf(writer)));
+	}
+
+	@Test
+	void testEvents() {
+		final Codec codec = new Codec().register(Codec.FIRST_USER_TAG, Point.class, POINTS);
+		final EventWriter writer = new EventWriter();
+		final Event standard = EventImpl.createEvent("move", engine, new Point(-3, 4), engine, Level.WARNING,
+				Duration.ofSeconds(5), new Object());
+		final Event priority = EventImpl.createPriorityEvent(Engine.TIME_EVENT, 3, engine, 42);
+		final Event delayed = EventImpl.createDelayedEvent("move", 500, engine);
+		codec.encode(standard, writer);
+		codec.encode(priority, writer);
+		codec.encode(delayed, writer);
+		final EventReader reader = readerOf(writer);
+
+		final EventRecord first = codec.decode(reader);
+		assertEquals("move", first.topic());
+		assertEquals(engine.getName(), first.source());
+		assertEquals(Kind.STANDARD, first.kind());
+		final Object[] parameters = first.parameters();
+		assertEquals(new Point(-3, 4), parameters[0]);
+		assertEquals(new ActorName(engine.getName()), parameters[1]);
+		assertSame(Level.WARNING, parameters[2]);
+		// serializable, but the Java serialization is not allowed
+		assertEquals(Duration.ofSeconds(5).toString(), parameters[3]);
+		// neither registered nor serializable
+		assertEquals(String.class, parameters[4].getClass());
+
+		final EventRecord second = codec.decode(reader);
+		assertEquals(Kind.PRIORITY, second.kind());
+		assertEquals(3, second.priority());
+		assertArrayEquals(new Object[] { 42 }, second.parameters());
+
+		final EventRecord third = codec.decode(reader);
+		assertEquals(Kind.DELAYED, third.kind());
+		assertEquals("move", third.topic());
+		assertEquals(0, reader.remaining());
+
+		final Event rebuilt = first.toEvent(name -> engine);
+		assertEquals("move", rebuilt.getTopic());
+		assertSame(engine, rebuilt.getSource());
+		assertSame(engine, rebuilt.getParameters()[1]);
+		assertTrue(third.delay() > 400 && third.delay() <= 500);
+		assertTrue(third.toEvent(name -> engine).isDelayed());
+	}
+
+	@Test
+	void testForeignEvent() {
+		final Codec codec = new Codec();
+		final EventWriter writer = new EventWriter();
+		final Event event = mock(Event.class);
+		when(event.getTopic()).thenReturn("foreign");
+		when(event.getSource()).thenReturn(engine);
+		when(event.getParameters()).thenReturn(new Object[] { 1, "two" });
+		codec.encode(event, writer);
+		final EventRecord record = codec.decode(readerOf(writer));
+		assertEquals("foreign", record.topic());
+		assertArrayEquals(new Object[] { 1, "two" }, record.parameters());
+	}
+
+	@Test
+	void testDictionaries() {
+		final EventWriter writer = new EventWriter();
+		writer.writeTopic(Engine.TIME_EVENT);
+		// a built-in topic is not defined in the stream
+		assertEquals(1, writer.size());
+		writer.writeTopic("custom").writeTopic("custom").writeName("actor").writeName("actor");
+		final EventReader reader = readerOf(writer);
+		assertEquals(Engine.TIME_EVENT, reader.readTopic());
+		assertEquals("custom", reader.readTopic());
+		assertEquals("custom", reader.readTopic());
+		assertEquals("actor", reader.readName());
+		assertEquals("actor", reader.readName());
+		assertEquals(0, reader.remaining());
+		assertEquals(1 + (1 + 1 + 6) + 1 + (1 + 1 + 5) + 1, writer.size());
+
+		final StringDictionary dictionary = StringDictionary.forTopics();
+		final int size = dictionary.size();
+		dictionary.add("a");
+		dictionary.add("b");
+		dictionary.truncate(0);
+		assertEquals(size, dictionary.size());
+		assertEquals(-1, dictionary.idOf("a"));
+		assertEquals(0, dictionary.idOf(Engine.LOG_EVENT));
+	}
+
+	@Test
+	void testSerialization() {
+		final Codec codec = new Codec().allowSerialization(ObjectInputFilter.Config.createFilter("java.time.*"));
+		final EventWriter writer = new EventWriter();
+		codec.writeParameter(Duration.ofSeconds(5), writer);
+		codec.writeParameter(new ArrayList<>(List.of(1)), writer);
+		final EventReader reader = readerOf(writer);
+		assertEquals(Duration.ofSeconds(5), codec.readParameter(reader));
+		// the classes not allowed by the filter are rejected
+		assertThrows(IllegalArgumentException.class, () -> codec.readParameter(reader));
+		// the default codec does not deserialize
+		assertThrows(IllegalArgumentException.class, () -> new Codec().readParameter(readerOf(writer)));
+	}
+
+	@Test
+	void testPrimitives() {
+		final EventWriter writer = new EventWriter();
+		final String text = "ascii é € 😀";
+		writer.writeInt(-1).writeInt(Integer.MIN_VALUE).writeLong(Long.MAX_VALUE).writeVarint(-1).writeString(text)
+				.writeString("\uD800").writeBytes(new byte[] { 1, 2 }).writeDouble(0.5).writeChar('x');
+		final EventReader reader = readerOf(writer);
+		assertEquals(-1, reader.readInt());
+		assertEquals(Integer.MIN_VALUE, reader.readInt());
+		assertEquals(Long.MAX_VALUE, reader.readLong());
+		assertEquals(-1, reader.readVarint());
+		assertEquals(text, reader.readString());
+		assertEquals(new String("\uD800".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8),
+				reader.readString());
+		assertArrayEquals(new byte[] { 1, 2 }, reader.readBytes());
+		assertEquals(0.5, reader.readDouble());
+		assertEquals('x', reader.readChar());
+		assertThrows(BufferUnderflowException.class, reader::readByte);
+	}
+
+	@Test
+	void testReuse() {
+		final Codec codec = new Codec();
+		final EventWriter writer = new EventWriter();
+		final Actor source = engine;
+		final Event event = EventImpl.createEvent("reuse", source, 1L, 2L, new byte[16]);
+		codec.encode(event, writer);
+		final ByteBuffer buffer = writer.buffer();
+		final int first = writer.size();
+		for (int i = 0; i < 1000; i++) {
+			codec.encode(event, writer.clear());
+		}
+		// the buffer does not grow and the topic and the source are not defined again
+		assertSame(buffer, writer.buffer());
+		assertEquals(first - "reuse".length() - 1 - engine.getName().length() - 1, writer.size());
+	}
+
+}
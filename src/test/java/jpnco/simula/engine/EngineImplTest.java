@@ -1,9 +1,22 @@
 package jpnco.simula.engine;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -11,11 +24,121 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
 import jpnco.simula.actors.Logger;
 import jpnco.simula.actors.Logger.Level;
 
 class EngineImplTest {
 
+	private static class AnActor implements Actor {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Actor delegate;
+		private volatile boolean started = false;
+
+		AnActor(final Engine engine) {
+			delegate = ActorDelegate.createDelegate(engine, this);
+		}
+
+		@Override
+		public void afterStart() {
+			started = true;
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return delegate;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		boolean isStarted() {
+			return started;
+		}
+
+		@Override
+		public void process(final Event event) {
+		}
+	}
+
+	/**
+	 * Keeps the topics of the events it receives.
+	 */
+	private static class Receiver implements Actor {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Actor delegate;
+		private final List<String> topics = Collections.synchronizedList(new ArrayList<>());
+
+		Receiver(final Engine engine) {
+			delegate = ActorDelegate.createDelegate(engine, this);
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return delegate;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		@Override
+		public void process(final Event event) {
+			topics.add(event.getTopic());
+		}
+	}
+
+	/**
+	 * Waits for a latch on its first event, then asks to be stopped.
+	 */
+	private static class Stopper implements Actor {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Actor delegate;
+		private final CountDownLatch received = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		Stopper(final Engine engine) {
+			delegate = ActorDelegate.createDelegate(engine, this);
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return delegate;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		@Override
+		public void process(final Event event) {
+			received.countDown();
+			try {
+				release.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			stopMe();
+		}
+	}
+
+	private static void awaitTopics(final Receiver receiver, final String... topics) throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (receiver.topics.size() < topics.length && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(List.of(topics), receiver.topics);
+	}
+
 	@BeforeAll
 	static void setUpBeforeClass() throws Exception {
 	}
@@ -96,6 +219,196 @@ class EngineImplTest {
 		parent.stop();
 	}
 
+	@Test
+	void testKeyedSubscriptions() throws Exception {
+		System.out.println("---------- testKeyedSubscriptions ----------");
+		Logger.forceLevel(Level.ERROR);
+		final EngineImpl engine = new EngineImpl("testKeyedSubscriptions", 1);
+		final Receiver all = new Receiver(engine);
+		final Receiver first = new Receiver(engine);
+		final Receiver second = new Receiver(engine);
+		engine.registerAndStartAll(List.of(all, first, second));
+		engine.subscribe(all, "ORDER");
+		first.subscribe("ORDER", 1);
+		second.subscribe("ORDER", 2);
+		second.subscribe("ORDER", 3);
+		// ignored: all already receives every order
+		engine.subscribe(all, "ORDER", 1);
+		engine.start();
+
+		engine.signal(EventImpl.createEvent("ORDER", engine), 1);
+		awaitTopics(all, "ORDER");
+		awaitTopics(first, "ORDER");
+		engine.signal(EventImpl.createEvent("ORDER", engine), 3);
+		awaitTopics(second, "ORDER");
+		engine.signal(EventImpl.createEvent("ORDER", engine), 4);
+		// an event without a key reaches every subscriber once
+		engine.signal(EventImpl.createEvent("ORDER", engine));
+		awaitTopics(all, "ORDER", "ORDER", "ORDER", "ORDER");
+		awaitTopics(first, "ORDER", "ORDER");
+		awaitTopics(second, "ORDER", "ORDER");
+
+		engine.unsubscribe(second, "ORDER", 3);
+		engine.signal(EventImpl.createEvent("ORDER", engine), 3);
+		// a wildcard subscription replaces the keyed ones
+		engine.subscribe(first, "ORDER");
+		engine.signal(EventImpl.createEvent("ORDER", engine), 2);
+		awaitTopics(first, "ORDER", "ORDER", "ORDER");
+		awaitTopics(second, "ORDER", "ORDER", "ORDER");
+		assertEquals(3, engine.getSubscriberTable().get("ORDER").size());
+		engine.stop().get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testRegisterAndStartAll() throws InterruptedException {
+		System.out.println("---------- testRegisterAndStartAll ----------");
+		Logger.forceLevel(Level.ERROR);
+		final EngineImpl engine = new EngineImpl("testRegisterAndStartAll", 2);
+		final int before = engine.getActors().size();
+		final List<AnActor> actors = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			actors.add(new AnActor(engine));
+		}
+		engine.registerAndStartAll(actors);
+		assertEquals(before + actors.size(), engine.getActors().size());
+		engine.start();
+		Thread.sleep(1000);
+		for (final AnActor actor : actors) {
+			assertTrue(actor.isStarted());
+		}
+		engine.stop();
+	}
+
+	@Test
+	void testRoute() throws Exception {
+		System.out.println("---------- testRoute ----------");
+		Logger.forceLevel(Level.ERROR);
+		final EngineImpl root = new EngineImpl("testRoute.root", 1);
+		final EngineImpl left = new EngineImpl("testRoute.left", root);
+		final EngineImpl right = new EngineImpl("testRoute.right", root);
+		final EngineImpl leaf = new EngineImpl("testRoute.leaf", right);
+		final Receiver onLeft = new Receiver(left);
+		final Receiver onRight = new Receiver(right);
+		final Receiver onLeaf = new Receiver(leaf);
+		left.registerAndStart(onLeft);
+		right.registerAndStart(onRight);
+		leaf.registerAndStart(onLeaf);
+		left.subscribe(onLeft, "X");
+		right.subscribe(onRight, "Y");
+		leaf.subscribe(onLeaf, "X");
+		// the interests climb the tree, the engines themselves do not count
+		assertTrue(right.getInterests().containsAll(Set.of("X", "Y")));
+		assertTrue(root.getInterests().containsAll(Set.of("X", "Y")));
+		assertFalse(left.getInterests().contains("Y"));
+		assertFalse(root.getInterests().contains(Engine.TIME_EVENT));
+		final Engine remote = mock(Engine.class);
+		root.addChild(remote);
+		root.start();
+
+		// up from the leaf, then down the other subtrees
+		leaf.route(EventImpl.createEvent("X", leaf));
+		awaitTopics(onLeaf, "X");
+		awaitTopics(onLeft, "X");
+		verify(remote, timeout(5000)).signal(argThat(event -> "X".equals(event.getTopic())));
+		right.route(EventImpl.createEvent("Y", right));
+		awaitTopics(onRight, "Y");
+		// a subscription change is advertised up the tree
+		leaf.unsubscribe(onLeaf, "X");
+		assertFalse(right.getInterests().contains("X"));
+		assertTrue(root.getInterests().contains("X"));
+		left.unsubscribe(onLeft, "X");
+		assertFalse(root.getInterests().contains("X"));
+		root.route(EventImpl.createEvent("X", root));
+		Thread.sleep(100);
+		assertEquals(List.of("X"), onLeft.topics);
+		assertEquals(List.of("X"), onLeaf.topics);
+		// the mock never stops by itself
+		root.signal(EventImpl.createEvent(Engine.STOPPED_ENGINE_EVENT, root, remote));
+		root.stop().get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testStopCompletesOnceTheTreeIsDown() throws Exception {
+		System.out.println("---------- testStopCompletesOnceTheTreeIsDown ----------");
+		Logger.forceLevel(Level.ERROR);
+		final EngineImpl parent = new EngineImpl("testStop.parent", 2);
+		final EngineImpl child = new EngineImpl("testStop.child", parent);
+		final List<AnActor> actors = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			actors.add(new AnActor(child));
+		}
+		child.registerAndStartAll(actors);
+		parent.getStatistics().counter("events").add(1);
+		child.getStatistics().counter("events").add(2);
+		child.getStatistics().tally("delay").add(3);
+		parent.start();
+		parent.stop().get(5, TimeUnit.SECONDS);
+		assertTrue(parent.getActors().isEmpty());
+		assertTrue(child.getActors().isEmpty());
+		assertTrue(child.stop().isDone());
+		// statistics are merged up the tree
+		assertEquals(3, parent.getStatistics().counter("events").getCount());
+		assertEquals(3, parent.getStatistics().tally("delay").getMean());
+	}
+
+	@Test
+	void testStopWithConflictingStatistics() throws Exception {
+		System.out.println("---------- testStopWithConflictingStatistics ----------");
+		Logger.forceLevel(Level.ERROR);
+		final EngineImpl parent = new EngineImpl("testConflict.parent", 2);
+		final EngineImpl child = new EngineImpl("testConflict.child", parent);
+		parent.getStatistics().counter("delay").add(1);
+		child.getStatistics().tally("delay").add(3);
+		child.getStatistics().counter("events").add(2);
+		parent.start();
+		// the conflict is logged, the tree stops anyway
+		parent.stop().get(5, TimeUnit.SECONDS);
+		assertTrue(child.getTermination().isDone());
+		assertEquals(1, parent.getStatistics().counter("delay").getCount());
+	}
+
+	@Test
+	void testStopMeWithBacklog() throws Exception {
+		System.out.println("---------- testStopMeWithBacklog ----------");
+		Logger.forceLevel(Level.ERROR);
+		final EngineImpl engine = new EngineImpl("testStopMeWithBacklog", 1);
+		final Stopper stopper = new Stopper(engine);
+		engine.registerAndStart(stopper);
+		engine.subscribe(stopper, "X");
+		engine.start();
+		engine.signal(EventImpl.createEvent("X", engine, 0));
+		assertTrue(stopper.received.await(5, TimeUnit.SECONDS));
+		// the backlog is left in the mailbox when the actor stops
+		for (int i = 0; i < 4; i++) {
+			engine.signal(EventImpl.createEvent("X", engine, 0));
+		}
+		stopper.release.countDown();
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (engine.getActors().slotOf(stopper) != ActorRegistry.NO_SLOT && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(ActorRegistry.NO_SLOT, engine.getActors().slotOf(stopper));
+		assertTrue(engine.getTerminationDetector().awaitQuiescence(3, TimeUnit.SECONDS));
+		engine.stop().get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testStopWhenIdle() throws Exception {
+		System.out.println("---------- testStopWhenIdle ----------");
+		Logger.forceLevel(Level.ERROR);
+		final EngineImpl engine = new EngineImpl("testStopWhenIdle", 1);
+		final List<AnActor> actors = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			actors.add(new AnActor(engine));
+		}
+		engine.registerAndStartAll(actors);
+		engine.setStopWhenIdle(true);
+		engine.start();
+		engine.awaitQuiescence();
+		engine.getTermination().get(10, TimeUnit.SECONDS);
+		assertTrue(engine.getActors().isEmpty());
+	}
+
 	@Test
 	void testRun() {
 		System.out.println("---------- testRun ----------");
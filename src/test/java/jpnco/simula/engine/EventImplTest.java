@@ -66,6 +66,9 @@ class EventImplTest {
 		assertEquals(1, (Integer) event.getParameters()[0]);
 		assertEquals(2, (Integer) event.getParameters()[1]);
 		assertEquals(3, (Integer) event.getParameters()[2]);
+		final EventImpl impl = (EventImpl) event;
+		assertEquals(3, impl.getParameterCount());
+		assertEquals(2, impl.getParameter(1));
 	}
 
 	@Test
@@ -0,0 +1,83 @@
+package jpnco.simula.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.jupiter.api.Test;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+
+class MailboxTest {
+
+	private static Event event(final String topic) {
+		final Event event = mock(Event.class);
+		when(event.getTopic()).thenReturn(topic);
+		return event;
+	}
+
+	@Test
+	void testClear() throws InterruptedException {
+		final Mailbox mailbox = new Mailbox(new LinkedBlockingQueue<>(), Mailbox.ACTOR_CONTROL_TOPICS);
+		mailbox.post(event("DATA"));
+		mailbox.post(event("DATA"));
+		final Event stop = event(Engine.STOP_EVENT);
+		mailbox.post(stop);
+		assertEquals(2, mailbox.clear());
+		assertEquals(1, mailbox.size());
+		assertSame(stop, mailbox.take());
+	}
+
+	@Test
+	void testClearAll() throws InterruptedException {
+		final Mailbox mailbox = new Mailbox(new LinkedBlockingQueue<>(), Mailbox.ACTOR_CONTROL_TOPICS);
+		mailbox.post(event("DATA"));
+		mailbox.post(event(Engine.STOP_EVENT));
+		assertEquals(2, mailbox.clearAll());
+		assertEquals(0, mailbox.size());
+		assertEquals(0, mailbox.clearAll());
+	}
+
+	@Test
+	void testControlEventsAreTakenFirst() throws InterruptedException {
+		final Mailbox mailbox = new Mailbox(new LinkedBlockingQueue<>(), Mailbox.ENGINE_CONTROL_TOPICS);
+		final Event data = event("DATA");
+		final Event stop = event(Engine.STOP_EVENT);
+		final Event time = event(Engine.TIME_EVENT);
+		for (int i = 0; i < 1000; i++) {
+			mailbox.post(data);
+		}
+		mailbox.post(stop);
+		mailbox.post(time);
+		assertSame(stop, mailbox.take());
+		assertSame(time, mailbox.take());
+		assertSame(data, mailbox.take());
+		assertEquals(999, mailbox.size());
+	}
+
+	@Test
+	void testDelayedEventWakesUpConsumer() throws InterruptedException {
+		final Engine engine = mock(Engine.class);
+		final Actor source = mock(Actor.class);
+		when(source.getEngine()).thenReturn(engine);
+		final Mailbox mailbox = new Mailbox(new DelayQueue<Event>(), Mailbox.ACTOR_CONTROL_TOPICS);
+		final Event delayed = EventImpl.createDelayedEvent("DATA", 100, source);
+		final long start = System.currentTimeMillis();
+		mailbox.post(delayed);
+		assertSame(delayed, mailbox.take());
+		assertTrue(System.currentTimeMillis() - start >= 90);
+		// a control event is not stuck behind a delayed event
+		mailbox.post(EventImpl.createDelayedEvent("DATA", 60_000, source));
+		final Event stop = event(Engine.STOP_EVENT);
+		new Thread(() -> mailbox.post(stop)).start();
+		assertSame(stop, mailbox.take());
+	}
+
+}
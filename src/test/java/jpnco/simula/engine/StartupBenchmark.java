@@ -0,0 +1,102 @@
+package jpnco.simula.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.Logger.Level;
+
+/**
+ * Measures the time needed to populate an engine with 1k, 10k and 100k actors,
+ * one by one with registerAndStart and in bulk with registerAndStartAll, until
+ * all the actors are running: the engine is started and the time is taken once
+ * every actor has processed its START event. The sizes can be given as
+ * arguments.
+ * <p>
+ * This is not a unit test. Run it with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=jpnco.simula.engine.StartupBenchmark
+ * </pre>
+ *
+ * @author Jean-Pascal Cozic
+ *
+ */
+public final class StartupBenchmark {
+
+	private static class IdleActor implements Actor {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Actor delegate;
+		private final CountDownLatch running;
+
+		IdleActor(final Engine engine, final CountDownLatch running) {
+			delegate = ActorDelegate.createDelegate(engine, this);
+			this.running = running;
+		}
+
+		@Override
+		public void afterStart() {
+			running.countDown();
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return delegate;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		@Override
+		public void process(final Event event) {
+		}
+	}
+
+	private static List<Actor> createActors(final Engine engine, final int count, final CountDownLatch running) {
+		final List<Actor> actors = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			actors.add(new IdleActor(engine, running));
+		}
+		return actors;
+	}
+
+	public static void main(final String[] args) throws InterruptedException {
+		Logger.forceLevel(Level.ERROR);
+		final int[] sizes = args.length > 0 ? new int[args.length] : new int[] { 1_000, 10_000, 100_000 };
+		for (int i = 0; i < args.length; i++) {
+			sizes[i] = Integer.parseInt(args[i]);
+		}
+		for (final int size : sizes) {
+			final long oneByOne = run(size, false);
+			final long bulk = run(size, true);
+			System.out.printf("%7d actors: registerAndStart %6d ms, registerAndStartAll %6d ms%n", size, oneByOne,
+					bulk);
+		}
+	}
+
+	private static long run(final int size, final boolean bulk) throws InterruptedException {
+		final EngineImpl engine = new EngineImpl("StartupBenchmark", 1);
+		final CountDownLatch running = new CountDownLatch(size);
+		final List<Actor> actors = createActors(engine, size, running);
+		final long start = System.nanoTime();
+		if (bulk) {
+			engine.registerAndStartAll(actors);
+		} else {
+			actors.forEach(engine::registerAndStart);
+		}
+		engine.start();
+		running.await();
+		final long elapsed = (System.nanoTime() - start) / 1_000_000;
+		// lets the actors stop before the next run
+		engine.stop().join();
+		return elapsed;
+	}
+
+}
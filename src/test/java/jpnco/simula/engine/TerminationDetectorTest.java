@@ -0,0 +1,119 @@
+package jpnco.simula.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+
+class TerminationDetectorTest {
+
+	private static Event event(final String topic) {
+		final Event event = mock(Event.class);
+		when(event.getTopic()).thenReturn(topic);
+		return event;
+	}
+
+	@Test
+	void testAwaitQuiescence() throws InterruptedException {
+		final TerminationDetector detector = new TerminationDetector(null);
+		detector.enter();
+		assertFalse(detector.awaitQuiescence(10, TimeUnit.MILLISECONDS));
+		final Thread consumer = new Thread(() -> detector.exit(event("TOPIC")));
+		consumer.start();
+		assertTrue(detector.awaitQuiescence(5, TimeUnit.SECONDS));
+		consumer.join();
+	}
+
+	@Test
+	void testCountsAreAggregatedByParent() {
+		final TerminationDetector root = new TerminationDetector(null);
+		final TerminationDetector child = new TerminationDetector(root);
+		child.enter();
+		root.enter();
+		assertEquals(1, child.getInFlight());
+		assertEquals(2, root.getInFlight());
+		child.exit(event("TOPIC"));
+		assertTrue(child.isQuiescent());
+		assertFalse(root.isQuiescent());
+		root.exit(event(Engine.TIME_EVENT));
+		assertTrue(root.isQuiescent());
+		assertEquals(1, child.getWork());
+		assertEquals(1, root.getWork());
+	}
+
+	@Test
+	void testOnlyTransitionsAreReportedToParent() {
+		final TerminationDetector root = new TerminationDetector(null);
+		final TerminationDetector child = new TerminationDetector(root);
+		root.setStopWhenIdle(true);
+		assertFalse(root.tick());
+		child.enter();
+		child.enter();
+		child.enter();
+		assertEquals(3, child.getInFlight());
+		assertEquals(1, root.getInFlight());
+		child.exit(event("TOPIC"));
+		child.exit(event(Engine.TIME_EVENT));
+		assertEquals(1, root.getInFlight());
+		assertEquals(0, root.getWork());
+		child.exit(event("TOPIC"));
+		assertTrue(root.isQuiescent());
+		assertEquals(2, child.getWork());
+		assertEquals(2, root.getWork());
+		// the work of the child is seen by the parent
+		assertFalse(root.tick());
+		assertTrue(root.tick());
+	}
+
+	@Test
+	void testOfEngineWithoutDetector() {
+		assertNotNull(TerminationDetector.of(mock(Engine.class)));
+	}
+
+	@Test
+	void testTick() {
+		final TerminationDetector detector = new TerminationDetector(null);
+		detector.setStopWhenIdle(true);
+		assertFalse(detector.tick());
+		// an event processed between two ticks
+		detector.enter();
+		detector.exit(event("TOPIC"));
+		assertFalse(detector.tick());
+		// only time events between two ticks
+		detector.enter();
+		detector.exit(event(Engine.TIME_EVENT));
+		assertTrue(detector.tick());
+		// a pending alarm
+		detector.enter();
+		assertFalse(detector.tick());
+		assertFalse(detector.tick());
+		detector.setStopWhenIdle(false);
+		detector.exit(false);
+		detector.tick();
+		assertFalse(detector.tick());
+	}
+
+	@Test
+	void testTransientNegativeCount() {
+		final TerminationDetector root = new TerminationDetector(null);
+		final TerminationDetector child = new TerminationDetector(root);
+		// an exit seen before its enter also takes the child away from 0
+		child.exit(true);
+		assertEquals(-1, child.getInFlight());
+		assertEquals(1, root.getInFlight());
+		child.enter();
+		assertTrue(child.isQuiescent());
+		assertTrue(root.isQuiescent());
+		assertEquals(1, root.getWork());
+	}
+
+}
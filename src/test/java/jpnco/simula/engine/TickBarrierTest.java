@@ -0,0 +1,104 @@
+package jpnco.simula.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import jpnco.simula.Engine;
+
+class TickBarrierTest {
+
+	@Test
+	void testCloseWaitsForEnteredGates() throws InterruptedException {
+		final TickBarrier barrier = new TickBarrier();
+		final TickBarrier.Gate gate = barrier.newGate();
+		gate.enter();
+		final AtomicBoolean closed = new AtomicBoolean();
+		final Thread closer = new Thread(() -> {
+			try {
+				barrier.close();
+				closed.set(true);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		closer.start();
+		Thread.sleep(50);
+		assertFalse(closed.get());
+		gate.exit();
+		closer.join(5000);
+		assertTrue(closed.get());
+		assertFalse(gate.tryEnter());
+		barrier.open();
+		assertTrue(gate.tryEnter());
+		// a gate that left is no longer waited for
+		gate.leave();
+		assertEquals(0, barrier.getGates());
+		barrier.close();
+		barrier.open();
+	}
+
+	@Test
+	void testEnterWaitsWhileClosed() throws InterruptedException {
+		final TickBarrier barrier = new TickBarrier();
+		final TickBarrier.Gate gate = barrier.newGate();
+		barrier.close();
+		final CountDownLatch entered = new CountDownLatch(1);
+		final Thread consumer = new Thread(() -> {
+			try {
+				gate.enter();
+				entered.countDown();
+				gate.exit();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		consumer.start();
+		assertFalse(entered.await(50, TimeUnit.MILLISECONDS));
+		barrier.open();
+		assertTrue(entered.await(5, TimeUnit.SECONDS));
+		consumer.join();
+	}
+
+	@Test
+	void testIdleCondition() throws InterruptedException {
+		final TickBarrier barrier = new TickBarrier();
+		final AtomicInteger pending = new AtomicInteger(1);
+		barrier.newGate(() -> pending.get() == 0);
+		final Thread drainer = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			pending.set(0);
+		});
+		drainer.start();
+		barrier.close();
+		assertEquals(0, pending.get());
+		barrier.open();
+		drainer.join();
+	}
+
+	@Test
+	void testOfEngine() {
+		final EngineImpl engine = new EngineImpl("testOfEngine", 1);
+		final EngineImpl child = new EngineImpl("child", engine);
+		// the engines of a tree share the barrier of the root engine
+		assertSame(engine.getBarrier(), child.getBarrier());
+		assertSame(engine.getBarrier(), TickBarrier.of(child));
+		assertNotNull(TickBarrier.of(mock(Engine.class)));
+		engine.stop();
+	}
+
+}
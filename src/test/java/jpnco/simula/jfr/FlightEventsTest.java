@@ -0,0 +1,54 @@
+package jpnco.simula.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import jpnco.simula.Engine;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.engine.EngineImpl;
+
+class FlightEventsTest {
+
+	private static boolean contains(final List<RecordedEvent> events, final String type, final String field,
+			final Object value) {
+		return events.stream().anyMatch(
+				event -> event.getEventType().getName().equals(type) && value.equals(event.getValue(field)));
+	}
+
+	@Test
+	void testEventsAreRecorded(@TempDir final Path directory) throws Exception {
+		Logger.forceLevel(Level.ERROR);
+		final Path dump = directory.resolve("simula.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(EventDispatched.class).withThreshold(Duration.ZERO);
+			recording.enable(EventProcessed.class).withThreshold(Duration.ZERO);
+			recording.enable(TickFired.class);
+			recording.enable(ActorStarted.class);
+			recording.enable(ActorStopped.class);
+			recording.start();
+			final EngineImpl engine = new EngineImpl("testEventsAreRecorded", 1);
+			engine.start();
+			Thread.sleep(1500);
+			engine.stop().get(10, TimeUnit.SECONDS);
+			recording.stop();
+			recording.dump(dump);
+		}
+		final List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+		assertTrue(contains(events, "jpnco.simula.EventDispatched", "topic", Engine.START_EVENT));
+		assertTrue(contains(events, "jpnco.simula.EventProcessed", "topic", Engine.STOP_EVENT));
+		assertTrue(contains(events, "jpnco.simula.TickFired", "tick", 1));
+		assertTrue(contains(events, "jpnco.simula.ActorStopped", "actor", "Logger:testEventsAreRecorded"));
+	}
+
+}
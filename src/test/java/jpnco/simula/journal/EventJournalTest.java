@@ -0,0 +1,265 @@
+package jpnco.simula.journal;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.engine.ActorDelegate;
+import jpnco.simula.engine.Codec;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.engine.EventImpl;
+import jpnco.simula.engine.EventRecord;
+import jpnco.simula.engine.EventRecord.ActorName;
+import jpnco.simula.engine.EventRecord.Kind;
+import jpnco.simula.engine.IdBuilder;
+
+class EventJournalTest {
+
+	/**
+	 * Keeps the events it receives.
+	 */
+	private static class Recorder implements Actor {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Actor delegate;
+		private final List<Event> events = Collections.synchronizedList(new ArrayList<>());
+		private final CountDownLatch received;
+
+		Recorder(final Engine engine, final int expected) {
+			delegate = ActorDelegate.createDelegate(engine, this);
+			received = new CountDownLatch(expected);
+		}
+
+		boolean await() throws InterruptedException {
+			return received.await(10, TimeUnit.SECONDS);
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return delegate;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		@Override
+		public void process(final Event event) {
+			events.add(event);
+			received.countDown();
+		}
+	}
+
+	private static final int EVENTS = 50;
+
+	@BeforeAll
+	static void setUpBeforeClass() {
+		Logger.forceLevel(Level.ERROR);
+	}
+
+	/**
+	 * Builds a tree of a root engine and a child engine running a recorder of the
+	 * "work" events.
+	 */
+	private static Recorder buildTree(final EngineImpl root, final int expected) {
+		final EngineImpl child = new EngineImpl("child", root);
+		final Recorder recorder = new Recorder(child, expected);
+		child.registerAndStart(recorder);
+		child.subscribe(recorder, "work");
+		return recorder;
+	}
+
+	@Test
+	void testBadJournal(@TempDir final Path directory) throws IOException {
+		assertThrows(IllegalArgumentException.class, () -> new EventJournal(directory, 16, new Codec()));
+		assertNull(new JournalReader(directory.resolve("none")).next());
+		final EngineImpl engine = new EngineImpl("testBadJournal", 1);
+		try (EventJournal journal = new EventJournal(directory, 64, new Codec())) {
+			assertThrows(IllegalArgumentException.class,
+					() -> journal.append(engine, EventImpl.createEvent("large", engine, new byte[64])));
+			// the topic and the names of the dropped event are defined again
+			journal.append(engine, EventImpl.createEvent("large", engine));
+		}
+		engine.stop();
+		final List<JournalRecord> records = new JournalReader(directory).readAll();
+		assertEquals(1, records.size());
+		assertEquals("large", records.get(0).event().topic());
+	}
+
+	@Test
+	void testConcurrentAppends(@TempDir final Path directory) throws Exception {
+		final EngineImpl engine = new EngineImpl("testConcurrentAppends", 1);
+		final int threads = 4;
+		final int count = 2000;
+		try (EventJournal journal = new EventJournal(directory, 1 << 14, new Codec())) {
+			final List<Thread> appenders = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				final int thread = t;
+				appenders.add(new Thread(() -> {
+					for (int i = 0; i < count; i++) {
+						// new topics are defined while the other threads append
+						journal.append(engine, EventImpl.createEvent("t" + i % 50, engine, thread, i));
+					}
+				}));
+			}
+			appenders.forEach(Thread::start);
+			for (final Thread appender : appenders) {
+				appender.join();
+			}
+			assertEquals(threads * count, journal.getAppended());
+		}
+		engine.stop();
+		final List<JournalRecord> records = new JournalReader(directory).readAll();
+		assertEquals(threads * count, records.size());
+		final int[] next = new int[threads];
+		for (final JournalRecord record : records) {
+			final Object[] parameters = record.event().parameters();
+			final int thread = (Integer) parameters[0];
+			final int i = (Integer) parameters[1];
+			assertEquals(next[thread]++, i);
+			assertEquals("t" + i % 50, record.event().topic());
+		}
+	}
+
+	@Test
+	void testReplay(@TempDir final Path directory) throws Exception {
+		final EngineImpl recorded = new EngineImpl("testReplay", 1);
+		final Recorder original = buildTree(recorded, EVENTS);
+		final EngineImpl child = (EngineImpl) original.getEngine();
+		final EventJournal journal = new EventJournal(directory);
+		recorded.setJournal(journal);
+		assertSame(journal, child.getJournal());
+		recorded.start();
+		for (int i = 0; i < EVENTS; i++) {
+			child.signal(EventImpl.createEvent("work", child, i, "payload " + i, original));
+		}
+		assertTrue(original.await());
+		recorded.stop().get(10, TimeUnit.SECONDS);
+		journal.close();
+
+		final EngineImpl fresh = new EngineImpl("testReplay", 1);
+		final Recorder replayed = buildTree(fresh, EVENTS);
+		fresh.start();
+		final Replay replay = new Replay(directory, fresh);
+		assertEquals(EVENTS, replay.run());
+		assertTrue(replay.getSkipped() > 0);
+		assertTrue(replayed.await());
+		fresh.stop().get(10, TimeUnit.SECONDS);
+		for (int i = 0; i < EVENTS; i++) {
+			final Event event = replayed.events.get(i);
+			assertEquals("work", event.getTopic());
+			assertEquals(child.getName(), event.getSource().getName());
+			assertEquals(i, event.getParameters()[0]);
+			assertEquals("payload " + i, event.getParameters()[1]);
+			// the actors of the recorded run are resolved in the fresh tree
+			assertSame(replayed, event.getParameters()[2]);
+		}
+	}
+
+	@Test
+	void testReplayWithDuplicateNames(@TempDir final Path directory) throws Exception {
+		final EngineImpl fresh = new EngineImpl("testReplayWithDuplicateNames", 1);
+		final EngineImpl child = (EngineImpl) buildTree(fresh, 0).getEngine();
+		// a second recorder gets the same default name
+		child.registerAndStart(new Recorder(child, 0));
+		fresh.start();
+		assertThrows(IOException.class, () -> new Replay(directory, fresh).run());
+		fresh.stop().get(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testReplayAtOriginalPacing(@TempDir final Path directory) throws Exception {
+		final EngineImpl recorded = new EngineImpl("testReplayAtOriginalPacing", 1);
+		try (EventJournal journal = new EventJournal(directory)) {
+			recorded.setJournal(journal);
+			for (int i = 0; i < 3; i++) {
+				recorded.signal(EventImpl.createEvent("tick", recorded, i));
+				Thread.sleep(30);
+			}
+			recorded.setJournal(null);
+		}
+		recorded.stop();
+		final List<JournalRecord> records = new JournalReader(directory).readAll();
+		final long span = records.getLast().nanos() - records.getFirst().nanos();
+		assertTrue(span >= TimeUnit.MILLISECONDS.toNanos(60));
+
+		final EngineImpl fresh = new EngineImpl("testReplayAtOriginalPacing", 1);
+		final Replay replay = new Replay(directory, fresh, new Codec(), Replay.Pacing.ORIGINAL,
+				topic -> true);
+		final long start = System.nanoTime();
+		assertEquals(3, replay.run());
+		assertTrue(System.nanoTime() - start >= span);
+		fresh.stop();
+	}
+
+	@Test
+	void testRoundTrip(@TempDir final Path directory) throws IOException {
+		final EngineImpl engine = new EngineImpl("testRoundTrip", 1);
+		final int count = 500;
+		try (EventJournal journal = new EventJournal(directory, 4096, new Codec())) {
+			for (int i = 0; i < count; i++) {
+				final Event event = switch (i % 3) {
+				case 0 -> EventImpl.createEvent("t" + i % 7, engine, i, (long) -i, i / 2.0, null, "s" + i);
+				case 1 -> EventImpl.createPriorityEvent("t" + i % 7, i, engine, true, 'c', (short) 3, (byte) -4,
+						1.5f, new byte[] { 1, 2, 3 }, engine);
+				default -> EventImpl.createDelayedEvent("t" + i % 7, 1000, engine, Level.INFO);
+				};
+				journal.append(engine, event);
+			}
+			assertEquals(count, journal.getAppended());
+			assertTrue(journal.getSegments() > 1);
+		}
+		engine.stop();
+		final List<JournalRecord> records = new JournalReader(directory).readAll();
+		assertEquals(count, records.size());
+		for (int i = 0; i < count; i++) {
+			final JournalRecord record = records.get(i);
+			assertEquals("testRoundTrip", record.engine());
+			final EventRecord event = record.event();
+			assertEquals("t" + i % 7, event.topic());
+			assertEquals("testRoundTrip", event.source());
+			switch (i % 3) {
+			case 0 -> {
+				assertEquals(Kind.STANDARD, event.kind());
+				assertArrayEquals(new Object[] { i, (long) -i, i / 2.0, null, "s" + i }, event.parameters());
+			}
+			case 1 -> {
+				assertEquals(Kind.PRIORITY, event.kind());
+				assertEquals(i, event.priority());
+				assertEquals(7, event.parameters().length);
+				assertArrayEquals(new Object[] { true, 'c', (short) 3, (byte) -4, 1.5f },
+						List.of(event.parameters()).subList(0, 5).toArray());
+				assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) event.parameters()[5]);
+				assertEquals(new ActorName("testRoundTrip"), event.parameters()[6]);
+			}
+			default -> {
+				assertEquals(Kind.DELAYED, event.kind());
+				assertTrue(event.delay() > 900 && event.delay() <= 1000);
+				assertArrayEquals(new Object[] { Level.INFO }, event.parameters());
+			}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package jpnco.simula.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jpnco.simula.Actor;
+import jpnco.simula.actors.Logger.Level;
+
+class BinaryLogSinkTest {
+
+	private static void writeRecords(final LogSink sink, final Actor source) {
+		for (int i = 0; i < 1000; i++) {
+			sink.write(Level.INFO, i, source, "%s %d %x %.2f %b %c %s %s\n",
+					new Object[] { null, "topic" + (i % 3), i, -i * 1_000_000_000L, i / 3.0, i % 2 == 0, 'c', Level.DEBUG,
+							null },
+					1);
+		}
+		sink.write(Level.PROBE, 1000, source, "%s\n", new Object[] { "x".repeat(100_000) }, 0);
+		sink.write(Level.ERROR, 1001, source, "%d\n", new Object[] { "not a number" }, 0);
+	}
+
+	@Test
+	void testDecodedTextIsTheFormattedText(@TempDir final Path directory) throws IOException {
+		final Actor source = mock(Actor.class);
+		when(source.getName()).thenReturn("Source:engine");
+		final Path log = directory.resolve("simula.log");
+		final BinaryLogSink binary = new BinaryLogSink(log);
+		writeRecords(binary, source);
+		binary.close();
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final TextLogSink text = new TextLogSink(new PrintStream(bytes), true);
+		writeRecords(text, source);
+		text.close();
+
+		final StringBuilder decoded = new StringBuilder();
+		try (var in = Files.newInputStream(log)) {
+			assertEquals(1002, new BinaryLogDecoder(in).decode(decoded));
+		}
+		assertEquals(bytes.toString(), decoded.toString());
+		// the dictionary makes the binary log smaller than the text
+		assertTrue(Files.size(log) < bytes.size());
+	}
+
+	@Test
+	void testNotABinaryLog() {
+		final BinaryLogDecoder decoder = new BinaryLogDecoder(new ByteArrayInputStream(new byte[8]));
+		assertThrows(IOException.class, () -> decoder.decode(new StringBuilder()));
+	}
+
+	@Test
+	void testSmallRecord() throws IOException {
+		final Actor source = mock(Actor.class);
+		when(source.getName()).thenReturn("Source:engine");
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final BinaryLogSink sink = new BinaryLogSink(Channels.newChannel(bytes));
+		sink.write(Level.INFO, 1, source, "%d\n", new Object[] { 1 }, 0);
+		sink.flush();
+		final int first = bytes.size();
+		sink.write(Level.INFO, 2, source, "%d\n", new Object[] { 2 }, 0);
+		sink.close();
+		// tag, format id, time, level, name id, count, type, value
+		assertEquals(8, bytes.size() - first);
+	}
+
+}
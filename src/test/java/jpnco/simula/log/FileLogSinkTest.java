@@ -0,0 +1,86 @@
+package jpnco.simula.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jpnco.simula.Actor;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.log.FileLogSink.Fsync;
+
+class FileLogSinkTest {
+
+	private static Actor source() {
+		final Actor source = mock(Actor.class);
+		when(source.getName()).thenReturn("Source:engine");
+		return source;
+	}
+
+	@Test
+	void testArgumentsAfterTheFormat(@TempDir final Path directory) throws IOException {
+		final Path log = directory.resolve("simula.log");
+		final FileLogSink sink = new FileLogSink(log, FileLogSink.UNLIMITED_SIZE, FileLogSink.UNLIMITED_AGE, 1,
+				Fsync.ON_FLUSH);
+		final Actor source = source();
+		sink.write(Level.INFO, 1, source, "%d %s\n", new Object[] { "%d %s\n", 1, "one" }, 1);
+		sink.write(Level.INFO, 2, source, "%d %s\n", new Object[] { "%d %s\n", 2, "two" }, 1);
+		// the arguments of the previous record are not reused
+		sink.write(Level.INFO, 3, source, "%d %s %s\n", new Object[] { "%d %s %s\n", 3, "three" }, 1);
+		sink.close();
+		final List<String> lines = Files.readAllLines(log);
+		assertEquals("1 INFO Source:engine 1 one", lines.get(0));
+		assertEquals("2 INFO Source:engine 2 two", lines.get(1));
+		assertTrue(lines.get(2).startsWith("3 INFO cannot format log record"));
+	}
+
+	@Test
+	void testRotationOnAge(@TempDir final Path directory) throws IOException, InterruptedException {
+		final Path log = directory.resolve("simula.log");
+		final FileLogSink sink = new FileLogSink(log, FileLogSink.UNLIMITED_SIZE, Duration.ofMillis(50), 1,
+				Fsync.ON_FLUSH);
+		final Actor source = source();
+		sink.write(Level.INFO, 1, source, "first\n", new Object[0], 0);
+		sink.flush();
+		Thread.sleep(100);
+		sink.write(Level.INFO, 2, source, "second é\n", new Object[0], 0);
+		sink.close();
+		assertEquals(List.of("1 INFO Source:engine first"), Files.readAllLines(directory.resolve("simula.log.1")));
+		assertEquals(List.of("2 INFO Source:engine second é"), Files.readAllLines(log));
+	}
+
+	@Test
+	void testRotationOnSize(@TempDir final Path directory) throws IOException {
+		final Path log = directory.resolve("simula.log");
+		final FileLogSink sink = new FileLogSink(log, 10_000, FileLogSink.UNLIMITED_AGE, 2, Fsync.ON_ROTATE);
+		final Actor source = source();
+		for (int i = 0; i < 10_000; i++) {
+			sink.write(Level.INFO, i, source, "record %d\n", new Object[] { i }, 0);
+			if (i % 100 == 0) {
+				sink.flush();
+			}
+		}
+		sink.close();
+		assertTrue(Files.exists(directory.resolve("simula.log.1")));
+		assertTrue(Files.exists(directory.resolve("simula.log.2")));
+		assertFalse(Files.exists(directory.resolve("simula.log.3")));
+		final List<String> older = Files.readAllLines(directory.resolve("simula.log.1"));
+		final List<String> last = Files.readAllLines(log);
+		// whole records, in order
+		assertTrue(Files.size(directory.resolve("simula.log.1")) <= 10_000);
+		assertEquals("9999 INFO Source:engine record 9999", last.getLast());
+		final int first = Integer.parseInt(last.getFirst().split(" ")[0]);
+		assertEquals(first - 1, Integer.parseInt(older.getLast().split(" ")[0]));
+	}
+
+}
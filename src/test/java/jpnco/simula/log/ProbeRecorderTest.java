@@ -0,0 +1,82 @@
+package jpnco.simula.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProbeRecorderTest {
+
+	@Test
+	void testEmptyRecorder(@TempDir final Path directory) throws IOException {
+		final Path path = directory.resolve("probes.bin");
+		new ProbeRecorder(path).close();
+		try (ProbeReader reader = new ProbeReader(path)) {
+			assertEquals(0, reader.getSampleCount());
+			assertEquals(List.of(), reader.getNames());
+		}
+	}
+
+	@Test
+	void testNotClosed(@TempDir final Path directory) throws IOException {
+		final Path path = directory.resolve("probes.bin");
+		final ProbeRecorder recorder = new ProbeRecorder(path, 16);
+		recorder.record(recorder.register("queue"), 1, 1L);
+		assertThrows(IOException.class, () -> new ProbeReader(path));
+		recorder.close();
+	}
+
+	@Test
+	void testRecordAndScan(@TempDir final Path directory) throws IOException, InterruptedException {
+		final Path path = directory.resolve("probes.bin");
+		final ProbeRecorder recorder = new ProbeRecorder(path, 100);
+		final int queue = recorder.register("queue");
+		final int delay = recorder.register("delay");
+		assertEquals(queue, recorder.register("queue"));
+		final List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 1000; i++) {
+					recorder.record(queue, i, (long) i);
+					recorder.record(delay, i, i / 2.0);
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		recorder.close();
+		// dropped
+		recorder.record(queue, 0, 0L);
+
+		try (ProbeReader reader = new ProbeReader(path)) {
+			assertEquals(List.of("queue", "delay"), reader.getNames());
+			assertEquals(delay, reader.getId("delay"));
+			assertEquals(8000, reader.getSampleCount());
+			final AtomicLong sum = new AtomicLong();
+			final AtomicLong count = new AtomicLong();
+			reader.scanLongs(queue, (time, value) -> {
+				assertEquals(time, value);
+				sum.addAndGet(value);
+				count.incrementAndGet();
+			});
+			assertEquals(4000, count.get());
+			assertEquals(4 * 999 * 1000 / 2, sum.get());
+			reader.scanDoubles(delay, (time, value) -> assertEquals(time / 2.0, value));
+			count.set(0);
+			reader.forEach((time, probe, value) -> count.incrementAndGet());
+			assertEquals(8000, count.get());
+		}
+		assertEquals(16 + 80 * (8 + 100 * 16) + 4 + 9 + 9 + 16, Files.size(path));
+	}
+
+}
@@ -0,0 +1,116 @@
+package jpnco.simula.management;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.engine.ActorDelegate;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.engine.IdBuilder;
+
+class ManagementTest {
+
+	private static class AnActor implements Actor {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Actor delegate;
+
+		AnActor(final Engine engine) {
+			delegate = ActorDelegate.createDelegate(engine, this);
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return delegate;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		@Override
+		public void process(final Event event) {
+		}
+	}
+
+	@AfterEach
+	void disable() {
+		Management.setEnabled(false);
+	}
+
+	@Test
+	void testRegisteredBeforeDisableAreUnregistered() throws Exception {
+		Logger.forceLevel(Level.ERROR);
+		Management.setEnabled(true);
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final EngineImpl root = new EngineImpl("jmxDisabled", 1);
+		final AnActor actor = new AnActor(root);
+		root.registerAndStart(actor);
+		root.start();
+		final ObjectName pattern = new ObjectName("jpnco.simula:e0=jmxDisabled,*");
+		assertFalse(server.queryNames(pattern, null).isEmpty());
+
+		Management.setEnabled(false);
+		root.stop().get(10, TimeUnit.SECONDS);
+		assertTrue(server.queryNames(pattern, null).isEmpty());
+	}
+
+	@Test
+	void testTreeIsRegisteredAndUnregistered() throws Exception {
+		Logger.forceLevel(Level.ERROR);
+		Management.setEnabled(true);
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final EngineImpl root = new EngineImpl("jmxRoot", 1);
+		final EngineImpl child = new EngineImpl("jmx:child", root);
+		final AnActor actor = new AnActor(child);
+		child.registerAndStartAll(List.of(actor));
+		root.start();
+
+		final ObjectName rootName = new ObjectName("jpnco.simula:e0=jmxRoot,type=Engine");
+		final ObjectName childName = Management.engineName(child);
+		assertEquals("jpnco.simula:e0=jmxRoot,e1=\"jmx:child\",type=Engine", childName.toString());
+		assertTrue(server.isRegistered(rootName));
+		assertTrue(server.isRegistered(childName));
+		assertTrue(server.isRegistered(new ObjectName("jpnco.simula:e0=jmxRoot,type=TimeSource")));
+		final ObjectName actorName = Management.actorName(child, actor);
+		assertTrue(server.isRegistered(actorName));
+		// the logger, the time source and the engine of the root, the logger, the
+		// actor and the engine of the child
+		final Set<ObjectName> names = server.queryNames(new ObjectName("jpnco.simula:e0=jmxRoot,*"), null);
+		assertEquals(6, names.size());
+
+		assertEquals(1, server.getAttribute(rootName, "ChildCount"));
+		assertEquals(2, server.getAttribute(childName, "ActorCount"));
+		assertEquals(1, server.getAttribute(new ObjectName("jpnco.simula:e0=jmxRoot,type=TimeSource"),
+				"TimeFactor"));
+		final String subscribers = (String) server.invoke(childName, "dumpSubscribers", null, null);
+		assertTrue(subscribers.contains(Engine.START_EVENT + ": "));
+		server.invoke(actorName, "changeLogLevel", new Object[] { "DEBUG" }, new String[] { String.class.getName() });
+		Logger.forceLevel(null);
+		assertTrue(Logger.isActivated(actor, Level.INFO));
+		Logger.forceLevel(Level.ERROR);
+
+		server.invoke(rootName, "requestStop", null, null);
+		root.getTermination().get(10, TimeUnit.SECONDS);
+		assertTrue(server.queryNames(new ObjectName("jpnco.simula:e0=jmxRoot,*"), null).isEmpty());
+		assertFalse(server.isRegistered(actorName));
+	}
+
+}
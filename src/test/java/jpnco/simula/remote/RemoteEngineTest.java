@@ -0,0 +1,286 @@
+package jpnco.simula.remote;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.engine.ActorDelegate;
+import jpnco.simula.engine.Codec;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.engine.EventImpl;
+import jpnco.simula.engine.IdBuilder;
+
+class RemoteEngineTest {
+
+	/**
+	 * Answers each "ping" with a "pong" and the first TIME with a "tock", both
+	 * signaled to the parent of its engine.
+	 */
+	private static class Echo implements Actor {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Actor delegate;
+		private boolean ticked = false;
+
+		Echo(final Engine engine) {
+			delegate = ActorDelegate.createDelegate(engine, this);
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return delegate;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		@Override
+		public void process(final Event event) {
+			final Engine parent = getEngine().getParent();
+			if (Engine.TIME_EVENT.equals(event.getTopic())) {
+				if (!ticked) {
+					ticked = true;
+					parent.signal(EventImpl.createEvent("tock", this, event.getParameters()[0]));
+				}
+			} else {
+				parent.signal(EventImpl.createEvent("pong", this, event.getParameters()[0]));
+			}
+		}
+	}
+
+	/**
+	 * The model of the hosted engine: an echo.
+	 */
+	public static class EchoModel implements Consumer<Engine> {
+
+		@Override
+		public void accept(final Engine engine) {
+			final Echo echo = new Echo(engine);
+			engine.registerAndStart(echo);
+			engine.subscribe(echo, "ping");
+			engine.subscribe(echo, Engine.TIME_EVENT);
+		}
+	}
+
+	/**
+	 * Keeps the events it receives.
+	 */
+	private static class Recorder implements Actor {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Actor delegate;
+		private final List<Event> pongs = Collections.synchronizedList(new ArrayList<>());
+		private final CountDownLatch received;
+		private final CountDownLatch ticked = new CountDownLatch(1);
+
+		Recorder(final Engine engine, final int expected) {
+			delegate = ActorDelegate.createDelegate(engine, this);
+			received = new CountDownLatch(expected);
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return delegate;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		@Override
+		public void process(final Event event) {
+			if ("tock".equals(event.getTopic())) {
+				ticked.countDown();
+			} else {
+				pongs.add(event);
+				received.countDown();
+			}
+		}
+	}
+
+	private static final int EVENTS = 1000;
+
+	@BeforeAll
+	static void setUpBeforeClass() {
+		Logger.forceLevel(Level.ERROR);
+	}
+
+	private static Path locationOf(final Class<?> type) throws Exception {
+		return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+	}
+
+	/**
+	 * Pings the remote engine, waits for the pongs and the first tick, then stops
+	 * the tree.
+	 */
+	private static void pingPong(final EngineImpl root, final RemoteEngine remote, final Recorder recorder)
+			throws Exception {
+		assertSame(root, remote.getParent());
+		assertTrue(root.getChildren().contains(remote));
+		root.start();
+		for (int i = 0; i < EVENTS; i++) {
+			remote.signal(EventImpl.createEvent("ping", root, i));
+		}
+		assertTrue(recorder.received.await(20, TimeUnit.SECONDS));
+		for (int i = 0; i < EVENTS; i++) {
+			final Event pong = recorder.pongs.get(i);
+			assertEquals(i, pong.getParameters()[0]);
+			assertEquals("Echo:remote", pong.getSource().getName());
+		}
+		// TIME is forwarded by the root to its remote child
+		assertTrue(recorder.ticked.await(20, TimeUnit.SECONDS));
+		assertTrue(remote.getSentEvents() > EVENTS);
+		assertTrue(remote.getSentFrames() <= remote.getSentEvents());
+		root.stop().get(20, TimeUnit.SECONDS);
+		remote.getTermination().get(20, TimeUnit.SECONDS);
+		assertFalse(root.getChildren().contains(remote));
+	}
+
+	@Test
+	void testChildProcess(@TempDir final Path directory) throws Exception {
+		final String classPath = locationOf(EngineHost.class) + File.pathSeparator
+				+ locationOf(RemoteEngineTest.class);
+		final Path output = directory.resolve("host.out");
+		final Process host = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+				"-cp", classPath, EngineHost.class.getName(), "0", EchoModel.class.getName())
+				.redirectErrorStream(true).redirectOutput(output.toFile()).start();
+		try {
+			int port = -1;
+			final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+			while (port < 0 && System.nanoTime() < deadline && host.isAlive()) {
+				for (final String line : Files.readAllLines(output)) {
+					if (line.startsWith(EngineHost.PORT_PREFIX)) {
+						port = Integer.parseInt(line.substring(EngineHost.PORT_PREFIX.length()).trim());
+					}
+				}
+				Thread.sleep(20);
+			}
+			assertTrue(port > 0, () -> "no port in " + output);
+
+			final EngineImpl root = new EngineImpl("testChildProcess", 1);
+			final Recorder recorder = new Recorder(root, EVENTS);
+			root.registerAndStart(recorder);
+			root.subscribe(recorder, "pong");
+			root.subscribe(recorder, "tock");
+			final RemoteEngine remote = RemoteEngine.connect("remote", root,
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+			pingPong(root, remote, recorder);
+			// the host exits once its engine is stopped
+			assertTrue(host.waitFor(20, TimeUnit.SECONDS));
+			assertEquals(0, host.exitValue());
+		} finally {
+			host.destroyForcibly();
+		}
+	}
+
+	@Test
+	void testRouteOutOfTheRemoteSubtree() throws Exception {
+		try (EngineHost host = new EngineHost(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+				new Codec())) {
+			final CompletableFuture<EngineImpl> hosted = CompletableFuture.supplyAsync(() -> {
+				try {
+					return host.serve(new EchoModel());
+				} catch (final Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			final EngineImpl root = new EngineImpl("testRouteOutOfTheRemoteSubtree", 1);
+			final EngineImpl sibling = new EngineImpl("sibling", root);
+			final Recorder recorder = new Recorder(sibling, 10);
+			sibling.registerAndStart(recorder);
+			sibling.subscribe(recorder, "pong");
+			final RemoteEngine remote = RemoteEngine.connect("remote", root,
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), host.getPort()));
+			final EngineImpl engine = hosted.get(10, TimeUnit.SECONDS);
+			root.start();
+			for (int i = 0; i < 10; i++) {
+				remote.signal(EventImpl.createEvent("ping", root, i));
+			}
+			// the pongs signaled to the parent of the remote engine reach the sibling
+			assertTrue(recorder.received.await(20, TimeUnit.SECONDS));
+			// one stand-in per remote actor
+			assertSame(recorder.pongs.get(0).getSource(), recorder.pongs.get(9).getSource());
+			root.stop().get(20, TimeUnit.SECONDS);
+			engine.getTermination().get(10, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	void testSharedMemory(@TempDir final Path directory) throws Exception {
+		final String classPath = locationOf(EngineHost.class) + File.pathSeparator
+				+ locationOf(RemoteEngineTest.class);
+		final Path file = directory.resolve("rings");
+		final Process host = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+				"-cp", classPath, EngineHost.class.getName(), file.toString(), EchoModel.class.getName())
+				.redirectErrorStream(true).redirectOutput(directory.resolve("host.out").toFile()).start();
+		try {
+			final EngineImpl root = new EngineImpl("testSharedMemory", 1);
+			final Recorder recorder = new Recorder(root, EVENTS);
+			root.registerAndStart(recorder);
+			root.subscribe(recorder, "pong");
+			root.subscribe(recorder, "tock");
+			final RemoteEngine remote = RemoteEngine.attach("remote", root, file, 20_000);
+			pingPong(root, remote, recorder);
+			assertTrue(host.waitFor(20, TimeUnit.SECONDS));
+			assertEquals(0, host.exitValue());
+			// the host deletes the file of the rings
+			assertFalse(Files.exists(file));
+		} finally {
+			host.destroyForcibly();
+		}
+	}
+
+	@Test
+	void testLoopback() throws Exception {
+		try (EngineHost host = new EngineHost(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+				new Codec())) {
+			final CompletableFuture<EngineImpl> hosted = CompletableFuture.supplyAsync(() -> {
+				try {
+					return host.serve(new EchoModel());
+				} catch (final Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			final EngineImpl root = new EngineImpl("testLoopback", 1);
+			final Recorder recorder = new Recorder(root, EVENTS);
+			root.registerAndStart(recorder);
+			root.subscribe(recorder, "pong");
+			root.subscribe(recorder, "tock");
+			final RemoteEngine remote = RemoteEngine.connect("remote", root,
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), host.getPort()));
+			final EngineImpl engine = hosted.get(10, TimeUnit.SECONDS);
+			assertEquals("remote", engine.getName());
+			assertThrows(UnsupportedOperationException.class, () -> remote.subscribe(recorder, "ping"));
+			pingPong(root, remote, recorder);
+			engine.getTermination().get(10, TimeUnit.SECONDS);
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+package jpnco.simula.remote;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RingFrameChannelTest {
+
+	private static final int CAPACITY = 4096;
+
+	private static ByteBuffer frame(final int index, final int length) {
+		final ByteBuffer frame = ByteBuffer.allocate(length);
+		while (frame.hasRemaining()) {
+			frame.put((byte) (index + frame.position()));
+		}
+		return frame.flip();
+	}
+
+	@Test
+	void testBadFiles(@TempDir final Path directory) throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> RingFrameChannel.create(directory.resolve("a"), 5000));
+		final Path empty = Files.createFile(directory.resolve("empty"));
+		assertThrows(IOException.class, () -> RingFrameChannel.open(empty, 10));
+		try (RingFrameChannel creator = RingFrameChannel.create(directory.resolve("rings"), CAPACITY)) {
+			assertThrows(IOException.class, () -> creator.write(frame(0, CAPACITY / 2)));
+		}
+		// the creator deletes the file
+		assertFalse(Files.exists(directory.resolve("rings")));
+	}
+
+	@Test
+	void testBothWays(@TempDir final Path directory) throws Exception {
+		final Path file = directory.resolve("rings");
+		try (RingFrameChannel creator = RingFrameChannel.create(file, CAPACITY);
+				RingFrameChannel opener = RingFrameChannel.open(file, 1000)) {
+			opener.write(frame(1, 10));
+			creator.write(frame(2, 20));
+			assertEquals(frame(1, 10), creator.read());
+			assertEquals(frame(2, 20), opener.read());
+			opener.close();
+			assertNull(creator.read());
+		}
+	}
+
+	@Test
+	void testWrapAround(@TempDir final Path directory) throws Exception {
+		final Path file = directory.resolve("rings");
+		final int frames = 10_000;
+		try (RingFrameChannel creator = RingFrameChannel.create(file, CAPACITY);
+				RingFrameChannel opener = RingFrameChannel.open(file, 1000)) {
+			// many times the capacity, with lengths that do not divide it
+			final CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+				try {
+					for (int i = 0; i < frames; i++) {
+						opener.write(frame(i, 1 + i % 700));
+					}
+					opener.close();
+				} catch (final IOException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			for (int i = 0; i < frames; i++) {
+				assertEquals(frame(i, 1 + i % 700), creator.read());
+			}
+			assertNull(creator.read());
+			producer.get(10, TimeUnit.SECONDS);
+			assertTrue(producer.isDone());
+		}
+	}
+
+}
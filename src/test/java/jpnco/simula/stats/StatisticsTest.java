@@ -0,0 +1,96 @@
+package jpnco.simula.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class StatisticsTest {
+
+	@Test
+	void testHistogram() {
+		final Histogram histogram = new Histogram("h", 0, 10, 5);
+		for (int i = -1; i <= 10; i++) {
+			histogram.add(i);
+		}
+		assertEquals("[2, 2, 2, 2, 2]", Arrays.toString(histogram.getCounts()));
+		assertEquals(1, histogram.getUnderflow());
+		assertEquals(1, histogram.getOverflow());
+		assertThrows(IllegalArgumentException.class, () -> histogram.merge(new Histogram("h", 0, 10, 4)));
+	}
+
+	@Test
+	void testMergeAndReport() {
+		final Statistics parent = new Statistics();
+		final Statistics child = new Statistics();
+		parent.counter("count").add(2);
+		child.counter("count").increment();
+		child.quantiles("delay").add(1);
+		child.timeWeighted("queue").update(0, 2);
+		child.advanceTo(10);
+		parent.merge(child);
+		assertEquals(3, parent.counter("count").getCount());
+		assertEquals(1, parent.quantiles("delay").getCount());
+		assertEquals(2, parent.timeWeighted("queue").getMean());
+		assertThrows(IllegalArgumentException.class, () -> parent.tally("count"));
+		final String[] lines = parent.report().split("\\R");
+		assertEquals(3, lines.length);
+		assertTrue(lines[0].startsWith("counter count count=3"));
+		assertTrue(lines[1].startsWith("quantiles delay count=1"));
+		assertTrue(lines[2].startsWith("time-weighted queue mean=2"));
+	}
+
+	@Test
+	void testQuantileSketch() {
+		final Random random = new Random(42);
+		final QuantileSketch first = new QuantileSketch("q");
+		final QuantileSketch second = new QuantileSketch("q");
+		final double[] values = new double[100_000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Math.exp(random.nextGaussian() * 3) * (i % 10 == 0 ? -1 : 1);
+			(i % 2 == 0 ? first : second).add(values[i]);
+		}
+		first.add(0);
+		first.merge(second);
+		final double[] sorted = Arrays.copyOf(values, values.length + 1);
+		Arrays.sort(sorted);
+		for (final double quantile : new double[] { 0, 0.01, 0.05, 0.5, 0.9, 0.99, 1 }) {
+			final double expected = sorted[(int) (quantile * (sorted.length - 1))];
+			final double actual = first.getQuantile(quantile);
+			assertEquals(expected, actual, Math.abs(expected) * QuantileSketch.DEFAULT_ACCURACY, "q" + quantile);
+		}
+	}
+
+	@Test
+	void testTally() {
+		final Tally tally = new Tally("t");
+		final Tally other = new Tally("t");
+		for (int i = 1; i <= 10; i++) {
+			(i <= 3 ? tally : other).add(i);
+		}
+		tally.merge(other);
+		assertEquals(10, tally.getCount());
+		assertEquals(5.5, tally.getMean(), 1e-12);
+		assertEquals(55.0 / 6, tally.getVariance(), 1e-12);
+		assertEquals(1, tally.getMin());
+		assertEquals(10, tally.getMax());
+	}
+
+	@Test
+	void testTimeWeighted() {
+		final TimeWeighted queue = new TimeWeighted("queue");
+		queue.update(10, 1);
+		queue.update(20, 3);
+		queue.update(30, 0);
+		queue.advanceTo(40);
+		assertEquals(30, queue.getDuration());
+		assertEquals((10 * 1 + 10 * 3) / 30.0, queue.getMean(), 1e-12);
+		assertEquals(0, queue.getMin());
+		assertEquals(3, queue.getMax());
+	}
+
+}
@@ -0,0 +1,191 @@
+package jpnco.simula.trace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jpnco.simula.Actor;
+import jpnco.simula.Engine;
+import jpnco.simula.Event;
+import jpnco.simula.actors.Logger;
+import jpnco.simula.actors.Logger.Level;
+import jpnco.simula.engine.ActorDelegate;
+import jpnco.simula.engine.EngineImpl;
+import jpnco.simula.engine.EventImpl;
+import jpnco.simula.engine.IdBuilder;
+
+class TracingTest {
+
+	/**
+	 * Signals "pong" for each "ping".
+	 */
+	private static class PingActor implements Actor {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Actor delegate;
+
+		PingActor(final Engine engine) {
+			delegate = ActorDelegate.createDelegate(engine, this);
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return delegate;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		@Override
+		public void process(final Event event) {
+			getEngine().signal(EventImpl.createEvent("pong", this));
+		}
+	}
+
+	/**
+	 * Counts down a latch for each "pong".
+	 */
+	private static class PongActor implements Actor {
+
+		private final Integer id = IdBuilder.nextId();
+		private final Actor delegate;
+		private final CountDownLatch received;
+
+		PongActor(final Engine engine, final CountDownLatch received) {
+			delegate = ActorDelegate.createDelegate(engine, this);
+			this.received = received;
+		}
+
+		@Override
+		public Actor getDelegate() {
+			return delegate;
+		}
+
+		@Override
+		public Integer getId() {
+			return id;
+		}
+
+		@Override
+		public void process(final Event event) {
+			// works longer than ping, so its span ends last even if the thread of
+			// ping is descheduled once pong is signaled
+			try {
+				Thread.sleep(50);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			received.countDown();
+		}
+	}
+
+	@BeforeAll
+	static void setUpBeforeClass() {
+		Logger.forceLevel(Level.ERROR);
+	}
+
+	@AfterEach
+	void tearDown() {
+		Tracing.setRecorder(null);
+		Tracing.setSamplingRate(1);
+	}
+
+	@Test
+	void testCausalChain(@TempDir final Path directory) throws Exception {
+		final Path file = directory.resolve("spans.jsonl");
+		final SpanRecorder recorder = new SpanRecorder(1024, file);
+		final EngineImpl engine = new EngineImpl("testCausalChain", 1);
+		final PingActor ping = new PingActor(engine);
+		final CountDownLatch received = new CountDownLatch(1);
+		final PongActor pong = new PongActor(engine, received);
+		engine.registerAndStartAll(List.of(ping, pong));
+		engine.subscribe(ping, "ping");
+		engine.subscribe(pong, "pong");
+		engine.start();
+		Tracing.setRecorder(recorder);
+		final Event event = EventImpl.createEvent("ping", engine);
+		final TraceContext root = event.getTrace();
+		assertTrue(root.isRoot() && root.isSampled());
+		engine.signal(event);
+		assertTrue(received.await(10, TimeUnit.SECONDS));
+		// the span of pong is recorded once its process returns
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (recorder.getTrace(root.traceId()).size() < 2 && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		engine.stop().get(10, TimeUnit.SECONDS);
+		recorder.close();
+
+		final List<Span> path = recorder.criticalPath(root.traceId());
+		assertEquals(2, path.size());
+		assertEquals("ping", path.get(0).topic());
+		assertEquals(ping.getName(), path.get(0).actor());
+		assertEquals(root.eventId(), path.get(0).eventId());
+		assertEquals("pong", path.get(1).topic());
+		assertEquals(pong.getName(), path.get(1).actor());
+		assertEquals(root.eventId(), path.get(1).parentId());
+		assertTrue(path.get(1).queueNanos() >= 0 && path.get(1).serviceNanos() >= 0);
+		final List<String> lines = Files.readAllLines(file);
+		assertEquals(recorder.getRecorded(), lines.size());
+		assertTrue(lines.contains(String.format(
+				"{\"trace\":%d,\"event\":%d,\"parent\":0,\"topic\":\"ping\",\"source\":\"%s\",\"actor\":\"%s\",\"created\":%d,\"start\":%d,\"end\":%d}",
+				root.traceId(), root.eventId(), engine.getName(), ping.getName(), path.get(0).createdNanos(),
+				path.get(0).startNanos(), path.get(0).endNanos())));
+	}
+
+	@Test
+	void testDisabled() {
+		assertFalse(Tracing.isEnabled());
+		final Event event = mock(Event.class);
+		assertEquals(0, Tracing.begin(event));
+		assertNull(Tracing.current());
+	}
+
+	@Test
+	void testSampling() {
+		Tracing.setRecorder(new SpanRecorder(16));
+		Tracing.setSamplingRate(0);
+		final TraceContext unsampled = Tracing.next();
+		assertSame(TraceContext.UNSAMPLED, unsampled);
+		// the children of an unsampled event are not sampled, whatever the rate
+		Tracing.setSamplingRate(1);
+		final Event event = mock(Event.class);
+		when(event.getTrace()).thenReturn(unsampled);
+		assertEquals(0, Tracing.begin(event));
+		assertSame(TraceContext.UNSAMPLED, Tracing.next());
+		Tracing.end(event, mock(Actor.class), 0);
+		assertNull(Tracing.current());
+		assertTrue(Tracing.next().isRoot());
+	}
+
+	@Test
+	void testRingKeepsTheLastSpans() {
+		final SpanRecorder recorder = new SpanRecorder(4);
+		for (int i = 1; i <= 10; i++) {
+			recorder.record(new Span(i, i, TraceContext.NO_PARENT, "t", "s", "a", 0, 1, 2));
+		}
+		final List<Span> spans = recorder.getSpans();
+		assertEquals(4, spans.size());
+		assertEquals(7, spans.get(0).traceId());
+		assertEquals(10, recorder.getRecorded());
+		assertTrue(recorder.criticalPath(1).isEmpty());
+	}
+
+}